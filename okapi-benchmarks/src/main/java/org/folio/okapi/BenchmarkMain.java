@@ -0,0 +1,44 @@
+package org.folio.okapi;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks like {@code org.openjdk.jmh.Main}, but writes results as JSON unless
+ * another result format is given, so that results of releases can be compared.
+ */
+public class BenchmarkMain {
+
+  static final String RESULT_FILE = "okapi-benchmarks.json";
+
+  private BenchmarkMain() {
+  }
+
+  /**
+   * Run benchmarks.
+   * @param args JMH command line options; {@code -h} for help
+   * @throws Exception if options are invalid or benchmarks fail
+   */
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cmdOptions = new CommandLineOptions(args);
+    if (cmdOptions.shouldHelp()) {
+      cmdOptions.showHelp();
+      return;
+    }
+    if (cmdOptions.shouldList()) {
+      new Runner(cmdOptions).list();
+      return;
+    }
+    ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmdOptions);
+    if (!cmdOptions.getResultFormat().hasValue()) {
+      builder.resultFormat(ResultFormatType.JSON);
+      if (!cmdOptions.getResult().hasValue()) {
+        builder.result(RESULT_FILE);
+      }
+    }
+    new Runner(builder.build()).run();
+  }
+}
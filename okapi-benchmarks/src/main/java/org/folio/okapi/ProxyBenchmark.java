@@ -0,0 +1,121 @@
+package org.folio.okapi;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.concurrent.TimeUnit;
+import org.folio.okapi.common.XOkapiHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end request through Okapi's ProxyService to okapi-test-module, both running
+ * in the same process with in-memory storage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyBenchmark {
+
+  static final int OKAPI_PORT = 9230;
+  static final int MODULE_PORT = 9231;
+  static final String TENANT = "bench";
+  static final String MODULE_ID = "test-module-1.0.0";
+
+  Vertx vertx;
+  HttpClient httpClient;
+
+  private Future<Buffer> call(HttpMethod method, String path, JsonObject body,
+      int expectedStatus) {
+    RequestOptions options = new RequestOptions()
+        .setMethod(method)
+        .setPort(OKAPI_PORT)
+        .setHost("localhost")
+        .setURI(path)
+        .putHeader(XOkapiHeaders.TENANT, TENANT);
+    return httpClient.request(options)
+        .compose(req -> body == null ? req.send() : req.send(body.toBuffer()))
+        .compose(res -> res.body().compose(buf -> {
+          if (res.statusCode() != expectedStatus) {
+            return Future.failedFuture(path + ": " + res.statusCode() + " " + buf);
+          }
+          return Future.succeededFuture(buf);
+        }));
+  }
+
+  /**
+   * Start Okapi and okapi-test-module, then create a tenant with the module enabled.
+   */
+  @Setup
+  public void setup() throws Exception {
+    vertx = Vertx.vertx();
+    httpClient = vertx.createHttpClient();
+    JsonObject conf = new JsonObject()
+        .put("port", Integer.toString(OKAPI_PORT))
+        .put("storage", "inmemory");
+    JsonObject md = new JsonObject()
+        .put("id", MODULE_ID)
+        .put("provides", new JsonArray().add(new JsonObject()
+            .put("id", "test-basic")
+            .put("version", "2.2")
+            .put("handlers", new JsonArray().add(new JsonObject()
+                .put("methods", new JsonArray().add("GET").add("POST"))
+                .put("pathPattern", "/testb")))));
+    Future<?> future = vertx.deployVerticle(MainVerticle.class.getName(),
+            new DeploymentOptions().setConfig(conf))
+        .compose(x -> {
+          // okapi-test-module takes its port from system properties only
+          System.setProperty("port", Integer.toString(MODULE_PORT));
+          return vertx.deployVerticle("org.folio.okapi.sample.MainVerticle")
+              .eventually(() -> {
+                System.clearProperty("port");
+                return Future.succeededFuture();
+              });
+        })
+        .compose(x -> call(HttpMethod.POST, "/_/proxy/modules", md, 201))
+        .compose(x -> call(HttpMethod.POST, "/_/discovery/modules", new JsonObject()
+            .put("srvcId", MODULE_ID)
+            .put("instId", "inst1")
+            .put("url", "http://localhost:" + MODULE_PORT), 201))
+        .compose(x -> call(HttpMethod.POST, "/_/proxy/tenants",
+            new JsonObject().put("id", TENANT), 201))
+        .compose(x -> call(HttpMethod.POST, "/_/proxy/tenants/" + TENANT + "/modules",
+            new JsonObject().put("id", MODULE_ID), 201));
+    future.toCompletionStage().toCompletableFuture().get(60, TimeUnit.SECONDS);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    vertx.close().toCompletionStage().toCompletableFuture().get(60, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public Buffer get() throws Exception {
+    return call(HttpMethod.GET, "/testb", null, 200)
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public Buffer post() throws Exception {
+    return call(HttpMethod.POST, "/testb", new JsonObject().put("title", "benchmark"), 200)
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+}
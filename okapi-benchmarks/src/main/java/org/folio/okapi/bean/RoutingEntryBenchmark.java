@@ -0,0 +1,57 @@
+package org.folio.okapi.bean;
+
+import io.vertx.core.http.HttpMethod;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matching of a request path against the path pattern of a {@link RoutingEntry}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoutingEntryBenchmark {
+
+  @Param({"/inventory/items/{id}", "/inventory/items/{id}/holdings/*", "/*"})
+  String pathPattern;
+
+  @Param({"/inventory/items/0e6a5c5b-93f8-4c61-b1a3-6c3f4f1f7e2a",
+      "/inventory/items/0e6a5c5b-93f8-4c61-b1a3-6c3f4f1f7e2a/holdings/x?limit=10",
+      "/inventory/instances?query=title%3Dfoo"})
+  String uri;
+
+  RoutingEntry routingEntry;
+
+  /**
+   * Create routing entry for all methods.
+   */
+  @Setup
+  public void setup() {
+    routingEntry = new RoutingEntry();
+    routingEntry.setPathPattern(pathPattern);
+    routingEntry.setMethods(new String[] {"*"});
+  }
+
+  @Benchmark
+  public boolean fastMatch() {
+    return RoutingEntry.fastMatch(pathPattern, uri);
+  }
+
+  @Benchmark
+  public boolean match() {
+    return routingEntry.match(uri, HttpMethod.GET.name());
+  }
+}
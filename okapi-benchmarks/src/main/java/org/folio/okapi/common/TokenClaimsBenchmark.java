@@ -0,0 +1,131 @@
+package org.folio.okapi.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Extraction of tenant and user id from a token, as done for each proxied request:
+ * {@link OkapiToken} against {@link TokenClaims} with and without its cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenClaimsBenchmark {
+
+  /** Number of distinct tokens in use by the threads of {@link #cachedThreads}. */
+  static final int USERS = 100;
+
+  String token;
+  String[] tokens;
+
+  /**
+   * Create tokens with a payload like the one of mod-authtoken.
+   */
+  @Setup
+  public void setup() {
+    tokens = new String[USERS];
+    for (int i = 0; i < USERS; i++) {
+      tokens[i] = token(i);
+    }
+    token = tokens[0];
+  }
+
+  private static String token(int i) {
+    JsonObject payload = new JsonObject()
+        .put("sub", "diku_admin")
+        .put("user_id", UUID.randomUUID().toString())
+        .put("type", "access")
+        .put("tenant", "diku")
+        .put("iat", 1700000000)
+        .put("exp", 1700000600)
+        .put("extra_permissions", new JsonArray().add("users.item.get").add("perms.all"));
+    return "eyJhbGciOiJIUzI1NiJ9."
+        + Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(payload.encode().getBytes(UTF_8))
+        + ".S1gN4tur3_0f_th3_t0k3n_S1gN4tur3_0f_th3_" + String.format("%03d", i);
+  }
+
+  /**
+   * Copies of the tokens for each thread, so that, as with tokens of request headers,
+   * a thread mostly looks up other string instances than those kept by the cache.
+   */
+  @State(Scope.Thread)
+  public static class ThreadTokens {
+    String[] tokens;
+
+    /**
+     * Copy tokens of benchmark.
+     */
+    @Setup
+    public void setup(TokenClaimsBenchmark benchmark) {
+      tokens = new String[benchmark.tokens.length];
+      for (int i = 0; i < tokens.length; i++) {
+        tokens[i] = new String(benchmark.tokens[i]);
+      }
+    }
+  }
+
+  /**
+   * Baseline: decode payload to JsonObject.
+   */
+  @Benchmark
+  public void okapiToken(Blackhole blackhole) {
+    OkapiToken okapiToken = new OkapiToken(token);
+    blackhole.consume(okapiToken.getTenantWithoutValidation());
+    blackhole.consume(okapiToken.getUserIdWithoutValidation());
+  }
+
+  /**
+   * Scan payload without cache.
+   */
+  @Benchmark
+  public void scan(Blackhole blackhole) {
+    TokenClaims claims = TokenClaims.decode(token);
+    blackhole.consume(claims.getTenant());
+    blackhole.consume(claims.getUserId());
+  }
+
+  /**
+   * Token seen before.
+   */
+  @Benchmark
+  public void cached(Blackhole blackhole) {
+    TokenClaims claims = TokenClaims.of(token);
+    blackhole.consume(claims.getTenant());
+    blackhole.consume(claims.getUserId());
+  }
+
+  /**
+   * Tokens of several users seen before, looked up by several threads at once, like
+   * event loops of a busy Okapi instance sharing the cache.
+   */
+  @Benchmark
+  @Threads(8)
+  public void cachedThreads(ThreadTokens threadTokens, Blackhole blackhole) {
+    String t = threadTokens.tokens[ThreadLocalRandom.current().nextInt(USERS)];
+    TokenClaims claims = TokenClaims.of(t);
+    blackhole.consume(claims.getTenant());
+    blackhole.consume(claims.getUserId());
+  }
+}
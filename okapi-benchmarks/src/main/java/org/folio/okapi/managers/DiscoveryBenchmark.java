@@ -0,0 +1,106 @@
+package org.folio.okapi.managers;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.folio.okapi.bean.DeploymentDescriptor;
+import org.folio.okapi.bean.NodeDescriptor;
+import org.folio.okapi.service.impl.DeploymentStoreNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolves the instances of a six-module pipeline with the shared deployment map
+ * and with the node-local routing table of {@link DiscoveryManager}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiscoveryBenchmark {
+
+  static final int PIPELINE = 6;
+  static final int INSTANCES = 2;
+
+  Vertx vertx;
+  DiscoveryManager discoveryManager;
+  List<String> srvcIds = new ArrayList<>();
+
+  /**
+   * Register one node and two instances of each module on that node.
+   */
+  @Setup
+  public void setup() throws Exception {
+    vertx = Vertx.vertx();
+    discoveryManager = new DiscoveryManager(new DeploymentStoreNull(), new JsonObject());
+    NodeDescriptor nd = new NodeDescriptor();
+    nd.setNodeId("node1");
+    nd.setUrl("http://localhost:9130");
+    Future<Void> future = discoveryManager.init(vertx)
+        .compose(x -> discoveryManager.addNode(nd));
+    for (int i = 0; i < PIPELINE; i++) {
+      String srvcId = "mod-" + i + "-1.0.0";
+      srvcIds.add(srvcId);
+      for (int j = 0; j < INSTANCES; j++) {
+        DeploymentDescriptor dd = new DeploymentDescriptor();
+        dd.setSrvcId(srvcId);
+        dd.setInstId(srvcId + "-" + j);
+        dd.setNodeId("node1");
+        dd.setUrl("http://localhost:" + (9131 + i * INSTANCES + j));
+        future = future.compose(x -> discoveryManager.add(dd));
+      }
+    }
+    for (String srvcId : srvcIds) {
+      future = future.compose(x -> discoveryManager.getRoutes(srvcId).mapEmpty());
+    }
+    future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    vertx.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Chain of futures, each decoding the deployments and all nodes of the shared maps.
+   */
+  @Benchmark
+  public List<String> sharedMap() throws Exception {
+    List<String> urls = new ArrayList<>(PIPELINE);
+    Future<Void> future = Future.succeededFuture();
+    for (String srvcId : srvcIds) {
+      future = future.compose(x -> discoveryManager.get(srvcId).map(list -> {
+        urls.add(list.get(0).getUrl());
+        return null;
+      }));
+    }
+    future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    return urls;
+  }
+
+  /**
+   * Synchronous lookups in the routing table.
+   */
+  @Benchmark
+  public List<String> routingTable() {
+    List<String> urls = new ArrayList<>(PIPELINE);
+    for (String srvcId : srvcIds) {
+      urls.add(discoveryManager.lookupRoutes(srvcId).get(0).getUrl());
+    }
+    return urls;
+  }
+}
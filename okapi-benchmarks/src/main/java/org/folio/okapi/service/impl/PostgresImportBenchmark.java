@@ -0,0 +1,137 @@
+package org.folio.okapi.service.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.folio.okapi.bean.RoutingEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Imports a catalog of 5,000 module descriptors into the modules table of a
+ * PostgreSQL container, with one batch and with single concurrent inserts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostgresImportBenchmark {
+
+  static final int CATALOG = 5000;
+
+  @Param({"5", "20"})
+  int poolSize;
+
+  @Param({"true", "false"})
+  boolean cachePreparedStatements;
+
+  PostgreSQLContainer<?> container;
+  Vertx vertx;
+  ModuleStorePostgres moduleStore;
+  PostgresTable<ModuleDescriptor> table;
+  List<ModuleDescriptor> catalog;
+
+  static RoutingEntry routingEntry(String pathPattern, String... methods) {
+    RoutingEntry routingEntry = new RoutingEntry();
+    routingEntry.setPathPattern(pathPattern);
+    routingEntry.setMethods(methods);
+    return routingEntry;
+  }
+
+  /**
+   * Create catalog: versions of modules, each providing and requiring an interface.
+   * @param count number of module descriptors
+   * @return module descriptors
+   */
+  static List<ModuleDescriptor> catalog(int count) {
+    List<ModuleDescriptor> list = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int module = i / 50;
+      ModuleDescriptor md = new ModuleDescriptor("mod-" + module + "-1." + (i % 50) + ".0");
+      String base = "/module" + module + "/records";
+      md.setProvidedHandler("int" + module, "1." + (i % 50),
+          routingEntry(base, "GET", "POST"),
+          routingEntry(base + "/{id}", "GET", "PUT", "DELETE"));
+      if (module > 0) {
+        md.setRequires("int" + (module - 1), "1.0");
+      }
+      list.add(md);
+    }
+    return list;
+  }
+
+  static <T> T await(Future<T> future) throws Exception {
+    return future.toCompletionStage().toCompletableFuture().get(60, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Start PostgreSQL container and connect with the pool size of the run.
+   */
+  @Setup
+  public void setup() throws Exception {
+    container = new PostgreSQLContainer<>("postgres:16-alpine");
+    container.start();
+    vertx = Vertx.vertx();
+    JsonObject conf = new JsonObject()
+        .put("postgres_host", container.getHost())
+        .put("postgres_port", Integer.toString(container.getFirstMappedPort()))
+        .put("postgres_database", container.getDatabaseName())
+        .put("postgres_username", container.getUsername())
+        .put("postgres_password", container.getPassword())
+        .put("postgres_pool_size", poolSize)
+        .put("postgres_cache_prepared_statements", cachePreparedStatements);
+    PostgresHandle pg = new PostgresHandle(vertx, conf);
+    moduleStore = new ModuleStorePostgres(pg);
+    table = new PostgresTable<>(pg, "modules", "modulejson", "modulejson->'id'",
+        "modulejson->>'id' = $1", "module_id");
+    catalog = catalog(CATALOG);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    await(vertx.close());
+    container.stop();
+  }
+
+  /**
+   * Empty table and insert the catalog with one batch.
+   */
+  @Benchmark
+  public List<ModuleDescriptor> importBatch() throws Exception {
+    await(moduleStore.init(true).compose(x -> moduleStore.insert(catalog)));
+    return catalog;
+  }
+
+  /**
+   * Empty table and insert each descriptor of the catalog with its own statement, all
+   * sent at once and queued by the pool.
+   */
+  @Benchmark
+  public List<ModuleDescriptor> importSingle() throws Exception {
+    await(moduleStore.init(true).compose(x -> {
+      List<Future<Void>> futures = new ArrayList<>(catalog.size());
+      for (ModuleDescriptor md : catalog) {
+        futures.add(table.insert(md));
+      }
+      return Future.all(futures).mapEmpty();
+    }));
+    return catalog;
+  }
+}
@@ -0,0 +1,107 @@
+package org.folio.okapi.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.folio.okapi.bean.InterfaceDescriptor;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.folio.okapi.bean.TenantModuleDescriptor;
+import org.folio.okapi.bean.TenantModuleDescriptor.Action;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dependency resolution of {@link DepResolution#install} for a fresh install of all
+ * products and for an upgrade of all products.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DepResolutionBenchmark {
+
+  @Param({"50", "200"})
+  int products;
+
+  static final int VERSIONS = 3;
+
+  Map<String, ModuleDescriptor> modsAvailable;
+  Map<String, ModuleDescriptor> modsEnabledOldest;
+
+  /**
+   * Create products in several versions. Product {@code i} provides interface
+   * {@code int-i} and requires the interfaces of products {@code i/2} and {@code i/3},
+   * so that the dependencies form a graph of some depth.
+   * @param products number of products
+   * @return module descriptors by id
+   */
+  static Map<String, ModuleDescriptor> modules(int products) {
+    Map<String, ModuleDescriptor> map = new HashMap<>();
+    for (int i = 0; i < products; i++) {
+      for (int v = 0; v < VERSIONS; v++) {
+        ModuleDescriptor md = new ModuleDescriptor("mod-" + i + "-1." + v + ".0");
+        md.setProvides(new InterfaceDescriptor[] {
+            new InterfaceDescriptor("int-" + i, "1." + v)});
+        if (i > 0) {
+          md.setRequires(new InterfaceDescriptor[] {
+              new InterfaceDescriptor("int-" + (i / 2), "1.0"),
+              new InterfaceDescriptor("int-" + (i / 3), "1.0")});
+        }
+        map.put(md.getId(), md);
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Create available modules and the oldest version of each as enabled modules.
+   */
+  @Setup
+  public void setup() {
+    modsAvailable = modules(products);
+    modsEnabledOldest = new HashMap<>();
+    for (ModuleDescriptor md : modsAvailable.values()) {
+      if (md.getId().endsWith("-1.0.0")) {
+        modsEnabledOldest.put(md.getId(), md);
+      }
+    }
+  }
+
+  private List<TenantModuleDescriptor> enableAll() {
+    List<TenantModuleDescriptor> tml = new ArrayList<>();
+    for (int i = 0; i < products; i++) {
+      TenantModuleDescriptor tmd = new TenantModuleDescriptor();
+      tmd.setAction(Action.enable);
+      tmd.setId("mod-" + i);
+      tml.add(tmd);
+    }
+    return tml;
+  }
+
+  @Benchmark
+  public List<TenantModuleDescriptor> install() {
+    List<TenantModuleDescriptor> tml = enableAll();
+    DepResolution.install(modsAvailable, new HashMap<>(), tml, false);
+    return tml;
+  }
+
+  @Benchmark
+  public List<TenantModuleDescriptor> upgrade() {
+    List<TenantModuleDescriptor> tml = enableAll();
+    DepResolution.install(modsAvailable, new HashMap<>(modsEnabledOldest), tml, false);
+    return tml;
+  }
+}
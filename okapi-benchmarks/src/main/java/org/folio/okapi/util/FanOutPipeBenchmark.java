@@ -0,0 +1,198 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of passing a 1 MiB body in 8 KiB chunks to the proxy response and
+ * 0, 1 or 3 request-log sinks: {@link FanOutPipe} against the former pump that checked
+ * and reinstalled drain handlers of all sinks for each chunk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FanOutPipeBenchmark {
+
+  static final int CHUNKS = 128;
+
+  /** Number of request-log sinks besides the response. */
+  @Param({"0", "1", "3"})
+  int logSinks;
+
+  Buffer chunk;
+
+  static final class Source implements ReadStream<Buffer> {
+    private final Buffer chunk;
+    private Handler<Buffer> handler;
+    private Handler<Void> endHandler;
+    private boolean paused;
+
+    Source(Buffer chunk) {
+      this.chunk = chunk;
+    }
+
+    void run() {
+      for (int i = 0; i < CHUNKS; i++) {
+        if (paused) {
+          throw new IllegalStateException("sinks are never full");
+        }
+        handler.handle(chunk);
+      }
+      endHandler.handle(null);
+    }
+
+    @Override
+    public ReadStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> handler(Handler<Buffer> handler) {
+      this.handler = handler;
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> pause() {
+      paused = true;
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> resume() {
+      paused = false;
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> fetch(long amount) {
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> endHandler(Handler<Void> endHandler) {
+      this.endHandler = endHandler;
+      return this;
+    }
+  }
+
+  static final class Sink implements WriteStream<Buffer> {
+    long bytes;
+    Handler<Void> drainHandler;
+
+    @Override
+    public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+      return this;
+    }
+
+    @Override
+    public Future<Void> write(Buffer data) {
+      bytes += data.length();
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public Future<Void> end() {
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+      return this;
+    }
+
+    @Override
+    public boolean writeQueueFull() {
+      return false;
+    }
+
+    @Override
+    public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+      drainHandler = handler;
+      return this;
+    }
+  }
+
+  @Setup
+  public void setup() {
+    chunk = Buffer.buffer(new byte[8192]);
+  }
+
+  private List<WriteStream<Buffer>> sinks() {
+    List<WriteStream<Buffer>> sinks = new ArrayList<>();
+    for (int i = 0; i <= logSinks; i++) {
+      sinks.add(new Sink());
+    }
+    return sinks;
+  }
+
+  @Benchmark
+  public Object fanOutPipe() {
+    Source source = new Source(chunk);
+    List<WriteStream<Buffer>> sinks = sinks();
+    FanOutPipe pipe = new FanOutPipe(source).to(sinks.get(0));
+    for (int i = 1; i < sinks.size(); i++) {
+      pipe.toDroppable(sinks.get(i), w -> { });
+    }
+    pipe.start();
+    source.run();
+    return sinks;
+  }
+
+  @Benchmark
+  public Object legacyPump() {
+    Source source = new Source(chunk);
+    List<WriteStream<Buffer>> sinks = sinks();
+    source.handler(data -> {
+      for (WriteStream<Buffer> w : sinks) {
+        w.write(data);
+      }
+      pauseAndResume(source, sinks);
+    });
+    source.endHandler(v -> {
+      for (WriteStream<Buffer> w : sinks) {
+        w.end();
+      }
+    });
+    source.run();
+    return sinks;
+  }
+
+  private static void pauseAndResume(ReadStream<Buffer> readStream,
+      List<WriteStream<Buffer>> writeStreams) {
+    boolean pause = false;
+    for (WriteStream<Buffer> w : writeStreams) {
+      if (w.writeQueueFull()) {
+        w.drainHandler(handler -> pauseAndResume(readStream, writeStreams));
+        pause = true;
+      } else {
+        w.drainHandler(null);
+      }
+    }
+    if (pause) {
+      readStream.pause();
+    } else {
+      readStream.resume();
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.Json;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of the second-level values of {@link LockedStringMap}, and
+ * lookup and update of one value, which decode all values of the primary key unless
+ * the map is flat.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LockedStringMapBenchmark {
+
+  /** Number of secondary keys, such as instances of a module. */
+  @Param({"1", "10", "100"})
+  int entries;
+
+  /** Whether each value is a map entry of its own. */
+  @Param({"false", "true"})
+  boolean flat;
+
+  Vertx vertx;
+  LockedStringMap map;
+  LockedStringMap.StringMap stringMap;
+  String encoded;
+
+  /**
+   * Fill map with deployment-like values.
+   */
+  @Setup
+  public void setup() throws Exception {
+    vertx = Vertx.vertx();
+    map = new LockedStringMap();
+    stringMap = new LockedStringMap.StringMap();
+    Future<Void> future = map.init(vertx, "benchmark", true, flat);
+    for (int i = 0; i < entries; i++) {
+      String k2 = "inst" + i;
+      String value = "{\"srvcId\":\"mod-users-19.2.0\",\"instId\":\"" + k2
+          + "\",\"nodeId\":\"node1\",\"url\":\"http://localhost:" + (9131 + i) + "\"}";
+      stringMap.strings.put(k2, value);
+      future = future.compose(x -> map.addOrReplace(false, "mod-users-19.2.0", k2, value));
+    }
+    future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    encoded = Json.encode(stringMap);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    vertx.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public String encode() {
+    return Json.encode(stringMap);
+  }
+
+  @Benchmark
+  public LockedStringMap.StringMap decode() {
+    return JsonDecoder.decode(encoded, LockedStringMap.StringMap.class);
+  }
+
+  @Benchmark
+  public String getString() throws Exception {
+    return map.getString("mod-users-19.2.0", "inst0")
+        .toCompletionStage().toCompletableFuture().get();
+  }
+
+  @Benchmark
+  public Void replace() throws Exception {
+    return map.addOrReplace(true, "mod-users-19.2.0", "inst0", stringMap.strings.get("inst0"))
+        .toCompletionStage().toCompletableFuture().get();
+  }
+}
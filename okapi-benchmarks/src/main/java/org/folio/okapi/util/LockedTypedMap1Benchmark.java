@@ -0,0 +1,88 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Listing a catalog of 3,000 module descriptors in {@link LockedTypedMap1}: with
+ * {@link LockedTypedMap1#getAll()}, with and without snapshot, and with one lookup
+ * per key as before bulk retrieval.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LockedTypedMap1Benchmark {
+
+  static final int MODULES = 3000;
+
+  /** Whether a decoded snapshot is kept. */
+  @Param({"false", "true"})
+  boolean snapshot;
+
+  Vertx vertx;
+  LockedTypedMap1<ModuleDescriptor> map;
+
+  /**
+   * Fill map with catalog.
+   */
+  @Setup
+  public void setup() throws Exception {
+    vertx = Vertx.vertx();
+    map = new LockedTypedMap1<>(ModuleDescriptor.class, snapshot);
+    List<ModuleDescriptor> modules = ModuleCacheBenchmark.moduleDescriptors(MODULES - 2);
+    map.init(vertx, "benchmark", true)
+        .compose(x -> {
+          List<Future<Void>> futures = new ArrayList<>();
+          for (ModuleDescriptor md : modules) {
+            futures.add(map.add(md.getId(), md));
+          }
+          return Future.all(futures);
+        })
+        .toCompletionStage().toCompletableFuture().get(60, TimeUnit.SECONDS);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    vertx.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public LinkedHashMap<String, ModuleDescriptor> getAll() throws Exception {
+    return map.getAll().toCompletionStage().toCompletableFuture().get();
+  }
+
+  @Benchmark
+  public LinkedHashMap<String, ModuleDescriptor> getPerKey() throws Exception {
+    return map.getKeys().compose(keys -> {
+      LinkedHashMap<String, ModuleDescriptor> results = new LinkedHashMap<>();
+      List<Future<Void>> futures = new ArrayList<>();
+      for (String key : keys) {
+        futures.add(map.get(key).map(md -> {
+          results.put(key, md);
+          return null;
+        }));
+      }
+      return Future.all(futures).map(results);
+    }).toCompletionStage().toCompletableFuture().get();
+  }
+}
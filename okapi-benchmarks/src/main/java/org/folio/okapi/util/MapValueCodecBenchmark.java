@@ -0,0 +1,76 @@
+package org.folio.okapi.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding a catalog of 3,000 module descriptors as stored in the shared module map
+ * with each {@link MapValueCodec}. The size of the stored values, which is what the
+ * cluster holds, is printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapValueCodecBenchmark {
+
+  static final int MODULES = 3000;
+
+  @Param({MapValueCodec.JSON, MapValueCodec.SMILE})
+  String codec;
+
+  List<ModuleDescriptor> modules;
+  List<Object> stored;
+
+  /**
+   * Encode catalog with codec.
+   */
+  @Setup
+  public void setup() {
+    MapValueCodec.setCodec(codec);
+    modules = ModuleCacheBenchmark.moduleDescriptors(MODULES - 2);
+    stored = new ArrayList<>(modules.size());
+    for (ModuleDescriptor md : modules) {
+      stored.add(MapValueCodec.encode(md));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    MapValueCodec.setCodec(MapValueCodec.JSON);
+  }
+
+  @Benchmark
+  public List<ModuleDescriptor> decodeAll() {
+    List<ModuleDescriptor> result = new ArrayList<>(stored.size());
+    for (Object value : stored) {
+      result.add(MapValueCodec.decode(value, ModuleDescriptor.class));
+    }
+    return result;
+  }
+
+  @Benchmark
+  public List<Object> encodeAll() {
+    List<Object> result = new ArrayList<>(modules.size());
+    for (ModuleDescriptor md : modules) {
+      result.add(MapValueCodec.encode(md));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,149 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.http.HttpMethod;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.folio.okapi.bean.ModuleInstance;
+import org.folio.okapi.bean.RoutingEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the prefix map lookup with the routing trie used by {@link ModuleCache}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModuleCacheBenchmark {
+
+  @Param({"10", "100"})
+  int modules;
+
+  @Param({"/inventory/items/0e6a5c5b-93f8-4c61-b1a3-6c3f4f1f7e2a",
+      "/module5/records?query=title%3Dfoo", "/module7/records/42/sub/x"})
+  String uri;
+
+  ModuleCache moduleCache;
+  PrefixMapLookup proxyMap;
+  PrefixMapLookup filterMap;
+
+  static RoutingEntry routingEntry(String pathPattern, String... methods) {
+    RoutingEntry routingEntry = new RoutingEntry();
+    routingEntry.setPathPattern(pathPattern);
+    routingEntry.setMethods(methods);
+    return routingEntry;
+  }
+
+  /**
+   * Create module descriptors with routing entries similar to those of a typical
+   * storage or business logic module and one module with auth and pre filters.
+   * @param count number of modules
+   * @return module descriptors
+   */
+  static List<ModuleDescriptor> moduleDescriptors(int count) {
+    List<ModuleDescriptor> list = new ArrayList<>();
+    ModuleDescriptor auth = new ModuleDescriptor();
+    auth.setId("auth-1.0.0");
+    RoutingEntry authFilter = routingEntry("/*", "*");
+    authFilter.setPhase("auth");
+    RoutingEntry preFilter = routingEntry("/*", "*");
+    preFilter.setPhase("pre");
+    auth.setFilters(new RoutingEntry[] {authFilter, preFilter});
+    auth.setProvidedHandler("login", "1.0", routingEntry("/authn/login", "POST"));
+    list.add(auth);
+    list.add(inventory());
+    for (int i = 0; i < count; i++) {
+      ModuleDescriptor md = new ModuleDescriptor();
+      md.setId("module" + i + "-1.0.0");
+      String base = "/module" + i + "/records";
+      md.setProvidedHandler("int" + i, "1.0",
+          routingEntry(base, "GET", "POST"),
+          routingEntry(base + "/{id}", "GET", "PUT", "DELETE"),
+          routingEntry(base + "/{id}/sub", "GET", "POST"),
+          routingEntry(base + "/{id}/sub/*", "GET"),
+          routingEntry("/module" + i + "/settings", "GET", "PUT"),
+          routingEntry("/module" + i + "/jobs/{id}/status", "GET"));
+      list.add(md);
+    }
+    return list;
+  }
+
+  private static ModuleDescriptor inventory() {
+    ModuleDescriptor md = new ModuleDescriptor();
+    md.setId("inventory-1.0.0");
+    md.setProvidedHandler("inventory", "1.0",
+        routingEntry("/inventory/items", "GET", "POST"),
+        routingEntry("/inventory/items/{id}", "GET", "PUT", "DELETE"),
+        routingEntry("/inventory/instances", "GET", "POST"),
+        routingEntry("/inventory/instances/{id}", "GET", "PUT", "DELETE"));
+    return md;
+  }
+
+  /**
+   * Build module cache and the prefix maps for the same modules and check that both
+   * find the same routing entries.
+   */
+  @Setup
+  public void setup() {
+    List<ModuleDescriptor> mds = moduleDescriptors(modules);
+    moduleCache = new ModuleCache(mds);
+    proxyMap = new PrefixMapLookup();
+    filterMap = new PrefixMapLookup();
+    for (ModuleDescriptor md : mds) {
+      proxyMap.add(md, md.getProxyRoutingEntries());
+      filterMap.add(md, md.getFilterRoutingEntries());
+    }
+    if (!routingEntries(prefixMap()).equals(routingEntries(routingTrie()))) {
+      throw new IllegalStateException("prefix map and routing trie differ for " + uri);
+    }
+  }
+
+  private static List<RoutingEntry> routingEntries(List<ModuleInstance> instances) {
+    return instances.stream().map(ModuleInstance::getRoutingEntry).toList();
+  }
+
+  /**
+   * Filter and handler lookup with prefix maps.
+   */
+  @Benchmark
+  public List<ModuleInstance> prefixMap() {
+    List<ModuleInstance> instances = filterMap.lookup(uri, HttpMethod.GET, false, null);
+    instances.addAll(proxyMap.lookup(uri, HttpMethod.GET, true, null));
+    return instances;
+  }
+
+  /**
+   * Filter and handler lookup with routing tries.
+   */
+  @Benchmark
+  public List<ModuleInstance> routingTrie() {
+    List<ModuleInstance> instances = moduleCache.filterTrie.lookup(uri, HttpMethod.GET, false,
+        null);
+    instances.addAll(moduleCache.proxyTrie.lookup(uri, HttpMethod.GET, true, null));
+    return instances;
+  }
+
+  @Benchmark
+  public List<ModuleInstance> moduleCacheLookup() {
+    return moduleCache.lookup(uri, HttpMethod.GET, null);
+  }
+
+  @Benchmark
+  public List<ModuleInstance> moduleCachePipeline() {
+    return moduleCache.lookupPipeline(uri, HttpMethod.GET, null);
+  }
+}
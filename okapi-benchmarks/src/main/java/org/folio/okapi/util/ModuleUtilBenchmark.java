@@ -0,0 +1,60 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.MultiMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filtering of module descriptors by {@link ModuleUtil#filter}, as done for
+ * {@code GET /_/proxy/modules} with query parameters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModuleUtilBenchmark {
+
+  @Param({"200"})
+  int products;
+
+  @Param({"", "filter=mod-1", "latest=1", "require=int-0", "latest=1&full=true"})
+  String query;
+
+  List<ModuleDescriptor> modules;
+  MultiMap params;
+
+  /**
+   * Create modules and parse query parameters.
+   */
+  @Setup
+  public void setup() {
+    modules = new ArrayList<>(DepResolutionBenchmark.modules(products).values());
+    params = MultiMap.caseInsensitiveMultiMap();
+    if (!query.isEmpty()) {
+      for (String param : query.split("&")) {
+        String[] kv = param.split("=", 2);
+        params.add(kv[0], kv[1]);
+      }
+    }
+  }
+
+  @Benchmark
+  public List<ModuleDescriptor> filter() {
+    return ModuleUtil.filter(params, new ArrayList<>(modules), false, false);
+  }
+}
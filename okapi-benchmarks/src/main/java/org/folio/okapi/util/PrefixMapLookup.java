@@ -0,0 +1,78 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.http.HttpMethod;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.folio.okapi.bean.ModuleInstance;
+import org.folio.okapi.bean.RoutingEntry;
+
+/**
+ * Map based lookup that {@link RoutingTrie} replaced in {@link ModuleCache}; kept as
+ * baseline for {@link ModuleCacheBenchmark}. Routing entries are stored by the prefix
+ * of their pattern and a lookup walks all path prefixes of the uri.
+ */
+class PrefixMapLookup {
+
+  static class Entry {
+    final ModuleDescriptor moduleDescriptor;
+    final RoutingEntry routingEntry;
+
+    Entry(ModuleDescriptor moduleDescriptor, RoutingEntry routingEntry) {
+      this.moduleDescriptor = moduleDescriptor;
+      this.routingEntry = routingEntry;
+    }
+  }
+
+  private final Map<String, List<Entry>> map = new HashMap<>();
+
+  void add(ModuleDescriptor moduleDescriptor, List<RoutingEntry> entries) {
+    for (RoutingEntry routingEntry : entries) {
+      String prefix = ModuleCache.getPatternPrefix(routingEntry);
+      List<Entry> list = map.computeIfAbsent(prefix, k -> new LinkedList<>());
+      list.add(new Entry(moduleDescriptor, routingEntry));
+    }
+  }
+
+  /**
+   * Find module instances by walking all path prefixes of uri in map.
+   * @param uri request uri
+   * @param method HTTP method
+   * @param handler true: return first match only
+   * @param id module ID that must match; null for any module
+   * @return module instances that match
+   */
+  List<ModuleInstance> lookup(String uri, HttpMethod method, boolean handler, String id) {
+    List<ModuleInstance> instances = new LinkedList<>();
+    String tryUri = uri;
+    for (int index = 0; index < uri.length(); index++) {
+      if (uri.charAt(index) == '#' || uri.charAt(index) == '?') {
+        tryUri = tryUri.substring(0, index);
+        break;
+      }
+    }
+    while (true) {
+      List<Entry> candidateInstances = map.get(tryUri);
+      if (candidateInstances != null) {
+        for (Entry candiate : candidateInstances) {
+          if (candiate.routingEntry.match(uri, method.name())
+              && (id == null || id.equals(candiate.moduleDescriptor.getId()))) {
+            instances.add(new ModuleInstance(candiate.moduleDescriptor,
+                candiate.routingEntry, uri, method, handler));
+            if (handler) {
+              return instances;
+            }
+          }
+        }
+      }
+      int index = tryUri.lastIndexOf('/', tryUri.length() - 2);
+      if (index < 0) {
+        break;
+      }
+      tryUri = tryUri.substring(0, index + 1);
+    }
+    return instances;
+  }
+}
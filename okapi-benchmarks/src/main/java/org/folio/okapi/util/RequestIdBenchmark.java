@@ -0,0 +1,47 @@
+package org.folio.okapi.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds the X-Okapi-Request-Id of a request, {@code <number>/<first path segment>},
+ * with {@link RequestIds} and with the former Random and String.format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RequestIdBenchmark {
+
+  static final String PATH = "/users/123";
+
+  @Benchmark
+  public String counter() {
+    StringBuilder newid = new StringBuilder(32);
+    RequestIds.node().append(newid);
+    newid.append(PATH, 0, 6);
+    return newid.toString();
+  }
+
+  @Benchmark
+  public String legacy() {
+    StringBuilder newid = new StringBuilder();
+    Random r = new Random();
+    newid.append(String.format("%06d", r.nextInt(1000000)));
+    newid.append(PATH, 0, 6);
+    return newid.toString();
+  }
+}
@@ -0,0 +1,101 @@
+package org.folio.okapi.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hit and miss throughput of {@link TokenCache} with several threads, like event loops
+ * of a busy Okapi instance sharing one cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class TokenCacheBenchmark {
+
+  @Param({"10000"})
+  int maxSize;
+
+  /** Number of distinct tokens in use; half of maxSize so that all fit. */
+  int tokens;
+
+  String[] keyTokens;
+  TokenDigest[] keyDigests;
+  TokenCache tokenCache;
+
+  /**
+   * Fill cache with JWT-sized tokens.
+   */
+  @Setup
+  public void setup() {
+    tokenCache = TokenCache.builder().withMaxSize(maxSize).build();
+    tokens = maxSize / 2;
+    keyTokens = new String[tokens];
+    keyDigests = new TokenDigest[tokens];
+    String payload = "x".repeat(1000);
+    for (int i = 0; i < tokens; i++) {
+      keyTokens[i] = "eyJhbGciOiJIUzI1NiJ9." + payload + "." + i;
+      keyDigests[i] = TokenDigest.of(keyTokens[i]);
+      tokenCache.put("diku", "GET", "/inventory/items", "user" + i, "[]", keyTokens[i],
+          "module-token-" + i);
+    }
+  }
+
+  /**
+   * Lookup of cached token.
+   */
+  @Benchmark
+  public TokenCache.CacheEntry hit() {
+    int i = ThreadLocalRandom.current().nextInt(tokens);
+    return tokenCache.get("diku", "GET", "/inventory/items", "user" + i, keyTokens[i]);
+  }
+
+  /**
+   * Lookup of cached token with digest computed earlier, as done per request by
+   * {@link ProxyContext#getTokenDigest()}.
+   */
+  @Benchmark
+  public TokenCache.CacheEntry hitDigest() {
+    int i = ThreadLocalRandom.current().nextInt(tokens);
+    return tokenCache.get("diku", "GET", "/inventory/items", "user" + i, keyDigests[i]);
+  }
+
+  /**
+   * Lookup of token not cached (other path).
+   */
+  @Benchmark
+  public TokenCache.CacheEntry miss() {
+    int i = ThreadLocalRandom.current().nextInt(tokens);
+    return tokenCache.get("diku", "GET", "/inventory/instances", "user" + i, keyTokens[i]);
+  }
+
+  /**
+   * Mix of 90% hits and 10% inserts that evict.
+   */
+  @Benchmark
+  public TokenCache.CacheEntry mixed() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int i = random.nextInt(tokens);
+    if (random.nextInt(10) == 0) {
+      tokenCache.put("diku", "POST", "/inventory/items", "user" + i, "[]",
+          keyTokens[i] + random.nextInt(), "module-token-" + i);
+      return null;
+    }
+    return tokenCache.get("diku", "GET", "/inventory/items", "user" + i, keyTokens[i]);
+  }
+}
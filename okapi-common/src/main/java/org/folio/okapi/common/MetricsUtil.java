@@ -30,6 +30,8 @@ import io.vertx.micrometer.backends.PrometheusBackendRegistry;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.logging.log4j.Logger;
 
 /**
@@ -72,6 +74,8 @@ public class MetricsUtil {
 
   private static JvmGcMetrics jvmGcMetrics;
 
+  private static final AtomicLong generation = new AtomicLong();
+
   private MetricsUtil() {
   }
 
@@ -163,6 +167,7 @@ public class MetricsUtil {
             .setMetricsOptions(new MicrometerMetricsOptions().setEnabled(true)))
         .withMetrics(new MicrometerMetricsFactory(registry));
     enabled = true;
+    generation.incrementAndGet();
     logger.info("Metrics enabled for " + HOST_ID);
   }
 
@@ -175,6 +180,7 @@ public class MetricsUtil {
     }
     logger.debug("Stopping metrics for " + HOST_ID);
     enabled = false;
+    generation.incrementAndGet();
     if (jvmGcMetrics != null) {
       jvmGcMetrics.close();
       jvmGcMetrics = null;
@@ -188,6 +194,46 @@ public class MetricsUtil {
     logger.debug("Metrics stopped for " + HOST_ID);
   }
 
+  /**
+   * Return generation of the metrics setup. It changes when metrics is initialized or
+   * stopped, so that meters held by callers must be registered again.
+   *
+   * @return generation
+   */
+  public static long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Register a {@link Timer} meter to be kept and used without further lookups.
+   *
+   * @param meterName - name of the {@link Timer} meter
+   * @param tags      - tags associated with the meter
+   *
+   * @return {@link Timer} or null if metrics is not enabled
+   */
+  public static Timer timer(String meterName, Iterable<Tag> tags) {
+    if (!enabled) {
+      return null;
+    }
+    return Timer.builder(meterName).tags(tags).register(registry);
+  }
+
+  /**
+   * Register a {@link Counter} meter to be kept and used without further lookups.
+   *
+   * @param meterName - name of the {@link Counter} meter
+   * @param tags      - tags associated with the meter
+   *
+   * @return {@link Counter} or null if metrics is not enabled
+   */
+  public static Counter counter(String meterName, Iterable<Tag> tags) {
+    if (!enabled) {
+      return null;
+    }
+    return Counter.builder(meterName).tags(tags).register(registry);
+  }
+
   /**
    * Return a {@link Sample} to help start timing a {@link Timer}.
    *
@@ -234,4 +280,25 @@ public class MetricsUtil {
     return timer;
   }
 
+  /**
+   * Record an amount of time for a {@link Timer} meter.
+   *
+   * @param meterName - name of the {@link Timer} meter
+   * @param tags      - tags associated with the meter
+   * @param amount    - duration
+   * @param unit      - time unit of amount
+   *
+   * @return {@link Timer} or null if metrics is not enabled
+   */
+  public static Timer recordTimer(String meterName, Iterable<Tag> tags, long amount,
+      TimeUnit unit) {
+    if (!enabled) {
+      return null;
+    }
+    logger.trace("Record Timer for {} with tags {}", meterName, tags.toString());
+    Timer timer = Timer.builder(meterName).tags(tags).register(registry);
+    timer.record(amount, unit);
+    return timer;
+  }
+
 }
@@ -0,0 +1,449 @@
+package org.folio.okapi.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The tenant and user id claims of an Okapi security token.
+ *
+ * <p>The claims are picked out of the Base64URL encoded payload by a small scanner
+ * without building a {@link io.vertx.core.json.JsonObject}. The result is kept in a
+ * lock-free direct-mapped cache, indexed by a hash of the end of the token signature,
+ * so that a token that is seen again is not decoded at all. A token replaces whatever
+ * token was in its slot, which bounds the cache without any eviction bookkeeping.
+ * Tokens that the scanner does not handle, including all malformed tokens, are handed
+ * to {@link OkapiToken}, so the result and the exceptions thrown are the same as for
+ * {@link OkapiToken}.
+ *
+ * <p>Like {@link OkapiToken} there is no JWT validation taking place.
+ */
+public final class TokenClaims {
+
+  static final int CACHE_SIZE = 1024; // power of two
+  /** Number of characters at the end of the token that are hashed. */
+  private static final int HASH_CHARS = 16;
+
+  private static final TokenClaims EMPTY = new TokenClaims(null, null, null);
+
+  private static final byte[] TENANT = "tenant".getBytes(UTF_8);
+  private static final byte[] USER_ID = "user_id".getBytes(UTF_8);
+
+  private static final int[] BASE64URL = new int[128];
+
+  static {
+    Arrays.fill(BASE64URL, -1);
+    String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+    for (int i = 0; i < alphabet.length(); i++) {
+      BASE64URL[alphabet.charAt(i)] = i;
+    }
+  }
+
+  private static final AtomicReferenceArray<TokenClaims> cache =
+      new AtomicReferenceArray<>(CACHE_SIZE);
+
+  private final String token;
+  private final String tenant;
+  private final String userId;
+
+  private TokenClaims(String token, String tenant, String userId) {
+    this.token = token;
+    this.tenant = tenant;
+    this.userId = userId;
+  }
+
+  /**
+   * Get claims of token.
+   * @param token token; null for no token
+   * @return claims
+   * @throws IllegalArgumentException if token is malformed, like {@link OkapiToken}
+   */
+  public static TokenClaims of(String token) {
+    if (token == null) {
+      return EMPTY;
+    }
+    int slot = slot(token);
+    TokenClaims claims = cache.getAcquire(slot);
+    // slots are shared and signatures can be copied, so compare the whole token
+    if (claims != null && claims.token.equals(token)) {
+      return claims;
+    }
+    claims = decode(token);
+    cache.setRelease(slot, claims);
+    return claims;
+  }
+
+  /**
+   * Cache slot of token. The end of a signed token is random, so a few characters
+   * spread tokens well; the whole token is only compared on a hit.
+   */
+  private static int slot(String token) {
+    int hash = token.length();
+    for (int i = Math.max(0, token.length() - HASH_CHARS); i < token.length(); i++) {
+      hash = 31 * hash + token.charAt(i);
+    }
+    hash ^= hash >>> 16;
+    return hash & (CACHE_SIZE - 1);
+  }
+
+  /**
+   * Get claims of token without using the cache.
+   * @param token token; not null
+   * @return claims
+   * @throws IllegalArgumentException if token is malformed
+   */
+  static TokenClaims decode(String token) {
+    byte[] payload = decodePayload(token);
+    if (payload != null) {
+      TokenClaims claims = new Scanner(token, payload).scan();
+      if (claims != null) {
+        return claims;
+      }
+    }
+    OkapiToken okapiToken = new OkapiToken(token);
+    return new TokenClaims(token, okapiToken.getTenantWithoutValidation(),
+        okapiToken.getUserIdWithoutValidation());
+  }
+
+  /**
+   * Base64URL decode payload, the part between the first two dots.
+   * @return bytes; null if the token is not of the common form without padding
+   */
+  private static byte[] decodePayload(String token) {
+    int start = token.indexOf('.') + 1;
+    int end = start == 0 ? -1 : token.indexOf('.', start);
+    if (end == -1) {
+      return null;
+    }
+    int len = end - start;
+    if (len % 4 == 1) {
+      return null;
+    }
+    byte[] out = new byte[len / 4 * 3 + Math.max(0, len % 4 - 1)];
+    int bits = 0;
+    int nbits = 0;
+    int n = 0;
+    for (int i = start; i < end; i++) {
+      char c = token.charAt(i);
+      int v = c < 128 ? BASE64URL[c] : -1;
+      if (v == -1) {
+        return null;
+      }
+      bits = (bits << 6) | v;
+      nbits += 6;
+      if (nbits >= 8) {
+        nbits -= 8;
+        out[n++] = (byte) (bits >> nbits);
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Strict scanner of the top level JSON object that keeps the claims of interest.
+   * All scan methods return the position after what was scanned, or -1 if the input
+   * is not handled.
+   */
+  private static final class Scanner {
+    private static final int MAX_DEPTH = 100;
+
+    private final String token;
+    private final byte[] b;
+    private String tenant;
+    private String userId;
+    private int depth;
+
+    Scanner(String token, byte[] b) {
+      this.token = token;
+      this.b = b;
+    }
+
+    TokenClaims scan() {
+      int i = ws(0);
+      if (i >= b.length || b[i] != '{') {
+        return null;
+      }
+      i = ws(i + 1);
+      if (i < b.length && b[i] == '}') {
+        i++;
+      } else {
+        i = members(i, true);
+      }
+      if (i == -1 || ws(i) != b.length) {
+        return null;
+      }
+      return new TokenClaims(token, tenant, userId);
+    }
+
+    private int members(int i, boolean top) {
+      while (true) {
+        if (i >= b.length || b[i] != '"') {
+          return -1;
+        }
+        int keyEnd = skipString(i);
+        if (keyEnd == -1) {
+          return -1;
+        }
+        byte[] claim = null;
+        if (top && equals(i + 1, keyEnd - 1, TENANT)) {
+          claim = TENANT;
+        } else if (top && equals(i + 1, keyEnd - 1, USER_ID)) {
+          claim = USER_ID;
+        }
+        i = ws(keyEnd);
+        if (i >= b.length || b[i] != ':') {
+          return -1;
+        }
+        i = ws(i + 1);
+        if (claim != null) {
+          // other value types are left to OkapiToken
+          if (i >= b.length || b[i] != '"') {
+            return -1;
+          }
+          int valueEnd = skipString(i);
+          if (valueEnd == -1) {
+            return -1;
+          }
+          String value = string(i + 1, valueEnd - 1);
+          if (claim == TENANT) {
+            tenant = value;
+          } else {
+            userId = value;
+          }
+          i = valueEnd;
+        } else {
+          i = value(i);
+          if (i == -1) {
+            return -1;
+          }
+        }
+        i = ws(i);
+        if (i >= b.length) {
+          return -1;
+        }
+        if (b[i] == '}') {
+          return i + 1;
+        }
+        if (b[i] != ',') {
+          return -1;
+        }
+        i = ws(i + 1);
+      }
+    }
+
+    private int value(int i) {
+      if (i >= b.length) {
+        return -1;
+      }
+      switch (b[i]) {
+        case '"':
+          return skipString(i);
+        case '{':
+          return nested(ws(i + 1), '}');
+        case '[':
+          return nested(ws(i + 1), ']');
+        case 't':
+          return literal(i, "true");
+        case 'f':
+          return literal(i, "false");
+        case 'n':
+          return literal(i, "null");
+        default:
+          return number(i);
+      }
+    }
+
+    private int nested(int i, char close) {
+      if (i < b.length && b[i] == close) {
+        return i + 1;
+      }
+      if (++depth > MAX_DEPTH) {
+        return -1; // left to OkapiToken, which has its own limit
+      }
+      i = close == '}' ? members(i, false) : elements(i);
+      depth--;
+      return i;
+    }
+
+    private int elements(int i) {
+      while (true) {
+        i = value(i);
+        if (i == -1) {
+          return -1;
+        }
+        i = ws(i);
+        if (i >= b.length) {
+          return -1;
+        }
+        if (b[i] == ']') {
+          return i + 1;
+        }
+        if (b[i] != ',') {
+          return -1;
+        }
+        i = ws(i + 1);
+      }
+    }
+
+    private int literal(int i, String literal) {
+      if (i + literal.length() > b.length) {
+        return -1;
+      }
+      for (int j = 0; j < literal.length(); j++) {
+        if (b[i + j] != literal.charAt(j)) {
+          return -1;
+        }
+      }
+      return i + literal.length();
+    }
+
+    private int number(int i) {
+      if (i < b.length && b[i] == '-') {
+        i++;
+      }
+      if (i >= b.length || !digit(b[i])) {
+        return -1;
+      }
+      if (b[i] == '0') {
+        i++;
+      } else {
+        i = digits(i);
+      }
+      if (i < b.length && b[i] == '.') {
+        if (i + 1 >= b.length || !digit(b[i + 1])) {
+          return -1;
+        }
+        i = digits(i + 1);
+      }
+      if (i < b.length && (b[i] == 'e' || b[i] == 'E')) {
+        i++;
+        if (i < b.length && (b[i] == '+' || b[i] == '-')) {
+          i++;
+        }
+        if (i >= b.length || !digit(b[i])) {
+          return -1;
+        }
+        i = digits(i);
+      }
+      return i;
+    }
+
+    private int digits(int i) {
+      while (i < b.length && digit(b[i])) {
+        i++;
+      }
+      return i;
+    }
+
+    private static boolean digit(byte c) {
+      return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Skip string.
+     * @param i position of opening quote
+     * @return position after closing quote; -1 for control characters or escapes other
+     *     than the simple ones
+     */
+    private int skipString(int i) {
+      for (i++; i < b.length; i++) {
+        byte c = b[i];
+        if (c == '"') {
+          return i + 1;
+        }
+        if (c >= 0 && c < 0x20) {
+          return -1;
+        }
+        if (c == '\\') {
+          i++;
+          if (i >= b.length || escape(b[i]) == 0) {
+            return -1;
+          }
+        }
+      }
+      return -1;
+    }
+
+    private static char escape(byte c) {
+      switch (c) {
+        case '"':
+          return '"';
+        case '\\':
+          return '\\';
+        case '/':
+          return '/';
+        case 'b':
+          return '\b';
+        case 'f':
+          return '\f';
+        case 'n':
+          return '\n';
+        case 'r':
+          return '\r';
+        case 't':
+          return '\t';
+        default:
+          return 0; // \\u escapes are left to OkapiToken
+      }
+    }
+
+    private String string(int start, int end) {
+      int i = start;
+      while (i < end && b[i] != '\\') {
+        i++;
+      }
+      if (i == end) {
+        return new String(b, start, end - start, UTF_8);
+      }
+      StringBuilder sb = new StringBuilder(end - start);
+      sb.append(new String(b, start, i - start, UTF_8));
+      while (i < end) {
+        sb.append(escape(b[i + 1]));
+        i += 2;
+        int j = i;
+        while (j < end && b[j] != '\\') {
+          j++;
+        }
+        sb.append(new String(b, i, j - i, UTF_8));
+        i = j;
+      }
+      return sb.toString();
+    }
+
+    private boolean equals(int start, int end, byte[] key) {
+      if (end - start != key.length) {
+        return false;
+      }
+      for (int i = 0; i < key.length; i++) {
+        if (b[start + i] != key[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private int ws(int i) {
+      while (i < b.length && (b[i] == ' ' || b[i] == '\n' || b[i] == '\r' || b[i] == '\t')) {
+        i++;
+      }
+      return i;
+    }
+  }
+
+  /**
+   * Get the tenant claim.
+   * @return null if no token, or no tenant there
+   */
+  public String getTenant() {
+    return tenant;
+  }
+
+  /**
+   * Get the user_id claim.
+   * @return null if no token, or no user id there
+   */
+  public String getUserId() {
+    return userId;
+  }
+}
@@ -11,6 +11,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Test;
@@ -43,6 +44,9 @@ public class MetricsUtilTest {
     assertNull(MetricsUtil.getTimerSample());
     assertNull(MetricsUtil.recordCounter("a", Collections.emptyList()));
     assertNull(MetricsUtil.recordTimer(null, "a", Collections.emptyList()));
+    assertNull(MetricsUtil.recordTimer("a", Collections.emptyList(), 1, TimeUnit.SECONDS));
+    assertNull(MetricsUtil.timer("a", Collections.emptyList()));
+    assertNull(MetricsUtil.counter("a", Collections.emptyList()));
   }
 
   @Test
@@ -94,6 +98,17 @@ public class MetricsUtilTest {
     assertEquals(1, timer.count());
   }
 
+  @Test
+  public void testRecordTimerAmount() {
+    MetricsUtil.setEnabled(true);
+    MetricsUtil.getRegistry().add(new SimpleMeterRegistry());
+    Timer timer = MetricsUtil.recordTimer(MetricsUtil.METRICS_PREFIX + ".c",
+        Arrays.asList(Tag.of("k", "v")), 20, TimeUnit.MILLISECONDS);
+    assertNotNull(timer);
+    assertEquals(1, timer.count());
+    assertEquals(20, timer.totalTime(TimeUnit.MILLISECONDS), 0.1);
+  }
+
   @Test
   public void testRecordCounter() {
     MetricsUtil.setEnabled(true);
@@ -104,4 +119,30 @@ public class MetricsUtilTest {
     assertEquals(1, counter.count(), 0.1);
   }
 
+  @Test
+  public void testRegisterMeters() {
+    MetricsUtil.setEnabled(true);
+    MetricsUtil.getRegistry().add(new SimpleMeterRegistry());
+    Timer timer = MetricsUtil.timer(MetricsUtil.METRICS_PREFIX + ".d",
+        Arrays.asList(Tag.of("k", "v")));
+    assertEquals(0, timer.count());
+    timer.record(1, TimeUnit.MILLISECONDS);
+    assertEquals(1, timer.count());
+    // same meter as the one recorded by name and tags
+    MetricsUtil.recordTimer(MetricsUtil.METRICS_PREFIX + ".d",
+        Arrays.asList(Tag.of("k", "v")), 1, TimeUnit.MILLISECONDS);
+    assertEquals(2, timer.count());
+    Counter counter = MetricsUtil.counter(MetricsUtil.METRICS_PREFIX + ".e",
+        Arrays.asList(Tag.of("k", "v")));
+    assertEquals(0, counter.count(), 0.1);
+  }
+
+  @Test
+  public void testGeneration() {
+    long generation = MetricsUtil.getGeneration();
+    MetricsUtil.setEnabled(true);
+    MetricsUtil.stop();
+    assertNotEquals(generation, MetricsUtil.getGeneration());
+  }
+
 }
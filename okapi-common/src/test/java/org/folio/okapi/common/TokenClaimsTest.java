@@ -0,0 +1,95 @@
+package org.folio.okapi.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import java.util.Base64;
+import org.junit.Test;
+
+public class TokenClaimsTest {
+
+  private static String token(String payload, String signature) {
+    return "eyJhbGciOiJIUzI1NiJ9."
+        + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(UTF_8))
+        + "." + signature;
+  }
+
+  private static void assertSameAsOkapiToken(String payload) {
+    String token = token(payload, "sig");
+    OkapiToken okapiToken = new OkapiToken(token);
+    TokenClaims claims = TokenClaims.decode(token);
+    assertEquals(payload, okapiToken.getTenantWithoutValidation(), claims.getTenant());
+    assertEquals(payload, okapiToken.getUserIdWithoutValidation(), claims.getUserId());
+  }
+
+  @Test
+  public void testClaims() {
+    assertSameAsOkapiToken("{\"sub\":\"u\",\"tenant\":\"diku\",\"user_id\":\"1234\"}");
+    assertSameAsOkapiToken("{}");
+    assertSameAsOkapiToken(" {\n\t\"tenant\" : \"diku\" }\r\n");
+    assertSameAsOkapiToken("{\"tenant\":\"a\",\"tenant\":\"b\"}");
+    assertSameAsOkapiToken("{\"tenant\":\"a\\\"b\\\\c\\/d\\n\"}");
+    assertSameAsOkapiToken("{\"tenant\":\"fooä\",\"user_id\":\"\"}");
+    assertSameAsOkapiToken("{\"extra\":{\"tenant\":\"nested\",\"a\":[1,-2.5e+3,true,false,null,[]]},"
+        + "\"tenant\":\"top\"}");
+    assertSameAsOkapiToken("{\"iat\":1700000000,\"exp\":1.5E3,\"tenant\":\"diku\"}");
+    // handled by OkapiToken
+    assertSameAsOkapiToken("{\"tenant\":\"\\u0041\"}");
+    assertSameAsOkapiToken("{\"tenant\":5,\"user_id\":null}");
+    assertSameAsOkapiToken("{\"a\":" + "[".repeat(150) + "]".repeat(150) + ",\"tenant\":\"x\"}");
+  }
+
+  @Test
+  public void testPadding() {
+    // {"tenant":"x"} with padding
+    TokenClaims claims = TokenClaims.decode("a.eyJ0ZW5hbnQiOiJ4In0=.c");
+    assertEquals("x", claims.getTenant());
+  }
+
+  @Test
+  public void testNullToken() {
+    TokenClaims claims = TokenClaims.of(null);
+    assertNull(claims.getTenant());
+    assertNull(claims.getUserId());
+  }
+
+  private static String exceptionMessage(String token) {
+    return assertThrows(IllegalArgumentException.class, () -> TokenClaims.of(token))
+        .getMessage();
+  }
+
+  @Test
+  public void testExceptions() {
+    assertEquals("Missing . separator for token", exceptionMessage(""));
+    assertEquals("Missing . separator for token", exceptionMessage("a.b"));
+    assertEquals("Input byte[] should at least have 2 bytes for base64 bytes",
+        exceptionMessage("a.b.c"));
+    assertEquals(exceptionMessage("a.ewo=.c"),
+        assertThrows(IllegalArgumentException.class, () -> new OkapiToken("a.ewo=.c"))
+            .getMessage());
+    for (String payload : new String[] {"{\"a\":01}", "{\"a\":1,}", "{\"a\":1}x",
+        "{\"a\":tru}"}) {
+      String token = token(payload, "sig");
+      assertEquals(payload,
+          assertThrows(IllegalArgumentException.class, () -> new OkapiToken(token))
+              .getMessage(),
+          exceptionMessage(token));
+    }
+  }
+
+  @Test
+  public void testCache() {
+    String token = token("{\"tenant\":\"cached\"}", "cacheSignature");
+    TokenClaims claims = TokenClaims.of(token);
+    assertSame(claims, TokenClaims.of(new String(token)));
+    // same signature, but different payload
+    TokenClaims other = TokenClaims.of(token("{\"tenant\":\"other\"}", "cacheSignature"));
+    assertNotSame(claims, other);
+    assertEquals("other", other.getTenant());
+    assertEquals("cached", TokenClaims.of(token).getTenant());
+  }
+}
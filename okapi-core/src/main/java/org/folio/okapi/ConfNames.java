@@ -23,10 +23,47 @@ public final class ConfNames {
   public static final String KUBE_NAMESPACE = "kube_namespace";
   public static final String KUBE_REFRESH_INTERVAL = "kube_refresh_interval";
   public static final String LOG_WAIT_MS = "log_wait_ms";
+  public static final String LOAD_BALANCING = "load_balancing";
+  public static final String METRICS_USER_ID_LIMIT = "metrics_user_id_limit";
+  public static final int METRICS_USER_ID_LIMIT_DEFAULT = 1000;
   public static final String HTTP_MAX_SIZE_SYSTEM = "http_max_size_system";
   public static final int HTTP_MAX_SIZE_SYSTEM_DEFAULT = 100;
   public static final String HTTP_MAX_SIZE_PROXY = "http_max_size_proxy";
   public static final int HTTP_MAX_SIZE_PROXY_DEFAULT = 1000;
+  public static final String HTTP2_PROXY = "http2_proxy";
+  public static final String HTTP2_MAX_SIZE_PROXY = "http2_max_size_proxy";
+  public static final int HTTP2_MAX_SIZE_PROXY_DEFAULT = 1;
+  public static final String HTTP2_MAX_STREAMS = "http2_max_streams";
+  public static final int HTTP2_MAX_STREAMS_DEFAULT = -1;
+  public static final String HTTP2_KEEP_ALIVE_TIMEOUT = "http2_keep_alive_timeout";
+  public static final int HTTP2_KEEP_ALIVE_TIMEOUT_DEFAULT = 60;
+  public static final String HTTP_MAX_WAIT_QUEUE_PROXY = "http_max_wait_queue_proxy";
+  public static final int HTTP_MAX_WAIT_QUEUE_PROXY_DEFAULT = -1;
+  public static final String CIRCUIT_BREAKER_FAILURES = "circuit_breaker_failures";
+  public static final int CIRCUIT_BREAKER_FAILURES_DEFAULT = 0;
+  public static final String CIRCUIT_BREAKER_LATENCY_MS = "circuit_breaker_latency_ms";
+  public static final int CIRCUIT_BREAKER_LATENCY_MS_DEFAULT = 0;
+  public static final String CIRCUIT_BREAKER_OPEN_MS = "circuit_breaker_open_ms";
+  public static final int CIRCUIT_BREAKER_OPEN_MS_DEFAULT = 10000;
+  public static final String MODULE_CACHE_TTL_MS = "module_cache_ttl_ms";
+  public static final int MODULE_CACHE_TTL_MS_DEFAULT = 60000;
+  public static final String PROXY_BODY_MEMORY_THRESHOLD = "proxy_body_memory_threshold";
+  public static final int PROXY_BODY_MEMORY_THRESHOLD_DEFAULT = 1048576;
+  public static final String REQUEST_ID_NODE = "request_id_node";
+  public static final String REQUEST_LOG_DROP_SLOW = "request_log_drop_slow";
+  public static final String ACCESS_LOG_ASYNC = "access_log_async";
+  public static final String ACCESS_LOG_BUFFER = "access_log_buffer";
+  public static final int ACCESS_LOG_BUFFER_DEFAULT = 8192;
+  public static final String ACCESS_LOG_SAMPLE = "access_log_sample";
+  public static final String SHARED_MAP_CODEC = "shared_map_codec";
+  public static final String SHARED_MAP_FLAT = "shared_map_flat";
+  public static final String SYSTEM_TOKEN_CACHE_TTL_MS = "system_token_cache_ttl_ms";
+  public static final int SYSTEM_TOKEN_CACHE_TTL_MS_DEFAULT = 60000;
+  public static final String TENANT_CACHE_TTL_MS = "tenant_cache_ttl_ms";
+  public static final int TENANT_CACHE_TTL_MS_DEFAULT = 60000;
+  public static final String TENANT_INIT_CALLBACK = "tenant_init_callback";
+  public static final String TENANT_INIT_POLL_MAX_MS = "tenant_init_poll_max_ms";
+  public static final int TENANT_INIT_POLL_MAX_MS_DEFAULT = 30000;
   public static final String TIMER_WAIT_SYNC = "timer_wait_sync";
   public static final String TIMER_WAIT_EXTRA = "timer_wait_extra";
   public static final int TIMER_WAIT_EXTRA_DEFAULT = 30000;
@@ -51,7 +51,10 @@ import org.folio.okapi.service.impl.TenantStoreNull;
 import org.folio.okapi.util.CorsHelper;
 import org.folio.okapi.util.EventBusChecker;
 import org.folio.okapi.util.LogHelper;
+import org.folio.okapi.util.MapValueCodec;
+import org.folio.okapi.util.MetricsHelper;
 import org.folio.okapi.util.OkapiError;
+import org.folio.okapi.util.RequestIds;
 
 @java.lang.SuppressWarnings({"squid:S1192"})
 public class MainVerticle extends VerticleBase {
@@ -87,6 +90,7 @@ public class MainVerticle extends VerticleBase {
   private Storage storage;
   private Storage.InitMode initMode = InitMode.NORMAL;
   private int port;
+  private Integer requestIdNode;
   private String okapiVersion = null;
   private final Messages messages = Messages.getInstance();
   boolean enableProxy = false;
@@ -125,6 +129,9 @@ public class MainVerticle extends VerticleBase {
     if (loglevel != null && !loglevel.isEmpty()) {
       LogHelper.setRootLogLevel(loglevel);
     }
+    MapValueCodec.setCodec(Config.getSysConf(ConfNames.SHARED_MAP_CODEC, MapValueCodec.JSON,
+        config));
+    requestIdNode = Config.getSysConfInteger(ConfNames.REQUEST_ID_NODE, null, config);
     String mode = config.getString("mode", "cluster");
     switch (mode) {
       case "deployment":
@@ -178,8 +185,21 @@ public class MainVerticle extends VerticleBase {
     if (enableProxy) {
       ModuleStore moduleStore = storage.getModuleStore();
       moduleManager = new ModuleManager(moduleStore, false);
+      moduleManager.setModuleCacheTtl(Config.getSysConfInteger(ConfNames.MODULE_CACHE_TTL_MS,
+          ConfNames.MODULE_CACHE_TTL_MS_DEFAULT, config));
       TenantStore tenantStore = storage.getTenantStore();
       tenantManager = new TenantManager(moduleManager, tenantStore, false);
+      tenantManager.setTenantCacheTtl(Config.getSysConfInteger(ConfNames.TENANT_CACHE_TTL_MS,
+          ConfNames.TENANT_CACHE_TTL_MS_DEFAULT, config));
+      tenantManager.setFlatJobs(Config.getSysConfBoolean(ConfNames.SHARED_MAP_FLAT, false,
+          config));
+      if (Config.getSysConfBoolean(ConfNames.TENANT_INIT_CALLBACK, false, config)) {
+        tenantManager.setTenantInitCallbackUrl(okapiUrl);
+      }
+      tenantManager.setTenantInitPollMax(Config.getSysConfInteger(
+          ConfNames.TENANT_INIT_POLL_MAX_MS, ConfNames.TENANT_INIT_POLL_MAX_MS_DEFAULT, config));
+      MetricsHelper.setUserIdLimit(Config.getSysConfInteger(ConfNames.METRICS_USER_ID_LIMIT,
+          ConfNames.METRICS_USER_ID_LIMIT_DEFAULT, config));
       discoveryManager.setModuleManager(moduleManager);
       logger.info("Proxy using {} storage", storageType);
       PullManager pullManager = new PullManager(vertx, moduleManager);
@@ -208,6 +228,9 @@ public class MainVerticle extends VerticleBase {
   public Future<Void> stop() {
     logger.info("stop");
     MetricsUtil.stop();
+    if (proxyService != null) {
+      proxyService.close();
+    }
     Future<Void> future = Future.succeededFuture();
     if (deploymentManager != null) {
       future = future.compose(x -> deploymentManager.shutdown());
@@ -227,6 +250,9 @@ public class MainVerticle extends VerticleBase {
           logger.warn("event bus check failed {}", cause.getMessage());
           return Future.succeededFuture();
         }));
+    fut = fut.compose(x -> RequestIds.init(vertx, requestIdNode)
+        .onSuccess(prefix -> logger.info("Request id node prefix {}", prefix))
+        .mapEmpty());
     fut = fut.compose(x -> startModuleManager());
     fut = fut.compose(x -> startTenants());
     fut = fut.compose(x -> checkInternalModules());
@@ -327,6 +353,10 @@ public class MainVerticle extends VerticleBase {
     CorsHelper.addCorsHandler(router, tenantManager);
 
     if (proxyService != null) {
+      // Completion callback of tenant jobs. Unauthenticated by design: modules call it
+      // without token, and the random callback id only triggers an early poll of the job.
+      router.post(TenantManager.TENANT_INIT_CALLBACK_PATH + ":id")
+          .handler(proxyService::tenantInitCallback);
       router.routeWithRegex("^/_/invoke/tenant/[^/ ]+/.*")
           .handler(proxyService::redirectProxy);
       // Note: This can not go into the InternalModule, it reads the req body,
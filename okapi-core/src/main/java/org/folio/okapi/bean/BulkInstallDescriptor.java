@@ -0,0 +1,29 @@
+package org.folio.okapi.bean;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkInstallDescriptor {
+
+  private List<String> tenants;
+
+  private List<TenantModuleDescriptor> modules;
+
+  public List<String> getTenants() {
+    return tenants;
+  }
+
+  public void setTenants(List<String> tenants) {
+    this.tenants = tenants;
+  }
+
+  public List<TenantModuleDescriptor> getModules() {
+    return modules;
+  }
+
+  public void setModules(List<TenantModuleDescriptor> modules) {
+    this.modules = modules;
+  }
+
+}
@@ -17,6 +17,8 @@ public class DeploymentDescriptor {
   private String srvcId;
   private String nodeId;
   private String url;
+  private String loadBalancing;
+  private String http2;
   private LaunchDescriptor descriptor;
 
   @JsonIgnore
@@ -100,6 +102,22 @@ public class DeploymentDescriptor {
     this.url = url;
   }
 
+  public String getLoadBalancing() {
+    return loadBalancing;
+  }
+
+  public void setLoadBalancing(String loadBalancing) {
+    this.loadBalancing = loadBalancing;
+  }
+
+  public String getHttp2() {
+    return http2;
+  }
+
+  public void setHttp2(String http2) {
+    this.http2 = http2;
+  }
+
   public LaunchDescriptor getDescriptor() {
     return descriptor;
   }
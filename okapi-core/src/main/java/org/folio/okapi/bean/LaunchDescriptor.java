@@ -22,6 +22,8 @@ public class LaunchDescriptor {
   private EnvEntry[] env;
   private AnyDescriptor dockerArgs;
   private Integer waitIterations;
+  private String loadBalancing;
+  private String http2;
 
   public String getCmdlineStart() {
     return cmdlineStart;
@@ -95,4 +97,20 @@ public class LaunchDescriptor {
     this.waitIterations = waitIterations;
   }
 
+  public String getLoadBalancing() {
+    return loadBalancing;
+  }
+
+  public void setLoadBalancing(String loadBalancing) {
+    this.loadBalancing = loadBalancing;
+  }
+
+  public String getHttp2() {
+    return http2;
+  }
+
+  public void setHttp2(String http2) {
+    this.http2 = http2;
+  }
+
 }
@@ -10,6 +10,7 @@ public class ModuleInstance {
 
   private final ModuleDescriptor md;
   private String url; // Absolute URL to the module instance
+  private String http2; // HTTP/2 mode for url; null for the global one
   private final RoutingEntry re;
   private String authToken;
   private String userId;
@@ -64,6 +65,14 @@ public class ModuleInstance {
     this.url = url;
   }
 
+  public String getHttp2() {
+    return http2;
+  }
+
+  public void setHttp2(String http2) {
+    this.http2 = http2;
+  }
+
   public RoutingEntry getRoutingEntry() {
     return re;
   }
@@ -9,6 +9,7 @@ import io.vertx.core.json.Json;
 import java.util.Arrays;
 import java.util.List;
 import org.apache.logging.log4j.Logger;
+import org.folio.okapi.util.HttpMeters;
 
 /**
  * One entry in Okapi's routing table. Each entry contains one or more HTTP
@@ -70,6 +71,9 @@ public class RoutingEntry {
   @JsonIgnore
   private ProxyType proxyType = ProxyType.REQUEST_RESPONSE;
 
+  @JsonIgnore
+  private volatile HttpMeters httpMeters; // metrics timers; only used by MetricsHelper
+
   public String[] getPermissionsRequired() {
     return permissionsRequired;
   }
@@ -453,6 +457,16 @@ public class RoutingEntry {
     return phase;
   }
 
+  @JsonIgnore
+  public HttpMeters getHttpMeters() {
+    return httpMeters;
+  }
+
+  @JsonIgnore
+  public void setHttpMeters(HttpMeters httpMeters) {
+    this.httpMeters = httpMeters;
+  }
+
   /**
    * Set routing entry phrase.
    * @param phase such as "auth", "pre", ..
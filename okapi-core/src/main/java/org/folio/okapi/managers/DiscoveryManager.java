@@ -12,15 +12,23 @@ import io.vertx.core.spi.cluster.ClusterManager;
 import io.vertx.core.spi.cluster.NodeListener;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import org.apache.logging.log4j.Logger;
+import org.folio.okapi.ConfNames;
 import org.folio.okapi.bean.DeploymentDescriptor;
 import org.folio.okapi.bean.HealthDescriptor;
 import org.folio.okapi.bean.LaunchDescriptor;
 import org.folio.okapi.bean.ModuleDescriptor;
 import org.folio.okapi.bean.NodeDescriptor;
+import org.folio.okapi.common.Config;
 import org.folio.okapi.common.ErrorType;
 import org.folio.okapi.common.Messages;
 import org.folio.okapi.common.OkapiLogger;
@@ -29,8 +37,11 @@ import org.folio.okapi.service.DeploymentStore;
 import org.folio.okapi.util.FuturisedHttpClient;
 import org.folio.okapi.util.JsonDecoder;
 import org.folio.okapi.util.LockedTypedMap1;
+import org.folio.okapi.util.LoadBalancers;
 import org.folio.okapi.util.LockedTypedMap2;
 import org.folio.okapi.util.OkapiError;
+import org.folio.okapi.util.UpstreamClients;
+import org.folio.okapi.util.UpstreamStats;
 
 
 /**
@@ -54,6 +65,14 @@ public class DiscoveryManager implements NodeListener {
   private final Messages messages = Messages.getInstance();
   private DeliveryOptions deliveryOptions;
   private final JsonObject config;
+  private static final String ROUTES_EVENT = "discoveryRoutes";
+  private static final String ROUTES_SRVC_ID = "srvcId";
+  // node-local table of alive instances per service; entries are dropped on changes
+  private final Map<String, List<DeploymentDescriptor>> routes = new ConcurrentHashMap<>();
+  private final AtomicLong routesGeneration = new AtomicLong();
+  // node-local counters of instances in the routing table
+  private final UpstreamStats upstreamStats = new UpstreamStats();
+  private Consumer<String> evictedUrlHandler = url -> { };
 
   /**
    * Initialize discovery manager.
@@ -64,7 +83,10 @@ public class DiscoveryManager implements NodeListener {
     this.vertx = vertx;
     this.httpClient = FuturisedHttpClient.getSystemClient(vertx, config);
     deliveryOptions = new DeliveryOptions().setSendTimeout(36000000); // 1 hour
-    return deployments.init(vertx, "discoveryList", false).compose(x ->
+    vertx.eventBus().<JsonObject>consumer(ROUTES_EVENT, message ->
+        evictRoutes(message.body().getString(ROUTES_SRVC_ID)));
+    boolean flat = Config.getSysConfBoolean(ConfNames.SHARED_MAP_FLAT, false, config);
+    return deployments.init(vertx, "discoveryList", false, flat).compose(x ->
         nodes.init(vertx, "discoveryNodes", false));
   }
 
@@ -77,7 +99,7 @@ public class DiscoveryManager implements NodeListener {
     if (clusterManager != null) {
       return Future.succeededFuture();
     }
-    return deployments.clear();
+    return deployments.clear().onComplete(x -> evictRoutes(null));
   }
 
   /**
@@ -116,8 +138,27 @@ public class DiscoveryManager implements NodeListener {
     this.moduleManager = mgr;
   }
 
+  private Future<Void> checkProxyOptions(DeploymentDescriptor dd) {
+    LaunchDescriptor ld = dd.getDescriptor();
+    String name = dd.getLoadBalancing();
+    if (name == null && ld != null) {
+      name = ld.getLoadBalancing();
+    }
+    if (name != null && LoadBalancers.get(name) == null) {
+      return Future.failedFuture(new OkapiError(ErrorType.USER,
+          messages.getMessage("10810", name)));
+    }
+    for (String http2 : new String[] {dd.getHttp2(), ld == null ? null : ld.getHttp2()}) {
+      if (http2 != null && !UpstreamClients.isMode(http2)) {
+        return Future.failedFuture(new OkapiError(ErrorType.USER,
+            messages.getMessage("10811", http2)));
+      }
+    }
+    return Future.succeededFuture();
+  }
+
   Future<Void> add(DeploymentDescriptor md) {
-    return deployments.getKeys().compose(res -> {
+    return checkProxyOptions(md).compose(x -> deployments.getKeys()).compose(res -> {
       Future<Void> future = Future.succeededFuture();
       for (String moduleId : res) {
         future = future.compose(a -> deployments.get(moduleId, md.getInstId()).compose(b -> {
@@ -128,7 +169,9 @@ public class DiscoveryManager implements NodeListener {
           return Future.succeededFuture();
         }));
       }
-      return future.compose(res2 -> deployments.add(md.getSrvcId(), md.getInstId(), md)).mapEmpty();
+      return future.compose(res2 -> deployments.add(md.getSrvcId(), md.getInstId(), md))
+          .onSuccess(x -> invalidateRoutes(md.getSrvcId()))
+          .mapEmpty();
     });
   }
 
@@ -162,6 +205,10 @@ public class DiscoveryManager implements NodeListener {
     if (id == null) {
       return Future.failedFuture(new OkapiError(ErrorType.USER, messages.getMessage("10800")));
     }
+    Future<Void> check = checkProxyOptions(dd);
+    if (check.failed()) {
+      return check.mapEmpty();
+    }
     LaunchDescriptor launchDesc = dd.getDescriptor();
     final String nodeId = dd.getNodeId();
     if (nodeId == null) {
@@ -251,7 +298,110 @@ public class DiscoveryManager implements NodeListener {
   }
 
   Future<Boolean> remove(String srvcId, String instId) {
-    return deployments.remove(srvcId, instId);
+    return deployments.remove(srvcId, instId).onSuccess(x -> invalidateRoutes(srvcId));
+  }
+
+  private void evictRoutes(String srvcId) {
+    synchronized (routes) {
+      routesGeneration.incrementAndGet();
+      List<List<DeploymentDescriptor>> evicted = new LinkedList<>();
+      if (srvcId == null) {
+        evicted.addAll(routes.values());
+        routes.clear();
+      } else {
+        List<DeploymentDescriptor> list = routes.remove(srvcId);
+        if (list != null) {
+          evicted.add(list);
+        }
+      }
+      pruneStats(evicted);
+    }
+  }
+
+  /**
+   * Drop counters of instance URLs that left the routing table. An instance that is
+   * still alive starts with fresh counters when its service is looked up again.
+   * @param evicted routing table entries removed
+   */
+  private void pruneStats(List<List<DeploymentDescriptor>> evicted) {
+    Set<String> urls = new HashSet<>();
+    for (List<DeploymentDescriptor> list : evicted) {
+      for (DeploymentDescriptor dd : list) {
+        urls.add(dd.getUrl());
+      }
+    }
+    for (List<DeploymentDescriptor> list : routes.values()) {
+      for (DeploymentDescriptor dd : list) {
+        urls.remove(dd.getUrl());
+      }
+    }
+    for (String url : urls) {
+      upstreamStats.remove(url);
+      evictedUrlHandler.accept(url);
+    }
+  }
+
+  /**
+   * Set handler for instance URLs that left the routing table, so that state kept
+   * per URL elsewhere is not inherited by a new instance on the same URL.
+   * @param handler called with each URL, while the routing table is locked
+   */
+  void setEvictedUrlHandler(Consumer<String> handler) {
+    evictedUrlHandler = handler;
+  }
+
+  /**
+   * Counters of instances for load balancing on this node.
+   * @return counters; entries are removed as instances leave the routing table
+   */
+  UpstreamStats getUpstreamStats() {
+    return upstreamStats;
+  }
+
+  /**
+   * Drop routing table entries on all nodes.
+   * @param srvcId service that changed; null if a node changed, which affects all services
+   */
+  private void invalidateRoutes(String srvcId) {
+    evictRoutes(srvcId);
+    if (vertx != null) {
+      vertx.eventBus().publish(ROUTES_EVENT, new JsonObject().put(ROUTES_SRVC_ID, srvcId));
+    }
+  }
+
+  /**
+   * Look up alive instances of a service in the node-local routing table.
+   *
+   * <p>The table is filled by {@link #getRoutes(String)}.
+   *
+   * @param srvcId service ID (module ID)
+   * @return unmodifiable list of instances, null if not in the routing table
+   */
+  List<DeploymentDescriptor> lookupRoutes(String srvcId) {
+    return routes.get(srvcId);
+  }
+
+  /**
+   * Get alive instances of a service from the routing table, loading it on a miss.
+   * @param srvcId service ID (module ID)
+   * @return future with unmodifiable list of instances
+   */
+  Future<List<DeploymentDescriptor>> getRoutes(String srvcId) {
+    List<DeploymentDescriptor> list = routes.get(srvcId);
+    if (list != null) {
+      return Future.succeededFuture(list);
+    }
+    final long generation = routesGeneration.get();
+    return get(srvcId).map(result -> {
+      List<DeploymentDescriptor> instances = List.copyOf(result);
+      synchronized (routes) {
+        // do not store if the table changed while loading
+        if (generation == routesGeneration.get()) {
+          routes.put(srvcId, instances);
+        }
+      }
+      return instances;
+    });
   }
 
   private boolean isAlive(DeploymentDescriptor md, Collection<NodeDescriptor> nodes) {
@@ -447,7 +597,7 @@ public class DiscoveryManager implements NodeListener {
     if (clusterManager != null) {
       nd.setNodeId(clusterManager.getNodeId());
     }
-    return nodes.put(nd.getNodeId(), nd);
+    return nodes.put(nd.getNodeId(), nd).onSuccess(x -> invalidateRoutes(null));
   }
 
   /**
@@ -510,7 +660,7 @@ public class DiscoveryManager implements NodeListener {
         return Future.failedFuture(new OkapiError(ErrorType.USER,
             messages.getMessage("10808", nodeId)));
       }
-      return nodes.put(nodeId, nd).map(nd);
+      return nodes.put(nodeId, nd).onSuccess(x -> invalidateRoutes(null)).map(nd);
     });
   }
 
@@ -535,12 +685,17 @@ public class DiscoveryManager implements NodeListener {
   @Override
   public void nodeAdded(String nodeID) {
     logger.info("node.add {}", nodeID);
+    evictRoutes(null);
   }
 
   @Override
   public void nodeLeft(String nodeID) {
-    nodes.remove(nodeID).onComplete(res ->
-        logger.info("node.remove {} result={}", nodeID, res.result()));
+    // all nodes are notified, so no need to publish
+    evictRoutes(null);
+    nodes.remove(nodeID).onComplete(res -> {
+      logger.info("node.remove {} result={}", nodeID, res.result());
+      evictRoutes(null);
+    });
   }
 
   /**
@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import org.apache.logging.log4j.Logger;
+import org.folio.okapi.bean.BulkInstallDescriptor;
 import org.folio.okapi.bean.DeploymentDescriptor;
 import org.folio.okapi.bean.EnvEntry;
 import org.folio.okapi.bean.ModuleDescriptor;
@@ -307,6 +308,26 @@ public class InternalModule {
         + "    \"permissionsRequired\" : [ \"okapi.proxy.tenants.install.delete\" ], "
         + "    \"type\" : \"internal\" "
         + "   }, {"
+        + "    \"methods\" :  [ \"GET\" ],"
+        + "    \"pathPattern\" : \"/_/proxy/install\","
+        + "    \"permissionsRequired\" : [ \"okapi.proxy.install.get\" ], "
+        + "    \"type\" : \"internal\" "
+        + "   }, {"
+        + "    \"methods\" :  [ \"POST\" ],"
+        + "    \"pathPattern\" : \"/_/proxy/install\","
+        + "    \"permissionsRequired\" : [ \"okapi.proxy.install.post\" ], "
+        + "    \"type\" : \"internal\" "
+        + "   }, {"
+        + "    \"methods\" :  [ \"GET\" ],"
+        + "    \"pathPattern\" : \"/_/proxy/install/{installId}\","
+        + "    \"permissionsRequired\" : [ \"okapi.proxy.install.get\" ], "
+        + "    \"type\" : \"internal\" "
+        + "   }, {"
+        + "    \"methods\" :  [ \"DELETE\" ],"
+        + "    \"pathPattern\" : \"/_/proxy/install/{installId}\","
+        + "    \"permissionsRequired\" : [ \"okapi.proxy.install.delete\" ], "
+        + "    \"type\" : \"internal\" "
+        + "   }, {"
         + "    \"methods\" :  [ \"POST\" ],"
         + "    \"pathPattern\" : \"/_/proxy/tenants/{tenantId}/modules\","
         + "    \"permissionsRequired\" : [ \"okapi.proxy.tenants.modules.post\" ], "
@@ -533,6 +554,18 @@ public class InternalModule {
         + "   \"displayName\" : \"Okapi - Enable modules and dependencies\", "
         + "   \"description\" : \"Check dependencies and enable/disable modules as needed\" "
         + " }, { "
+        + "   \"permissionName\" : \"okapi.proxy.install.get\", "
+        + "   \"displayName\" : \"Okapi - get install jobs for several tenants\", "
+        + "   \"description\" : \"Retrieve install jobs for several tenants\" "
+        + " }, { "
+        + "   \"permissionName\" : \"okapi.proxy.install.post\", "
+        + "   \"displayName\" : \"Okapi - Enable modules for several tenants\", "
+        + "   \"description\" : \"Enable/disable modules as needed for several tenants\" "
+        + " }, { "
+        + "   \"permissionName\" : \"okapi.proxy.install.delete\", "
+        + "   \"displayName\" : \"Okapi - delete install job for several tenants\", "
+        + "   \"description\" : \"Delete install job for several tenants by id\" "
+        + " }, { "
         + "   \"permissionName\" : \"okapi.proxy.tenants.modules.list\", "
         + "   \"displayName\" : \"Okapi - List modules enabled for tenant\", "
         + "   \"description\" : \"List modules enabled for tenant\" "
@@ -650,7 +683,10 @@ public class InternalModule {
         + "     \"okapi.proxy.tenants.install.list\", "
         + "     \"okapi.proxy.tenants.install.get\", "
         + "     \"okapi.proxy.tenants.install.delete\", "
-        + "     \"okapi.proxy.tenants.install.post\" "
+        + "     \"okapi.proxy.tenants.install.post\", "
+        + "     \"okapi.proxy.install.get\", "
+        + "     \"okapi.proxy.install.post\", "
+        + "     \"okapi.proxy.install.delete\" "
         + "   ]"
         + " }, "
         + " { "
@@ -865,6 +901,45 @@ public class InternalModule {
     return tenantManager.installUpgradeDelete(tenantId, installId).map("");
   }
 
+  private Future<String> bulkInstallPost(ProxyContext pc, String body) {
+    try {
+      MultiMap params = pc.getCtx().request().params();
+      TenantInstallOptions options = ModuleUtil.createTenantOptions(params);
+      int tenantParallel = ModuleUtil.getParamInteger(params, "tenantParallel", 4);
+      int moduleParallel = ModuleUtil.getParamInteger(params, "moduleParallel", 2);
+      if (tenantParallel < 1 || moduleParallel < 1) {
+        return Future.failedFuture(new OkapiError(ErrorType.USER,
+            messages.getMessage("10413")));
+      }
+      final BulkInstallDescriptor bd = JsonDecoder.decode(body, BulkInstallDescriptor.class);
+      String bulkId = UUID.randomUUID().toString();
+      return kubernetesManager.refresh().compose(x ->
+          tenantManager.bulkInstallCreate(bulkId, pc, options, bd, tenantParallel,
+                  moduleParallel)
+              .map(res -> {
+                String jsonResponse = Json.encodePrettily(res);
+                if (options.getSimulate()) {
+                  return jsonResponse;
+                }
+                return location(pc, bulkId, null, jsonResponse);
+              }));
+    } catch (DecodeException ex) {
+      return Future.failedFuture(new OkapiError(ErrorType.USER, ex.getMessage()));
+    }
+  }
+
+  private Future<String> bulkInstallGetList() {
+    return tenantManager.bulkInstallGetList().map(Json::encodePrettily);
+  }
+
+  private Future<String> bulkInstallGet(String bulkId) {
+    return tenantManager.bulkInstallGet(bulkId).map(Json::encodePrettily);
+  }
+
+  private Future<String> bulkInstallDelete(String bulkId) {
+    return tenantManager.bulkInstallDelete(bulkId).map("");
+  }
+
   private Future<String> upgradeModulesForTenant(ProxyContext pc, String tenantId, String body) {
     if (!body.isEmpty()) {
       return Future.failedFuture("/_/proxy/tenants/{tenant_id}/upgrade "
@@ -1401,6 +1476,22 @@ public class InternalModule {
         }
       } // /_/proxy/tenants
 
+      // /_/proxy/install
+      if (segments[3].equals("install") && tenantManager != null) {
+        if (n == 4 && m.equals(HttpMethod.GET)) {
+          return bulkInstallGetList();
+        }
+        if (n == 4 && m.equals(HttpMethod.POST)) {
+          return bulkInstallPost(pc, req);
+        }
+        // /_/proxy/install/:id
+        if (n == 5 && m.equals(HttpMethod.GET)) {
+          return bulkInstallGet(decodedSegs[4]);
+        }
+        if (n == 5 && m.equals(HttpMethod.DELETE)) {
+          return bulkInstallDelete(decodedSegs[4]);
+        }
+      }
       // /_/proxy/pull/modules
       if (n == 5 && segments[3].equals("pull") && segments[4].equals("modules")
           && m.equals(HttpMethod.POST) && pullManager != null) {
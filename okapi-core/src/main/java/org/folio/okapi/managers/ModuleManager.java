@@ -3,6 +3,7 @@ package org.folio.okapi.managers;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.Json;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -34,7 +35,7 @@ public class ModuleManager {
   private final Logger logger = OkapiLogger.get();
   private static final String MAP_NAME = "modules";
   private final LockedTypedMap1<ModuleDescriptor> modules
-      = new LockedTypedMap1<>(ModuleDescriptor.class);
+      = new LockedTypedMap1<>(ModuleDescriptor.class, true);
   private final ModuleStore moduleStore;
   private final Messages messages = Messages.getInstance();
   private final boolean local;
@@ -44,6 +45,14 @@ public class ModuleManager {
     this.local = local;
   }
 
+  /**
+   * Set maximum time that the decoded module catalog is kept on this node.
+   * @param ttl time to live in milliseconds; 0 disables the cache
+   */
+  public void setModuleCacheTtl(long ttl) {
+    modules.setSnapshotTtl(ttl);
+  }
+
   /**
    * Initialize module manager.
    * @param vertx Vert.x handle
@@ -165,10 +174,13 @@ public class ModuleManager {
                   messages.getMessage("10206", md.getId(), inUse.get(md.getId()))));
             }
           }
-          Future<Void> future = Future.succeededFuture();
+          List<String> ids = new ArrayList<>(obsolete.size());
           for (ModuleDescriptor md: obsolete) {
-            future = future.compose(x -> moduleStore.delete(md.getId()))
-                           .compose(x -> modules.remove(md.getId())).mapEmpty();
+            ids.add(md.getId());
+          }
+          Future<Void> future = moduleStore.delete(ids);
+          for (String id : ids) {
+            future = future.compose(x -> modules.remove(id)).mapEmpty();
           }
           return future;
         });
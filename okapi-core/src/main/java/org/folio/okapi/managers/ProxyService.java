@@ -7,11 +7,14 @@ import io.vertx.core.MultiMap;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.ConnectionPoolTooBusyException;
 import io.vertx.core.http.HttpClientRequest;
 import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.http.RequestOptions;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
@@ -20,18 +23,18 @@ import io.vertx.core.streams.WriteStream;
 import io.vertx.ext.web.RoutingContext;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Random;
 import java.util.Set;
 import org.apache.logging.log4j.Logger;
 import org.folio.okapi.ConfNames;
 import org.folio.okapi.bean.DeploymentDescriptor;
+import org.folio.okapi.bean.HealthDescriptor;
 import org.folio.okapi.bean.ModuleDescriptor;
 import org.folio.okapi.bean.ModuleInstance;
 import org.folio.okapi.bean.RoutingEntry;
@@ -42,17 +45,27 @@ import org.folio.okapi.common.HttpResponse;
 import org.folio.okapi.common.Messages;
 import org.folio.okapi.common.OkapiClient;
 import org.folio.okapi.common.OkapiLogger;
-import org.folio.okapi.common.OkapiToken;
+import org.folio.okapi.common.TokenClaims;
 import org.folio.okapi.common.XOkapiHeaders;
+import org.folio.okapi.util.AccessLog;
+import org.folio.okapi.util.BodyHolder;
+import org.folio.okapi.util.CircuitBreakers;
 import org.folio.okapi.util.CorsHelper;
+import org.folio.okapi.util.FanOutPipe;
 import org.folio.okapi.util.FuturisedHttpClient;
+import org.folio.okapi.util.LoadBalancer;
+import org.folio.okapi.util.LoadBalancers;
 import org.folio.okapi.util.MetricsHelper;
 import org.folio.okapi.util.ModuleCache;
+import org.folio.okapi.util.ModuleCache.SystemToken;
 import org.folio.okapi.util.OkapiError;
 import org.folio.okapi.util.ProxyContext;
 import org.folio.okapi.util.TokenCache;
 import org.folio.okapi.util.TokenCache.CacheEntry;
+import org.folio.okapi.util.TokenDigest;
 import org.folio.okapi.util.TokenHeader;
+import org.folio.okapi.util.UpstreamClients;
+import org.folio.okapi.util.UpstreamStats;
 
 /**
  * Okapi's proxy service. Routes incoming requests to relevant modules, as
@@ -60,8 +73,7 @@ import org.folio.okapi.util.TokenHeader;
  */
 // S1168: Empty arrays and collections should be returned instead of null
 // S1192: String literals should not be duplicated
-// S2245: Using pseudorandom number generators (PRNGs) is security-sensitive
-@java.lang.SuppressWarnings({"squid:S1168", "squid:S1192", "squid:S2245"})
+@java.lang.SuppressWarnings({"squid:S1168", "squid:S1192"})
 public class ProxyService {
 
   private static final Logger logger = OkapiLogger.get();
@@ -71,21 +83,28 @@ public class ProxyService {
   private final InternalModule internalModule;
   private final String okapiUrl;
   private final Vertx vertx;
-  private final FuturisedHttpClient httpProxyClient;
+  private final CircuitBreakers circuitBreakers;
+  private final UpstreamClients upstreamClients;
   private final FuturisedHttpClient httpSystemClient;
-  // for load balancing, so security is not an issue
-  private static final Random random = new Random();
+  private final LoadBalancer loadBalancer;
+  private final UpstreamStats upstreamStats;
   private final int waitMs;
+  private final long bodyMemoryThreshold;
+  private final boolean dropSlowRequestLog;
   private final boolean enableSystemAuth;
   private final boolean enableTraceHeaders;
+  private final long systemTokenCacheTtl;
+  private final AccessLog accessLog;
   private static final String REDIRECTQUERY = "redirect-query"; // See redirectProxy below
   private static final String TOKEN_CACHE_MAX_SIZE = "token_cache_max_size";
   private static final String TOKEN_CACHE_TTL_MS = "token_cache_ttl_ms";
   private static final Messages messages = Messages.getInstance();
-  private static final Comparator<ModuleInstance> compareInstanceLevel =
-      Comparator.comparing((ModuleInstance a) -> a.getRoutingEntry().getPhaseLevel());
   private final TokenCache tokenCache;
 
+  // connection-specific request headers that must not be sent over HTTP/2
+  private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive",
+      "proxy-connection", "transfer-encoding", "upgrade");
+
   // request + response HTTP headers that are forwarded in the pipeline
   private static final String [] FORWARD_HEADERS =
       new String [] { "Content-Type" };
@@ -105,12 +124,30 @@ public class ProxyService {
     this.tenantManager = tm;
     this.internalModule = im;
     this.discoveryManager = dm;
+    this.upstreamStats = dm.getUpstreamStats();
     this.okapiUrl = okapiUrl;
     waitMs = Config.getSysConfInteger(ConfNames.LOG_WAIT_MS, 0, config);
+    bodyMemoryThreshold = Config.getSysConfInteger(ConfNames.PROXY_BODY_MEMORY_THRESHOLD,
+        ConfNames.PROXY_BODY_MEMORY_THRESHOLD_DEFAULT, config);
+    dropSlowRequestLog = Config.getSysConfBoolean(ConfNames.REQUEST_LOG_DROP_SLOW, false,
+        config);
     enableSystemAuth = Config.getSysConfBoolean(ConfNames.ENABLE_SYSTEM_AUTH, true, config);
     enableTraceHeaders = Config.getSysConfBoolean(ConfNames.ENABLE_TRACE_HEADERS, false, config);
+    systemTokenCacheTtl = Config.getSysConfInteger(ConfNames.SYSTEM_TOKEN_CACHE_TTL_MS,
+        ConfNames.SYSTEM_TOKEN_CACHE_TTL_MS_DEFAULT, config);
+
+    String lb = Config.getSysConf(ConfNames.LOAD_BALANCING, LoadBalancers.RANDOM, config);
+    loadBalancer = LoadBalancers.get(lb);
+    if (loadBalancer == null) {
+      throw new IllegalArgumentException(messages.getMessage("10810", lb));
+    }
 
-    httpProxyClient = FuturisedHttpClient.getProxyClient(vertx, config);
+    circuitBreakers = new CircuitBreakers(config, this::probe);
+    upstreamClients = new UpstreamClients(vertx, config, circuitBreakers);
+    dm.setEvictedUrlHandler(url -> {
+      upstreamClients.remove(url);
+      circuitBreakers.remove(url);
+    });
     httpSystemClient = FuturisedHttpClient.getSystemClient(vertx, config);
 
     String tcTtlMs = Config.getSysConf(TOKEN_CACHE_TTL_MS, null, config);
@@ -119,6 +156,15 @@ public class ProxyService {
         .withTtl(tcTtlMs != null ? Long.parseLong(tcTtlMs) : TokenCache.DEFAULT_TTL)
         .withMaxSize(tcMaxSize != null ? Integer.parseInt(tcMaxSize) : TokenCache.DEFAULT_MAX_SIZE)
         .build();
+    // last, as it may start a thread
+    accessLog = AccessLog.create(config);
+  }
+
+  /**
+   * Stop the access log thread; called when the verticle stops.
+   */
+  public void close() {
+    accessLog.close();
   }
 
   /**
@@ -131,15 +177,34 @@ public class ProxyService {
   private void makeTraceHeader(ModuleInstance mi, int statusCode,
                                ProxyContext pc) {
 
+    boolean logged = pc.isAccessLogged();
+    if (!enableTraceHeaders && !logged) {
+      return;
+    }
     RoutingContext ctx = pc.getCtx();
     String url = makeUrl(mi, ctx);
     if (enableTraceHeaders) {
       pc.addTraceHeaderLine(ctx.request().method() + " "
           + mi.getModuleDescriptor().getId() + " "
-          + url.replaceFirst("[?#].*$", "..") // remove params
+          + removeParams(url)
           + " : " + statusCode + " " + pc.timeDiff());
     }
-    pc.logResponse(mi.getModuleDescriptor().getId(), url, statusCode);
+    if (logged) {
+      pc.logResponse(mi.getModuleDescriptor().getId(), url, statusCode);
+    }
+  }
+
+  /**
+   * Replace query and fragment of URL with "..".
+   */
+  static String removeParams(String url) {
+    for (int i = 0; i < url.length(); i++) {
+      char c = url.charAt(i);
+      if (c == '?' || c == '#') {
+        return url.substring(0, i) + "..";
+      }
+    }
+    return url;
   }
 
   /** Get path key for token.
@@ -160,16 +225,16 @@ public class ProxyService {
    * Checks for a cached token, userId, permissions and updates the provided ModuleInstance
    * accordingly.
    *
-   * @param tenant The tenant, used to tag cache event metrics
+   * @param pc proxy context with tenant and token digest of the request
    * @param req Request, used for accessing headers, etc.
    * @param re routing entry.
    * @param mi ModuleInstance to be updated
    * @return <code>true</code> if the ModuleInstance is updated with cached values,
    *         <code>false</code> otherwise.
    */
-  private boolean checkTokenCache(String tenant, HttpServerRequest req, RoutingEntry re,
+  private boolean checkTokenCache(ProxyContext pc, HttpServerRequest req, RoutingEntry re,
       ModuleInstance mi) {
-    String token = req.headers().get(XOkapiHeaders.TOKEN);
+    TokenDigest token = pc.getTokenDigest();
     if (token == null) {
       mi.setAuthToken(null);
       mi.setUserId(null);
@@ -179,7 +244,7 @@ public class ProxyService {
 
     String pathComponent = getTokenPath(re, req.path());
 
-    CacheEntry cached = tokenCache.get(tenant, req.method().name(),
+    CacheEntry cached = tokenCache.get(pc.getTenant(), req.method().name(),
             pathComponent, req.getHeader(XOkapiHeaders.USER_ID),
             token);
 
@@ -201,7 +266,7 @@ public class ProxyService {
     final String id = req.getHeader(XOkapiHeaders.MODULE_ID);
     List<ModuleInstance> mods;
     try {
-      mods = moduleCache.lookup(req.uri(), req.method(), id);
+      mods = moduleCache.lookupPipeline(req.uri(), req.method(), id);
     } catch (IllegalArgumentException e) {
       pc.responseError(500, e.getMessage());
       return null;
@@ -211,7 +276,7 @@ public class ProxyService {
       if (mi.isHandler()) {
         pc.setHandlerModuleInstance(mi);
         RoutingEntry re = mi.getRoutingEntry();
-        skipAuth = checkTokenCache(pc.getTenant(), req, re, mi);
+        skipAuth = checkTokenCache(pc, req, re, mi);
         logger.debug("getModulesForRequest:  Added {} {} {} {} / {}",
             mi.getModuleDescriptor().getId(),
             re.getPathPattern(), re.getPath(), re.getPhase(), re.getLevel());
@@ -219,7 +284,6 @@ public class ProxyService {
         mi.setAuthToken(req.headers().get(XOkapiHeaders.TOKEN));
       }
     }
-    mods.sort(compareInstanceLevel);
     Iterator<ModuleInstance> iter = mods.iterator();
     boolean found = false;
     while (iter.hasNext()) {
@@ -270,10 +334,10 @@ public class ProxyService {
     }
     String tenantId = headers.get(XOkapiHeaders.TENANT);
 
-    OkapiToken okapiToken = null;
+    TokenClaims claims = null;
     if (tenantId == null) {
       try {
-        okapiToken = new OkapiToken(token);
+        claims = TokenClaims.of(token);
       } catch (IllegalArgumentException e) {
         pc.responseError(400, messages.getMessage("10105", e.getMessage()));
         throw e;
@@ -283,20 +347,20 @@ public class ProxyService {
     // userId does not exist all the time
     String userId = headers.get(XOkapiHeaders.USER_ID);
     if (userId == null) {
-      if (okapiToken == null) {
+      if (claims == null) {
         try {
-          okapiToken = new OkapiToken(token);
+          claims = TokenClaims.of(token);
         } catch (IllegalArgumentException e) {
           // ignoring bad token
         }
       }
-      if (okapiToken != null) {
-        pc.setUserId(okapiToken.getUserIdWithoutValidation());
+      if (claims != null) {
+        pc.setUserId(claims.getUserId());
       }
     }
 
     if (tenantId == null) {
-      tenantId = okapiToken.getTenantWithoutValidation();
+      tenantId = claims.getTenant();
       if (tenantId == null) {
         tenantId = XOkapiHeaders.SUPERTENANT_ID;
       }
@@ -375,25 +439,39 @@ public class ProxyService {
   }
 
   private Future<Void> resolveUrls(List<ModuleInstance> instances) {
-    Future<Void> future = Future.succeededFuture();
+    Future<Void> future = null; // null while all instances are resolved from routing table
     for (ModuleInstance instance : instances) {
       if (instance.getRoutingEntry().getProxyType() == ProxyType.INTERNAL) {
         instance.setUrl("");
+        continue;
+      }
+      String srvcId = instance.getModuleDescriptor().getId();
+      List<DeploymentDescriptor> routes = discoveryManager.lookupRoutes(srvcId);
+      if (future == null && routes != null) {
+        Future<Void> res = resolveUrl(instance, routes);
+        if (res.failed()) {
+          return res;
+        }
       } else {
-        future = future.compose(x -> discoveryManager.get(instance.getModuleDescriptor().getId())
-            .compose(res -> {
-              DeploymentDescriptor dd = pickInstance(res);
-              if (dd == null) {
-                return Future.failedFuture(new OkapiError(ErrorType.NOT_FOUND,
-                    "No running module instance found for "
-                        + instance.getModuleDescriptor().getId()));
-              }
-              instance.setUrl(dd.getUrl());
-              return Future.succeededFuture();
-            }));
+        Future<Void> previous = future == null ? Future.succeededFuture() : future;
+        future = previous.compose(x -> discoveryManager.getRoutes(srvcId)
+            .compose(res -> resolveUrl(instance, res)));
       }
     }
-    return future;
+    return future == null ? Future.succeededFuture() : future;
+  }
+
+  private Future<Void> resolveUrl(ModuleInstance instance,
+      List<DeploymentDescriptor> routes) {
+    DeploymentDescriptor dd = pickInstance(routes);
+    if (dd == null) {
+      return Future.failedFuture(new OkapiError(ErrorType.NOT_FOUND,
+          "No running module instance found for "
+              + instance.getModuleDescriptor().getId()));
+    }
+    instance.setUrl(dd.getUrl());
+    instance.setHttp2(getHttp2(dd));
+    return Future.succeededFuture();
   }
 
   private void relayToResponse(HttpServerResponse hres,
@@ -428,7 +506,7 @@ public class ProxyService {
     if (modTok != null) {
       // Have module tokens: save them for this request even in case of error
       HttpServerRequest req = pc.getCtx().request();
-      String originalToken = req.getHeader(XOkapiHeaders.TOKEN);
+      TokenDigest originalToken = pc.getTokenDigest();
       JsonObject jo = new JsonObject(modTok);
       for (ModuleInstance mi : pc.getModList()) {
         String id = mi.getModuleDescriptor().getId();
@@ -532,7 +610,7 @@ public class ProxyService {
     // Pause the request data stream before doing any slow ops, otherwise
     // it will get read into a buffer somewhere.
 
-    ProxyContext pc = new ProxyContext(ctx, waitMs);
+    ProxyContext pc = new ProxyContext(ctx, waitMs, accessLog);
     final MultiMap headers = ctx.request().headers();
 
     // It would be nice to pass the request-id to the client, so it knows what
@@ -546,7 +624,7 @@ public class ProxyService {
     }
     String tenantId = pc.getTenant();
     sanitizeAuthHeaders(headers);
-    tenantManager.get(tenantId)
+    tenantManager.getCached(tenantId)
         .onFailure(cause -> {
           stream.resume();
           pc.responseError(400, messages.getMessage("10106", tenantId));
@@ -571,6 +649,7 @@ public class ProxyService {
           headers.set(XOkapiHeaders.REQUEST_IP, ctx.request().remoteAddress().host());
           headers.set(XOkapiHeaders.REQUEST_TIMESTAMP, "" + System.currentTimeMillis());
           headers.set(XOkapiHeaders.REQUEST_METHOD, ctx.request().method().name());
+          checkHeaders(headers);
 
           resolveUrls(l).onFailure(cause -> {
             stream.resume();
@@ -582,25 +661,27 @@ public class ProxyService {
         });
   }
 
-  private static void clientsEnd(Buffer bcontent, List<HttpClientRequest> clientRequestList) {
+  private static void clientsEnd(BodyHolder bcontent,
+      List<HttpClientRequest> clientRequestList) {
     for (HttpClientRequest r : clientRequestList) {
-      r.end(bcontent);
+      bcontent.end(r);
     }
   }
 
   private void proxyResponseImmediate(ProxyContext pc, ReadStream<Buffer> readStream,
-                                      Buffer bcontent, List<HttpClientRequest> clientRequestList) {
+                                      BodyHolder bcontent,
+                                      List<HttpClientRequest> clientRequestList) {
 
     RoutingContext ctx = pc.getCtx();
     if (pc.getAuthRes() != 0 && !statusOk(pc.getAuthRes())) {
       if (bcontent == null) {
         readStream.resume();
       }
-      bcontent = pc.getAuthResBody();
+      bcontent = BodyHolder.of(pc.getAuthResBody());
     }
     if (bcontent != null) {
       clientsEnd(bcontent, clientRequestList);
-      ctx.response().end(bcontent);
+      bcontent.end(ctx.response());
     } else {
       streamHandle(readStream, ctx.response(), clientRequestList);
     }
@@ -616,29 +697,35 @@ public class ProxyService {
     String msg = res.getMessage() + ": " + options.getMethod() + " " + options.getURI();
     MetricsHelper.recordHttpClientError(pc.getTenant(), mi.getMethod().name(),
         mi.getRoutingEntry().getStaticPath());
-    pc.responseError(500, messages.getMessage("10107",
+    // fail fast from open circuit breaker or full wait queue of instance
+    int code = res instanceof CircuitBreakers.OpenException
+        || res instanceof ConnectionPoolTooBusyException ? 503 : 500;
+    pc.responseError(code, messages.getMessage("10107",
         mi.getModuleDescriptor().getId(), mi.getUrl(), msg));
   }
 
   private void proxyRequestHttpClient(
       Iterator<ModuleInstance> it,
-      ProxyContext pc, Buffer bcontent, List<HttpClientRequest> clientRequestList,
+      ProxyContext pc, BodyHolder bcontent, List<HttpClientRequest> clientRequestList,
       ModuleInstance mi) {
 
     RoutingContext ctx = pc.getCtx();
     String url = makeUrl(mi, ctx);
     HttpMethod meth = ctx.request().method();
     RequestOptions requestOptions = new RequestOptions().setMethod(meth).setAbsoluteURI(url);
-    Future<HttpClientRequest> fut = httpProxyClient.request(requestOptions);
+    Future<HttpClientRequest> fut =
+        upstreamClients.request(mi.getHttp2(), mi.getUrl(), requestOptions);
     fut.onFailure(res -> proxyClientFailure(pc, mi, requestOptions, res));
     fut.onSuccess(clientRequest -> {
       final Timer.Sample sample = MetricsHelper.getTimerSample();
+      final UpstreamStats.Call call = upstreamStats.start(mi.getUrl());
       copyHeaders(clientRequest, ctx, mi);
       logger.trace("ProxyRequestHttpClient request buf '{}'", bcontent);
       clientsEnd(bcontent, clientRequestList);
-      clientRequest.end(bcontent);
+      bcontent.end(clientRequest);
       log(clientRequest);
       clientRequest.response()
+          .onComplete(x -> call.end())
           .onFailure(res -> proxyClientFailure(pc, mi, requestOptions, res))
           .onSuccess(res -> {
             MetricsHelper.recordHttpClientResponse(sample, pc.getTenant(), res.statusCode(),
@@ -660,11 +747,11 @@ public class ProxyService {
   }
 
   private void proxyRequestLog(Iterator<ModuleInstance> it,
-                               ProxyContext pc, ReadStream<Buffer> stream, Buffer bcontent,
+                               ProxyContext pc, ReadStream<Buffer> stream, BodyHolder bcontent,
                                List<HttpClientRequest> clientRequestList, ModuleInstance mi) {
 
     RoutingContext ctx = pc.getCtx();
-    Future<HttpClientRequest> fut = httpProxyClient.request(
+    Future<HttpClientRequest> fut = upstreamClients.request(mi.getHttp2(), mi.getUrl(),
         new RequestOptions().setMethod(ctx.request().method()).setAbsoluteURI(makeUrl(mi, ctx)));
     fut.onSuccess(clientRequest -> {
       clientRequestList.add(clientRequest);
@@ -688,59 +775,149 @@ public class ProxyService {
     });
   }
 
-  private void proxyStreamToBuffer(ReadStream<Buffer> stream, Buffer bcontent,
-                                   Handler<Buffer> handle) {
+  /**
+   * Read stream into a body that can be sent more than once. Bodies larger than
+   * {@value ConfNames#PROXY_BODY_MEMORY_THRESHOLD} are spilled to a temporary file, that
+   * is removed when the response has been sent.
+   */
+  private void proxyStreamToBody(ProxyContext pc, ReadStream<Buffer> stream,
+                                 BodyHolder bcontent, Handler<BodyHolder> handle) {
     if (bcontent != null) {
       handle.handle(bcontent);
-    } else {
-      final Buffer incoming = Buffer.buffer();
-      stream.handler(incoming::appendBuffer);
-      stream.endHandler(v -> handle.handle(incoming));
-      stream.resume();
+      return;
     }
+    BodyHolder.load(vertx, stream, bodyMemoryThreshold)
+        .onFailure(cause -> pc.responseError(OkapiError.getType(cause), cause))
+        .onSuccess(body -> {
+          if (!body.inMemory()) {
+            pc.getCtx().addEndHandler(x -> body.close());
+          }
+          handle.handle(body);
+        });
+  }
+
+  /**
+   * Content-Length of stream, if it is known up front.
+   */
+  private static String contentLength(ReadStream<Buffer> stream) {
+    if (stream instanceof HttpServerRequest req) {
+      return req.getHeader(HttpHeaders.CONTENT_LENGTH);
+    }
+    if (stream instanceof HttpClientResponse res) {
+      return res.getHeader(HttpHeaders.CONTENT_LENGTH);
+    }
+    return null;
   }
 
   private void proxyRequestOnly(Iterator<ModuleInstance> it,
-                                ProxyContext pc, ReadStream<Buffer> stream, Buffer bcontent,
+                                ProxyContext pc, ReadStream<Buffer> stream, BodyHolder bcontent,
                                 List<HttpClientRequest> clientRequestList, ModuleInstance mi) {
 
-    proxyStreamToBuffer(stream, bcontent, res
+    proxyStreamToBody(pc, stream, bcontent, res
         -> proxyRequestHttpClient(it, pc, res, clientRequestList, mi)
     );
   }
 
   private void proxyRequestResponse10(
       Iterator<ModuleInstance> it,
-      ProxyContext pc, ReadStream<Buffer> stream, Buffer bcontent,
+      ProxyContext pc, ReadStream<Buffer> stream, BodyHolder bcontent,
       List<HttpClientRequest> clientRequestList, ModuleInstance mi) {
 
-    proxyStreamToBuffer(stream, bcontent, res
+    // with a known length the body is streamed; otherwise it is read to find it
+    String contentLength = bcontent == null ? contentLength(stream) : null;
+    if (contentLength != null) {
+      proxyRequestResponse(it, pc, stream, null, clientRequestList, mi, contentLength);
+      return;
+    }
+    proxyStreamToBody(pc, stream, bcontent, res
         -> proxyRequestResponse(it, pc, null, res, clientRequestList, mi)
     );
   }
 
   private void copyHeaders(HttpClientRequest clientRequest, RoutingContext ctx, ModuleInstance mi) {
-    int sz = 0;
-    int limit = 2000; // all headers dumped
-    for (String name : ctx.request().headers().names()) {
-      List<String> values = ctx.request().headers().getAll(name);
+    final String phase = mi == null ? "" : mi.getRoutingEntry().getPhase();
+    copyHeaders(ctx.request().headers(), clientRequest.headers(),
+        XOkapiHeaders.FILTER_AUTH.equals(phase), isHttp2(clientRequest, mi));
+  }
+
+  /**
+   * Whether a request to a module may go over HTTP/2, which forbids connection-specific
+   * headers. Requests in upgrade mode start as HTTP/1.1 but must not carry the
+   * Connection and Upgrade headers of the client either.
+   */
+  private boolean isHttp2(HttpClientRequest clientRequest, ModuleInstance mi) {
+    return clientRequest.version() == HttpVersion.HTTP_2
+        || upstreamClients.isHttp2(mi == null ? null : mi.getHttp2());
+  }
+
+  static void copyHeaders(MultiMap in, MultiMap out, boolean authFilter) {
+    copyHeaders(in, out, authFilter, false);
+  }
+
+  /**
+   * Copy request headers for a module in one pass, leaving out Content-Length, Host
+   * and, unless for the auth filter, X-Okapi-Additional-Token. For HTTP/2 the
+   * hop-by-hop headers are left out too (RFC 9113 section 8.2.2): Connection, the
+   * headers it names, Keep-Alive, Proxy-Connection, Transfer-Encoding, Upgrade and TE
+   * other than "trailers".
+   * @param in incoming request headers, with the headers of the current hop applied
+   * @param out headers of request to module
+   * @param authFilter whether the request is for the auth filter
+   * @param http2 whether the request to the module may use HTTP/2
+   */
+  static void copyHeaders(MultiMap in, MultiMap out, boolean authFilter, boolean http2) {
+    out.clear();
+    final Set<String> connectionHeaders = http2 ? connectionHeaders(in) : Set.of();
+    in.forEach((name, value) -> {
+      if (!"Content-Length".equalsIgnoreCase(name)
+          && !"Host".equalsIgnoreCase(name)
+          && (authFilter || !XOkapiHeaders.ADDITIONAL_TOKEN.equalsIgnoreCase(name))
+          && (!http2 || !isHopByHop(name, value, connectionHeaders))) {
+        out.add(name, value);
+      }
+    });
+  }
+
+  private static Set<String> connectionHeaders(MultiMap in) {
+    Set<String> names = new HashSet<>();
+    for (String connection : in.getAll(HttpHeaders.CONNECTION)) {
+      for (String name : connection.split(",")) {
+        names.add(name.trim().toLowerCase(Locale.ROOT));
+      }
+    }
+    return names;
+  }
+
+  private static boolean isHopByHop(String name, String value, Set<String> connectionHeaders) {
+    String lower = name.toLowerCase(Locale.ROOT);
+    if ("te".equals(lower)) {
+      return !"trailers".equalsIgnoreCase(value.trim());
+    }
+    return HOP_BY_HOP_HEADERS.contains(lower) || connectionHeaders.contains(lower);
+  }
+
+  /**
+   * Warn about duplicate headers, and dump large headers if debugging. Done once
+   * per request rather than for each module called.
+   */
+  private static void checkHeaders(MultiMap headers) {
+    for (String name : headers.names()) {
+      List<String> values = headers.getAll(name);
       if (values.size() > 1) {
         logger.warn("dup HTTP header {}: {}", name, values);
       }
-      for (String value : values) {
-        sz += name.length() + 4 + value.length(); // 4 for colon blank cr lf
-      }
     }
-    if (sz > limit && logger.isDebugEnabled()) {
-      logger.debug("Request headers size={}", sz);
-      dumpHeaders(ctx.request().headers());
+    if (!logger.isDebugEnabled()) {
+      return;
     }
-    clientRequest.headers().setAll(ctx.request().headers());
-    clientRequest.headers().remove("Content-Length");
-    clientRequest.headers().remove("Host");
-    final String phase = mi == null ? "" : mi.getRoutingEntry().getPhase();
-    if (!XOkapiHeaders.FILTER_AUTH.equals(phase)) {
-      clientRequest.headers().remove(XOkapiHeaders.ADDITIONAL_TOKEN);
+    int sz = 0;
+    int limit = 2000; // all headers dumped
+    for (Map.Entry<String, String> entry : headers) {
+      sz += entry.getKey().length() + 4 + entry.getValue().length(); // 4 for colon blank cr lf
+    }
+    if (sz > limit) {
+      logger.debug("Request headers size={}", sz);
+      dumpHeaders(headers);
     }
   }
 
@@ -766,70 +943,59 @@ public class ProxyService {
     }
   }
 
-  private static void streamHandle(ReadStream<Buffer> readStream,
-                                   WriteStream<Buffer> mainWriteStream,
-                                   List<HttpClientRequest> logWriteStreams) {
-    List<WriteStream<Buffer>> writeStreams = new LinkedList<>();
-    writeStreams.add(mainWriteStream);
-    writeStreams.addAll(logWriteStreams);
-    pumpOneToMany(readStream, writeStreams);
-    readStream.exceptionHandler(e -> logger.warn("streamHandle: content exception ", e));
-    readStream.resume();
-  }
-
-  private static void pauseAndResume(ReadStream<Buffer> readStream,
-                                     List<WriteStream<Buffer>> writeStreams) {
-    boolean pause = false;
-
-    for (WriteStream<Buffer> w : writeStreams) {
-      if (w.writeQueueFull()) {
-        w.drainHandler(handler -> pauseAndResume(readStream, writeStreams));
-        pause = true;
+  private void streamHandle(ReadStream<Buffer> readStream,
+                            WriteStream<Buffer> mainWriteStream,
+                            List<HttpClientRequest> logWriteStreams) {
+    FanOutPipe pipe = new FanOutPipe(readStream).to(mainWriteStream);
+    for (HttpClientRequest logRequest : logWriteStreams) {
+      if (dropSlowRequestLog) {
+        pipe.toDroppable(logRequest, w -> logRequest.reset());
       } else {
-        w.drainHandler(null);
+        pipe.to(logRequest);
       }
     }
-    if (pause) {
-      readStream.pause();
-    } else {
-      readStream.resume();
-    }
+    pipe.start();
+    readStream.exceptionHandler(e -> logger.warn("streamHandle: content exception ", e));
+    readStream.resume();
   }
 
-  static void pumpOneToMany(ReadStream<Buffer> readStream,
-                            List<WriteStream<Buffer>> writeStreams) {
-    readStream.handler(data -> {
-      for (WriteStream<Buffer> w : writeStreams) {
-        w.write(data);
-      }
-      pauseAndResume(readStream, writeStreams);
-    });
-    readStream.endHandler(v -> {
-      for (WriteStream<Buffer> w : writeStreams) {
-        w.end();
-      }
-    });
+  private void proxyRequestResponse(Iterator<ModuleInstance> it,
+                                    ProxyContext pc, ReadStream<Buffer> stream, BodyHolder bcontent,
+                                    List<HttpClientRequest> clientRequestList, ModuleInstance mi) {
+    proxyRequestResponse(it, pc, stream, bcontent, clientRequestList, mi, null);
   }
 
+  /**
+   * Proxy request with response.
+   * @param contentLength length of stream; null to send it chunked
+   */
   private void proxyRequestResponse(Iterator<ModuleInstance> it,
-                                    ProxyContext pc, ReadStream<Buffer> stream, Buffer bcontent,
-                                    List<HttpClientRequest> clientRequestList, ModuleInstance mi) {
+                                    ProxyContext pc, ReadStream<Buffer> stream,
+                                    BodyHolder bcontent,
+                                    List<HttpClientRequest> clientRequestList, ModuleInstance mi,
+                                    String contentLength) {
 
     RoutingContext ctx = pc.getCtx();
     HttpServerRequest request = ctx.request();
     HttpServerResponse response = ctx.response();
     RequestOptions requestOptions =
         new RequestOptions().setMethod(request.method()).setAbsoluteURI(makeUrl(mi, ctx));
-    Future<HttpClientRequest> fut = httpProxyClient.request(requestOptions);
+    Future<HttpClientRequest> fut =
+        upstreamClients.request(mi.getHttp2(), mi.getUrl(), requestOptions);
     fut.onFailure(res -> proxyClientFailure(pc, mi, requestOptions, res));
     fut.onSuccess(clientRequest -> {
       final Timer.Sample sample = MetricsHelper.getTimerSample();
+      final UpstreamStats.Call call = upstreamStats.start(mi.getUrl());
       copyHeaders(clientRequest, ctx, mi);
       if (bcontent != null) {
         clientsEnd(bcontent, clientRequestList);
-        clientRequest.end(bcontent);
+        bcontent.end(clientRequest);
       } else {
-        clientRequest.setChunked(true);
+        if (contentLength != null) {
+          clientRequest.putHeader(HttpHeaders.CONTENT_LENGTH, contentLength);
+        } else {
+          clientRequest.setChunked(true);
+        }
         for (HttpClientRequest r : clientRequestList) {
           r.setChunked(true);
         }
@@ -837,6 +1003,7 @@ public class ProxyService {
       }
       log(clientRequest);
       clientRequest.response()
+          .onComplete(x -> call.end())
           .onFailure(res -> proxyClientFailure(pc, mi, requestOptions, res))
           .onSuccess(res -> {
             MetricsHelper.recordHttpClientResponse(sample, pc.getTenant(), res.statusCode(),
@@ -862,13 +1029,14 @@ public class ProxyService {
   }
 
   private void proxyHeaders(Iterator<ModuleInstance> it, ProxyContext pc,
-                            ReadStream<Buffer> stream, Buffer bcontent,
+                            ReadStream<Buffer> stream, BodyHolder bcontent,
                             List<HttpClientRequest> clientRequestList, ModuleInstance mi) {
 
     RoutingContext ctx = pc.getCtx();
     RequestOptions requestOptions =
         new RequestOptions().setMethod(ctx.request().method()).setAbsoluteURI(makeUrl(mi, ctx));
-    Future<HttpClientRequest> fut = httpProxyClient.request(requestOptions);
+    Future<HttpClientRequest> fut =
+        upstreamClients.request(mi.getHttp2(), mi.getUrl(), requestOptions);
     fut.onFailure(res -> proxyClientFailure(pc, mi, requestOptions, res));
     fut.onSuccess(clientRequest -> {
       final Timer.Sample sample = MetricsHelper.getTimerSample();
@@ -904,7 +1072,7 @@ public class ProxyService {
   }
 
   private void proxyRedirect(Iterator<ModuleInstance> it,
-                             ProxyContext pc, ReadStream<Buffer> stream, Buffer bcontent,
+                             ProxyContext pc, ReadStream<Buffer> stream, BodyHolder bcontent,
                              List<HttpClientRequest> clientRequestList, ModuleInstance mi) {
 
     logger.trace("ProxyRedirect {}", mi.getModuleDescriptor().getId());
@@ -914,19 +1082,21 @@ public class ProxyService {
   }
 
   private void proxyInternal(Iterator<ModuleInstance> it,
-                             ProxyContext pc, ReadStream<Buffer> stream, Buffer bcontent,
+                             ProxyContext pc, ReadStream<Buffer> stream, BodyHolder bcontent,
                              List<HttpClientRequest> clientRequestList, ModuleInstance mi) {
 
-    proxyStreamToBuffer(stream, bcontent, res
-        -> proxyInternalBuffer(it, pc, res, clientRequestList, mi)
+    // internal module works on the whole body as string
+    proxyStreamToBody(pc, stream, bcontent, res -> res.toBuffer()
+        .onFailure(cause -> pc.responseError(OkapiError.getType(cause), cause))
+        .onSuccess(buf -> proxyInternalBuffer(it, pc, res, buf, clientRequestList, mi))
     );
   }
 
   private void proxyInternalBuffer(
-      Iterator<ModuleInstance> it, ProxyContext pc, Buffer bcontent,
+      Iterator<ModuleInstance> it, ProxyContext pc, BodyHolder bcontent, Buffer buf,
       List<HttpClientRequest> clientRequestList, ModuleInstance mi) {
 
-    String req = bcontent.toString();
+    String req = buf.toString();
     logger.debug("proxyInternalBuffer {}", req);
     RoutingContext ctx = pc.getCtx();
 
@@ -944,7 +1114,7 @@ public class ProxyService {
             pc.setHandlerRes(statusCode);
             makeTraceHeader(mi, statusCode, pc);
             if (it.hasNext()) { // carry on with the pipeline
-              proxyR(it, pc, null, respBuf, new LinkedList<>());
+              proxyR(it, pc, null, BodyHolder.of(respBuf), new LinkedList<>());
             } else { // produce a result
               pc.closeTimer();
               ctx.response().end(respBuf);
@@ -958,7 +1128,7 @@ public class ProxyService {
   }
 
   private void proxyR(Iterator<ModuleInstance> it,
-                      ProxyContext pc, ReadStream<Buffer> stream, Buffer bcontent,
+                      ProxyContext pc, ReadStream<Buffer> stream, BodyHolder bcontent,
                       List<HttpClientRequest> clientRequestList) {
 
     RoutingContext ctx = pc.getCtx();
@@ -969,28 +1139,24 @@ public class ProxyService {
       ModuleInstance mi = it.next();
       pc.startTimer();
 
-      // Pass the right token
-      ctx.request().headers().remove(XOkapiHeaders.TOKEN);
+      // Pass the right token, user and permissions for this module
+      MultiMap headers = ctx.request().headers();
       String token = mi.getAuthToken();
       if (token != null && !token.isEmpty()) {
-        ctx.request().headers().add(XOkapiHeaders.TOKEN, token);
+        headers.set(XOkapiHeaders.TOKEN, token);
+      } else {
+        headers.remove(XOkapiHeaders.TOKEN);
       }
 
       String userId = mi.getUserId();
       if (userId != null) {
-        ctx.request().headers().remove(XOkapiHeaders.USER_ID);
-        ctx.request().headers().add(XOkapiHeaders.USER_ID, userId);
+        headers.set(XOkapiHeaders.USER_ID, userId);
         logger.debug("Using X-Okapi-User-Id: {}", userId);
       }
 
       String perms = mi.getPermissions();
       if (perms != null) {
-        ctx.request()
-            .headers()
-            .remove(XOkapiHeaders.PERMISSIONS);
-        ctx.request()
-            .headers()
-            .add(XOkapiHeaders.PERMISSIONS, perms);
+        headers.set(XOkapiHeaders.PERMISSIONS, perms);
         logger.debug("Using X-Okapi-Permissions: {}", perms);
       }
 
@@ -1006,7 +1172,7 @@ public class ProxyService {
       }
       final String pathPattern = mi.getRoutingEntry().getPathPattern();
       if (pathPattern != null) {
-        ctx.request().headers().set(XOkapiHeaders.MATCH_PATH_PATTERN, pathPattern);
+        headers.set(XOkapiHeaders.MATCH_PATH_PATTERN, pathPattern);
       }
       switch (proxyType) {
         case REQUEST_ONLY:
@@ -1087,9 +1253,61 @@ public class ProxyService {
     }
   }
 
-  private static DeploymentDescriptor pickInstance(List<DeploymentDescriptor> instances) {
+  private DeploymentDescriptor pickInstance(List<DeploymentDescriptor> instances) {
     int sz = instances.size();
-    return sz > 0 ? instances.get(random.nextInt(sz)) : null;
+    if (sz <= 1) {
+      return sz > 0 ? instances.get(0) : null;
+    }
+    if (circuitBreakers.anyOpen()) {
+      // avoid instances with open circuit breaker, unless all are
+      List<DeploymentDescriptor> allowed = new ArrayList<>(sz);
+      for (DeploymentDescriptor dd : instances) {
+        if (circuitBreakers.allow(dd.getUrl())) {
+          allowed.add(dd);
+        }
+      }
+      if (!allowed.isEmpty()) {
+        instances = allowed;
+      }
+    }
+    return getLoadBalancer(instances).pick(instances, upstreamStats);
+  }
+
+  /**
+   * Half-open probe of circuit breaker: the health check of the instance.
+   */
+  private Future<Boolean> probe(String url) {
+    DeploymentDescriptor dd = new DeploymentDescriptor();
+    dd.setUrl(url);
+    return discoveryManager.health(dd).map(HealthDescriptor::isHealthStatus);
+  }
+
+  /**
+   * Strategy for module; the first instance that specifies one wins over the global one.
+   */
+  private LoadBalancer getLoadBalancer(List<DeploymentDescriptor> instances) {
+    for (DeploymentDescriptor dd : instances) {
+      String name = dd.getLoadBalancing();
+      if (name == null && dd.getDescriptor() != null) {
+        name = dd.getDescriptor().getLoadBalancing();
+      }
+      LoadBalancer balancer = LoadBalancers.get(name);
+      if (balancer != null) {
+        return balancer;
+      }
+    }
+    return loadBalancer;
+  }
+
+  /**
+   * HTTP/2 mode of instance; null for the global one.
+   */
+  private static String getHttp2(DeploymentDescriptor dd) {
+    String mode = dd.getHttp2();
+    if (mode == null && dd.getDescriptor() != null) {
+      mode = dd.getDescriptor().getHttp2();
+    }
+    return mode;
   }
 
   /**
@@ -1123,19 +1341,18 @@ public class ProxyService {
     if (!enableSystemAuth) {
       return doCallSystemInterface(headersIn, tenantId, null, inst, null, request);
     }
-    return tenantManager.getEnabledModules(tenantId).compose(enabledModules -> {
-      RoutingEntry filt;
-      for (ModuleDescriptor md : enabledModules) {
-        filt = md.getAuthRoutingEntry();
-        if (filt != null) {
-          logger.debug("callSystemInterface: Found auth filter in {}", md.getId());
-          return authForSystemInterface(md, filt, tenantId, inst, request, headersIn);
-        }
+    return tenantManager.getModuleCacheNotFound(tenantId).compose(moduleCache -> {
+      RoutingEntry filt = moduleCache.getAuthRoutingEntry();
+      if (filt != null) {
+        ModuleDescriptor md = moduleCache.getAuthModule();
+        logger.debug("callSystemInterface: Found auth filter in {}", md.getId());
+        return authForSystemInterface(moduleCache, md, filt, tenantId, inst, request, headersIn);
       }
       ModuleDescriptor instMd = inst.getModuleDescriptor();
       filt = instMd.getAuthRoutingEntry();
       if (filt != null) {
-        return authForSystemInterface(instMd, filt, tenantId, inst, request, headersIn);
+        return authForSystemInterface(moduleCache, instMd, filt, tenantId, inst, request,
+            headersIn);
       }
       logger.debug("callSystemInterface: No auth for {} calling with "
           + "tenant header only", tenantId);
@@ -1145,9 +1362,10 @@ public class ProxyService {
 
   /**
    * Helper to get a new authtoken before invoking doCallSystemInterface.
-   *
+   * Tokens are cached in the module cache of the tenant for
+   * {@value ConfNames#SYSTEM_TOKEN_CACHE_TTL_MS}.
    */
-  private Future<OkapiClient> authForSystemInterface(
+  private Future<OkapiClient> authForSystemInterface(ModuleCache moduleCache,
       ModuleDescriptor authMod, RoutingEntry filt,
       String tenantId, ModuleInstance inst, String request, MultiMap headers) {
 
@@ -1172,6 +1390,18 @@ public class ProxyService {
     } else {
       logger.debug("authForSystemInterface: re is null, can't find modPerms");
     }
+    final String modulePerms = modPerms;
+    // the auth filter gets the caller identity too, so tokens are cached per user
+    final String userId = headers.get(XOkapiHeaders.USER_ID);
+    long now = System.currentTimeMillis();
+    if (systemTokenCacheTtl > 0) {
+      SystemToken cached = moduleCache.getSystemToken(authMod.getId(), modId, modulePerms,
+          userId, now);
+      if (cached != null) {
+        logger.debug("authForSystemInterface: cached token for {}", modId);
+        return callWithSystemToken(cached, tenantId, inst, request, headers);
+      }
+    }
     ModuleInstance authInst = new ModuleInstance(authMod, filt, inst.getPath(),
         inst.getMethod(), inst.isHandler());
     return doCallSystemInterface(headers, tenantId, null, authInst, modPerms, "")
@@ -1179,24 +1409,37 @@ public class ProxyService {
           MultiMap authHeaders = cli.getRespHeaders();
           String deftok = authHeaders.get(XOkapiHeaders.TOKEN);
           String modTok = authHeaders.get(XOkapiHeaders.MODULE_TOKENS);
-          MultiMap headersOut = MultiMap.caseInsensitiveMultiMap();
-          headersOut.addAll(headers);
           String token = null;
           if (modTok != null) {
             JsonObject jo = new JsonObject(modTok);
             token = jo.getString(modId, deftok);
           }
-          String okapiPermissions = authHeaders.get(XOkapiHeaders.PERMISSIONS);
-          if (okapiPermissions != null) {
-            headersOut.set(XOkapiHeaders.PERMISSIONS, okapiPermissions);
+          SystemToken systemToken = new SystemToken(token,
+              authHeaders.get(XOkapiHeaders.PERMISSIONS), now + systemTokenCacheTtl);
+          if (systemTokenCacheTtl > 0 && token != null
+              && cli.getStatusCode() >= 200 && cli.getStatusCode() <= 299) {
+            moduleCache.putSystemToken(authMod.getId(), modId, modulePerms, userId,
+                systemToken);
           }
-          logger.info("authForSystemInterface: {} {}",
-              () -> inst.getModuleDescriptor().getId(),
-              () -> Json.encode(headersOut.entries()));
-          return doCallSystemInterface(headersOut, tenantId, token, inst, null, request);
+          return callWithSystemToken(systemToken, tenantId, inst, request, headers);
         });
   }
 
+  private Future<OkapiClient> callWithSystemToken(SystemToken systemToken, String tenantId,
+      ModuleInstance inst, String request, MultiMap headers) {
+
+    MultiMap headersOut = MultiMap.caseInsensitiveMultiMap();
+    headersOut.addAll(headers);
+    String okapiPermissions = systemToken.permissions();
+    if (okapiPermissions != null) {
+      headersOut.set(XOkapiHeaders.PERMISSIONS, okapiPermissions);
+    }
+    logger.info("authForSystemInterface: {} {}",
+        () -> inst.getModuleDescriptor().getId(),
+        () -> Json.encode(headersOut.entries()));
+    return doCallSystemInterface(headersOut, tenantId, systemToken.token(), inst, null, request);
+  }
+
   private Future<OkapiClient> doCallSystemInterface2(
       MultiMap headersIn, String tenantId, String authToken,
       ModuleInstance inst, String modPerms, String request) {
@@ -1243,7 +1486,7 @@ public class ProxyService {
 
     Future<Void> future = Future.succeededFuture();
     if (inst.getUrl() == null) {
-      future = discoveryManager.get(inst.getModuleDescriptor().getId())
+      future = discoveryManager.getRoutes(inst.getModuleDescriptor().getId())
           .compose(gres -> {
             DeploymentDescriptor instance = pickInstance(gres);
             if (instance == null) {
@@ -1297,6 +1540,18 @@ public class ProxyService {
     return headersOut;
   }
 
+  /**
+   * Callback from a module that its tenant init job is complete. The module is not
+   * trusted for the outcome of the job; the job is fetched from the module as when
+   * polling. The ID in the path is only known by the module that was given it.
+   *
+   * @param ctx Routing Context
+   */
+  public void tenantInitCallback(RoutingContext ctx) {
+    tenantManager.tenantInitNotify(ctx.pathParam("id"));
+    ctx.response().setStatusCode(204).end();
+  }
+
   /**
    * Extract tenantId from the request, rewrite the getPath, and proxy it.
    * Expects a request to something like /_/proxy/tenant/{tid}/mod-something.
@@ -1330,9 +1585,10 @@ public class ProxyService {
       resolveUrls(List.of(mi)).compose(unused -> {
         RequestOptions requestOptions = new RequestOptions().setMethod(ctx.request().method())
             .setAbsoluteURI(mi.getUrl() + newPath);
-        return httpProxyClient.request(requestOptions)
+        return upstreamClients.request(mi.getHttp2(), mi.getUrl(), requestOptions)
             .compose(clientRequest -> {
-              copyHeaders(clientRequest, ctx, null);
+              copyHeaders(ctx.request().headers(), clientRequest.headers(), false,
+                  isHttp2(clientRequest, mi));
               clientRequest.putHeader(XOkapiHeaders.TENANT, tid);
               clientRequest.end();
               return clientRequest.response();
@@ -10,20 +10,29 @@ import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import org.apache.logging.log4j.Logger;
+import org.folio.okapi.ConfNames;
+import org.folio.okapi.bean.BulkInstallDescriptor;
+import org.folio.okapi.bean.BulkInstallJob;
+import org.folio.okapi.bean.BulkInstallTenant;
 import org.folio.okapi.bean.InstallJob;
 import org.folio.okapi.bean.InterfaceDescriptor;
 import org.folio.okapi.bean.ModuleDescriptor;
@@ -41,9 +50,12 @@ import org.folio.okapi.common.ModuleId;
 import org.folio.okapi.common.OkapiLogger;
 import org.folio.okapi.service.Liveness;
 import org.folio.okapi.service.TenantStore;
+import org.folio.okapi.util.ConcurrencyLimiter;
 import org.folio.okapi.util.DepResolution;
+import org.folio.okapi.util.InstallScheduler;
 import org.folio.okapi.util.LockedTypedMap1;
 import org.folio.okapi.util.LockedTypedMap2;
+import org.folio.okapi.util.MetricsHelper;
 import org.folio.okapi.util.ModuleCache;
 import org.folio.okapi.util.OkapiError;
 import org.folio.okapi.util.ProxyContext;
@@ -62,6 +74,8 @@ public class TenantManager implements Liveness {
   private LockedTypedMap1<Tenant> tenants = new LockedTypedMap1<>(Tenant.class);
   private static final String MAP_NAME = "tenants";
   private final LockedTypedMap2<InstallJob> jobs = new LockedTypedMap2<>(InstallJob.class);
+  private final LockedTypedMap1<BulkInstallJob> bulkJobs =
+      new LockedTypedMap1<>(BulkInstallJob.class);
   private static final String EVENT_NAME = "timer";
   private static final Messages messages = Messages.getInstance();
   private Vertx vertx;
@@ -71,7 +85,68 @@ public class TenantManager implements Liveness {
   private final boolean local;
   private static final int TENANT_INIT_DELAY = 300; // initial wait in ms
   private static final int TENANT_INIT_INCREASE = 1250;  // increase factor (/ 1000)
+  public static final String TENANT_INIT_CALLBACK_PATH = "/_/tenantinit/";
+  private static final String TENANT_INIT_EVENT = "tenantInitComplete";
+  // tenant init jobs waiting, by callback ID
+  private final Map<String, TenantInitWait> tenantInitWaits = new ConcurrentHashMap<>();
+  private String tenantInitCallbackUrl; // Okapi URL; null if modules are not given callback
+  private long tenantInitPollMax = ConfNames.TENANT_INIT_POLL_MAX_MS_DEFAULT;
   private Consumer<String> tenantChangeConsumer;
+  private static final String TENANT_INVALIDATE_EVENT = "tenantInvalidate";
+  private final Map<String, CachedTenant> tenantCache = new ConcurrentHashMap<>();
+  private final AtomicLong tenantCacheGeneration = new AtomicLong();
+  private long tenantCacheTtl = ConfNames.TENANT_CACHE_TTL_MS_DEFAULT;
+  private boolean flatJobs;
+  private static final long INSTALL_DURATION_DEFAULT = 1000; // ms, for modules not seen
+  // moving average of time in ms to enable a module, by product
+  private final Map<String, Long> installDurations = new ConcurrentHashMap<>();
+
+  private record CachedTenant(Tenant tenant, long loaded) {
+  }
+
+  /**
+   * Wait for tenant init job of a module. The job is polled with increasing delay, up to
+   * a ceiling. A callback from the module polls at once.
+   */
+  private static class TenantInitWait {
+    private final String callbackId;
+    private final long pollMax;
+    private long waitMs = TENANT_INIT_DELAY;
+    private long timerId = -1; // timer of next poll; -1 while polling
+    private boolean notified; // callback received while polling
+    private Runnable poll;
+
+    TenantInitWait(String callbackId, long pollMax) {
+      this.callbackId = callbackId;
+      this.pollMax = pollMax;
+    }
+
+    synchronized void schedule(Vertx vertx, Runnable poll) {
+      if (notified) {
+        notified = false;
+        vertx.runOnContext(x -> poll.run());
+        return;
+      }
+      this.poll = poll;
+      timerId = vertx.setTimer(waitMs, x -> {
+        synchronized (this) {
+          timerId = -1;
+        }
+        poll.run();
+      });
+      waitMs = Math.min((waitMs * TENANT_INIT_INCREASE) / 1000, pollMax);
+    }
+
+    synchronized void notifyComplete(Vertx vertx) {
+      if (timerId == -1) {
+        notified = true;
+      } else if (vertx.cancelTimer(timerId)) {
+        timerId = -1;
+        Runnable p = poll;
+        vertx.runOnContext(x -> p.run());
+      }
+    }
+  }
 
   /**
    * Construct Tenant Manager.
@@ -98,12 +173,51 @@ public class TenantManager implements Liveness {
    */
   public Future<Void> init(Vertx vertx) {
     this.vertx = vertx;
+    consumeTenantInvalidate();
+    consumeTenantInitNotify();
 
     return tenants.init(vertx, MAP_NAME, local)
-        .compose(x -> jobs.init(vertx, "installJobs", local))
+        .compose(x -> jobs.init(vertx, "installJobs", local, flatJobs))
+        .compose(x -> bulkJobs.init(vertx, "bulkInstallJobs", local))
         .compose(x -> loadTenants());
   }
 
+  /**
+   * Set time to live for the node-local tenant cache used by {@link #getCached(String)}.
+   *
+   * @param ttl time to live in milliseconds; 0 disables the cache
+   */
+  public void setTenantCacheTtl(long ttl) {
+    tenantCacheTtl = ttl;
+    tenantCache.clear();
+  }
+
+  /**
+   * Store each install job as a shared map entry of its own; see
+   * {@link org.folio.okapi.util.LockedStringMap}. Must be called before {@link #init(Vertx)}.
+   * @param flat true for flat mode
+   */
+  public void setFlatJobs(boolean flat) {
+    flatJobs = flat;
+  }
+
+  /**
+   * Give modules with tenant interface 2.x a URL to call when the tenant init job is
+   * complete; see {@link #tenantInitNotify(String)}. Polling goes on as a fallback.
+   * @param okapiUrl Okapi URL as seen from modules; null for polling only
+   */
+  public void setTenantInitCallbackUrl(String okapiUrl) {
+    tenantInitCallbackUrl = okapiUrl;
+  }
+
+  /**
+   * Set ceiling for the wait between polls of the tenant init job of a module.
+   * @param ms wait in milliseconds
+   */
+  public void setTenantInitPollMax(long ms) {
+    tenantInitPollMax = ms;
+  }
+
   /**
    * Set the proxyService. So that we can use it to call the tenant interface,
    * etc.
@@ -132,7 +246,10 @@ public class TenantManager implements Liveness {
         })
         .compose(res1 -> tenantStore.insert(t))
         .compose(res2 -> tenants.add(id, t))
-        .compose(x -> Future.succeededFuture(id));
+        .compose(x -> {
+          invalidateTenant(id);
+          return Future.succeededFuture(id);
+        });
   }
 
   Future<Void> updateDescriptor(TenantDescriptor td) {
@@ -144,7 +261,8 @@ public class TenantManager implements Liveness {
       } else {
         t = new Tenant(td);
       }
-      return tenantStore.updateDescriptor(td).compose(res -> tenants.add(id, t));
+      return tenantStore.updateDescriptor(td).compose(res -> tenants.add(id, t))
+          .onSuccess(x -> invalidateTenant(id));
     });
   }
 
@@ -176,6 +294,84 @@ public class TenantManager implements Liveness {
     return tenants.getNotFound(tenantId);
   }
 
+  /**
+   * Get a tenant from the node-local cache, falling back to the shared map.
+   *
+   * <p>The returned tenant may be shared with other callers and must not be modified.
+   * Entries are invalidated on all nodes when a tenant is changed and, as a safety net,
+   * expire after the configured time to live.
+   *
+   * @param tenantId tenant ID
+   * @return fut future
+   */
+  public Future<Tenant> getCached(String tenantId) {
+    if (tenantCacheTtl <= 0) {
+      return get(tenantId);
+    }
+    long now = System.currentTimeMillis();
+    CachedTenant cached = tenantCache.get(tenantId);
+    if (cached != null && now - cached.loaded() < tenantCacheTtl) {
+      MetricsHelper.recordTenantCacheHit();
+      return Future.succeededFuture(cached.tenant());
+    }
+    MetricsHelper.recordTenantCacheMiss();
+    final long generation = tenantCacheGeneration.get();
+    return get(tenantId).onSuccess(tenant -> {
+      synchronized (tenantCache) {
+        // do not store result if an invalidation arrived while it was fetched
+        if (generation == tenantCacheGeneration.get()) {
+          tenantCache.put(tenantId, new CachedTenant(tenant, now));
+        }
+      }
+    });
+  }
+
+  private void evictTenant(String tenantId) {
+    synchronized (tenantCache) {
+      tenantCacheGeneration.incrementAndGet();
+      tenantCache.remove(tenantId);
+    }
+  }
+
+  /**
+   * Drop tenant from near-cache on this node and tell the other nodes to do the same.
+   */
+  private void invalidateTenant(String tenantId) {
+    evictTenant(tenantId);
+    if (vertx != null) {
+      vertx.eventBus().publish(TENANT_INVALIDATE_EVENT, new JsonObject()
+          .put("id", tenantId)
+          .put("time", System.currentTimeMillis()));
+    }
+  }
+
+  /**
+   * Tell all nodes that a tenant init job is complete; the node that waits for the job
+   * polls it at once.
+   * @param callbackId callback ID that the module was given
+   */
+  public void tenantInitNotify(String callbackId) {
+    vertx.eventBus().publish(TENANT_INIT_EVENT, callbackId);
+  }
+
+  private void consumeTenantInitNotify() {
+    vertx.eventBus().<String>consumer(TENANT_INIT_EVENT, res -> {
+      TenantInitWait wait = tenantInitWaits.get(res.body());
+      if (wait != null) {
+        wait.notifyComplete(vertx);
+      }
+    });
+  }
+
+  private void consumeTenantInvalidate() {
+    vertx.eventBus().<JsonObject>consumer(TENANT_INVALIDATE_EVENT, res -> {
+      JsonObject body = res.body();
+      evictTenant(body.getString("id"));
+      MetricsHelper.recordTenantCacheInvalidation(
+          System.currentTimeMillis() - body.getLong("time"));
+    });
+  }
+
   /**
    * Delete a tenant.
    *
@@ -188,7 +384,10 @@ public class TenantManager implements Liveness {
         return Future.failedFuture(new OkapiError(ErrorType.NOT_FOUND, tenantId));
       }
       return tenants.removeNotFound(tenantId).mapEmpty();
-    }).compose(x -> reloadEnabledModules(tenantId));
+    }).compose(x -> {
+      invalidateTenant(tenantId);
+      return reloadEnabledModules(tenantId);
+    });
   }
 
   /**
@@ -211,7 +410,10 @@ public class TenantManager implements Liveness {
         return Future.failedFuture(new OkapiError(ErrorType.NOT_FOUND, id));
       }
       return tenants.put(id, t);
-    }).compose(x -> reloadEnabledModules(t));
+    }).compose(x -> {
+      invalidateTenant(id);
+      return reloadEnabledModules(t);
+    });
   }
 
   Future<Void> disableModules(String tenantId, TenantInstallOptions options, ProxyContext pc) {
@@ -303,7 +505,7 @@ public class TenantManager implements Liveness {
 
   private void waitTenantInit(Tenant tenant, ModuleInstance getInstance,
                               ModuleInstance deleteInstance, ProxyContext pc,
-                              Promise<Void> promise, long waitMs) {
+                              Promise<Void> promise, TenantInitWait wait) {
     proxyService.callSystemInterface(tenant.getId(), getInstance, "", pc)
         .onFailure(promise::fail)
         .onSuccess(cli -> {
@@ -333,9 +535,8 @@ public class TenantManager implements Liveness {
                 });
             return;
           }
-          vertx.setTimer(waitMs, x ->
-              waitTenantInit(tenant, getInstance, deleteInstance, pc, promise,
-                  (waitMs * TENANT_INIT_INCREASE) / 1000));
+          wait.schedule(vertx, () ->
+              waitTenantInit(tenant, getInstance, deleteInstance, pc, promise, wait));
         });
   }
 
@@ -399,8 +600,16 @@ public class TenantManager implements Liveness {
             return Future.succeededFuture();
           }
           ModuleInstance postInstance = instances.get(0);
-          String req = HttpMethod.DELETE.equals(postInstance.getMethod())
-              ? "" : jo.encodePrettily();
+          boolean post = !HttpMethod.DELETE.equals(postInstance.getMethod());
+          TenantInitWait wait = new TenantInitWait(
+              post && instances.size() == 3 && tenantInitCallbackUrl != null
+                  ? UUID.randomUUID().toString() : null, tenantInitPollMax);
+          if (wait.callbackId != null) {
+            jo.put("callback_url",
+                tenantInitCallbackUrl + TENANT_INIT_CALLBACK_PATH + wait.callbackId);
+            tenantInitWaits.put(wait.callbackId, wait);
+          }
+          String req = post ? jo.encodePrettily() : "";
           return proxyService.callSystemInterface(tenant.getId(), postInstance, req, pc)
               .compose(cres -> {
                 pc.passOkapiTraceHeaders(cres);
@@ -425,8 +634,13 @@ public class TenantManager implements Liveness {
                 deleteInstance.setUrl(postInstance.getUrl()); // same URL for POST & DELETE
                 deleteInstance.substPathId(id);
                 Promise<Void> promise = Promise.promise();
-                waitTenantInit(tenant, getInstance, deleteInstance, pc, promise, TENANT_INIT_DELAY);
+                waitTenantInit(tenant, getInstance, deleteInstance, pc, promise, wait);
                 return promise.future();
+              })
+              .onComplete(x -> {
+                if (wait.callbackId != null) {
+                  tenantInitWaits.remove(wait.callbackId);
+                }
               });
         })
         .onSuccess(res -> logger.info(
@@ -969,6 +1183,234 @@ public class TenantManager implements Liveness {
     return tml;
   }
 
+  Future<BulkInstallJob> bulkInstallGet(String bulkId) {
+    return bulkJobs.getNotFound(bulkId);
+  }
+
+  Future<List<BulkInstallJob>> bulkInstallGetList() {
+    return bulkJobs.getAll().map(all -> new ArrayList<>(all.values()));
+  }
+
+  Future<Void> bulkInstallDelete(String bulkId) {
+    return bulkInstallGet(bulkId).compose(bulk -> {
+      if (!Boolean.TRUE.equals(bulk.getComplete())) {
+        return Future.failedFuture(new OkapiError(ErrorType.USER,
+            messages.getMessage("10406", bulkId)));
+      }
+      return bulkJobs.removeNotFound(bulkId);
+    });
+  }
+
+  /**
+   * Install or upgrade modules for several tenants.
+   *
+   * <p>Dependencies are resolved once for each distinct set of enabled modules and
+   * modules are deployed once for all tenants. The install job of each tenant is then
+   * run, with at most tenantParallel tenants at a time and at most moduleParallel
+   * invocations of the tenant interface of each module at a time. Unless simulate is
+   * given, the job runs in the background and its progress is in the returned job.
+   *
+   * @param bulkId ID of job
+   * @param pc proxy context
+   * @param options install options; same for all tenants
+   * @param bd tenants and modules
+   * @param tenantParallel number of tenants installed at a time
+   * @param moduleParallel number of tenant interface invocations of a module at a time
+   * @return job as it was created
+   */
+  Future<BulkInstallJob> bulkInstallCreate(String bulkId, ProxyContext pc,
+      TenantInstallOptions options, BulkInstallDescriptor bd,
+      int tenantParallel, int moduleParallel) {
+
+    logger.info("bulkInstallCreate bulkId={}", bulkId);
+    if (bd.getTenants() == null || bd.getTenants().isEmpty()) {
+      return Future.failedFuture(new OkapiError(ErrorType.USER, messages.getMessage("10412")));
+    }
+    if (!options.getDepCheck() && options.getMaxParallel() > 1) {
+      return Future.failedFuture(new OkapiError(ErrorType.USER, messages.getMessage("10411")));
+    }
+    if (bd.getModules() != null) {
+      for (TenantModuleDescriptor tm : bd.getModules()) {
+        if (tm.getAction() == null) {
+          tm.setAction(Action.enable);
+        }
+      }
+    }
+    ConcurrencyLimiter tenantLimiter = new ConcurrencyLimiter(tenantParallel);
+    options.setModuleLimiter(new ConcurrencyLimiter(moduleParallel));
+    List<Tenant> tenantList = new LinkedList<>();
+    Future<Void> future = Future.succeededFuture();
+    for (String tenantId : new LinkedHashSet<>(bd.getTenants())) {
+      future = future.compose(x -> tenants.getNotFound(tenantId)
+          .onSuccess(tenantList::add).mapEmpty());
+    }
+    return future
+        .compose(x -> moduleManager.getModulesWithFilter(options.getModuleVersionFilter(), null))
+        .compose(modules -> {
+          Map<String, ModuleDescriptor> modsAvailable = new HashMap<>(modules.size());
+          for (ModuleDescriptor md : modules) {
+            modsAvailable.put(md.getId(), md);
+          }
+          BulkInstallJob bulk = new BulkInstallJob();
+          bulk.setId(bulkId);
+          bulk.setStartDate(Instant.now().toString());
+          bulk.setModules(bd.getModules());
+          bulk.setComplete(false);
+          bulk.setTenants(new ArrayList<>(tenantList.size()));
+          // tenants with the same enabled modules get the same modules installed
+          Map<Set<String>, BulkResolution> resolutions = new HashMap<>();
+          Map<String, InstallJob> installJobs = new HashMap<>();
+          for (Tenant t : tenantList) {
+            Map<String, ModuleDescriptor> modsEnabled = enabledModules(t, modsAvailable);
+            BulkResolution resolution = resolutions.computeIfAbsent(
+                new HashSet<>(modsEnabled.keySet()),
+                k -> bulkResolve(bd.getModules(), options, modsAvailable, modsEnabled));
+            BulkInstallTenant bt = new BulkInstallTenant();
+            bt.setId(t.getId());
+            bulk.getTenants().add(bt);
+            if (resolution.message() != null) {
+              bt.setMessage(resolution.message());
+              bt.setComplete(true);
+              continue;
+            }
+            InstallJob job = new InstallJob();
+            job.setId(UUID.randomUUID().toString());
+            job.setStartDate(bulk.getStartDate());
+            List<TenantModuleDescriptor> tml = new LinkedList<>();
+            for (TenantModuleDescriptor tm : resolution.modules()) {
+              tml.add(tm.cloneWithoutStage());
+            }
+            job.setModules(tml);
+            job.setComplete(false);
+            bt.setInstallId(job.getId());
+            bt.setComplete(options.getSimulate());
+            if (options.getSimulate()) {
+              bt.setModules(tml);
+            } else {
+              installJobs.put(t.getId(), job);
+            }
+          }
+          logger.info("bulkInstallCreate {} tenants, {} distinct resolutions",
+              tenantList.size(), resolutions.size());
+          if (options.getSimulate()) {
+            bulk.setEndDate(Instant.now().toString());
+            bulk.setComplete(true);
+            return Future.succeededFuture(bulk);
+          }
+          BulkInstallJob created = JsonObject.mapFrom(bulk).mapTo(BulkInstallJob.class);
+          return bulkJobs.add(bulkId, bulk)
+              .onSuccess(x -> bulkInstallRun(pc, options, bulk, installJobs, modsAvailable,
+                  tenantLimiter))
+              .map(created);
+        });
+  }
+
+  private record BulkResolution(List<TenantModuleDescriptor> modules, String message) {
+  }
+
+  private BulkResolution bulkResolve(List<TenantModuleDescriptor> requested,
+      TenantInstallOptions options, Map<String, ModuleDescriptor> modsAvailable,
+      Map<String, ModuleDescriptor> modsEnabled) {
+
+    List<TenantModuleDescriptor> tml;
+    if (requested == null) {
+      tml = upgrades(modsAvailable, modsEnabled);
+    } else {
+      tml = new LinkedList<>();
+      for (TenantModuleDescriptor tm : requested) {
+        tml.add(tm.cloneWithoutStage());
+      }
+    }
+    if (options.getDepCheck()) {
+      try {
+        DepResolution.install(modsAvailable, modsEnabled, tml, options.getReinstall());
+      } catch (OkapiError e) {
+        return new BulkResolution(null, e.getMessage());
+      }
+    }
+    return new BulkResolution(tml, null);
+  }
+
+  private static Map<String, ModuleDescriptor> enabledModules(Tenant tenant,
+      Map<String, ModuleDescriptor> modsAvailable) {
+
+    Map<String, ModuleDescriptor> modsEnabled = new HashMap<>();
+    for (ModuleDescriptor md : modsAvailable.values()) {
+      if (tenant.isEnabled(md.getId())) {
+        modsEnabled.put(md.getId(), md);
+      }
+    }
+    return modsEnabled;
+  }
+
+  private void bulkInstallRun(ProxyContext pc, TenantInstallOptions options,
+      BulkInstallJob bulk, Map<String, InstallJob> installJobs,
+      Map<String, ModuleDescriptor> modsAvailable, ConcurrencyLimiter tenantLimiter) {
+
+    // the install job of each tenant waits for its result
+    options.setAsync(false);
+    Future<Void> future = Future.succeededFuture();
+    if (options.getDeploy()) {
+      // deploy once; the deploy of the install job of each tenant finds it deployed
+      Set<String> deployIds = new TreeSet<>();
+      for (InstallJob job : installJobs.values()) {
+        for (TenantModuleDescriptor tm : job.getModules()) {
+          if (tm.getAction() == Action.enable || tm.getAction() == Action.uptodate) {
+            deployIds.add(tm.getId());
+          }
+        }
+      }
+      List<Future<Void>> futures = new LinkedList<>();
+      for (String id : deployIds) {
+        futures.add(proxyService.autoDeploy(modsAvailable.get(id)));
+      }
+      future = Future.all(futures).mapEmpty();
+    }
+    future.compose(x -> {
+      List<Future<Void>> futures = new LinkedList<>();
+      for (BulkInstallTenant bt : bulk.getTenants()) {
+        InstallJob job = installJobs.get(bt.getId());
+        if (job == null) {
+          continue;
+        }
+        futures.add(tenantLimiter.run(() -> bulkInstallTenant(bt.getId(), pc, options, job,
+                modsAvailable))
+            .transform(res -> {
+              bt.setComplete(true);
+              if (res.failed()) {
+                bt.setMessage(res.cause().getMessage());
+              }
+              return bulkJobs.put(bulk.getId(), bulk);
+            }));
+      }
+      return Future.all(futures);
+    }).onComplete(x -> {
+      if (x.failed()) {
+        logger.warn("bulk job failed", x.cause());
+        for (BulkInstallTenant bt : bulk.getTenants()) {
+          if (!Boolean.TRUE.equals(bt.getComplete())) {
+            bt.setComplete(true);
+            bt.setMessage(x.cause().getMessage());
+          }
+        }
+      }
+      bulk.setEndDate(Instant.now().toString());
+      bulk.setComplete(true);
+      bulkJobs.put(bulk.getId(), bulk).onComplete(y -> logger.info("bulk job complete"));
+    });
+  }
+
+  private Future<Void> bulkInstallTenant(String tenantId, ProxyContext pc,
+      TenantInstallOptions options, InstallJob job, Map<String, ModuleDescriptor> modsAvailable) {
+
+    // tenant as it is now, not as it was when the bulk job was created
+    return tenants.getNotFound(tenantId).compose(t ->
+        jobs.add(t.getId(), job.getId(), job)
+            .compose(x -> runJob(t, pc, options, job.getModules(), modsAvailable,
+                enabledModules(t, modsAvailable), job)))
+        .mapEmpty();
+  }
+
   private Future<List<TenantModuleDescriptor>> runJob(
       Tenant t, ProxyContext pc, TenantInstallOptions options,
       Map<String, ModuleDescriptor> modsAvailable,
@@ -1067,41 +1509,55 @@ public class TenantManager implements Liveness {
 
   private void jobRunPending(Tenant t, ProxyContext pc, TenantInstallOptions options,
       List<TenantModuleDescriptor> tml, Map<String, ModuleDescriptor> modsAvailable,
-      InstallJob job, AtomicInteger running, AtomicBoolean exclusive,
-      Promise<Void> promise) {
-
-    Iterator<TenantModuleDescriptor> iterator = tml.iterator();
-    while (iterator.hasNext() && running.get() < options.getMaxParallel() && !exclusive.get()) {
-      TenantModuleDescriptor tm = iterator.next();
-      if (tm.getStage() != TenantModuleDescriptor.Stage.pending
-          && tm.getStage() != TenantModuleDescriptor.Stage.deploy) {
-        continue;
-      }
-      ModuleDescriptor md = modsAvailable.get(tm.getId());
-      if (options.getDepCheck() && !depsOK(tm, md, getEnabledModules(t))) {
-        continue;
-      }
-      if (isExclusive(md)) {
-        if (running.get() > 0) {
+      InstallJob job, InstallScheduler scheduler, AtomicInteger running,
+      AtomicBoolean exclusive, Promise<Void> promise) {
+
+    boolean released = false;
+    while (true) {
+      for (TenantModuleDescriptor tm : scheduler.ready()) {
+        if (running.get() >= options.getMaxParallel() || exclusive.get()) {
+          break;
+        }
+        if (tm.getStage() != TenantModuleDescriptor.Stage.pending
+            && tm.getStage() != TenantModuleDescriptor.Stage.deploy) {
           continue;
         }
-        exclusive.set(Boolean.TRUE);
+        ModuleDescriptor md = modsAvailable.get(tm.getId());
+        if (options.getDepCheck() && !depsOK(tm, md, getEnabledModules(t))) {
+          continue;
+        }
+        if (isExclusive(md)) {
+          if (running.get() > 0) {
+            continue;
+          }
+          exclusive.set(Boolean.TRUE);
+        }
+        running.incrementAndGet();
+        scheduler.started(tm);
+        long startTime = System.nanoTime();
+        jobInvokeSingle(t, pc, options, tm, modsAvailable, job)
+            .onComplete(x -> {
+              running.decrementAndGet();
+              if (isExclusive(md)) {
+                exclusive.set(Boolean.FALSE);
+              }
+              if (x.failed()) {
+                promise.tryFail(x.cause());
+                return;
+              }
+              if (tm.getAction() == Action.enable && tm.getMessage() == null) {
+                recordInstallDuration(md, (System.nanoTime() - startTime) / 1000000L);
+              }
+              scheduler.completed(tm);
+              jobRunPending(t, pc, options, tml, modsAvailable, job, scheduler, running,
+                  exclusive, promise);
+            });
       }
-      running.incrementAndGet();
-      jobInvokeSingle(t, pc, options, tm, modsAvailable, job)
-          .onComplete(x -> {
-            running.decrementAndGet();
-            if (isExclusive(md)) {
-              exclusive.set(Boolean.FALSE);
-            }
-            if (x.failed()) {
-              promise.tryFail(x.cause());
-              return;
-            } else {
-              jobRunPending(t, pc, options, tml, modsAvailable, job, running, exclusive, promise);
-            }
-          });
-      iterator = tml.iterator();
+      // modules wait for each other; try all remaining ones, checking dependencies only
+      if (running.get() > 0 || released || !scheduler.releaseBlocked()) {
+        break;
+      }
+      released = true;
     }
     for (TenantModuleDescriptor tm : tml) {
       if (tm.getStage() != TenantModuleDescriptor.Stage.done && tm.getMessage() == null) {
@@ -1111,12 +1567,22 @@ public class TenantManager implements Liveness {
     promise.tryComplete();
   }
 
+  private void recordInstallDuration(ModuleDescriptor md, long ms) {
+    installDurations.merge(md.getProduct(), ms, (old, cur) -> (3 * old + cur) / 4);
+  }
+
+  long getInstallDuration(ModuleDescriptor md) {
+    return installDurations.getOrDefault(md.getProduct(), INSTALL_DURATION_DEFAULT);
+  }
+
   private Future<Void> jobInvoke(Tenant t, ProxyContext pc, TenantInstallOptions options,
       List<TenantModuleDescriptor> tml, Map<String, ModuleDescriptor> modsAvailable,
       Map<String, ModuleDescriptor> modsEnabled, InstallJob job) {
 
+    InstallScheduler scheduler = new InstallScheduler(tml, modsAvailable,
+        options.getDepCheck(), this::getInstallDuration);
     return Future.future(f -> jobRunPending(t, pc, options, tml, modsAvailable,
-        job, new AtomicInteger(), new AtomicBoolean(), f));
+        job, scheduler, new AtomicInteger(), new AtomicBoolean(), f));
   }
 
   private Future<Void> jobInvokeSingle(Tenant t, ProxyContext pc, TenantInstallOptions options,
@@ -1124,7 +1590,13 @@ public class TenantManager implements Liveness {
 
     tm.setStage(TenantModuleDescriptor.Stage.invoke);
     Future<Void> future = jobs.put(t.getId(), job.getId(), job);
-    future = future.compose(x -> installTenantModule(t, pc, options, modsAvailable, tm));
+    ConcurrencyLimiter moduleLimiter = options.getModuleLimiter();
+    if (moduleLimiter == null) {
+      future = future.compose(x -> installTenantModule(t, pc, options, modsAvailable, tm));
+    } else {
+      future = future.compose(x -> moduleLimiter.run(tm.getId(),
+          () -> installTenantModule(t, pc, options, modsAvailable, tm)));
+    }
     if (options.getIgnoreErrors()) {
       future = future.otherwise(e -> {
         logger.warn("Ignoring error for tenant {} module {}", t.getId(), tm.getId(), e);
@@ -1297,6 +1769,17 @@ public class TenantManager implements Liveness {
     return enabledModulesCache.get(tenantId);
   }
 
+  /**
+   * Get module cache for tenant.
+   *
+   * @param tenantId tenant identifier.
+   * @return module cache; fails with NOT_FOUND if tenant does not exist
+   */
+  public Future<ModuleCache> getModuleCacheNotFound(String tenantId) {
+    return tenants.getNotFound(tenantId)
+        .map(tenant -> getModuleCache(tenantId));
+  }
+
   /**
    * Return modules enabled for tenant.
    *
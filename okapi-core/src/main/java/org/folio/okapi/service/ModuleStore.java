@@ -8,6 +8,8 @@ public interface ModuleStore {
 
   Future<Boolean> delete(String id);
 
+  Future<Void> delete(List<String> ids);
+
   Future<List<ModuleDescriptor>> getAll();
 
   Future<Void> insert(List<ModuleDescriptor> mds);
@@ -39,4 +39,9 @@ public class ModuleStoreMongo implements ModuleStore {
     return util.delete(id);
   }
 
+  @Override
+  public Future<Void> delete(List<String> ids) {
+    return util.deleteBatch(ids);
+  }
+
 }
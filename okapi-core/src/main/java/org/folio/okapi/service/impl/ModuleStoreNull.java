@@ -12,6 +12,11 @@ public class ModuleStoreNull implements ModuleStore {
     return Future.succeededFuture(Boolean.TRUE);
   }
 
+  @Override
+  public Future<Void> delete(List<String> ids) {
+    return Future.succeededFuture();
+  }
+
   @Override
   public Future<List<ModuleDescriptor>> getAll() {
     return Future.succeededFuture(Collections.emptyList());
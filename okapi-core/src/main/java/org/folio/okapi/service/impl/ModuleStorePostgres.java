@@ -36,4 +36,9 @@ public class ModuleStorePostgres implements ModuleStore {
   public Future<Boolean> delete(String id) {
     return pgTable.delete(id);
   }
+
+  @Override
+  public Future<Void> delete(List<String> ids) {
+    return pgTable.deleteBatch(ids).mapEmpty();
+  }
 }
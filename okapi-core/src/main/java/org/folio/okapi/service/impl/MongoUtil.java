@@ -32,6 +32,22 @@ class MongoUtil<T> {
     });
   }
 
+  /**
+   * Delete documents.
+   * @param ids IDs of documents
+   * @return future
+   */
+  public Future<Void> deleteBatch(List<String> ids) {
+    if (ids.isEmpty()) {
+      return Future.succeededFuture();
+    }
+    List<BulkOperation> bulkOperations = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      bulkOperations.add(BulkOperation.createDelete(new JsonObject().put("_id", id)));
+    }
+    return cli.bulkWrite(collection, bulkOperations).mapEmpty();
+  }
+
   public Future<Void> init(boolean reset) {
     if (!reset) {
       return Future.succeededFuture();
@@ -12,6 +12,9 @@ import io.vertx.pgclient.PgConnectOptions;
 import io.vertx.pgclient.SslMode;
 import io.vertx.sqlclient.Pool;
 import io.vertx.sqlclient.PoolOptions;
+import io.vertx.sqlclient.PreparedQuery;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
 import io.vertx.sqlclient.SqlConnection;
 import java.util.Collections;
 import org.apache.logging.log4j.Logger;
@@ -44,6 +47,7 @@ import org.folio.okapi.common.OkapiLogger;
 class PostgresHandle {
 
   private final PgConnectOptions connectOptions;
+  private final PoolOptions poolOptions;
   private final Pool pool;
 
   PostgresHandle(Vertx vertx, JsonObject conf) {
@@ -82,8 +86,15 @@ class PostgresHandle {
       connectOptions.setSslOptions(cso);
     }
 
-    PoolOptions poolOptions = new PoolOptions();
-    poolOptions.setMaxSize(5);
+    connectOptions.setPipeliningLimit(Config.getSysConfInteger("postgres_pipelining_limit",
+        PgConnectOptions.DEFAULT_PIPELINING_LIMIT, conf));
+    connectOptions.setCachePreparedStatements(Config.getSysConfBoolean(
+        "postgres_cache_prepared_statements", true, conf));
+
+    poolOptions = new PoolOptions();
+    poolOptions.setMaxSize(Config.getSysConfInteger("postgres_pool_size", 5, conf));
+    poolOptions.setMaxWaitQueueSize(Config.getSysConfInteger("postgres_max_wait_queue",
+        PoolOptions.DEFAULT_MAX_WAIT_QUEUE_SIZE, conf));
 
     pool = PgBuilder.pool().using(vertx).connectingTo(connectOptions).with(poolOptions).build();
     logger.debug("created");
@@ -93,10 +104,24 @@ class PostgresHandle {
     return connectOptions;
   }
 
+  PoolOptions getPoolOptions() {
+    return poolOptions;
+  }
+
   public Future<SqlConnection> getConnection() {
     return pool.getConnection();
   }
 
+  /**
+   * Prepared query that runs on a connection of the pool. It can be reused; with
+   * prepared statements cached, each connection prepares the statement once.
+   * @param sql SQL with parameters
+   * @return prepared query
+   */
+  PreparedQuery<RowSet<Row>> preparedQuery(String sql) {
+    return pool.preparedQuery(sql);
+  }
+
   public PostgresQuery getQuery() {
     return new PostgresQuery(this);
   }
@@ -3,20 +3,31 @@ package org.folio.okapi.service.impl;
 import io.vertx.core.Future;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.PreparedQuery;
 import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
 import io.vertx.sqlclient.Tuple;
 import java.util.ArrayList;
 import java.util.List;
+import org.apache.logging.log4j.Logger;
+import org.folio.okapi.common.OkapiLogger;
 
 @java.lang.SuppressWarnings({"squid:S1192"})
 class PostgresTable<T> {
 
+  private static final Logger LOG = OkapiLogger.get();
+
   private final String table;
   private final String jsonColumn;
   private final String idIndex;
   private final String idSelect;
   private final String indexName;
   private final PostgresHandle pg;
+  // reused for all calls; each pool connection prepares a statement once
+  private final PreparedQuery<RowSet<Row>> insertQuery;
+  private final PreparedQuery<RowSet<Row>> updateQuery;
+  private final PreparedQuery<RowSet<Row>> deleteQuery;
+  private final PreparedQuery<RowSet<Row>> selectQuery;
 
   PostgresTable(PostgresHandle pg, String table, String jsonColumn,
                 String idIndex, String idSelect, String indexName) {
@@ -27,6 +38,13 @@ class PostgresTable<T> {
     this.idIndex = idIndex;
     this.idSelect = idSelect;
     this.indexName = indexName;
+    insertQuery = pg.preparedQuery("INSERT INTO " + table + "(" + jsonColumn + ")"
+        + " VALUES ($1::JSONB)");
+    updateQuery = pg.preparedQuery("INSERT INTO " + table + "(" + jsonColumn + ")"
+        + " VALUES ($1::JSONB)"
+        + " ON CONFLICT ((" + idIndex + ")) DO UPDATE SET " + jsonColumn + "= $1::JSONB");
+    deleteQuery = pg.preparedQuery("DELETE FROM " + table + " WHERE " + idSelect);
+    selectQuery = pg.preparedQuery("SELECT " + jsonColumn + " FROM " + table);
   }
 
   private Future<Void> create(boolean reset, PostgresQuery q) {
@@ -50,59 +68,74 @@ class PostgresTable<T> {
   }
 
   Future<Void> insert(T dd) {
-    PostgresQuery q = pg.getQuery();
-    final String sql = "INSERT INTO " + table + "(" + jsonColumn + ") VALUES ($1::JSONB)";
-    return q.query(sql, Tuple.of(JsonObject.mapFrom(dd))).<Void>mapEmpty()
-        .onSuccess(res -> q.close());
+    return execute(insertQuery, Tuple.of(JsonObject.mapFrom(dd))).mapEmpty();
   }
 
   Future<Void> insertBatch(List<T> dds) {
     if (dds.isEmpty()) {
       return Future.succeededFuture();
     }
-    PostgresQuery q = pg.getQuery();
-    final String sql = "INSERT INTO " + table + "(" + jsonColumn + ") VALUES ($1::JSONB)";
     final List<Tuple> tuples = new ArrayList<>(dds.size());
     dds.forEach(dd -> tuples.add(Tuple.of(JsonObject.mapFrom(dd))));
-    return q.query(sql, tuples).<Void>mapEmpty()
-        .onSuccess(res -> q.close());
+    return executeBatch(insertQuery, tuples).mapEmpty();
   }
 
   Future<Void> update(T md) {
-    PostgresQuery q = pg.getQuery();
-    String sql = "INSERT INTO " + table + "(" + jsonColumn + ") VALUES ($1::JSONB)"
-        + " ON CONFLICT ((" + idIndex + ")) DO UPDATE SET " + jsonColumn + "= $1::JSONB";
-    String s = Json.encode(md);
-    JsonObject doc = new JsonObject(s);
-    return q.query(sql, Tuple.of(doc)).<Void>mapEmpty()
-        .onSuccess(res -> q.close());
+    return execute(updateQuery, Tuple.of(new JsonObject(Json.encode(md)))).mapEmpty();
+  }
+
+  Future<Void> updateBatch(List<T> mds) {
+    if (mds.isEmpty()) {
+      return Future.succeededFuture();
+    }
+    final List<Tuple> tuples = new ArrayList<>(mds.size());
+    mds.forEach(md -> tuples.add(Tuple.of(new JsonObject(Json.encode(md)))));
+    return executeBatch(updateQuery, tuples).mapEmpty();
   }
 
   Future<Boolean> delete(String id) {
-    PostgresQuery q = pg.getQuery();
-    String sql = "DELETE FROM " + table + " WHERE " + idSelect;
-    return q.query(sql, Tuple.of(id)).compose(res -> {
-      q.close();
-      if (res.rowCount() == 0) {
-        return Future.succeededFuture(Boolean.FALSE);
+    return execute(deleteQuery, Tuple.of(id)).map(res -> res.rowCount() != 0);
+  }
+
+  /**
+   * Delete records.
+   * @param ids IDs of records
+   * @return number of records deleted
+   */
+  Future<Integer> deleteBatch(List<String> ids) {
+    if (ids.isEmpty()) {
+      return Future.succeededFuture(0);
+    }
+    final List<Tuple> tuples = new ArrayList<>(ids.size());
+    ids.forEach(id -> tuples.add(Tuple.of(id)));
+    return executeBatch(deleteQuery, tuples).map(res -> {
+      int count = 0;
+      for (RowSet<Row> rs = res; rs != null; rs = rs.next()) {
+        count += rs.rowCount();
       }
-      return Future.succeededFuture(Boolean.TRUE);
+      return count;
     });
   }
 
   Future<List<T>> getAll(Class<T> clazz) {
-    PostgresQuery q = pg.getQuery();
-    String sql = "SELECT " + jsonColumn + " FROM " + table;
-    return q.query(sql).compose(res -> {
+    return execute(selectQuery, Tuple.tuple()).map(res -> {
       List<T> ml = new ArrayList<>();
       for (Row r : res) {
         JsonObject o = (JsonObject) r.getValue(0);
         T md = o.mapTo(clazz);
         ml.add(md);
       }
-      q.close();
-      return Future.succeededFuture(ml);
+      return ml;
     });
   }
 
+  private static Future<RowSet<Row>> execute(PreparedQuery<RowSet<Row>> query, Tuple tuple) {
+    return query.execute(tuple).onFailure(e -> LOG.error(e.getMessage(), e));
+  }
+
+  private static Future<RowSet<Row>> executeBatch(PreparedQuery<RowSet<Row>> query,
+      List<Tuple> tuples) {
+    return query.executeBatch(tuples).onFailure(e -> LOG.error(e.getMessage(), e));
+  }
+
 }
@@ -0,0 +1,317 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.SocketAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.logging.log4j.Logger;
+import org.folio.okapi.ConfNames;
+import org.folio.okapi.bean.ModuleInstance;
+import org.folio.okapi.common.Config;
+import org.folio.okapi.common.Messages;
+import org.folio.okapi.common.OkapiLogger;
+
+/**
+ * Access log of proxied requests: the REQ and RES lines of the "full" logger.
+ *
+ * <p>Requests are sampled per tenant: one in N requests of a tenant is logged, with N
+ * given by {@value ConfNames#ACCESS_LOG_SAMPLE}. Nothing is computed for requests that
+ * are not logged, nor when the "full" logger is disabled.
+ *
+ * <p>If asynchronous, the fields of an entry are stored in a preallocated ring buffer
+ * and the line is formatted and logged by a dedicated thread, off the event loop.
+ * Entries are dropped when the ring buffer is full.
+ */
+public final class AccessLog {
+
+  private static final Logger logger = OkapiLogger.get();
+  private static final Logger fullLogger = OkapiLogger.get("full");
+  private static final int MAX_TENANTS = 1000;
+  private static final String ANY_TENANT = "*";
+
+  /** Synchronous access log of every request. */
+  static final AccessLog DEFAULT = new AccessLog(false, 0, Map.of());
+
+  private static final class Entry {
+    volatile long published = -1;
+    boolean request;
+    String reqId;
+    String tenant;
+    String userId;
+    SocketAddress remote;
+    HttpMethod method;
+    String path;
+    List<ModuleInstance> mods;
+    String module;
+    String url;
+    int statusCode;
+    long micros;
+
+    void clear() {
+      reqId = null;
+      tenant = null;
+      userId = null;
+      remote = null;
+      method = null;
+      path = null;
+      mods = null;
+      module = null;
+      url = null;
+    }
+  }
+
+  private final Map<String, Integer> sampleRates;
+  private final int defaultRate;
+  private final Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+  private final Entry[] ring;
+  private final int mask;
+  private final AtomicLong claimed = new AtomicLong();
+  private final AtomicLong consumed = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private Thread writer;
+
+  /**
+   * Create access log from configuration.
+   * @param config Okapi configuration
+   * @return access log
+   * @throws IllegalArgumentException for bad {@value ConfNames#ACCESS_LOG_SAMPLE}
+   */
+  public static AccessLog create(JsonObject config) {
+    boolean async = Config.getSysConfBoolean(ConfNames.ACCESS_LOG_ASYNC, false, config);
+    int size = Config.getSysConfInteger(ConfNames.ACCESS_LOG_BUFFER,
+        ConfNames.ACCESS_LOG_BUFFER_DEFAULT, config);
+    String sample = Config.getSysConf(ConfNames.ACCESS_LOG_SAMPLE, "1", config);
+    AccessLog accessLog = new AccessLog(async, size, parseSampleRates(sample));
+    if (async) {
+      accessLog.writer = new Thread(accessLog::write, "okapi-access-log");
+      accessLog.writer.setDaemon(true);
+      accessLog.writer.start();
+    }
+    return accessLog;
+  }
+
+  /**
+   * Stop the access log thread, if any, after it has logged the published entries.
+   */
+  public void close() {
+    if (writer == null) {
+      return;
+    }
+    writer.interrupt();
+    try {
+      writer.join(1000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    writer = null;
+  }
+
+  AccessLog(boolean async, int size, Map<String, Integer> sampleRates) {
+    this.sampleRates = sampleRates;
+    this.defaultRate = sampleRates.getOrDefault(ANY_TENANT, 1);
+    if (async) {
+      int capacity = Integer.highestOneBit(Math.max(size, 2) - 1) << 1;
+      ring = new Entry[capacity];
+      for (int i = 0; i < capacity; i++) {
+        ring[i] = new Entry();
+      }
+      mask = capacity - 1;
+    } else {
+      ring = null;
+      mask = 0;
+    }
+  }
+
+  /**
+   * Parse sampling rates: comma-separated list of tenant=N and N for other tenants.
+   * @param sample for example "100,diku=1"
+   * @return rate for each tenant; "*" for other tenants
+   */
+  static Map<String, Integer> parseSampleRates(String sample) {
+    Map<String, Integer> rates = new HashMap<>();
+    for (String part : sample.split(",")) {
+      String s = part.trim();
+      int idx = s.indexOf('=');
+      String tenant = idx == -1 ? ANY_TENANT : s.substring(0, idx).trim();
+      int rate;
+      try {
+        rate = Integer.parseInt(s.substring(idx + 1).trim());
+      } catch (NumberFormatException e) {
+        rate = -1;
+      }
+      if (rate < 0 || tenant.isEmpty()) {
+        throw new IllegalArgumentException(Messages.getInstance().getMessage("10812", sample));
+      }
+      rates.put(tenant, rate);
+    }
+    return rates;
+  }
+
+  /**
+   * Whether the "full" logger logs at all.
+   */
+  boolean isEnabled() {
+    return fullLogger.isInfoEnabled();
+  }
+
+  /**
+   * Decide whether a request of tenant is logged.
+   * @param tenant tenant of request
+   * @return true if the request is sampled
+   */
+  boolean sample(String tenant) {
+    int rate = sampleRates.getOrDefault(tenant, defaultRate);
+    if (rate <= 1) {
+      return rate == 1;
+    }
+    AtomicInteger counter = counters.get(tenant);
+    if (counter == null) {
+      // bound the map, as the tenant may come from a bad request
+      String key = counters.size() < MAX_TENANTS ? tenant : ANY_TENANT;
+      counter = counters.computeIfAbsent(key, k -> new AtomicInteger());
+    }
+    return Math.floorMod(counter.getAndIncrement(), rate) == 0;
+  }
+
+  void request(String reqId, String tenant, String userId, SocketAddress remote,
+      HttpMethod method, String path, List<ModuleInstance> mods) {
+    if (ring == null) {
+      String modIds = joinMods(mods);
+      fullLogger.info(new OkapiMapMessage(reqId, tenant, userId, modIds,
+          formatRequest(reqId, remote, tenant, method, path, modIds)));
+      return;
+    }
+    long seq = claim();
+    if (seq == -1) {
+      return;
+    }
+    Entry e = ring[(int) (seq & mask)];
+    e.request = true;
+    e.reqId = reqId;
+    e.tenant = tenant;
+    e.userId = userId;
+    e.remote = remote;
+    e.method = method;
+    e.path = path;
+    e.mods = mods;
+    e.published = seq;
+  }
+
+  void response(String reqId, String tenant, String userId, String module, String url,
+      int statusCode, long micros) {
+    if (ring == null) {
+      fullLogger.info(new OkapiMapMessage(reqId, tenant, userId, module,
+          formatResponse(reqId, statusCode, micros, module, url)));
+      return;
+    }
+    long seq = claim();
+    if (seq == -1) {
+      return;
+    }
+    Entry e = ring[(int) (seq & mask)];
+    e.request = false;
+    e.reqId = reqId;
+    e.tenant = tenant;
+    e.userId = userId;
+    e.module = module;
+    e.url = url;
+    e.statusCode = statusCode;
+    e.micros = micros;
+    e.published = seq;
+  }
+
+  /**
+   * Claim next slot of ring buffer; may be called from several threads.
+   * @return sequence number of slot; -1 if the ring buffer is full
+   */
+  private long claim() {
+    while (true) {
+      long seq = claimed.get();
+      if (seq - consumed.get() >= ring.length) {
+        dropped.incrementAndGet();
+        return -1;
+      }
+      if (claimed.compareAndSet(seq, seq + 1)) {
+        return seq;
+      }
+    }
+  }
+
+  /**
+   * Log entries of the ring buffer, in order; run by the access log thread.
+   */
+  private void write() {
+    long seq = 0;
+    while (!Thread.currentThread().isInterrupted()) {
+      if (!poll(seq)) {
+        LockSupport.parkNanos(1000000L);
+        continue;
+      }
+      seq++;
+    }
+    while (poll(seq)) {
+      seq++;
+    }
+  }
+
+  /**
+   * Log entry if published.
+   * @param seq sequence number of entry
+   * @return true if logged; false if not yet published
+   */
+  boolean poll(long seq) {
+    Entry e = ring[(int) (seq & mask)];
+    if (e.published != seq) {
+      return false;
+    }
+    OkapiMapMessage msg;
+    if (e.request) {
+      String modIds = joinMods(e.mods);
+      msg = new OkapiMapMessage(e.reqId, e.tenant, e.userId, modIds,
+          formatRequest(e.reqId, e.remote, e.tenant, e.method, e.path, modIds));
+    } else {
+      msg = new OkapiMapMessage(e.reqId, e.tenant, e.userId, e.module,
+          formatResponse(e.reqId, e.statusCode, e.micros, e.module, e.url));
+    }
+    e.clear();
+    consumed.set(seq + 1);
+    long n = dropped.getAndSet(0);
+    if (n > 0) {
+      logger.warn("Access log buffer full: {} entries dropped", n);
+    }
+    fullLogger.info(msg);
+    return true;
+  }
+
+  static String joinMods(List<ModuleInstance> mods) {
+    if (mods == null || mods.isEmpty()) {
+      return "";
+    }
+    StringBuilder sb = new StringBuilder();
+    for (ModuleInstance mi : mods) {
+      if (sb.length() > 0) {
+        sb.append(' ');
+      }
+      sb.append(mi.getModuleDescriptor().getId());
+    }
+    return sb.toString();
+  }
+
+  static String formatRequest(String reqId, SocketAddress remote, String tenant,
+      HttpMethod method, String path, String modIds) {
+    return reqId + " REQ " + remote + " " + tenant + " " + method + " " + path + " "
+        + modIds;
+  }
+
+  static String formatResponse(String reqId, int statusCode, long micros, String module,
+      String url) {
+    return reqId + " RES " + statusCode + " " + (micros < 0 ? "-" : micros + "us") + " "
+        + module + " " + url;
+  }
+}
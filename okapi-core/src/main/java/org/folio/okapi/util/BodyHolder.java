@@ -0,0 +1,191 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+import org.apache.logging.log4j.Logger;
+import org.folio.okapi.common.OkapiLogger;
+
+/**
+ * Request or response body that can be sent more than once, as needed when a body is
+ * passed through a pipeline of modules.
+ *
+ * <p>A body up to a threshold is kept in memory. A larger body is spilled to a
+ * temporary file while it is read, with backpressure on the incoming stream, so that
+ * the heap used per request is bounded. The file is removed by {@link #close()}.
+ */
+public final class BodyHolder {
+
+  private static final Logger logger = OkapiLogger.get();
+
+  private final Vertx vertx;
+  private Buffer memory;
+  private long length;
+  private String path;
+  private Future<AsyncFile> file;
+
+  private BodyHolder(Vertx vertx, Buffer memory) {
+    this.vertx = vertx;
+    this.memory = memory;
+    this.length = memory.length();
+  }
+
+  /**
+   * Hold body that is already in memory.
+   * @param buffer body
+   * @return holder
+   */
+  public static BodyHolder of(Buffer buffer) {
+    return new BodyHolder(null, buffer);
+  }
+
+  /**
+   * Read body from stream. The stream is resumed and consumed until its end.
+   * @param vertx Vert.x handle, for the file system
+   * @param stream paused stream to read
+   * @param threshold maximum size in bytes kept in memory; -1 for no limit
+   * @return holder with the whole body; failed future if stream or file fails
+   */
+  public static Future<BodyHolder> load(Vertx vertx, ReadStream<Buffer> stream,
+      long threshold) {
+    BodyHolder holder = new BodyHolder(vertx, Buffer.buffer());
+    Promise<BodyHolder> promise = Promise.promise();
+    stream.exceptionHandler(e -> {
+      holder.close();
+      promise.tryFail(e);
+    });
+    stream.handler(chunk -> holder.append(stream, chunk, threshold, promise));
+    stream.endHandler(v -> holder.finish(promise));
+    stream.resume();
+    return promise.future();
+  }
+
+  private void append(ReadStream<Buffer> stream, Buffer chunk, long threshold,
+      Promise<BodyHolder> promise) {
+    length += chunk.length();
+    if (file == null) {
+      memory.appendBuffer(chunk);
+      if (threshold < 0 || length <= threshold) {
+        return;
+      }
+      stream.pause();
+      FileSystem fs = vertx.fileSystem();
+      file = fs.createTempFile("okapi-body", ".tmp")
+          .compose(p -> {
+            path = p;
+            return fs.open(p, new OpenOptions().setWrite(true));
+          })
+          .compose(f -> {
+            f.exceptionHandler(promise::tryFail);
+            Buffer held = memory;
+            memory = null;
+            return f.write(held).map(f);
+          })
+          .onSuccess(f -> stream.resume())
+          .onFailure(e -> {
+            close();
+            promise.tryFail(e);
+          });
+      return;
+    }
+    if (!file.isComplete()) {
+      // arrived before the pause took effect
+      file = file.compose(f -> f.write(chunk).map(f));
+      return;
+    }
+    AsyncFile f = file.result();
+    if (f == null) {
+      return; // failed already
+    }
+    f.write(chunk);
+    if (f.writeQueueFull()) {
+      stream.pause();
+      f.drainHandler(v -> stream.resume());
+    }
+  }
+
+  private void finish(Promise<BodyHolder> promise) {
+    if (file == null) {
+      promise.tryComplete(this);
+      return;
+    }
+    file.compose(AsyncFile::close)
+        .onSuccess(x -> promise.tryComplete(this))
+        .onFailure(e -> {
+          close();
+          promise.tryFail(e);
+        });
+  }
+
+  /**
+   * Get body length.
+   * @return number of bytes
+   */
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Whether the body is kept in memory.
+   * @return false if spilled to file
+   */
+  public boolean inMemory() {
+    return path == null;
+  }
+
+  /**
+   * Get whole body in memory; for spilled bodies the file is read.
+   * @return body
+   */
+  public Future<Buffer> toBuffer() {
+    if (path == null) {
+      return Future.succeededFuture(memory);
+    }
+    return vertx.fileSystem().readFile(path);
+  }
+
+  /**
+   * Write the body to a stream and end it. For HTTP requests and responses that are
+   * not chunked, Content-Length is set.
+   * @param stream destination
+   * @return future that completes when the stream is ended
+   */
+  public Future<Void> end(WriteStream<Buffer> stream) {
+    if (path == null) {
+      return stream.end(memory);
+    }
+    String contentLength = Long.toString(length);
+    if (stream instanceof HttpClientRequest req && !req.isChunked()) {
+      req.putHeader(HttpHeaders.CONTENT_LENGTH, contentLength);
+    } else if (stream instanceof HttpServerResponse res && !res.isChunked()) {
+      res.putHeader(HttpHeaders.CONTENT_LENGTH, contentLength);
+    }
+    return vertx.fileSystem().open(path, new OpenOptions().setRead(true))
+        .compose(f -> f.pipeTo(stream).eventually(f::close));
+  }
+
+  /**
+   * Remove file of spilled body. The holder must not be used after this.
+   */
+  public void close() {
+    if (path != null) {
+      String p = path;
+      vertx.fileSystem().delete(p)
+          .onFailure(e -> logger.warn("Could not delete {}: {}", p, e.getMessage()));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return path == null ? memory.toString() : "<" + length + " bytes in " + path + ">";
+  }
+}
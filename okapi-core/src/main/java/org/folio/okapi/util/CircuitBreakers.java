@@ -0,0 +1,227 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.Logger;
+import org.folio.okapi.ConfNames;
+import org.folio.okapi.common.Config;
+import org.folio.okapi.common.Messages;
+import org.folio.okapi.common.OkapiLogger;
+
+/**
+ * Circuit breaker per upstream instance (URL).
+ *
+ * <p>A breaker opens after {@value ConfNames#CIRCUIT_BREAKER_FAILURES} consecutive
+ * failures, where a request that could not be sent, a response that did not arrive and
+ * a response slower than {@value ConfNames#CIRCUIT_BREAKER_LATENCY_MS} all count as a
+ * failure. While open, requests to the instance fail at once. After
+ * {@value ConfNames#CIRCUIT_BREAKER_OPEN_MS} the breaker is half-open: a single probe
+ * (the health check of the instance) is made, while requests still fail. The breaker
+ * closes if the probe succeeds and opens again otherwise.
+ */
+public class CircuitBreakers {
+
+  private static final Logger logger = OkapiLogger.get();
+  private static final Messages messages = Messages.getInstance();
+
+  enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  /**
+   * Failure for a request to an instance with an open breaker.
+   */
+  public static class OpenException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    OpenException(String url) {
+      super(messages.getMessage("10108", url));
+    }
+  }
+
+  private static final class Breaker {
+    private State state = State.CLOSED;
+    private int failures;
+    private long openUntil;
+    private boolean removed;
+  }
+
+  private final int failureThreshold;
+  private final long latencyThreshold;
+  private final long openNanos;
+  private final Function<String, Future<Boolean>> probe;
+  private final LongSupplier clock;
+  private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+  private final AtomicInteger notClosed = new AtomicInteger();
+
+  /**
+   * Create breakers from configuration.
+   * @param config Okapi configuration
+   * @param probe health check of instance URL; succeeds with true if healthy
+   */
+  public CircuitBreakers(JsonObject config, Function<String, Future<Boolean>> probe) {
+    this(Config.getSysConfInteger(ConfNames.CIRCUIT_BREAKER_FAILURES,
+            ConfNames.CIRCUIT_BREAKER_FAILURES_DEFAULT, config),
+        Config.getSysConfInteger(ConfNames.CIRCUIT_BREAKER_LATENCY_MS,
+            ConfNames.CIRCUIT_BREAKER_LATENCY_MS_DEFAULT, config),
+        Config.getSysConfInteger(ConfNames.CIRCUIT_BREAKER_OPEN_MS,
+            ConfNames.CIRCUIT_BREAKER_OPEN_MS_DEFAULT, config),
+        probe, System::nanoTime);
+  }
+
+  CircuitBreakers(int failureThreshold, long latencyMs, long openMs,
+      Function<String, Future<Boolean>> probe, LongSupplier clock) {
+    this.failureThreshold = failureThreshold;
+    this.latencyThreshold = TimeUnit.MILLISECONDS.toNanos(latencyMs);
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+    this.probe = probe;
+    this.clock = clock;
+  }
+
+  /**
+   * Whether breakers are in use.
+   * @return false if {@value ConfNames#CIRCUIT_BREAKER_FAILURES} is 0
+   */
+  public boolean isEnabled() {
+    return failureThreshold > 0;
+  }
+
+  /**
+   * Whether any breaker is not closed; a cheap check before {@link #allow(String)} for
+   * each of several instances.
+   */
+  public boolean anyOpen() {
+    return notClosed.get() > 0;
+  }
+
+  /**
+   * Check whether a request may be sent to an instance. This starts the probe if the
+   * breaker has been open for long enough.
+   * @param url instance URL
+   * @return true if the breaker is closed
+   */
+  public boolean allow(String url) {
+    if (!isEnabled() || url == null) {
+      return true;
+    }
+    Breaker breaker = breakers.get(url);
+    if (breaker == null) {
+      return true;
+    }
+    synchronized (breaker) {
+      if (breaker.state == State.CLOSED) {
+        return true;
+      }
+      if (breaker.state == State.OPEN && clock.getAsLong() - breaker.openUntil >= 0) {
+        breaker.state = State.HALF_OPEN;
+        startProbe(url, breaker);
+      }
+      return false;
+    }
+  }
+
+  private void startProbe(String url, Breaker breaker) {
+    Future<Boolean> future;
+    try {
+      future = probe.apply(url);
+    } catch (Exception e) {
+      future = Future.failedFuture(e);
+    }
+    future.otherwise(false).onSuccess(healthy -> {
+      synchronized (breaker) {
+        if (breaker.state != State.HALF_OPEN) {
+          return;
+        }
+        if (Boolean.TRUE.equals(healthy)) {
+          logger.info("Circuit breaker for {} closed", url);
+          breaker.state = State.CLOSED;
+          breaker.failures = 0;
+          notClosed.decrementAndGet();
+        } else {
+          breaker.state = State.OPEN;
+          breaker.openUntil = clock.getAsLong() + openNanos;
+        }
+      }
+    });
+  }
+
+  /**
+   * Record response from instance.
+   * @param url instance URL
+   * @param nanos time from request until response
+   */
+  public void success(String url, long nanos) {
+    if (!isEnabled() || url == null) {
+      return;
+    }
+    if (latencyThreshold > 0 && nanos >= latencyThreshold) {
+      failure(url);
+      return;
+    }
+    Breaker breaker = breakers.get(url);
+    if (breaker != null) {
+      synchronized (breaker) {
+        if (breaker.state == State.CLOSED) {
+          breaker.failures = 0;
+        }
+      }
+    }
+  }
+
+  /**
+   * Record failed request to instance.
+   * @param url instance URL
+   */
+  public void failure(String url) {
+    if (!isEnabled() || url == null) {
+      return;
+    }
+    Breaker breaker = breakers.computeIfAbsent(url, x -> new Breaker());
+    synchronized (breaker) {
+      if (breaker.removed || breaker.state != State.CLOSED
+          || ++breaker.failures < failureThreshold) {
+        return;
+      }
+      logger.warn("Circuit breaker for {} opened after {} failures", url, breaker.failures);
+      breaker.state = State.OPEN;
+      breaker.openUntil = clock.getAsLong() + openNanos;
+      notClosed.incrementAndGet();
+    }
+  }
+
+  /**
+   * Drop breaker of instance; called when the instance leaves the routing table, so
+   * that a new instance on the same URL does not inherit an open breaker.
+   * @param url instance URL
+   */
+  public void remove(String url) {
+    Breaker breaker = breakers.remove(url);
+    if (breaker == null) {
+      return;
+    }
+    synchronized (breaker) {
+      breaker.removed = true;
+      if (breaker.state != State.CLOSED) {
+        // also makes a pending probe of the breaker a no-op
+        breaker.state = State.CLOSED;
+        notClosed.decrementAndGet();
+      }
+    }
+  }
+
+  State getState(String url) {
+    Breaker breaker = breakers.get(url);
+    if (breaker == null) {
+      return State.CLOSED;
+    }
+    synchronized (breaker) {
+      return breaker.state;
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Limit on the number of operations that run at the same time for each key. Further
+ * operations wait, in order, until an operation with the same key completes.
+ */
+public class ConcurrencyLimiter {
+
+  private final int limit;
+  private final Map<String, Integer> running = new HashMap<>();
+  private final Map<String, Deque<Runnable>> waiting = new HashMap<>();
+
+  /**
+   * Create limiter.
+   * @param limit maximum number of operations running for each key; at least 1
+   */
+  public ConcurrencyLimiter(int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be 1 or higher");
+    }
+    this.limit = limit;
+  }
+
+  /**
+   * Run operation when less than the limit of operations with the same key run.
+   * @param key key, such as a module ID
+   * @param operation operation to start
+   * @return future with result of operation
+   */
+  public <T> Future<T> run(String key, Supplier<Future<T>> operation) {
+    Promise<T> promise = Promise.promise();
+    Runnable start = () -> {
+      Future<T> future;
+      try {
+        future = operation.get();
+      } catch (Exception e) {
+        future = Future.failedFuture(e);
+      }
+      future.onComplete(res -> {
+        release(key);
+        promise.handle(res);
+      });
+    };
+    synchronized (this) {
+      int n = running.getOrDefault(key, 0);
+      if (n >= limit) {
+        waiting.computeIfAbsent(key, k -> new ArrayDeque<>()).add(start);
+        return promise.future();
+      }
+      running.put(key, n + 1);
+    }
+    start.run();
+    return promise.future();
+  }
+
+  /**
+   * Run operation when less than the limit of operations run, for limiter without keys.
+   * @param operation operation to start
+   * @return future with result of operation
+   */
+  public <T> Future<T> run(Supplier<Future<T>> operation) {
+    return run("", operation);
+  }
+
+  private void release(String key) {
+    Runnable next;
+    synchronized (this) {
+      Deque<Runnable> queue = waiting.get(key);
+      next = queue == null ? null : queue.poll();
+      if (queue != null && queue.isEmpty()) {
+        waiting.remove(key);
+      }
+      if (next == null) {
+        int n = running.get(key) - 1;
+        if (n == 0) {
+          running.remove(key);
+        } else {
+          running.put(key, n);
+        }
+      }
+    }
+    if (next != null) {
+      next.run();
+    }
+  }
+
+  /**
+   * Number of operations running with key.
+   * @param key key
+   * @return number of operations
+   */
+  synchronized int getRunning(String key) {
+    return running.getOrDefault(key, 0);
+  }
+}
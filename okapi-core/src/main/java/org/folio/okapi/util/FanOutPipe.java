@@ -0,0 +1,126 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.Logger;
+import org.folio.okapi.common.OkapiLogger;
+
+/**
+ * Pipe from one read stream to several write streams (sinks), as used for the proxy
+ * response and the request-log modules that get a copy of the body.
+ *
+ * <p>Each sink has a credit: it is either ready or full. A sink is marked full when
+ * its write queue fills up and ready again by its drain handler, which is installed
+ * once. The source is paused while any throttling sink is full, that is, it runs at the
+ * speed of the slowest sink. A droppable sink that fills up is dropped instead: it gets
+ * no more data, and the source is not held back for it.
+ */
+public final class FanOutPipe {
+
+  private static final Logger logger = OkapiLogger.get();
+
+  private static final class Sink {
+    private final WriteStream<Buffer> stream;
+    private final Handler<WriteStream<Buffer>> dropHandler; // null: throttle source
+    private boolean full;
+    private boolean dropped;
+
+    Sink(WriteStream<Buffer> stream, Handler<WriteStream<Buffer>> dropHandler) {
+      this.stream = stream;
+      this.dropHandler = dropHandler;
+    }
+  }
+
+  private final ReadStream<Buffer> source;
+  private final List<Sink> sinkList = new ArrayList<>();
+  private Sink[] sinks;
+  private int saturated; // number of throttling sinks that are full
+
+  public FanOutPipe(ReadStream<Buffer> source) {
+    this.source = source;
+  }
+
+  /**
+   * Add sink that the source is throttled for.
+   * @param stream sink
+   * @return this
+   */
+  public FanOutPipe to(WriteStream<Buffer> stream) {
+    sinkList.add(new Sink(stream, null));
+    return this;
+  }
+
+  /**
+   * Add sink that is dropped rather than throttling the source when it is full.
+   * @param stream sink
+   * @param dropHandler called once if the sink is dropped, for example to reset it
+   * @return this
+   */
+  public FanOutPipe toDroppable(WriteStream<Buffer> stream,
+      Handler<WriteStream<Buffer>> dropHandler) {
+    sinkList.add(new Sink(stream, dropHandler));
+    return this;
+  }
+
+  /**
+   * Install handlers on source and sinks. The source is not resumed.
+   */
+  public void start() {
+    sinks = sinkList.toArray(new Sink[0]);
+    for (Sink sink : sinks) {
+      sink.stream.drainHandler(v -> drained(sink));
+    }
+    source.handler(this::write);
+    source.endHandler(v -> end());
+  }
+
+  private void write(Buffer data) {
+    for (Sink sink : sinks) {
+      if (sink.dropped) {
+        continue;
+      }
+      sink.stream.write(data);
+      if (!sink.full && sink.stream.writeQueueFull()) {
+        if (sink.dropHandler != null) {
+          drop(sink);
+        } else {
+          sink.full = true;
+          saturated++;
+        }
+      }
+    }
+    if (saturated > 0) {
+      source.pause();
+    }
+  }
+
+  private void drop(Sink sink) {
+    logger.warn("Dropping slow sink {}", sink.stream);
+    sink.dropped = true;
+    sink.stream.drainHandler(null);
+    sink.dropHandler.handle(sink.stream);
+  }
+
+  private void drained(Sink sink) {
+    // a drain may also follow writes made outside this pipe
+    if (!sink.full) {
+      return;
+    }
+    sink.full = false;
+    if (--saturated == 0) {
+      source.resume();
+    }
+  }
+
+  private void end() {
+    for (Sink sink : sinks) {
+      if (!sink.dropped) {
+        sink.stream.end();
+      }
+    }
+  }
+}
@@ -20,18 +20,6 @@ import org.folio.okapi.common.Config;
 public class FuturisedHttpClient {
   HttpClient httpClient;
 
-  /**
-   * Create a HTTP client for proxy outgoing requests.
-   * @param vertx Vert.x handle to use for client
-   * @param config Configuration for Vert.x
-   * @return
-   */
-  public static FuturisedHttpClient getProxyClient(Vertx vertx, JsonObject config) {
-    int httpProxySize = Config.getSysConfInteger(ConfNames.HTTP_MAX_SIZE_PROXY,
-        ConfNames.HTTP_MAX_SIZE_PROXY_DEFAULT, config);
-    return new FuturisedHttpClient(vertx, httpProxySize);
-  }
-
   /**
    * Create a HTTP client for system requests.
    * @param vertx Vert.x handle to use for client
@@ -49,6 +37,10 @@ public class FuturisedHttpClient {
     httpClient = vertx.createHttpClient(httpClientOptions, poolOptions);
   }
 
+  public FuturisedHttpClient(HttpClient httpClient) {
+    this.httpClient = httpClient;
+  }
+
   FuturisedHttpClient(Vertx vertx, int size) {
     this(vertx, new HttpClientOptions(), new PoolOptions().setHttp1MaxSize(size));
   }
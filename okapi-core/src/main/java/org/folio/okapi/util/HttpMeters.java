@@ -0,0 +1,81 @@
+package org.folio.okapi.util;
+
+import io.micrometer.core.instrument.Timer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HTTP timers of one routing entry.
+ *
+ * <p>A timer is registered once for each combination of tenant, module, method,
+ * status code and kind (server or client) and then reused, so that recording a
+ * request neither builds tags nor looks up the meter registry. The timers of a tenant
+ * are kept in a small copy-on-write array that is scanned without allocation.
+ */
+public final class HttpMeters {
+
+  /** Maximum number of timers per tenant; beyond this timers are not kept. */
+  static final int MAX_PER_TENANT = 64;
+
+  private static final Entry[] EMPTY = new Entry[0];
+
+  private record Entry(boolean server, boolean handler, int code, String method,
+      String moduleId, Timer timer) {
+
+    boolean matches(boolean server, boolean handler, int code, String method,
+        String moduleId) {
+      return this.server == server && this.handler == handler && this.code == code
+          && same(this.method, method) && same(this.moduleId, moduleId);
+    }
+
+    private static boolean same(String a, String b) {
+      return a == b || (a != null && a.equals(b));
+    }
+  }
+
+  private final long generation;
+  private final ConcurrentHashMap<String, Entry[]> tenants = new ConcurrentHashMap<>();
+
+  HttpMeters(long generation) {
+    this.generation = generation;
+  }
+
+  long getGeneration() {
+    return generation;
+  }
+
+  Timer get(String tenant, boolean server, boolean handler, int code, String method,
+      String moduleId) {
+    Entry[] entries = tenants.get(tenant);
+    if (entries == null) {
+      return null;
+    }
+    for (Entry entry : entries) {
+      if (entry.matches(server, handler, code, method, moduleId)) {
+        return entry.timer;
+      }
+    }
+    return null;
+  }
+
+  Timer put(String tenant, boolean server, boolean handler, int code, String method,
+      String moduleId, Timer timer) {
+    tenants.compute(tenant, (k, entries) -> {
+      if (entries == null) {
+        entries = EMPTY;
+      }
+      if (entries.length >= MAX_PER_TENANT) {
+        return entries;
+      }
+      for (Entry entry : entries) {
+        if (entry.matches(server, handler, code, method, moduleId)) {
+          return entries;
+        }
+      }
+      Entry[] n = Arrays.copyOf(entries, entries.length + 1);
+      n[entries.length] = new Entry(server, handler, code, method, moduleId, timer);
+      return n;
+    });
+    return timer;
+  }
+}
@@ -0,0 +1,255 @@
+package org.folio.okapi.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.ToLongFunction;
+import org.folio.okapi.bean.InterfaceDescriptor;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.folio.okapi.bean.TenantModuleDescriptor;
+import org.folio.okapi.bean.TenantModuleDescriptor.Action;
+
+/**
+ * Order in which the modules of an install job are invoked.
+ *
+ * <p>The interface dependencies between the modules of the job are computed once: a
+ * module that is enabled waits for the modules of the job that provide interfaces it
+ * requires, and a module that is disabled waits for the modules of the job that
+ * (before the job) require interfaces it provides. A module is ready when all modules
+ * it waits for have completed. Ready modules come in order of the longest path of
+ * waiting modules that they start, measured by the expected time of each module, so
+ * that long chains are started first.
+ *
+ * <p>The dependencies only order the modules; the caller still checks dependencies
+ * against the modules that are enabled. If the dependencies can not be satisfied in
+ * the order of the graph (for example, for modules that depend on each other), the
+ * remaining modules can be released with {@link #releaseBlocked()}.
+ */
+public final class InstallScheduler {
+
+  private final List<TenantModuleDescriptor> modules;
+  private final Map<TenantModuleDescriptor, Integer> index = new IdentityHashMap<>();
+  private final List<List<Integer>> successors = new ArrayList<>();
+  private final int[] inDegree;
+  private final long[] rank;
+  private final boolean[] started;
+  private final boolean[] completed;
+  private final TreeSet<Integer> ready;
+
+  /**
+   * Create scheduler for install job.
+   * @param modules modules of job, in order of the job
+   * @param modsAvailable available modules by ID
+   * @param depCheck true to order by dependencies; false to keep the order of the job
+   * @param duration expected time of enabling a module, in any unit
+   */
+  public InstallScheduler(List<TenantModuleDescriptor> modules,
+      Map<String, ModuleDescriptor> modsAvailable, boolean depCheck,
+      ToLongFunction<ModuleDescriptor> duration) {
+
+    this.modules = modules;
+    int n = modules.size();
+    inDegree = new int[n];
+    rank = new long[n];
+    started = new boolean[n];
+    completed = new boolean[n];
+    for (int i = 0; i < n; i++) {
+      index.put(modules.get(i), i);
+      successors.add(new ArrayList<>());
+    }
+    if (depCheck) {
+      addEdges(modsAvailable);
+      long[] weight = new long[n];
+      for (int i = 0; i < n; i++) {
+        TenantModuleDescriptor tm = modules.get(i);
+        ModuleDescriptor md = modsAvailable.get(tm.getId());
+        weight[i] = tm.getAction() == Action.enable && md != null
+            ? Math.max(1, duration.applyAsLong(md)) : 1;
+      }
+      int[] state = new int[n];
+      for (int i = 0; i < n; i++) {
+        computeRank(i, weight, state);
+      }
+    }
+    ready = new TreeSet<>(Comparator.comparingLong((Integer i) -> -rank[i])
+        .thenComparingInt(i -> i));
+    for (int i = 0; i < n; i++) {
+      if (inDegree[i] == 0) {
+        ready.add(i);
+      }
+    }
+  }
+
+  private static ModuleDescriptor before(TenantModuleDescriptor tm,
+      Map<String, ModuleDescriptor> modsAvailable) {
+
+    if (tm.getAction() == Action.disable) {
+      return modsAvailable.get(tm.getId());
+    }
+    if (tm.getAction() == Action.enable && tm.getFrom() != null) {
+      return modsAvailable.get(tm.getFrom());
+    }
+    return null;
+  }
+
+  private void addEdges(Map<String, ModuleDescriptor> modsAvailable) {
+    // regular interfaces provided by enabled modules and required by modules before the job
+    Map<String, List<Integer>> providers = new HashMap<>();
+    Map<String, List<Integer>> users = new HashMap<>();
+    for (int i = 0; i < modules.size(); i++) {
+      TenantModuleDescriptor tm = modules.get(i);
+      ModuleDescriptor md = modsAvailable.get(tm.getId());
+      if (tm.getAction() == Action.enable && md != null) {
+        for (InterfaceDescriptor prov : md.getProvidesList()) {
+          if (prov.isRegularHandler()) {
+            providers.computeIfAbsent(prov.getId(), k -> new ArrayList<>()).add(i);
+          }
+        }
+      }
+      ModuleDescriptor mdBefore = before(tm, modsAvailable);
+      if (mdBefore != null) {
+        for (InterfaceDescriptor req : mdBefore.getRequiresList()) {
+          users.computeIfAbsent(req.getId(), k -> new ArrayList<>()).add(i);
+        }
+      }
+    }
+    for (int i = 0; i < modules.size(); i++) {
+      TenantModuleDescriptor tm = modules.get(i);
+      ModuleDescriptor md = modsAvailable.get(tm.getId());
+      if (md == null) {
+        continue;
+      }
+      if (tm.getAction() == Action.enable) {
+        for (InterfaceDescriptor req : md.getRequiresList()) {
+          for (int j : providers.getOrDefault(req.getId(), List.of())) {
+            ModuleDescriptor provider = modsAvailable.get(modules.get(j).getId());
+            if (j != i && isProvided(provider, req)) {
+              addEdge(j, i);
+            }
+          }
+        }
+      } else if (tm.getAction() == Action.disable) {
+        for (InterfaceDescriptor prov : md.getProvidesList()) {
+          if (!prov.isRegularHandler()) {
+            continue;
+          }
+          for (int j : users.getOrDefault(prov.getId(), List.of())) {
+            if (j != i && isRequired(before(modules.get(j), modsAvailable), prov)) {
+              addEdge(j, i);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean isProvided(ModuleDescriptor md, InterfaceDescriptor req) {
+    for (InterfaceDescriptor prov : md.getProvidesList()) {
+      if (prov.isRegularHandler() && prov.isCompatible(req)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isRequired(ModuleDescriptor md, InterfaceDescriptor prov) {
+    for (InterfaceDescriptor req : md.getRequiresList()) {
+      if (prov.isCompatible(req)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void addEdge(int from, int to) {
+    List<Integer> list = successors.get(from);
+    if (!list.contains(to)) {
+      list.add(to);
+      inDegree[to]++;
+    }
+  }
+
+  /**
+   * Compute longest path from module; edges that close a cycle are not followed.
+   * @param i module
+   * @param weight expected time of each module
+   * @param state 0: not visited; 1: being visited; 2: done
+   */
+  private void computeRank(int i, long[] weight, int[] state) {
+    if (state[i] != 0) {
+      return;
+    }
+    state[i] = 1;
+    long longest = 0;
+    for (int j : successors.get(i)) {
+      computeRank(j, weight, state);
+      if (state[j] == 2) {
+        longest = Math.max(longest, rank[j]);
+      }
+    }
+    rank[i] = weight[i] + longest;
+    state[i] = 2;
+  }
+
+  /**
+   * Get modules that are ready to be invoked.
+   * @return modules, most important first
+   */
+  public List<TenantModuleDescriptor> ready() {
+    List<TenantModuleDescriptor> list = new ArrayList<>(ready.size());
+    for (int i : ready) {
+      list.add(modules.get(i));
+    }
+    return list;
+  }
+
+  /**
+   * Mark module as invoked.
+   * @param tm module of job
+   */
+  public void started(TenantModuleDescriptor tm) {
+    int i = index.get(tm);
+    started[i] = true;
+    ready.remove(i);
+  }
+
+  /**
+   * Mark module as completed. Modules that no longer wait for any module become ready.
+   * @param tm module of job
+   */
+  public void completed(TenantModuleDescriptor tm) {
+    int i = index.get(tm);
+    if (completed[i]) {
+      return;
+    }
+    completed[i] = true;
+    for (int j : successors.get(i)) {
+      if (--inDegree[j] == 0 && !started[j]) {
+        ready.add(j);
+      }
+    }
+  }
+
+  /**
+   * Make all modules that are not invoked ready, whatever they wait for.
+   * @return true if any module was made ready
+   */
+  public boolean releaseBlocked() {
+    boolean released = false;
+    for (int i = 0; i < modules.size(); i++) {
+      if (!started[i] && ready.add(i)) {
+        inDegree[i] = 0;
+        released = true;
+      }
+    }
+    return released;
+  }
+
+  long getRank(TenantModuleDescriptor tm) {
+    return rank[index.get(tm)];
+  }
+}
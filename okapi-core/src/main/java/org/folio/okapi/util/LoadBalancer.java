@@ -0,0 +1,27 @@
+package org.folio.okapi.util;
+
+import java.util.List;
+import org.folio.okapi.bean.DeploymentDescriptor;
+
+/**
+ * Strategy for picking one of the instances of a module when proxying.
+ *
+ * <p>Built-in strategies are returned by {@link LoadBalancers#get(String)}. Other strategies
+ * can be provided with {@link java.util.ServiceLoader} by implementing this interface.
+ */
+public interface LoadBalancer {
+
+  /**
+   * Name of strategy as used in configuration and deployment descriptors.
+   * @return name
+   */
+  String name();
+
+  /**
+   * Pick instance.
+   * @param instances instances to choose from; not empty
+   * @param stats in-flight counters and response times per instance URL
+   * @return instance
+   */
+  DeploymentDescriptor pick(List<DeploymentDescriptor> instances, UpstreamStats stats);
+}
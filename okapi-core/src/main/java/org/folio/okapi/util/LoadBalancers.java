@@ -0,0 +1,141 @@
+package org.folio.okapi.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ThreadLocalRandom;
+import org.folio.okapi.bean.DeploymentDescriptor;
+
+/**
+ * Built-in {@link LoadBalancer} strategies and lookup by name.
+ */
+// S2245: Using pseudorandom number generators (PRNGs) is security-sensitive
+@java.lang.SuppressWarnings({"squid:S2245"})
+public final class LoadBalancers {
+
+  public static final String RANDOM = "random";
+  public static final String LEAST_OUTSTANDING = "least-outstanding";
+  public static final String POWER_OF_TWO = "power-of-two";
+  public static final String EWMA = "ewma";
+
+  private static final Map<String, LoadBalancer> BALANCERS = new HashMap<>();
+
+  static {
+    register(new RandomBalancer());
+    register(new LeastOutstandingBalancer());
+    register(new PowerOfTwoBalancer());
+    register(new EwmaBalancer());
+    for (LoadBalancer balancer : ServiceLoader.load(LoadBalancer.class)) {
+      register(balancer);
+    }
+  }
+
+  private LoadBalancers() {
+    throw new UnsupportedOperationException("Cannot instantiate utility class.");
+  }
+
+  private static void register(LoadBalancer balancer) {
+    BALANCERS.put(balancer.name(), balancer);
+  }
+
+  /**
+   * Get strategy by name.
+   * @param name strategy name
+   * @return strategy; null if name is null or unknown
+   */
+  public static LoadBalancer get(String name) {
+    return name == null ? null : BALANCERS.get(name);
+  }
+
+  static final class RandomBalancer implements LoadBalancer {
+    @Override
+    public String name() {
+      return RANDOM;
+    }
+
+    @Override
+    public DeploymentDescriptor pick(List<DeploymentDescriptor> instances, UpstreamStats stats) {
+      return instances.get(ThreadLocalRandom.current().nextInt(instances.size()));
+    }
+  }
+
+  static final class LeastOutstandingBalancer implements LoadBalancer {
+    @Override
+    public String name() {
+      return LEAST_OUTSTANDING;
+    }
+
+    @Override
+    public DeploymentDescriptor pick(List<DeploymentDescriptor> instances, UpstreamStats stats) {
+      int sz = instances.size();
+      // start at random position so that ties are spread
+      int offset = ThreadLocalRandom.current().nextInt(sz);
+      DeploymentDescriptor best = null;
+      int bestInFlight = Integer.MAX_VALUE;
+      for (int i = 0; i < sz; i++) {
+        DeploymentDescriptor dd = instances.get((offset + i) % sz);
+        int inFlight = stats.get(dd.getUrl()).getInFlight();
+        if (inFlight < bestInFlight) {
+          best = dd;
+          bestInFlight = inFlight;
+        }
+      }
+      return best;
+    }
+  }
+
+  static final class PowerOfTwoBalancer implements LoadBalancer {
+    @Override
+    public String name() {
+      return POWER_OF_TWO;
+    }
+
+    @Override
+    public DeploymentDescriptor pick(List<DeploymentDescriptor> instances, UpstreamStats stats) {
+      int sz = instances.size();
+      if (sz == 1) {
+        return instances.get(0);
+      }
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      int i = random.nextInt(sz);
+      int j = random.nextInt(sz - 1);
+      if (j >= i) {
+        j++; // two distinct instances
+      }
+      DeploymentDescriptor a = instances.get(i);
+      DeploymentDescriptor b = instances.get(j);
+      return stats.get(b.getUrl()).getInFlight() < stats.get(a.getUrl()).getInFlight() ? b : a;
+    }
+  }
+
+  static final class EwmaBalancer implements LoadBalancer {
+    @Override
+    public String name() {
+      return EWMA;
+    }
+
+    @Override
+    public DeploymentDescriptor pick(List<DeploymentDescriptor> instances, UpstreamStats stats) {
+      int sz = instances.size();
+      int offset = ThreadLocalRandom.current().nextInt(sz);
+      DeploymentDescriptor best = null;
+      double bestCost = Double.MAX_VALUE;
+      for (int i = 0; i < sz; i++) {
+        DeploymentDescriptor dd = instances.get((offset + i) % sz);
+        UpstreamStats.Instance instance = stats.get(dd.getUrl());
+        double ewma = instance.getEwma();
+        if (ewma < 0.0) {
+          return dd; // no response time yet; try it
+        }
+        // expected wait if requests already in flight are served one after another
+        double cost = ewma * (instance.getInFlight() + 1);
+        if (cost < bestCost) {
+          best = dd;
+          bestCost = cost;
+        }
+      }
+      return best;
+    }
+  }
+}
@@ -6,17 +6,33 @@ import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.shareddata.AsyncMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 import org.apache.logging.log4j.Logger;
 import org.folio.okapi.common.ErrorType;
 import org.folio.okapi.common.Messages;
 import org.folio.okapi.common.OkapiLogger;
 
+/**
+ * Shared map with one or two levels of keys, updated with compare-and-set.
+ *
+ * <p>By default, all values of a primary key are stored as one JSON object, so that
+ * any update of a secondary key replaces the values of all secondary keys. In flat
+ * mode, each value is an entry of its own under a composite key, and the primary key
+ * holds the list of secondary keys, which only changes when secondary keys are added
+ * or removed. All nodes of a cluster must use the same mode.
+ *
+ * <p>Values are strings, or buffers written by {@link MapValueCodec} for typed maps.
+ */
 public class LockedStringMap {
 
   static class StringMap {
@@ -25,9 +41,12 @@ public class LockedStringMap {
     final Map<String, String> strings = new LinkedHashMap<>();
   }
 
-  private AsyncMap<String, String> list = null;
+  private AsyncMap<String, Object> list = null;
   private Vertx vertx = null;
-  private static final int DELAY = 10; // ms in recursing for retry of map
+  private static final int BASE_DELAY = 10; // ms; doubled for each retry of map
+  private static final int MAX_DELAY = 1000; // ms
+  static final char KEY_SEPARATOR = '\u001f';
+  private boolean flat;
   protected final Logger logger = OkapiLogger.get();
   private final Messages messages = Messages.getInstance();
 
@@ -39,18 +58,74 @@ public class LockedStringMap {
    * @return Future
    */
   public Future<Void> init(Vertx vertx, String mapName, boolean local) {
+    return init(vertx, mapName, local, false);
+  }
+
+  /**
+   * Initialize a shared map.
+   * @param vertx Vert.x handle
+   * @param mapName name of shared map
+   * @param local true to force local map even if clustered
+   * @param flat true to store each secondary-level value as an entry of its own
+   * @return Future
+   */
+  public Future<Void> init(Vertx vertx, String mapName, boolean local, boolean flat) {
     this.vertx = vertx;
-    return AsyncMapFactory.<String, String>create(vertx, mapName, local).compose(res -> {
+    this.flat = flat;
+    return AsyncMapFactory.<String, Object>create(vertx, mapName, local).compose(res -> {
       this.list = res;
       logger.info("initialized map {} ok", mapName);
       return Future.succeededFuture();
     });
   }
 
+  /**
+   * Get number of primary keys.
+   * @return future with size
+   */
   public Future<Integer> size() {
+    if (flat) {
+      return getKeys().map(Collection::size);
+    }
     return list.size();
   }
 
+  protected boolean isFlat() {
+    return flat;
+  }
+
+  protected Vertx getVertx() {
+    return vertx;
+  }
+
+  /**
+   * Called when an update or removal through this map has completed, whether it
+   * succeeded or not.
+   */
+  protected void changed() {
+  }
+
+  static String flatKey(String k, String k2) {
+    return k + KEY_SEPARATOR + k2;
+  }
+
+  /**
+   * Delay before retry: random up to an exponentially growing limit ("full jitter"),
+   * so that nodes that failed to update the same entry do not retry in lockstep.
+   * @param attempt number of failed attempts before this, from 0
+   * @return milliseconds
+   */
+  static long backoff(int attempt) {
+    long limit = Math.min(MAX_DELAY, (long) BASE_DELAY << Math.min(attempt, 16));
+    return ThreadLocalRandom.current().nextLong(1, limit + 1);
+  }
+
+  private <T> Future<T> retry(int attempt, Supplier<Future<T>> op) {
+    Promise<T> promise = Promise.promise();
+    vertx.setTimer(backoff(attempt), x -> op.get().onComplete(promise));
+    return promise.future();
+  }
+
   /**
    * Clear map.
    * @return async result.
@@ -59,7 +134,7 @@ public class LockedStringMap {
     if (list == null) {
       return Future.succeededFuture();
     }
-    return list.clear();
+    return list.clear().andThen(x -> changed());
   }
 
   /**
@@ -69,13 +144,26 @@ public class LockedStringMap {
    * @return future with value (null if not found)
    */
   public Future<String> getString(String k, String k2) {
+    return getValue(k, k2).map(String.class::cast);
+  }
+
+  /**
+   * Get value as stored: a string, or a buffer written by {@link MapValueCodec}.
+   * @param k primary-level key
+   * @param k2 secondary-level key
+   * @return future with value (null if not found)
+   */
+  protected Future<Object> getValue(String k, String k2) {
+    if (flat && k2 != null) {
+      return list.get(flatKey(k, k2));
+    }
     return list.get(k).compose(val -> {
       if (k2 == null || val == null) {
         return Future.succeededFuture(val);
       }
       StringMap stringMap = new StringMap();
       Timer.Sample sample = MetricsHelper.getTimerSample();
-      StringMap oldList = JsonDecoder.decode(val, StringMap.class);
+      StringMap oldList = JsonDecoder.decode((String) val, StringMap.class);
       MetricsHelper.recordCodeExecutionTime(sample, "LockedStringMap.getString.decodeValue");
       stringMap.strings.putAll(oldList.strings);
       return Future.succeededFuture(stringMap.strings.get(k2));
@@ -88,12 +176,75 @@ public class LockedStringMap {
    * @return future with values (null if not found)
    */
   public Future<Collection<String>> getPrefix(String k) {
+    return getValues(k).map(values -> {
+      if (values == null) {
+        return null;
+      }
+      List<String> strings = new ArrayList<>(values.size());
+      for (Object value : values) {
+        strings.add((String) value);
+      }
+      return strings;
+    });
+  }
+
+  /**
+   * Get values as stored with primary key.
+   * @param k primary-level key
+   * @return future with values (null if not found)
+   */
+  protected Future<Collection<Object>> getValues(String k) {
+    if (flat) {
+      return getValuesFlat(k);
+    }
+    return list.get(k).compose(val -> {
+      if (val == null) {
+        return Future.succeededFuture(null);
+      }
+      StringMap map = JsonDecoder.decode((String) val, StringMap.class);
+      Collection<Object> values = new ArrayList<>(map.strings.values());
+      return Future.succeededFuture(values);
+    });
+  }
+
+  private Future<Collection<Object>> getValuesFlat(String k) {
     return list.get(k).compose(val -> {
       if (val == null) {
         return Future.succeededFuture(null);
       }
-      StringMap map = JsonDecoder.decode(val, StringMap.class);
-      return Future.succeededFuture(map.strings.values());
+      List<Future<Object>> futures = new ArrayList<>();
+      for (Object k2 : new JsonArray((String) val)) {
+        futures.add(list.get(flatKey(k, (String) k2)));
+      }
+      return Future.all(futures).map(x -> {
+        Collection<Object> values = new ArrayList<>(futures.size());
+        for (Future<Object> f : futures) {
+          // null if removed after the list of secondary keys was read
+          if (f.result() != null) {
+            values.add(f.result());
+          }
+        }
+        return values;
+      });
+    });
+  }
+
+  /**
+   * Get all primary-level entries as stored, with one call to the shared map.
+   * @return future with unordered entries
+   */
+  protected Future<Map<String, Object>> getEntries() {
+    return list.entries().map(res -> {
+      if (!flat) {
+        return res;
+      }
+      Map<String, Object> entries = new HashMap<>();
+      res.forEach((k, v) -> {
+        if (k.indexOf(KEY_SEPARATOR) == -1) {
+          entries.put(k, v);
+        }
+      });
+      return entries;
     });
   }
 
@@ -103,7 +254,12 @@ public class LockedStringMap {
    */
   public Future<Collection<String>> getKeys() {
     return list.keys().compose(res -> {
-      List<String> s = new ArrayList<>(res);
+      List<String> s = new ArrayList<>(res.size());
+      for (String k : res) {
+        if (!flat || k.indexOf(KEY_SEPARATOR) == -1) {
+          s.add(k);
+        }
+      }
       java.util.Collections.sort(s);
       return Future.succeededFuture(s);
     });
@@ -118,21 +274,46 @@ public class LockedStringMap {
    * @return fut async result
    */
   public Future<Void> addOrReplace(boolean allowReplace, String k, String k2, String value) {
+    return addOrReplaceValue(allowReplace, k, k2, value);
+  }
+
+  /**
+   * Update value in shared map.
+   * @param allowReplace true: both insert and replace; false: insert only
+   * @param k primary-level key
+   * @param k2 secondary-level key
+   * @param value new value: a string, or, unless the map has two levels and is not flat,
+   *     a buffer written by {@link MapValueCodec}
+   * @return fut async result
+   */
+  protected Future<Void> addOrReplaceValue(boolean allowReplace, String k, String k2,
+      Object value) {
+    Future<Void> future;
+    if (flat && k2 != null) {
+      future = addOrReplaceFlat(allowReplace, k, k2, value);
+    } else {
+      future = addOrReplace(allowReplace, k, k2, value, 0);
+    }
+    return future.andThen(x -> changed());
+  }
+
+  private Future<Void> addOrReplace(boolean allowReplace, String k, String k2, Object value,
+      int attempt) {
     return list.get(k).compose(oldVal -> {
-      String newVal;
+      Object newVal;
       if (k2 == null) {
         newVal = value;
       } else {
         StringMap smap = new StringMap();
         if (oldVal != null) {
-          StringMap oldList = JsonDecoder.decode(oldVal, StringMap.class);
+          StringMap oldList = JsonDecoder.decode((String) oldVal, StringMap.class);
           smap.strings.putAll(oldList.strings);
         }
         if (!allowReplace && smap.strings.containsKey(k2)) {
           return Future.failedFuture(messages.getMessage("11400", k2));
         }
-        smap.strings.put(k2, value);
-        newVal = Json.encodePrettily(smap);
+        smap.strings.put(k2, (String) value);
+        newVal = Json.encode(smap);
       }
       if (oldVal == null) { // new entry
         return list.putIfAbsent(k, newVal).compose(resPut -> {
@@ -140,23 +321,52 @@ public class LockedStringMap {
             return Future.succeededFuture();
           }
           // Someone messed with it, try again
-          return addOrReplace2(allowReplace, k, k2, value);
+          return retry(attempt, () -> addOrReplace(allowReplace, k, k2, value, attempt + 1));
         });
       } else { // existing entry, put and retry if someone else messed with it
         return list.replaceIfPresent(k, oldVal, newVal).compose(resRepl -> {
           if (Boolean.TRUE.equals(resRepl)) {
             return Future.succeededFuture();
           }
-          return addOrReplace2(allowReplace, k, k2, value);
+          return retry(attempt, () -> addOrReplace(allowReplace, k, k2, value, attempt + 1));
         });
       }
     });
   }
 
-  private Future<Void> addOrReplace2(boolean allowReplace, String k, String k2, String value) {
-    Promise<Void> promise = Promise.promise();
-    vertx.setTimer(DELAY, x -> addOrReplace(allowReplace, k, k2, value).onComplete(promise));
-    return promise.future();
+  private Future<Void> addOrReplaceFlat(boolean allowReplace, String k, String k2,
+      Object value) {
+    // index first: a concurrent remove that sees the value then also finds k2 to remove
+    return addSecondaryKey(k, k2, 0).compose(x -> {
+      if (allowReplace) {
+        return list.put(flatKey(k, k2), value);
+      }
+      return list.putIfAbsent(flatKey(k, k2), value).compose(oldVal -> {
+        if (oldVal != null) {
+          return Future.failedFuture(messages.getMessage("11400", k2));
+        }
+        return Future.succeededFuture();
+      });
+    });
+  }
+
+  private Future<Void> addSecondaryKey(String k, String k2, int attempt) {
+    return list.get(k).compose(oldVal -> {
+      JsonArray keys = oldVal == null ? new JsonArray() : new JsonArray((String) oldVal);
+      if (keys.contains(k2)) {
+        return Future.succeededFuture();
+      }
+      String newVal = keys.add(k2).encode();
+      Future<Boolean> future = oldVal == null
+          ? list.putIfAbsent(k, newVal).map(Objects::isNull)
+          : list.replaceIfPresent(k, oldVal, newVal);
+      return future.compose(res -> {
+        if (Boolean.TRUE.equals(res)) {
+          return Future.succeededFuture();
+        }
+        return retry(attempt, () -> addSecondaryKey(k, k2, attempt + 1));
+      });
+    });
   }
 
   public Future<Void> removeNotFound(String k) {
@@ -191,35 +401,80 @@ public class LockedStringMap {
    * @return future with result TRUE if deleted; FALSE if not found
    */
   public Future<Boolean> remove(String k, String k2) {
+    Future<Boolean> future = flat ? removeFlat(k, k2) : remove(k, k2, 0);
+    return future.andThen(x -> changed());
+  }
+
+  private Future<Boolean> remove(String k, String k2, int attempt) {
     return list.get(k).compose(val -> {
       if (val == null) {
         return Future.succeededFuture(false);
       }
       StringMap stringMap = new StringMap();
       if (k2 != null) {
-        stringMap = JsonDecoder.decode(val, StringMap.class);
+        stringMap = JsonDecoder.decode((String) val, StringMap.class);
         if (!stringMap.strings.containsKey(k2)) {
           return Future.succeededFuture(false);
         }
         stringMap.strings.remove(k2);
       }
       if (stringMap.strings.isEmpty()) {
-        return list.removeIfPresent(k, val).compose(result -> remove2(result, k, k2));
+        return list.removeIfPresent(k, val).compose(result -> remove2(result, k, k2, attempt));
       } else { // list was not empty, remove value
-        String newVal = Json.encodePrettily(stringMap);
-        return list.replaceIfPresent(k, val, newVal).compose(result -> remove2(result, k, k2));
+        String newVal = Json.encode(stringMap);
+        return list.replaceIfPresent(k, val, newVal)
+            .compose(result -> remove2(result, k, k2, attempt));
       }
     });
   }
 
-  private Future<Boolean> remove2(Boolean result, String k, String k2) {
+  private Future<Boolean> remove2(Boolean result, String k, String k2, int attempt) {
     if (Boolean.TRUE.equals(result)) {
       return Future.succeededFuture(true);
-    } else {
-      Promise<Boolean> promise = Promise.promise();
-      vertx.setTimer(DELAY, res -> remove(k, k2).onComplete(promise));
-      return promise.future();
     }
+    return retry(attempt, () -> remove(k, k2, attempt + 1));
+  }
+
+  private Future<Boolean> removeFlat(String k, String k2) {
+    if (k2 != null) {
+      return list.remove(flatKey(k, k2)).compose(oldVal -> {
+        if (oldVal == null) {
+          return Future.succeededFuture(false);
+        }
+        return removeSecondaryKey(k, k2, 0).map(true);
+      });
+    }
+    return list.remove(k).compose(val -> {
+      if (val == null) {
+        return Future.succeededFuture(false);
+      }
+      List<Future<Object>> futures = new ArrayList<>();
+      for (Object key : new JsonArray((String) val)) {
+        futures.add(list.remove(flatKey(k, (String) key)));
+      }
+      return Future.all(futures).map(true);
+    });
+  }
+
+  private Future<Void> removeSecondaryKey(String k, String k2, int attempt) {
+    return list.get(k).compose(oldVal -> {
+      if (oldVal == null) {
+        return Future.succeededFuture();
+      }
+      JsonArray keys = new JsonArray((String) oldVal);
+      if (!keys.remove(k2)) {
+        return Future.succeededFuture();
+      }
+      Future<Boolean> future = keys.isEmpty()
+          ? list.removeIfPresent(k, oldVal)
+          : list.replaceIfPresent(k, oldVal, keys.encode());
+      return future.compose(res -> {
+        if (Boolean.TRUE.equals(res)) {
+          return Future.succeededFuture();
+        }
+        return retry(attempt, () -> removeSecondaryKey(k, k2, attempt + 1));
+      });
+    });
   }
 
 }
@@ -2,28 +2,94 @@ package org.folio.okapi.util;
 
 import io.micrometer.core.instrument.Timer;
 import io.vertx.core.Future;
-import io.vertx.core.json.Json;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import org.folio.okapi.ConfNames;
 import org.folio.okapi.common.ErrorType;
 
+/**
+ * Shared map of typed values with one level of keys.
+ *
+ * <p>With snapshot enabled, the result of {@link #getAll()} is kept decoded until
+ * the map is updated through any node of the cluster, so that listing all values
+ * does not involve the shared map at all while it is unchanged. The values of the
+ * snapshot are shared by all callers and must not be modified. Updates are announced
+ * on the event bus, so all nodes of a cluster must run a version of Okapi that does
+ * that; the snapshot time to live bounds staleness if an announcement is missed.
+ */
 public class LockedTypedMap1<T> extends LockedStringMap {
 
+  private static final String SNAPSHOT_EVENT = "lockedTypedMap1Snapshot.";
+  static final int DECODE_BATCH = 250; // values decoded per worker task
+
   private final Class<T> clazz;
+  private final boolean snapshot;
+  private String snapshotAddress;
+  private long snapshotTtl = ConfNames.MODULE_CACHE_TTL_MS_DEFAULT;
+  private LinkedHashMap<String, T> decoded;
+  private long decodedAt;
+  private long generation;
 
   public LockedTypedMap1(Class<T> c) {
+    this(c, false);
+  }
+
+  /**
+   * Create typed map.
+   * @param c type of values
+   * @param snapshot true to keep a decoded snapshot of all values
+   */
+  public LockedTypedMap1(Class<T> c, boolean snapshot) {
     this.clazz = c;
+    this.snapshot = snapshot;
+  }
+
+  /**
+   * Set maximum time that the snapshot is kept.
+   * @param ttl time to live in milliseconds; 0 disables the snapshot
+   */
+  public synchronized void setSnapshotTtl(long ttl) {
+    snapshotTtl = ttl;
+    decoded = null;
+  }
+
+  @Override
+  public Future<Void> init(Vertx vertx, String mapName, boolean local, boolean flat) {
+    return super.init(vertx, mapName, local, flat).compose(x -> {
+      if (!snapshot) {
+        return Future.succeededFuture();
+      }
+      snapshotAddress = SNAPSHOT_EVENT + mapName;
+      MessageConsumer<String> consumer = vertx.eventBus()
+          .consumer(snapshotAddress, message -> invalidate());
+      return consumer.completion();
+    });
+  }
+
+  @Override
+  protected void changed() {
+    if (snapshot) {
+      invalidate();
+      getVertx().eventBus().publish(snapshotAddress, "");
+    }
+  }
+
+  private synchronized void invalidate() {
+    generation++;
+    decoded = null;
   }
 
   public Future<Void> add(String k, T value) {
-    String json = Json.encode(value);
-    return addOrReplace(false, k, null, json);
+    return addOrReplaceValue(false, k, null, MapValueCodec.encode(value));
   }
 
   public Future<Void> put(String k, T value) {
-    String json = Json.encode(value);
-    return addOrReplace(true, k, null, json);
+    return addOrReplaceValue(true, k, null, MapValueCodec.encode(value));
   }
 
   /**
@@ -46,12 +112,12 @@ public class LockedTypedMap1<T> extends LockedStringMap {
    * @return future with value if found (null if not found)
    */
   public Future<T> get(String k) {
-    return getString(k, null).compose(res -> {
+    return getValue(k, null).compose(res -> {
       if (res == null) {
         return Future.succeededFuture(null);
       }
       Timer.Sample sample = MetricsHelper.getTimerSample();
-      T t = JsonDecoder.decode(res, clazz);
+      T t = MapValueCodec.decode(res, clazz);
       MetricsHelper.recordCodeExecutionTime(sample, "LockedTypedMap1.get.decodeValue");
       return Future.succeededFuture(t);
     });
@@ -61,23 +127,67 @@ public class LockedTypedMap1<T> extends LockedStringMap {
    * Get all records in the map. Returns them in a LinkedHashMap, so they come
    * in well defined order.
    *
+   * <p>All entries are fetched with one call to the shared map. Large maps are
+   * decoded in batches on the worker pool.
+   *
    * @return fut callback with the result, or some failure.
    */
   public Future<LinkedHashMap<String, T>> getAll() {
-    return getKeys().compose(keys -> {
+    long gen;
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      if (decoded != null && now - decodedAt < snapshotTtl) {
+        return Future.succeededFuture(new LinkedHashMap<>(decoded));
+      }
+      gen = generation;
+    }
+    return getEntries().compose(this::decodeAll).map(results -> {
+      if (!snapshot) {
+        return results;
+      }
+      synchronized (this) {
+        // not if updated while fetching
+        if (gen == generation && snapshotTtl > 0) {
+          decoded = results;
+          decodedAt = now;
+        }
+      }
+      return new LinkedHashMap<>(results);
+    });
+  }
+
+  private Future<LinkedHashMap<String, T>> decodeAll(Map<String, Object> entries) {
+    List<String> keys = new ArrayList<>(entries.keySet());
+    Collections.sort(keys);
+    List<Future<List<T>>> futures = new ArrayList<>();
+    for (int i = 0; i < keys.size(); i += DECODE_BATCH) {
+      List<String> batch = keys.subList(i, Math.min(i + DECODE_BATCH, keys.size()));
+      if (keys.size() <= DECODE_BATCH) {
+        futures.add(Future.succeededFuture(decode(batch, entries)));
+      } else {
+        futures.add(getVertx().executeBlocking(() -> decode(batch, entries), false));
+      }
+    }
+    return Future.all(futures).map(x -> {
       LinkedHashMap<String, T> results = new LinkedHashMap<>();
-      List<Future<Void>> futures = new LinkedList<>();
-      for (String key : keys) {
-        futures.add(getString(key, null).compose(res -> {
-          Timer.Sample sample = MetricsHelper.getTimerSample();
-          T t = JsonDecoder.decode(res, clazz);
-          MetricsHelper.recordCodeExecutionTime(sample, "LockedTypedMap1.getAll.decodeValue");
-          results.put(key, t);
-          return Future.succeededFuture();
-        }));
+      int i = 0;
+      for (Future<List<T>> future : futures) {
+        for (T t : future.result()) {
+          results.put(keys.get(i++), t);
+        }
       }
-      return Future.all(futures).map(results);
+      return results;
     });
   }
 
+  private List<T> decode(List<String> keys, Map<String, Object> entries) {
+    Timer.Sample sample = MetricsHelper.getTimerSample();
+    List<T> values = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      values.add(MapValueCodec.decode(entries.get(key), clazz));
+    }
+    MetricsHelper.recordCodeExecutionTime(sample, "LockedTypedMap1.getAll.decodeValue");
+    return values;
+  }
+
 }
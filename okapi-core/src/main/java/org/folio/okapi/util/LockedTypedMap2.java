@@ -15,13 +15,18 @@ public class LockedTypedMap2<T> extends LockedStringMap {
   }
 
   public Future<Void> add(String k, String k2, T value) {
-    String json = Json.encode(value);
-    return addOrReplace(false, k, k2, json);
+    return addOrReplaceValue(false, k, k2, encode(value));
   }
 
   public Future<Void> put(String k, String k2, T value) {
-    String json = Json.encode(value);
-    return addOrReplace(true, k, k2, json);
+    return addOrReplaceValue(true, k, k2, encode(value));
+  }
+
+  /**
+   * Encode value; values nested in the JSON of the primary key are always JSON.
+   */
+  private Object encode(T value) {
+    return isFlat() ? MapValueCodec.encode(value) : Json.encode(value);
   }
 
   /**
@@ -46,11 +51,11 @@ public class LockedTypedMap2<T> extends LockedStringMap {
    * @return fut async result with deserialized value on success (null if not found)
    */
   public Future<T> get(String k, String k2) {
-    return getString(k, k2).compose(res -> {
+    return getValue(k, k2).compose(res -> {
       if (res == null) {
         return Future.succeededFuture(null);
       }
-      return Future.succeededFuture(JsonDecoder.decode(res, clazz));
+      return Future.succeededFuture(MapValueCodec.decode(res, clazz));
     });
   }
 
@@ -60,13 +65,13 @@ public class LockedTypedMap2<T> extends LockedStringMap {
    * @return fut async result with deserialized values on success
    */
   public Future<List<T>> get(String k) {
-    return getPrefix(k).compose(res -> {
+    return getValues(k).compose(res -> {
       if (res == null) {
         return Future.succeededFuture(null);
       }
       LinkedList<T> t = new LinkedList<>();
-      for (String s : res) {
-        t.add(JsonDecoder.decode(s, clazz));
+      for (Object s : res) {
+        t.add(MapValueCodec.decode(s, clazz));
       }
       return Future.succeededFuture(t);
     });
@@ -0,0 +1,87 @@
+package org.folio.okapi.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.EncodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.jackson.DatabindCodec;
+import java.io.IOException;
+import org.folio.okapi.common.Messages;
+
+/**
+ * Encoding of the values of typed shared maps. Values are written as JSON strings or,
+ * with the {@value #SMILE} codec, as binary Smile in a {@link Buffer}, which is smaller
+ * and faster to decode. Values are read in either format, whatever the codec, so that
+ * values written before the codec was changed can still be read.
+ */
+public final class MapValueCodec {
+
+  public static final String JSON = "json";
+  public static final String SMILE = "smile";
+
+  private static final ObjectMapper smileMapper =
+      DatabindCodec.mapper().copyWith(new SmileFactory());
+  private static volatile boolean smile;
+
+  private MapValueCodec() {
+    throw new IllegalAccessError("MapValueCodec");
+  }
+
+  /**
+   * Select codec for writing values.
+   * @param name {@value #JSON} or {@value #SMILE}
+   * @throws IllegalArgumentException for other names
+   */
+  public static void setCodec(String name) {
+    if (JSON.equals(name)) {
+      smile = false;
+    } else if (SMILE.equals(name)) {
+      smile = true;
+    } else {
+      throw new IllegalArgumentException(Messages.getInstance().getMessage("10813", name));
+    }
+  }
+
+  /**
+   * Get name of codec for writing values.
+   * @return {@value #JSON} or {@value #SMILE}
+   */
+  public static String getCodec() {
+    return smile ? SMILE : JSON;
+  }
+
+  /**
+   * Encode value with the selected codec.
+   * @param value value to encode
+   * @return JSON string or Smile buffer
+   */
+  static Object encode(Object value) {
+    if (!smile) {
+      return Json.encode(value);
+    }
+    try {
+      return Buffer.buffer(smileMapper.writeValueAsBytes(value));
+    } catch (IOException e) {
+      throw new EncodeException("Failed to encode as Smile: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Decode value written by any codec.
+   * @param stored JSON string or Smile buffer
+   * @param clazz type of value
+   * @return value
+   */
+  static <T> T decode(Object stored, Class<T> clazz) {
+    if (stored instanceof Buffer buffer) {
+      try {
+        return smileMapper.readValue(buffer.getBytes(), clazz);
+      } catch (IOException e) {
+        throw new DecodeException("Failed to decode Smile: " + e.getMessage(), e);
+      }
+    }
+    return JsonDecoder.decode((String) stored, clazz);
+  }
+}
@@ -4,10 +4,18 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.Timer.Sample;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.net.SocketAddress;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.Logger;
+import org.folio.okapi.ConfNames;
 import org.folio.okapi.bean.ModuleInstance;
+import org.folio.okapi.bean.RoutingEntry;
 import org.folio.okapi.common.MetricsUtil;
 import org.folio.okapi.common.OkapiLogger;
 
@@ -36,6 +44,26 @@ public class MetricsHelper {
   private static final String METRICS_TOKEN_CACHE_CACHED = METRICS_TOKEN_CACHE + ".cached";
   private static final String METRICS_TOKEN_CACHE_EXPIRED = METRICS_TOKEN_CACHE + ".expired";
 
+  private static final String METRICS_ROUTE_CACHE = METRICS_PREFIX + ".routeCache";
+  private static final String METRICS_ROUTE_CACHE_HITS = METRICS_ROUTE_CACHE + ".hits";
+  private static final String METRICS_ROUTE_CACHE_MISSES = METRICS_ROUTE_CACHE + ".misses";
+  private static final String METRICS_ROUTE_CACHE_EVICTIONS = METRICS_ROUTE_CACHE + ".evictions";
+
+  private static final String METRICS_TENANT_CACHE = METRICS_PREFIX + ".tenantCache";
+  private static final String METRICS_TENANT_CACHE_HITS = METRICS_TENANT_CACHE + ".hits";
+  private static final String METRICS_TENANT_CACHE_MISSES = METRICS_TENANT_CACHE + ".misses";
+  private static final String METRICS_TENANT_CACHE_INVALIDATIONS = METRICS_TENANT_CACHE
+      + ".invalidations";
+  private static final String METRICS_TENANT_CACHE_INVALIDATION_LAG = METRICS_TENANT_CACHE
+      + ".invalidationLag";
+
+  private static final String METRICS_UPSTREAM = METRICS_PREFIX + ".upstream";
+  private static final String METRICS_UPSTREAM_CONNECTIONS_OPENED = METRICS_UPSTREAM
+      + ".connections.opened";
+  private static final String METRICS_UPSTREAM_CONNECTIONS_CLOSED = METRICS_UPSTREAM
+      + ".connections.closed";
+  private static final String METRICS_UPSTREAM_STREAMS = METRICS_UPSTREAM + ".streams";
+
   private static final String METRICS_CODE = METRICS_PREFIX + ".code";
   private static final String METRICS_CODE_EXECUTION_TIME = METRICS_CODE + ".executionTime";
 
@@ -46,13 +74,62 @@ public class MetricsHelper {
   private static final String TAG_URL = "url";
   private static final String TAG_PHASE = "phase";
   private static final String TAG_USERID = "userId";
+  private static final String TAG_UPSTREAM = "upstream";
+  private static final String TAG_CLIENT = "client";
+  private static final String TAG_PROTOCOL = "protocol";
   private static final String TAG_EMPTY = "null";
 
   private static final String TAG_CODE_BLOCK_NAME = "codeBlockName";
 
+  static final String TAG_USERID_OTHER = "other";
+
+  private static int userIdLimit = ConfNames.METRICS_USER_ID_LIMIT_DEFAULT;
+
+  /**
+   * Meters kept for one generation of {@link MetricsUtil}.
+   */
+  private record Meters(long generation, Map<String, Timer> timers,
+      Map<Object, Counter> counters, Set<String> userIds) {
+
+    Meters(long generation) {
+      this(generation, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(),
+          ConcurrentHashMap.newKeySet());
+    }
+  }
+
+  private record TokenCacheKey(String event, String tenant, String method, String url,
+      String userId) {
+  }
+
+  private record UpstreamKey(String event, String upstream, String tag, String value) {
+  }
+
+  private static volatile Meters meters = new Meters(-1);
+
   private MetricsHelper() {
   }
 
+  /**
+   * Set maximum number of distinct userId tag values of token cache events.
+   * Other users are tagged with {@value #TAG_USERID_OTHER}, so that the number of
+   * meters stays bounded.
+   *
+   * @param limit - maximum number of userId values; 0 to tag all users as other
+   */
+  public static void setUserIdLimit(int limit) {
+    userIdLimit = limit;
+  }
+
+  private static Meters getMeters() {
+    Meters m = meters;
+    long generation = MetricsUtil.getGeneration();
+    if (m.generation() != generation) {
+      m = new Meters(generation);
+      meters = m;
+    }
+    return m;
+  }
+
   /**
    * Return a {@link Sample} to help start timing a {@link Timer}.
    *
@@ -126,9 +203,13 @@ public class MetricsHelper {
     if (!MetricsUtil.isEnabled()) {
       return null;
     }
-    List<Tag> tags = new ArrayList<>();
-    tags.add(Tag.of(TAG_CODE_BLOCK_NAME, "" + codeBlockName));
-    return MetricsUtil.recordTimer(sample, METRICS_CODE_EXECUTION_TIME, tags);
+    Timer timer = getMeters().timers().computeIfAbsent(String.valueOf(codeBlockName),
+        k -> MetricsUtil.timer(METRICS_CODE_EXECUTION_TIME,
+            List.of(Tag.of(TAG_CODE_BLOCK_NAME, k))));
+    if (timer != null) {
+      sample.stop(timer);
+    }
+    return timer;
   }
 
   private static Timer recordHttpTime(Sample sample, String tenant, int httpStatusCode,
@@ -136,9 +217,37 @@ public class MetricsHelper {
     if (!MetricsUtil.isEnabled()) {
       return null;
     }
-    String name = server ? METRICS_HTTP_SERVER_PROCESSING_TIME : METRICS_HTTP_CLIENT_RESPONSE_TIME;
-    return MetricsUtil.recordTimer(sample, name,
-        createHttpTags(tenant, httpStatusCode, httpMethod, moduleInstance, !server));
+    RoutingEntry re = moduleInstance == null ? null : moduleInstance.getRoutingEntry();
+    if (re == null) {
+      // no routing entry to hold the timer; rare and not on the proxy path
+      String name = server
+          ? METRICS_HTTP_SERVER_PROCESSING_TIME : METRICS_HTTP_CLIENT_RESPONSE_TIME;
+      return MetricsUtil.recordTimer(sample, name,
+          createHttpTags(tenant, httpStatusCode, httpMethod, moduleInstance, !server));
+    }
+    HttpMeters httpMeters = re.getHttpMeters();
+    long generation = MetricsUtil.getGeneration();
+    if (httpMeters == null || httpMeters.getGeneration() != generation) {
+      httpMeters = new HttpMeters(generation);
+      re.setHttpMeters(httpMeters);
+    }
+    String tenantKey = tenant == null ? TAG_EMPTY : tenant;
+    String moduleId = moduleInstance.getModuleDescriptor().getId();
+    boolean handler = moduleInstance.isHandler();
+    Timer timer = httpMeters.get(tenantKey, server, handler, httpStatusCode, httpMethod,
+        moduleId);
+    if (timer == null) {
+      String name = server
+          ? METRICS_HTTP_SERVER_PROCESSING_TIME : METRICS_HTTP_CLIENT_RESPONSE_TIME;
+      timer = MetricsUtil.timer(name,
+          createHttpTags(tenant, httpStatusCode, httpMethod, moduleInstance, !server));
+      if (timer == null) {
+        return null;
+      }
+      httpMeters.put(tenantKey, server, handler, httpStatusCode, httpMethod, moduleId, timer);
+    }
+    sample.stop(timer);
+    return timer;
   }
 
   public static Counter recordTokenCacheMiss(String tenant, String httpMethod, String urlPath,
@@ -166,12 +275,139 @@ public class MetricsHelper {
     if (!MetricsUtil.isEnabled()) {
       return null;
     }
-    List<Tag> tags = new ArrayList<>();
-    tags.add(Tag.of(TAG_TENANT, "" + tenant));
-    tags.add(Tag.of(TAG_HTTP_METHOD, "" + httpMethod));
-    tags.add(Tag.of(TAG_URL, "" + urlPath));
-    tags.add(Tag.of(TAG_USERID, userId == null ? TAG_EMPTY : userId));
-    return MetricsUtil.recordCounter(event, tags);
+    Meters m = getMeters();
+    TokenCacheKey key = new TokenCacheKey(event, String.valueOf(tenant),
+        String.valueOf(httpMethod), String.valueOf(urlPath), userIdTag(m, userId));
+    Counter counter = m.counters().computeIfAbsent(key, o -> {
+      TokenCacheKey k = (TokenCacheKey) o;
+      List<Tag> tags = new ArrayList<>();
+      tags.add(Tag.of(TAG_TENANT, k.tenant()));
+      tags.add(Tag.of(TAG_HTTP_METHOD, k.method()));
+      tags.add(Tag.of(TAG_URL, k.url()));
+      tags.add(Tag.of(TAG_USERID, k.userId()));
+      return MetricsUtil.counter(k.event(), tags);
+    });
+    if (counter != null) {
+      counter.increment();
+    }
+    return counter;
+  }
+
+  private static String userIdTag(Meters m, String userId) {
+    if (userId == null) {
+      return TAG_EMPTY;
+    }
+    Set<String> userIds = m.userIds();
+    if (userIds.contains(userId)) {
+      return userId;
+    }
+    if (userIds.size() >= userIdLimit) {
+      return TAG_USERID_OTHER;
+    }
+    userIds.add(userId); // may exceed the limit slightly under contention
+    return userId;
+  }
+
+  public static Counter recordRouteCacheHit() {
+    return recordCacheEvent(METRICS_ROUTE_CACHE_HITS);
+  }
+
+  public static Counter recordRouteCacheMiss() {
+    return recordCacheEvent(METRICS_ROUTE_CACHE_MISSES);
+  }
+
+  public static Counter recordRouteCacheEviction() {
+    return recordCacheEvent(METRICS_ROUTE_CACHE_EVICTIONS);
+  }
+
+  private static Counter recordCacheEvent(String event) {
+    if (!MetricsUtil.isEnabled()) {
+      return null;
+    }
+    Counter counter = getMeters().counters().computeIfAbsent(event,
+        k -> MetricsUtil.counter((String) k, List.of()));
+    if (counter != null) {
+      counter.increment();
+    }
+    return counter;
+  }
+
+  public static Counter recordTenantCacheHit() {
+    return recordCacheEvent(METRICS_TENANT_CACHE_HITS);
+  }
+
+  public static Counter recordTenantCacheMiss() {
+    return recordCacheEvent(METRICS_TENANT_CACHE_MISSES);
+  }
+
+  /**
+   * Record tenant cache invalidation if metrics is enabled.
+   *
+   * @param lag - milliseconds between the change of the tenant and the invalidation
+   *     on this node; the staleness window of the cache
+   * @return {@link Timer} or null if metrics is not enabled
+   */
+  public static Timer recordTenantCacheInvalidation(long lag) {
+    if (!MetricsUtil.isEnabled()) {
+      return null;
+    }
+    MetricsUtil.recordCounter(METRICS_TENANT_CACHE_INVALIDATIONS, new ArrayList<>());
+    return MetricsUtil.recordTimer(METRICS_TENANT_CACHE_INVALIDATION_LAG, new ArrayList<>(),
+        Math.max(0, lag), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Record connection opened to a module instance if metrics is enabled.
+   *
+   * @param upstream - address of module instance
+   * @param client - HTTP/2 mode of the client that made the connection
+   * @return {@link Counter} or null if metrics is not enabled
+   */
+  public static Counter recordUpstreamConnectionOpened(SocketAddress upstream, String client) {
+    return recordUpstreamEvent(METRICS_UPSTREAM_CONNECTIONS_OPENED, upstream, TAG_CLIENT,
+        client);
+  }
+
+  /**
+   * Record connection closed to a module instance if metrics is enabled.
+   *
+   * @param upstream - address of module instance
+   * @param client - HTTP/2 mode of the client that made the connection
+   * @return {@link Counter} or null if metrics is not enabled
+   */
+  public static Counter recordUpstreamConnectionClosed(SocketAddress upstream, String client) {
+    return recordUpstreamEvent(METRICS_UPSTREAM_CONNECTIONS_CLOSED, upstream, TAG_CLIENT,
+        client);
+  }
+
+  /**
+   * Record request (HTTP/2 stream) to a module instance if metrics is enabled.
+   *
+   * @param upstream - address of module instance
+   * @param version - HTTP version of the request
+   * @return {@link Counter} or null if metrics is not enabled
+   */
+  public static Counter recordUpstreamStream(SocketAddress upstream, HttpVersion version) {
+    return recordUpstreamEvent(METRICS_UPSTREAM_STREAMS, upstream, TAG_PROTOCOL,
+        version == null ? TAG_EMPTY : version.alpnName());
+  }
+
+  private static Counter recordUpstreamEvent(String event, SocketAddress upstream,
+      String tag, String value) {
+    if (!MetricsUtil.isEnabled()) {
+      return null;
+    }
+    UpstreamKey key = new UpstreamKey(event, String.valueOf(upstream), tag,
+        String.valueOf(value));
+    Counter counter = getMeters().counters().computeIfAbsent(key, o -> {
+      UpstreamKey k = (UpstreamKey) o;
+      return MetricsUtil.counter(k.event(),
+          List.of(Tag.of(TAG_UPSTREAM, k.upstream()), Tag.of(k.tag(), k.value())));
+    });
+    if (counter != null) {
+      counter.increment();
+    }
+    return counter;
   }
 
   private static List<Tag> createHttpTags(String tenant, int httpStatusCode, String httpMethod,
@@ -1,13 +1,16 @@
 package org.folio.okapi.util;
 
 import io.vertx.core.http.HttpMethod;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.logging.log4j.Logger;
 import org.folio.okapi.bean.ModuleDescriptor;
 import org.folio.okapi.bean.ModuleInstance;
@@ -19,30 +22,119 @@ public class ModuleCache {
   private static final Logger logger = OkapiLogger.get();
   private static final Messages messages = Messages.getInstance();
 
-  static class ModuleCacheEntry {
+  /**
+   * Resolved module in a pipeline. Instances are made from this for each request.
+   */
+  static final class Step {
     final ModuleDescriptor moduleDescriptor;
     final RoutingEntry routingEntry;
+    final boolean handler;
+    final RoutingEntry[] redirects; // redirect entries, in order, that lead to this step
 
-    public ModuleCacheEntry(ModuleDescriptor moduleDescriptor, RoutingEntry routingEntry) {
+    Step(ModuleDescriptor moduleDescriptor, RoutingEntry routingEntry, boolean handler,
+         RoutingEntry[] redirects) {
       this.moduleDescriptor = moduleDescriptor;
       this.routingEntry = routingEntry;
+      this.handler = handler;
+      this.redirects = redirects;
+    }
+
+    ModuleInstance instance(String uri, HttpMethod method) {
+      String path = uri;
+      for (RoutingEntry re : redirects) {
+        path = re.getRedirectUri(path);
+      }
+      return new ModuleInstance(moduleDescriptor, routingEntry, path, method, handler);
+    }
+  }
+
+  static final class PipelineKey {
+    private final String method;
+    private final RoutingTrie.Route[] routes;
+    private final int hash;
+
+    PipelineKey(HttpMethod method, List<RoutingTrie.Route> filters, RoutingTrie.Route handler) {
+      this.method = method.name();
+      routes = filters.toArray(new RoutingTrie.Route[filters.size() + 1]);
+      routes[filters.size()] = handler;
+      hash = 31 * this.method.hashCode() + Arrays.hashCode(routes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof PipelineKey)) {
+        return false;
+      }
+      PipelineKey other = (PipelineKey) o;
+      return hash == other.hash && method.equals(other.method)
+          && Arrays.equals(routes, other.routes);
     }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * Module token from the auth filter for a system call.
+   * @param token token for the module; null if none was returned
+   * @param permissions X-Okapi-Permissions returned; null if none
+   * @param expires expiry time in milliseconds since epoch
+   */
+  public record SystemToken(String token, String permissions, long expires) {
+  }
+
+  record SystemTokenKey(String authModuleId, String moduleId, String modulePermissions,
+      String userId) {
   }
 
-  final Map<String, List<ModuleCacheEntry>> proxyMap = new HashMap<>();
-  final Map<String, List<ModuleCacheEntry>> multiMap = new HashMap<>();
-  final Map<String, List<ModuleCacheEntry>> filterMap = new HashMap<>();
+  static final int PIPELINE_CACHE_SIZE = 1000;
+  static final int SYSTEM_TOKEN_CACHE_SIZE = 1000;
+  private static final RoutingEntry[] NO_REDIRECTS = new RoutingEntry[0];
+  private static final Comparator<Step> STEP_ORDER =
+      Comparator.comparing((Step a) -> a.routingEntry.getPhaseLevel());
+
+  final RoutingTrie proxyTrie = new RoutingTrie();
+  final RoutingTrie multiTrie = new RoutingTrie();
+  final RoutingTrie filterTrie = new RoutingTrie();
   final List<ModuleDescriptor> moduleDescriptors;
+  final Map<PipelineKey, Step[]> pipelines;
+  final ModuleDescriptor authModule;
+  final RoutingEntry authRoutingEntry;
+  final Map<SystemTokenKey, SystemToken> systemTokens = new ConcurrentHashMap<>();
 
   /**
    * Construct cache with module descriptors.
    * @param moduleDescriptors to be cached
    */
   public ModuleCache(List<ModuleDescriptor> moduleDescriptors) {
+    this(moduleDescriptors, PIPELINE_CACHE_SIZE);
+  }
+
+  ModuleCache(List<ModuleDescriptor> moduleDescriptors, int pipelineCacheSize) {
     this.moduleDescriptors = moduleDescriptors;
+    ModuleDescriptor auth = null;
+    RoutingEntry authEntry = null;
     for (ModuleDescriptor moduleDescriptor : moduleDescriptors) {
       add(moduleDescriptor);
+      if (authEntry == null) {
+        authEntry = moduleDescriptor.getAuthRoutingEntry();
+        auth = moduleDescriptor;
+      }
     }
+    authModule = authEntry == null ? null : auth;
+    authRoutingEntry = authEntry;
+    pipelines = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<PipelineKey, Step[]> eldest) {
+        if (size() > pipelineCacheSize) {
+          MetricsHelper.recordRouteCacheEviction();
+          return true;
+        }
+        return false;
+      }
+    };
   }
 
   /**
@@ -53,6 +145,63 @@ public class ModuleCache {
     return moduleDescriptors;
   }
 
+  /**
+   * Return first module with an auth filter.
+   * @return module; null if no module has an auth filter
+   */
+  public ModuleDescriptor getAuthModule() {
+    return authModule;
+  }
+
+  /**
+   * Return auth filter of {@link #getAuthModule()}.
+   * @return routing entry; null if no module has an auth filter
+   */
+  public RoutingEntry getAuthRoutingEntry() {
+    return authRoutingEntry;
+  }
+
+  /**
+   * Get cached module token for a system call. The cache lives as long as this module
+   * cache, which is replaced whenever modules are enabled, upgraded or disabled.
+   * @param authModuleId module of auth filter that issued the token
+   * @param moduleId module that is called
+   * @param modulePermissions module permissions sent to the auth filter
+   * @param userId X-Okapi-User-Id sent to the auth filter; null if none
+   * @param now current time in milliseconds since epoch
+   * @return token; null if not cached or expired
+   */
+  public SystemToken getSystemToken(String authModuleId, String moduleId,
+      String modulePermissions, String userId, long now) {
+    SystemTokenKey key = new SystemTokenKey(authModuleId, moduleId, modulePermissions, userId);
+    SystemToken systemToken = systemTokens.get(key);
+    if (systemToken == null) {
+      return null;
+    }
+    if (systemToken.expires() <= now) {
+      systemTokens.remove(key, systemToken);
+      return null;
+    }
+    return systemToken;
+  }
+
+  /**
+   * Cache module token for a system call.
+   * @param authModuleId module of auth filter that issued the token
+   * @param moduleId module that is called
+   * @param modulePermissions module permissions sent to the auth filter
+   * @param userId X-Okapi-User-Id sent to the auth filter; null if none
+   * @param systemToken token to cache
+   */
+  public void putSystemToken(String authModuleId, String moduleId, String modulePermissions,
+      String userId, SystemToken systemToken) {
+    if (systemTokens.size() >= SYSTEM_TOKEN_CACHE_SIZE) {
+      systemTokens.clear();
+    }
+    systemTokens.put(new SystemTokenKey(authModuleId, moduleId, modulePermissions, userId),
+        systemToken);
+  }
+
   static String getPatternPrefix(RoutingEntry re) {
     String pathPattern = re.getPathPattern();
     if (pathPattern == null) {
@@ -74,55 +223,44 @@ public class ModuleCache {
     return pathPattern;
   }
 
-  static void add(ModuleDescriptor moduleDescriptor, Map<String, List<ModuleCacheEntry>> map,
-                  List<RoutingEntry> entries) {
-    for (RoutingEntry routingEntry : entries) {
-      String prefix = getPatternPrefix(routingEntry);
-      List<ModuleCacheEntry> list = map.computeIfAbsent(prefix, k -> new LinkedList<>());
-      list.add(new ModuleCacheEntry(moduleDescriptor, routingEntry));
-    }
-  }
-
   private void add(ModuleDescriptor moduleDescriptor) {
-    add(moduleDescriptor, proxyMap, moduleDescriptor.getProxyRoutingEntries());
-    add(moduleDescriptor, multiMap, moduleDescriptor.getMultiRoutingEntries());
-    add(moduleDescriptor, filterMap, moduleDescriptor.getFilterRoutingEntries());
+    proxyTrie.add(moduleDescriptor, moduleDescriptor.getProxyRoutingEntries());
+    multiTrie.add(moduleDescriptor, moduleDescriptor.getMultiRoutingEntries());
+    filterTrie.add(moduleDescriptor, moduleDescriptor.getFilterRoutingEntries());
   }
 
-  private void resolveRedirect(List<ModuleInstance> instances, RoutingEntry re, String loop,
+  private void resolveRedirect(List<Step> steps, Step from, String loop,
                                Set<RoutingEntry> routingEntries,
                                HttpMethod method, String uri) {
+    RoutingEntry re = from.routingEntry;
     if (re.getProxyType() != RoutingEntry.ProxyType.REDIRECT) {
       return;
     }
     logger.debug("resolveRedirect begin redirectPath={}", re.getRedirectPath());
     boolean found = false;
     final String redirectPath = re.getRedirectPath();
+    final RoutingEntry[] redirects = Arrays.copyOf(from.redirects, from.redirects.length + 1);
+    redirects[from.redirects.length] = re;
 
-    List<ModuleInstance> lookup = lookup(redirectPath, method, filterMap, false, null);
-    for (ModuleInstance instance : lookup) {
-      RoutingEntry tryre = instance.getRoutingEntry();
+    for (RoutingTrie.Route route : filterTrie.match(redirectPath, method, null)) {
+      RoutingEntry tryre = route.routingEntry;
       String redirectUri = re.getRedirectUri(uri);
       found = true;
       if (routingEntries.add(tryre)) {
-        ModuleInstance mi = new ModuleInstance(instance.getModuleDescriptor(), tryre, redirectUri,
-            method, false);
-        instances.add(mi);
-        resolveRedirect(instances, tryre, loop + " -> " + redirectPath, routingEntries,
+        Step step = new Step(route.moduleDescriptor, tryre, false, redirects);
+        steps.add(step);
+        resolveRedirect(steps, step, loop + " -> " + redirectPath, routingEntries,
             method, redirectUri);
       } else {
         throw new IllegalArgumentException(messages.getMessage("10100", loop, redirectPath));
       }
     }
-    lookup = lookup(redirectPath, method, proxyMap, true, null);
-    for (ModuleInstance instance : lookup) {
-      RoutingEntry tryre = instance.getRoutingEntry();
-      String redirectUri = re.getRedirectUri(uri);
+    List<RoutingTrie.Route> routes = proxyTrie.match(redirectPath, method, null);
+    if (!routes.isEmpty()) {
+      RoutingTrie.Route route = routes.get(0);
       found = true;
-      if (routingEntries.add(tryre)) {
-        ModuleInstance mi = new ModuleInstance(instance.getModuleDescriptor(), tryre, redirectUri,
-            method, true);
-        instances.add(mi);
+      if (routingEntries.add(route.routingEntry)) {
+        steps.add(new Step(route.moduleDescriptor, route.routingEntry, true, redirects));
       }
     }
     logger.debug("resolveRedirect end redirectPath={} found={}", re.getRedirectPath(), found);
@@ -131,35 +269,36 @@ public class ModuleCache {
     }
   }
 
-  static List<ModuleInstance> lookup(String uri, HttpMethod method, Map<String,
-      List<ModuleCacheEntry>> map, boolean handler, String id) {
-    List<ModuleInstance> instances = new LinkedList<>();
-    String tryUri = uri;
-    for (int index = 0; index < uri.length(); index++) {
-      if (uri.charAt(index) == '#' || uri.charAt(index) == '?') {
-        tryUri = tryUri.substring(0, index);
-        break;
-      }
+  private List<Step> resolve(List<RoutingTrie.Route> filters, RoutingTrie.Route handler,
+                             HttpMethod method, String uri) {
+    List<Step> steps = new ArrayList<>();
+    for (RoutingTrie.Route route : filters) {
+      steps.add(new Step(route.moduleDescriptor, route.routingEntry, false, NO_REDIRECTS));
     }
-    while (true) {
-      List<ModuleCacheEntry> candidateInstances = map.get(tryUri);
-      if (candidateInstances != null) {
-        for (ModuleCacheEntry candiate : candidateInstances) {
-          if (candiate.routingEntry.match(uri, method.name())
-              && (id == null || id.equals(candiate.moduleDescriptor.getId()))) {
-            instances.add(new ModuleInstance(candiate.moduleDescriptor,
-                candiate.routingEntry, uri, method, handler));
-            if (handler) {
-              return instances;
-            }
-          }
-        }
-      }
-      int index = tryUri.lastIndexOf('/', tryUri.length() - 2);
-      if (index < 0) {
-        break;
+    // handle redirects
+    Set<RoutingEntry> visitRoutingEntries = new HashSet<>();
+    for (int i = 0; i < steps.size(); i++) {
+      Step step = steps.get(i);
+      if (visitRoutingEntries.add(step.routingEntry)) {
+        resolveRedirect(steps, step, "", visitRoutingEntries, method, uri);
       }
-      tryUri = tryUri.substring(0, index + 1);
+    }
+    if (handler != null) {
+      steps.add(new Step(handler.moduleDescriptor, handler.routingEntry, true, NO_REDIRECTS));
+    }
+    return steps;
+  }
+
+  private RoutingTrie.Route handlerRoute(String uri, HttpMethod method, String id) {
+    List<RoutingTrie.Route> routes = id == null
+        ? proxyTrie.match(uri, method, null) : multiTrie.match(uri, method, id);
+    return routes.isEmpty() ? null : routes.get(0);
+  }
+
+  private static List<ModuleInstance> instances(Step[] steps, String uri, HttpMethod method) {
+    List<ModuleInstance> instances = new LinkedList<>();
+    for (Step step : steps) {
+      instances.add(step.instance(uri, method));
     }
     return instances;
   }
@@ -175,25 +314,43 @@ public class ModuleCache {
   public List<ModuleInstance> lookup(String uri, HttpMethod method, String id) {
     logger.debug("lookup {} {} id={}", method::name, () -> uri, () -> id);
     logger.debug("Available modules {}", () -> ModuleUtil.moduleList(moduleDescriptors));
-    // perform lookup of filters
-    List<ModuleInstance> instances = lookup(uri, method, filterMap, false, null);
-    // handle redirects
-    Set<RoutingEntry> visitRoutingEntries = new HashSet<>();
-    Iterator<ModuleInstance> iterator = instances.iterator();
-    while (iterator.hasNext()) {
-      ModuleInstance next = iterator.next();
-      if (visitRoutingEntries.add(next.getRoutingEntry())) {
-        resolveRedirect(instances, next.getRoutingEntry(), "", visitRoutingEntries, method, uri);
-        iterator = instances.iterator();
-      }
+    List<Step> steps = resolve(filterTrie.match(uri, method, null), handlerRoute(uri, method, id),
+        method, uri);
+    return instances(steps.toArray(new Step[0]), uri, method);
+  }
+
+  /**
+   * Find pipeline of module instances for uri(path) and method.
+   *
+   * <p>Like {@link #lookup(String, HttpMethod, String)} but with instances ordered by phase
+   * level. The resolved pipeline is cached, keyed by method and the routing entries that match
+   * the uri, so that redirects and ordering are only computed once for each routing entry
+   * combination. The returned instances are new for each call.
+   * @param uri request uri
+   * @param method HTTP method
+   * @param id Proxy-ID for multi lookup; otherwise null
+   * @return module instances that match
+   * @throws IllegalArgumentException for redirect errors
+   */
+  public List<ModuleInstance> lookupPipeline(String uri, HttpMethod method, String id) {
+    List<RoutingTrie.Route> filters = filterTrie.match(uri, method, null);
+    RoutingTrie.Route handler = handlerRoute(uri, method, id);
+    PipelineKey key = new PipelineKey(method, filters, handler);
+    Step[] steps;
+    synchronized (pipelines) {
+      steps = pipelines.get(key);
     }
-    // perform lookup of proxy or multi
-    if (id == null) {
-      instances.addAll(lookup(uri, method, proxyMap, true, null));
-    } else {
-      instances.addAll(lookup(uri, method, multiMap, true, id));
+    if (steps != null) {
+      MetricsHelper.recordRouteCacheHit();
+      return instances(steps, uri, method);
     }
-    return instances;
+    MetricsHelper.recordRouteCacheMiss();
+    steps = resolve(filters, handler, method, uri).toArray(new Step[0]);
+    // stable sort so that order within same level is kept
+    Arrays.sort(steps, STEP_ORDER);
+    synchronized (pipelines) {
+      pipelines.put(key, steps);
+    }
+    return instances(steps, uri, method);
   }
 }
-
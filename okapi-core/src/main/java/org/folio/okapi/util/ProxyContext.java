@@ -7,7 +7,6 @@ import io.vertx.ext.web.RoutingContext;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Random;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.Logger;
 import org.folio.okapi.bean.ModuleInstance;
@@ -24,8 +23,7 @@ import org.folio.okapi.common.XOkapiHeaders;
  * for logging, in order to get the request-id in most log messages.
  */
 // S1192: String literals should not be duplicated
-// S2245: Using pseudorandom number generators (PRNGs) is security-sensitive
-@SuppressWarnings({"squid:S1192", "squid:S2245"})
+@SuppressWarnings("squid:S1192")
 public class ProxyContext {
   private static final Logger logger = OkapiLogger.get(); // logger name "okapi"
   private static final Logger fullLogger = OkapiLogger.get("full");
@@ -37,6 +35,8 @@ public class ProxyContext {
   private long nanoTimeStart; // = 0 for no start time
   private Long timerId;
   private final int waitMs;
+  private final AccessLog accessLog;
+  private Boolean sampled; // null: not decided yet
 
   // store auth filter response status code, headers, and body
   private int authRes;
@@ -48,6 +48,8 @@ public class ProxyContext {
 
   private final Messages messages = Messages.getInstance();
   private String userId;
+  private String digestedToken;
+  private TokenDigest tokenDigest;
 
   private final Timer.Sample sample;
   private ModuleInstance handlerModuleInstance;
@@ -67,8 +69,20 @@ public class ProxyContext {
    * @param ctx - the request we are serving
    */
   public ProxyContext(RoutingContext ctx, int waitMs) {
+    this(ctx, waitMs, AccessLog.DEFAULT);
+  }
+
+  /**
+   * Constructor to be used from proxy.
+   *
+   * @param ctx - the request we are serving
+   * @param waitMs - interval for WAIT log lines; 0 for none
+   * @param accessLog - where REQ and RES lines are logged
+   */
+  public ProxyContext(RoutingContext ctx, int waitMs, AccessLog accessLog) {
     this.ctx = ctx;
     this.waitMs = waitMs;
+    this.accessLog = accessLog;
     this.tenant = "-";
     this.modList = null;
     String path = ctx.request().path();
@@ -76,10 +90,8 @@ public class ProxyContext {
       path = "";
     }
 
-    StringBuilder newid = new StringBuilder();
-    // Not used for security, just for request id uniqueness
-    Random r = new Random();
-    newid.append(String.format("%06d", r.nextInt(1000000)));
+    StringBuilder newid = new StringBuilder(32);
+    RequestIds.node().append(newid);
 
     int start = 0;
     if (path.startsWith("/_/")) {
@@ -221,23 +233,34 @@ public class ProxyContext {
     return handlerHeaders;
   }
 
+  /**
+   * Whether REQ and RES lines are logged for this request. Sampling is decided on
+   * the first call after the tenant is known; until then each call samples "-".
+   * @return true if logged
+   */
+  public boolean isAccessLogged() {
+    if (!accessLog.isEnabled()) {
+      return false;
+    }
+    if (sampled != null) {
+      return sampled;
+    }
+    boolean logged = accessLog.sample(tenant);
+    if (!"-".equals(tenant)) {
+      sampled = logged;
+    }
+    return logged;
+  }
+
   /**
    * Log that HTTP request has been received.
    * @param ctx routing context
    */
   public final void logRequest(RoutingContext ctx) {
     Timer.Sample sample = MetricsHelper.getTimerSample();
-    if (fullLogger.isInfoEnabled()) {
-      String mods = "";
-      if (modList != null) {
-        mods = modList.stream().map(x -> x.getModuleDescriptor().getId())
-            .collect(Collectors.joining(" "));
-      }
-      OkapiMapMessage msg = new OkapiMapMessage(reqId, tenant, userId, mods,
-          String.format("%s REQ %s %s %s %s %s", reqId,
-              ctx.request().remoteAddress(), tenant, ctx.request().method(),
-              ctx.request().path(), mods));
-      fullLogger.info(msg);
+    if (isAccessLogged()) {
+      accessLog.request(reqId, tenant, userId, ctx.request().remoteAddress(),
+          ctx.request().method(), ctx.request().path(), modList);
     }
     MetricsHelper.recordCodeExecutionTime(sample, "ProxyContext.logRequest");
   }
@@ -250,11 +273,9 @@ public class ProxyContext {
    */
   public void logResponse(String module, String url, int statusCode) {
     Timer.Sample sample = MetricsHelper.getTimerSample();
-    if (fullLogger.isInfoEnabled()) {
-      OkapiMapMessage msg = new OkapiMapMessage(reqId, tenant, userId, module,
-          String.format("%s RES %s %s %s %s", reqId,
-              statusCode, timeDiff(), module, url));
-      fullLogger.info(msg);
+    if (isAccessLogged()) {
+      accessLog.response(reqId, tenant, userId, module, url, statusCode,
+          nanoTimeStart != 0 ? (System.nanoTime() - nanoTimeStart) / 1000 : -1);
     }
     MetricsHelper.recordCodeExecutionTime(sample, "ProxyContext.logResponse");
   }
@@ -307,4 +328,19 @@ public class ProxyContext {
   public void setUserId(String userId) {
     this.userId = userId;
   }
+
+  /**
+   * Digest of X-Okapi-Token of the request, computed once per token value.
+   *
+   * @return digest; null if there is no token
+   */
+  public TokenDigest getTokenDigest() {
+    String token = ctx.request().getHeader(XOkapiHeaders.TOKEN);
+    // usually the very same string instance, so the token is rarely compared
+    if (token != digestedToken && (token == null || !token.equals(digestedToken))) {
+      tokenDigest = TokenDigest.of(token);
+      digestedToken = token;
+    }
+    return tokenDigest;
+  }
 }
@@ -0,0 +1,93 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.folio.okapi.common.Messages;
+
+/**
+ * Generator of the number part of X-Okapi-Request-Id. The number is a node prefix
+ * of {@value #NODE_DIGITS} digits followed by a counter of {@value #COUNTER_DIGITS}
+ * digits. Request ids of one node are thus unique until the counter wraps.
+ *
+ * <p>The node prefix is assigned by {@link #init(Vertx, Integer)} when Okapi starts:
+ * either configured, or taken from a cluster-wide counter so that nodes of a cluster
+ * get different prefixes until 1000 nodes have joined it. Until then, the prefix is
+ * chosen at random.
+ */
+public final class RequestIds {
+
+  static final int NODE_DIGITS = 3;
+  static final int COUNTER_DIGITS = 6;
+  static final int NODE_MODULUS = 1000;
+  private static final int COUNTER_MODULUS = 1000000;
+  static final String NODE_COUNTER = "requestIdNode";
+
+  private static volatile RequestIds node =
+      new RequestIds(ThreadLocalRandom.current().nextInt(NODE_MODULUS));
+
+  private final String prefix;
+  private final AtomicInteger counter = new AtomicInteger();
+
+  RequestIds(int nodePrefix) {
+    StringBuilder sb = new StringBuilder(NODE_DIGITS);
+    appendPadded(sb, nodePrefix, NODE_DIGITS);
+    prefix = sb.toString();
+  }
+
+  /**
+   * Assign node prefix of this node.
+   * @param vertx Vert.x handle; the counter is cluster-wide if Vert.x is clustered
+   * @param configured configured prefix, 0 to 999; null to take it from the counter
+   * @return future with the prefix
+   * @throws IllegalArgumentException if the configured prefix is out of range
+   */
+  public static Future<Integer> init(Vertx vertx, Integer configured) {
+    if (configured != null) {
+      if (configured < 0 || configured >= NODE_MODULUS) {
+        throw new IllegalArgumentException(
+            Messages.getInstance().getMessage("10814", Integer.toString(configured)));
+      }
+      node = new RequestIds(configured);
+      return Future.succeededFuture(configured);
+    }
+    return vertx.sharedData().getCounter(NODE_COUNTER)
+        .compose(counter -> counter.getAndIncrement())
+        .map(n -> {
+          int prefix = (int) Math.floorMod(n, (long) NODE_MODULUS);
+          node = new RequestIds(prefix);
+          return prefix;
+        });
+  }
+
+  /**
+   * Get generator of this node.
+   * @return generator
+   */
+  public static RequestIds node() {
+    return node;
+  }
+
+  /**
+   * Append next request number.
+   * @param sb where number is appended
+   */
+  public void append(StringBuilder sb) {
+    sb.append(prefix);
+    appendPadded(sb, Math.floorMod(counter.getAndIncrement(), COUNTER_MODULUS),
+        COUNTER_DIGITS);
+  }
+
+  /**
+   * Append non-negative number with leading zeros; without String.format.
+   */
+  static void appendPadded(StringBuilder sb, int n, int digits) {
+    int start = sb.length();
+    sb.setLength(start + digits);
+    for (int i = start + digits - 1; i >= start; i--) {
+      sb.setCharAt(i, (char) ('0' + n % 10));
+      n /= 10;
+    }
+  }
+}
@@ -0,0 +1,316 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.http.HttpMethod;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.folio.okapi.bean.ModuleInstance;
+import org.folio.okapi.bean.RoutingEntry;
+
+/**
+ * Compiled routing table for one type of routing entries (filters, proxy or multi).
+ *
+ * <p>Path patterns are split into segments. Literal segments and segments of the form
+ * {@code {name}} become edges of a trie. The remainder of a pattern that contains a
+ * {@code *} or a partial {@code {name}} segment is kept at the deepest node that can be
+ * reached by literal or parameter edges and is verified with
+ * {@link RoutingEntry#match(String, String)} once that node is reached. Legacy entries
+ * (path rather than pathPattern) are kept at the root.
+ *
+ * <p>The result of {@link #lookup(String, HttpMethod, boolean, String)} is identical
+ * to that of the prefix map lookup that this trie replaced: matches are ordered by
+ * longest pattern prefix first and then by order of insertion.
+ */
+class RoutingTrie {
+
+  private static final Map<String, Integer> METHOD_INDEX = new HashMap<>();
+
+  static {
+    int i = 0;
+    for (HttpMethod method : HttpMethod.values()) {
+      if (i < Long.SIZE) {
+        METHOD_INDEX.put(method.name(), i);
+      }
+      i++;
+    }
+  }
+
+  private static final Comparator<Route> ROUTE_ORDER = (a, b) -> {
+    if (a.prefixLength != b.prefixLength) {
+      return b.prefixLength - a.prefixLength;
+    }
+    return a.seq - b.seq;
+  };
+
+  static final class Route {
+    final ModuleDescriptor moduleDescriptor;
+    final RoutingEntry routingEntry;
+    final int prefixLength;
+    final int seq;
+    private final long methodBits;
+    private final boolean otherMethods;
+    private final boolean verify;
+
+    Route(ModuleDescriptor moduleDescriptor, RoutingEntry routingEntry, int seq,
+          boolean verify) {
+      this.moduleDescriptor = moduleDescriptor;
+      this.routingEntry = routingEntry;
+      this.prefixLength = ModuleCache.getPatternPrefix(routingEntry).length();
+      this.seq = seq;
+      this.verify = verify;
+      long bits = 0;
+      boolean other = false;
+      for (String m : routingEntry.getMethods()) {
+        if ("*".equals(m)) {
+          bits = -1L;
+        } else {
+          Integer idx = METHOD_INDEX.get(m);
+          if (idx == null) {
+            other = true;
+          } else {
+            bits |= 1L << idx;
+          }
+        }
+      }
+      this.methodBits = bits;
+      this.otherMethods = other;
+    }
+
+    boolean matchMethod(int methodIndex, String method) {
+      if (methodIndex >= 0 && (methodBits & (1L << methodIndex)) != 0) {
+        return true;
+      }
+      if (methodIndex >= 0 && !otherMethods) {
+        return false;
+      }
+      // match with a null uri only considers method
+      return routingEntry.match(null, method);
+    }
+
+    boolean match(String uri, int methodIndex, String method, String id) {
+      if (id != null && !id.equals(moduleDescriptor.getId())) {
+        return false;
+      }
+      if (!matchMethod(methodIndex, method)) {
+        return false;
+      }
+      // method already checked; null method makes RoutingEntry consider uri only
+      return !verify || routingEntry.match(uri, null);
+    }
+  }
+
+  private static final class Node {
+    private static final String[] NO_KEYS = new String[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    String[] keys = NO_KEYS; // sorted literal segments
+    Node[] children = NO_NODES;
+    Node param;
+    final List<Route> terminal = new ArrayList<>(1);
+    final List<Route> complex = new ArrayList<>(1);
+
+    Node literal(String uri, int start, int end) {
+      int lo = 0;
+      int hi = keys.length - 1;
+      while (lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        int cmp = compare(keys[mid], uri, start, end);
+        if (cmp < 0) {
+          lo = mid + 1;
+        } else if (cmp > 0) {
+          hi = mid - 1;
+        } else {
+          return children[mid];
+        }
+      }
+      return null;
+    }
+
+    Node addLiteral(String key) {
+      Node node = literal(key, 0, key.length());
+      if (node != null) {
+        return node;
+      }
+      int pos = 0;
+      while (pos < keys.length && keys[pos].compareTo(key) < 0) {
+        pos++;
+      }
+      String[] newKeys = new String[keys.length + 1];
+      Node[] newChildren = new Node[keys.length + 1];
+      System.arraycopy(keys, 0, newKeys, 0, pos);
+      System.arraycopy(children, 0, newChildren, 0, pos);
+      node = new Node();
+      newKeys[pos] = key;
+      newChildren[pos] = node;
+      System.arraycopy(keys, pos, newKeys, pos + 1, keys.length - pos);
+      System.arraycopy(children, pos, newChildren, pos + 1, keys.length - pos);
+      keys = newKeys;
+      children = newChildren;
+      return node;
+    }
+
+    Node addParam() {
+      if (param == null) {
+        param = new Node();
+      }
+      return param;
+    }
+  }
+
+  /**
+   * Compare key with region of uri with same ordering as String.compareTo.
+   */
+  static int compare(String key, String uri, int start, int end) {
+    int len = end - start;
+    int n = Math.min(key.length(), len);
+    for (int i = 0; i < n; i++) {
+      char c1 = key.charAt(i);
+      char c2 = uri.charAt(start + i);
+      if (c1 != c2) {
+        return c1 - c2;
+      }
+    }
+    return key.length() - len;
+  }
+
+  private final Node root = new Node();
+  private final List<Route> rootless = new ArrayList<>(0);
+  private int seq;
+
+  /**
+   * Add routing entries for module.
+   * @param moduleDescriptor module that owns the routing entries
+   * @param entries routing entries
+   */
+  void add(ModuleDescriptor moduleDescriptor, List<RoutingEntry> entries) {
+    for (RoutingEntry routingEntry : entries) {
+      add(moduleDescriptor, routingEntry);
+    }
+  }
+
+  private void add(ModuleDescriptor moduleDescriptor, RoutingEntry routingEntry) {
+    int no = seq++;
+    String[] methods = routingEntry.getMethods();
+    if (methods == null || methods.length == 0) {
+      return; // never matches
+    }
+    String pattern = routingEntry.getPathPattern();
+    if (pattern == null) {
+      // legacy entry: prefix "/" so only considered for paths that begin with a slash
+      root.complex.add(new Route(moduleDescriptor, routingEntry, no, true));
+      return;
+    }
+    if (!pattern.startsWith("/")) {
+      rootless.add(new Route(moduleDescriptor, routingEntry, no, true));
+      return;
+    }
+    Node node = root;
+    int start = 1;
+    while (true) {
+      int end = pattern.indexOf('/', start);
+      if (end == -1) {
+        end = pattern.length();
+      }
+      String segment = pattern.substring(start, end);
+      if (segment.indexOf('*') == -1 && segment.indexOf('{') == -1) {
+        node = node.addLiteral(segment);
+      } else if (segment.indexOf('*') == -1 && segment.startsWith("{")
+          && segment.indexOf('}') == segment.length() - 1) {
+        node = node.addParam();
+      } else {
+        node.complex.add(new Route(moduleDescriptor, routingEntry, no, true));
+        return;
+      }
+      if (end == pattern.length()) {
+        break;
+      }
+      start = end + 1;
+    }
+    node.terminal.add(new Route(moduleDescriptor, routingEntry, no, false));
+  }
+
+  private static int cutUri(String uri) {
+    for (int index = 0; index < uri.length(); index++) {
+      char c = uri.charAt(index);
+      if (c == '#' || c == '?') {
+        return index;
+      }
+    }
+    return uri.length();
+  }
+
+  private static void collect(Node node, String uri, int pos, int end, int methodIndex,
+                              String method, String id, List<Route> routes) {
+    for (Route route : node.complex) {
+      if (route.match(uri, methodIndex, method, id)) {
+        routes.add(route);
+      }
+    }
+    if (pos > end) {
+      for (Route route : node.terminal) {
+        if (route.match(uri, methodIndex, method, id)) {
+          routes.add(route);
+        }
+      }
+      return;
+    }
+    int segEnd = uri.indexOf('/', pos);
+    if (segEnd == -1 || segEnd > end) {
+      segEnd = end;
+    }
+    Node child = node.literal(uri, pos, segEnd);
+    if (child != null) {
+      collect(child, uri, segEnd + 1, end, methodIndex, method, id, routes);
+    }
+    if (node.param != null && segEnd > pos) {
+      collect(node.param, uri, segEnd + 1, end, methodIndex, method, id, routes);
+    }
+  }
+
+  List<Route> match(String uri, HttpMethod method, String id) {
+    int end = cutUri(uri);
+    String methodName = method.name();
+    Integer idx = METHOD_INDEX.get(methodName);
+    int methodIndex = idx == null ? -1 : idx;
+    List<Route> routes = new ArrayList<>(2);
+    if (end > 0 && uri.charAt(0) == '/') {
+      collect(root, uri, 1, end, methodIndex, methodName, id, routes);
+    }
+    for (Route route : rootless) {
+      // empty prefix is only considered for empty path
+      if ((route.prefixLength > 0 || end == 0)
+          && route.match(uri, methodIndex, methodName, id)) {
+        routes.add(route);
+      }
+    }
+    if (routes.size() > 1) {
+      routes.sort(ROUTE_ORDER);
+    }
+    return routes;
+  }
+
+  /**
+   * Find module instances for uri and method.
+   * @param uri request uri
+   * @param method HTTP method
+   * @param handler true: return first match as handler; false: return all as filters
+   * @param id module ID that must match; null for any module
+   * @return module instances that match
+   */
+  List<ModuleInstance> lookup(String uri, HttpMethod method, boolean handler, String id) {
+    List<Route> routes = match(uri, method, id);
+    List<ModuleInstance> instances = new LinkedList<>();
+    for (Route route : routes) {
+      instances.add(new ModuleInstance(route.moduleDescriptor, route.routingEntry, uri,
+          method, handler));
+      if (handler) {
+        break;
+      }
+    }
+    return instances;
+  }
+}
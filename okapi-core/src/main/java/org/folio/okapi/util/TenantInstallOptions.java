@@ -15,6 +15,7 @@ public class TenantInstallOptions {
   private boolean ignoreErrors = false;
   private boolean reinstall = false;
   private int maxParallel = 1;
+  private ConcurrencyLimiter moduleLimiter;
 
   public void setModuleVersionFilter(ModuleVersionFilter v) {
     moduleVersionFilter = v;
@@ -121,4 +122,16 @@ public class TenantInstallOptions {
     }
     this.maxParallel = maxParallel;
   }
+
+  public ConcurrencyLimiter getModuleLimiter() {
+    return moduleLimiter;
+  }
+
+  /**
+   * Set limit on concurrent invocations of each module, shared by install jobs.
+   * @param moduleLimiter limiter keyed by module ID; null for no limit
+   */
+  public void setModuleLimiter(ConcurrencyLimiter moduleLimiter) {
+    this.moduleLimiter = moduleLimiter;
+  }
 }
@@ -0,0 +1,147 @@
+package org.folio.okapi.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel for expiring cache entries.
+ *
+ * <p>Each level has {@link #BUCKETS} buckets; a bucket on level {@code i} spans
+ * {@code BUCKETS^i} ticks of {@code 1 << TICK_SHIFT} milliseconds. A node is put on the
+ * lowest level that covers its time to expire. When time advances, the buckets passed are
+ * emptied; expired nodes are handed to the expiry consumer and the others are scheduled
+ * again, which moves them to a lower level. Scheduling, cancelling and expiry of a node is
+ * O(1).
+ *
+ * <p>Not thread safe. The owner must synchronize access.
+ */
+class TimerWheel<T extends TimerWheel.Node<T>> {
+
+  static final int TICK_SHIFT = 4; // 16 ms
+  static final int BUCKET_BITS = 6;
+  static final int BUCKETS = 1 << BUCKET_BITS;
+  static final int LEVELS = 5; // covers 16 ms * 64^5, which is about 5 days
+
+  /**
+   * Node that can be linked into one bucket of the wheel.
+   */
+  abstract static class Node<T extends Node<T>> {
+    T prev;
+    T next;
+    int bucket = -1; // level * BUCKETS + index; -1 if not in wheel
+
+    /**
+     * Time when node expires.
+     * @return milliseconds since epoch
+     */
+    abstract long expires();
+  }
+
+  private final Object[] heads = new Object[LEVELS * BUCKETS];
+  private final Consumer<T> onExpiry;
+  private long currentTick;
+  private int size;
+
+  /**
+   * Create wheel.
+   * @param now current time in milliseconds
+   * @param onExpiry called for nodes that expired; node is already unlinked
+   */
+  TimerWheel(long now, Consumer<T> onExpiry) {
+    this.currentTick = now >>> TICK_SHIFT;
+    this.onExpiry = onExpiry;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Add node to wheel.
+   * @param node node that is not already in the wheel
+   */
+  @SuppressWarnings("unchecked")
+  void schedule(T node) {
+    long tick = node.expires() >>> TICK_SHIFT;
+    long delta = tick - currentTick;
+    int level = 0;
+    while (level < LEVELS - 1 && delta >= 1L << (BUCKET_BITS * (level + 1))) {
+      level++;
+    }
+    if (delta < 0) {
+      tick = currentTick; // overdue: handled when time advances
+    }
+    int bucket = level * BUCKETS + ((int) (tick >>> (BUCKET_BITS * level)) & (BUCKETS - 1));
+    T head = (T) heads[bucket];
+    node.prev = null;
+    node.next = head;
+    node.bucket = bucket;
+    if (head != null) {
+      head.prev = node;
+    }
+    heads[bucket] = node;
+    size++;
+  }
+
+  /**
+   * Remove node from wheel.
+   * @param node node; ignored if not in the wheel
+   */
+  void cancel(T node) {
+    if (node.bucket < 0) {
+      return;
+    }
+    if (node.prev != null) {
+      node.prev.next = node.next;
+    } else {
+      heads[node.bucket] = node.next;
+    }
+    if (node.next != null) {
+      node.next.prev = node.prev;
+    }
+    node.prev = null;
+    node.next = null;
+    node.bucket = -1;
+    size--;
+  }
+
+  /**
+   * Advance time and expire nodes in the buckets that were passed.
+   * @param now current time in milliseconds
+   */
+  @SuppressWarnings("unchecked")
+  void advance(long now) {
+    long tick = now >>> TICK_SHIFT;
+    if (tick <= currentTick) {
+      return;
+    }
+    long previousTick = currentTick;
+    currentTick = tick;
+    for (int level = 0; level < LEVELS; level++) {
+      int shift = BUCKET_BITS * level;
+      long from = previousTick >>> shift;
+      long to = tick >>> shift;
+      if (level > 0 && from == to) {
+        break; // higher levels have not moved either
+      }
+      long count = Math.min(to - from + 1, BUCKETS);
+      for (long i = 0; i < count; i++) {
+        int bucket = level * BUCKETS + (int) ((from + i) & (BUCKETS - 1));
+        T node = (T) heads[bucket];
+        heads[bucket] = null;
+        while (node != null) {
+          T next = node.next;
+          node.prev = null;
+          node.next = null;
+          node.bucket = -1;
+          size--;
+          if (node.expires() < now) {
+            onExpiry.accept(node);
+          } else {
+            schedule(node);
+          }
+          node = next;
+        }
+      }
+    }
+  }
+}
@@ -1,9 +1,9 @@
 package org.folio.okapi.util;
 
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
 import org.apache.logging.log4j.Logger;
 import org.folio.okapi.common.OkapiLogger;
 
@@ -12,7 +12,13 @@ public class TokenCache {
   public static final long DEFAULT_TTL = 3 * 60 * 1000L;
   public static final int DEFAULT_MAX_SIZE = 10000;
 
-  private final Map<String, CacheEntry> cache;
+  /** Smallest number of entries per segment; small caches get a single, exact LRU segment. */
+  static final int MIN_SEGMENT_SIZE = 64;
+  static final int MAX_SEGMENTS = 16;
+  /** Number of entries sampled when choosing which entry to evict. */
+  static final int EVICTION_SAMPLES = 8;
+
+  private final Segment[] segments;
   private final long ttl;
 
   private static final Logger logger = OkapiLogger.get(TokenCache.class);
@@ -20,14 +26,15 @@ public class TokenCache {
   /**
    * Constructor using the provided TTL and maxSize.
    *
-   * <p>Once the cache reaches maximum capcity, the least-recently accessed entry will be evicted
-   * upon insertion of a new entry
+   * <p>The cache is split into segments by hash of key. Lookups do not lock; a hit only
+   * records the access time of the entry. Writes lock a single segment.
    *
-   * <p>Cache entries will be pruned if they're expired upon access via the <code>get(...)</code>
-   * method.
+   * <p>Once a segment reaches its share of the maximum capacity, the least-recently
+   * accessed of a sample of its entries is evicted upon insertion of a new entry. The
+   * sample covers the whole segment for caches of up to {@link #EVICTION_SAMPLES} entries.
    *
-   * <p>The <code>put(...)</code> method attempts to shrink the cache size by pruning the 2
-   * least-recently accessed entries if they're expired.
+   * <p>Expired entries are removed by a timer wheel per segment as time advances on
+   * insertion, and upon access via the <code>get(...)</code> method.
    *
    * @param ttl cache entry time to live in milliseconds
    * @param maxSize the maximum number of entries that may be cached at once
@@ -36,7 +43,21 @@ public class TokenCache {
     logger.info("Initializing token cache w/ ttl: {}, maxSize: {}", ttl, maxSize);
     this.ttl = ttl;
 
-    this.cache = Collections.synchronizedMap(new LruCache(maxSize));
+    int count = 1;
+    while (count < MAX_SEGMENTS && maxSize / (count * 2) >= MIN_SEGMENT_SIZE) {
+      count *= 2;
+    }
+    long now = System.currentTimeMillis();
+    segments = new Segment[count];
+    for (int i = 0; i < count; i++) {
+      segments[i] = new Segment(maxSize / count + (i < maxSize % count ? 1 : 0), now);
+    }
+  }
+
+  private Segment segment(Key key) {
+    int h = key.hashCode();
+    h ^= h >>> 16;
+    return segments[h & (segments.length - 1)];
   }
 
   /**
@@ -52,12 +73,28 @@ public class TokenCache {
    */
   public void put(String tenant, String method, String path, String userId, String xokapiPerms,
       String keyToken, String token) {
+    put(tenant, method, path, userId, xokapiPerms, TokenDigest.of(keyToken), token);
+  }
+
+  /**
+   * Cache an entry.
+   *
+   * @param method HTTP method
+   * @param path path pattern
+   * @param userId X-Okapi-User-Id header to cache
+   * @param xokapiPerms X-Okapi-Permissions header to cache
+   * @param keyToken digest of the token to be used in the cache key, from the request which
+   *        triggered the call to mod-authtoken
+   * @param token access token to cache - from the mod-authtoken response
+   */
+  public void put(String tenant, String method, String path, String userId, String xokapiPerms,
+      TokenDigest keyToken, String token) {
     long now = System.currentTimeMillis();
     CacheEntry entry = new CacheEntry(token, userId, xokapiPerms, now + ttl);
-    String key = genKey(tenant, method, path, keyToken);
+    Key key = new Key(tenant, method, path, keyToken);
     MetricsHelper.recordTokenCacheCached(tenant, method, path, userId);
     logger.debug("Caching: {} -> {}", key, token);
-    cache.put(key, entry);
+    segment(key).put(key, entry, now);
   }
 
   /**
@@ -71,83 +108,178 @@ public class TokenCache {
    * @return cache entry or null
    */
   public CacheEntry get(String tenant, String method, String path, String userId, String token) {
-    String key = genKey(tenant, method, path, token);
-    CacheEntry ret = cache.get(key);
-    if (ret == null) {
+    return get(tenant, method, path, userId, TokenDigest.of(token));
+  }
+
+  /**
+   * Get a cached entry.
+   *
+   * @param tenant tenant id
+   * @param method HTTP method
+   * @param path path pattern
+   * @param token digest of X-Okapi-Token header
+   * @param userId X-Okapi-User-Id header
+   * @return cache entry or null
+   */
+  public CacheEntry get(String tenant, String method, String path, String userId,
+      TokenDigest token) {
+    Key key = new Key(tenant, method, path, token);
+    Segment segment = segment(key);
+    Node node = segment.map.get(key);
+    if (node == null) {
       MetricsHelper.recordTokenCacheMiss(tenant, method, path, userId);
       logger.debug("Cache Miss: {}", key);
       return null;
-    } else if (ret.isExpired()) {
+    }
+    CacheEntry ret = node.entry;
+    if (ret.isExpired()) {
       MetricsHelper.recordTokenCacheExpired(tenant, method, path, userId);
       logger.debug("Cache Hit (Expired): {}", key);
-      cache.remove(key);
+      segment.remove(node);
       return null;
     } else {
       MetricsHelper.recordTokenCacheHit(tenant, method, path, userId);
       logger.debug("Cache Hit: {} -> {}", key, ret.token);
+      segment.touch(node);
       return ret;
     }
   }
 
-  private String genKey(String tenantId, String method, String path, String token) {
-    String tok = token == null ? "null" : token.replaceAll("[\n\t\r]", "");
-    return (tenantId + "|" + method + "|" + path + "|" + tok);
+  /**
+   * Cache key. Holds a digest of the token rather than the token itself.
+   */
+  record Key(String tenant, String method, String path, TokenDigest token) {
+    @Override
+    public String toString() {
+      return tenant + "|" + method + "|" + path + "|" + token;
+    }
   }
 
   public static Builder builder() {
     return new Builder();
   }
 
+  /**
+   * Number of cached entries.
+   * @return number of entries, including expired entries not removed yet
+   */
   public int size() {
-    return cache.size();
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.map.size();
+    }
+    return size;
   }
 
-  public static final class LruCache extends LinkedHashMap<String, CacheEntry> {
+  int segmentCount() {
+    return segments.length;
+  }
 
-    private static final long serialVersionUID = -6197036022604882327L;
-    private final int maxEntries;
+  static final class Node extends TimerWheel.Node<Node> {
+    final Key key;
+    final CacheEntry entry;
+    volatile long access;
+    int slot; // position in Segment.slots
 
-    public LruCache(final int maxEntries) {
-      super((int) (maxEntries / 0.75), 0.75f, true);
-      this.maxEntries = maxEntries;
+    Node(Key key, CacheEntry entry) {
+      this.key = key;
+      this.entry = entry;
     }
 
     @Override
-    public CacheEntry put(String key, CacheEntry value) {
-      CacheEntry prev = super.put(key, value);
-
-      if (super.size() >= 3) {
-        Iterator<Map.Entry<String, CacheEntry>> iter = entrySet().iterator();
-        for (int i = 0; i < 2; i++) {
-          Map.Entry<String, CacheEntry> entry = iter.next();
-          if (entry.getValue().isExpired()) {
-            iter.remove();
-          } else {
-            break;
+    long expires() {
+      return entry.expires;
+    }
+  }
+
+  /**
+   * Part of the cache. Reads use the concurrent map only; all writes hold the lock.
+   */
+  static final class Segment {
+    final Map<Key, Node> map = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int capacity;
+    private final Node[] slots; // dense array of nodes for eviction sampling
+    private int size;
+    private final TimerWheel<Node> wheel;
+    // access clock; increments from concurrent readers may be lost, so LRU order is approximate
+    private volatile long clock;
+
+    Segment(int capacity, long now) {
+      this.capacity = Math.max(capacity, 1);
+      this.slots = new Node[this.capacity + 1];
+      this.wheel = new TimerWheel<>(now, this::unlink);
+    }
+
+    void touch(Node node) {
+      long t = clock + 1;
+      clock = t;
+      node.access = t;
+    }
+
+    void put(Key key, CacheEntry entry, long now) {
+      Node node = new Node(key, entry);
+      lock.lock();
+      try {
+        wheel.advance(now);
+        touch(node);
+        Node prev = map.put(key, node);
+        if (prev != null) {
+          wheel.cancel(prev);
+          node.slot = prev.slot;
+          slots[node.slot] = node;
+        } else {
+          node.slot = size;
+          slots[size++] = node;
+          if (size > capacity) {
+            evict(node);
           }
         }
+        wheel.schedule(node);
+      } finally {
+        lock.unlock();
       }
-
-      return prev;
     }
 
-    @Override
-    protected boolean removeEldestEntry(final Map.Entry<String, CacheEntry> eldest) {
-      return super.size() > maxEntries;
+    void remove(Node node) {
+      lock.lock();
+      try {
+        if (map.get(node.key) == node) {
+          wheel.cancel(node);
+          unlink(node);
+        }
+      } finally {
+        lock.unlock();
+      }
     }
 
-    @Override
-    public boolean equals(Object obj) {
-      if (!super.equals(obj)) {
-        return false;
+    /**
+     * Evict the least recently accessed of a sample of entries, never the new one.
+     */
+    private void evict(Node added) {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      boolean all = size <= EVICTION_SAMPLES + 1;
+      int samples = all ? size : EVICTION_SAMPLES;
+      Node victim = null;
+      for (int i = 0; i < samples; i++) {
+        Node candidate = slots[all ? i : random.nextInt(size)];
+        if (candidate != added && (victim == null || candidate.access < victim.access)) {
+          victim = candidate;
+        }
+      }
+      if (victim == null) {
+        victim = slots[added.slot == 0 ? 1 : 0];
       }
-      LruCache other = (LruCache) obj;
-      return this.maxEntries == other.maxEntries;
+      wheel.cancel(victim);
+      unlink(victim);
     }
 
-    @Override
-    public int hashCode() {
-      return 89 * super.hashCode() + maxEntries;
+    private void unlink(Node node) {
+      map.remove(node.key, node);
+      Node last = slots[--size];
+      slots[node.slot] = last;
+      last.slot = node.slot;
+      slots[size] = null;
     }
   }
 
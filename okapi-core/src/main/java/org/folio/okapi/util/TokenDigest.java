@@ -0,0 +1,101 @@
+package org.folio.okapi.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 128-bit digest of a token (the first half of its SHA-256) for use in cache keys,
+ * so that caches do not have to keep or compare the full token.
+ *
+ * <p>Newline, carriage return and tab characters are ignored, so that a token folded
+ * over several lines has the same digest as the unfolded token.
+ */
+public final class TokenDigest {
+
+  private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  });
+
+  private final long hi;
+  private final long lo;
+
+  TokenDigest(long hi, long lo) {
+    this.hi = hi;
+    this.lo = lo;
+  }
+
+  /**
+   * Compute digest of token.
+   * @param token token; null allowed
+   * @return digest; null if token is null
+   */
+  public static TokenDigest of(String token) {
+    if (token == null) {
+      return null;
+    }
+    int len = token.length();
+    byte[] bytes = new byte[len];
+    int n = 0;
+    for (int i = 0; i < len; i++) {
+      char c = token.charAt(i);
+      if (c > 0x7f) {
+        bytes = stripWhitespace(token).getBytes(StandardCharsets.UTF_8);
+        n = bytes.length;
+        break;
+      }
+      if (c != '\n' && c != '\r' && c != '\t') {
+        bytes[n++] = (byte) c;
+      }
+    }
+    MessageDigest md = SHA256.get();
+    md.update(bytes, 0, n);
+    byte[] d = md.digest();
+    return new TokenDigest(getLong(d, 0), getLong(d, 8));
+  }
+
+  private static String stripWhitespace(String token) {
+    StringBuilder sb = new StringBuilder(token.length());
+    for (int i = 0; i < token.length(); i++) {
+      char c = token.charAt(i);
+      if (c != '\n' && c != '\r' && c != '\t') {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static long getLong(byte[] b, int off) {
+    long v = 0;
+    for (int i = 0; i < 8; i++) {
+      v = (v << 8) | (b[off + i] & 0xff);
+    }
+    return v;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof TokenDigest)) {
+      return false;
+    }
+    TokenDigest other = (TokenDigest) o;
+    return hi == other.hi && lo == other.lo;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (lo ^ (lo >>> 32));
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%016x%016x", hi, lo);
+  }
+}
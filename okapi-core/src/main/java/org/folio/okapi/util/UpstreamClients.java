@@ -0,0 +1,247 @@
+package org.folio.okapi.util;
+
+import io.netty.handler.codec.http2.Http2Exception;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.http.ConnectionPoolTooBusyException;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClosedException;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.Logger;
+import org.folio.okapi.ConfNames;
+import org.folio.okapi.common.Config;
+import org.folio.okapi.common.Messages;
+import org.folio.okapi.common.OkapiLogger;
+
+/**
+ * HTTP clients for proxy requests to module instances.
+ *
+ * <p>HTTP/2 is opt-in, globally with setting {@value ConfNames#HTTP2_PROXY} and per
+ * module with property http2 of the LaunchDescriptor or DeploymentDescriptor:
+ * <ul>
+ *   <li>{@value #OFF}: HTTP/1.1 only (the default).</li>
+ *   <li>{@value #UPGRADE}: HTTP/2 with the HTTP/1.1 Upgrade header for http, and ALPN for
+ *   https. Instances that do not support it are served by HTTP/1.1 on the same
+ *   connection.</li>
+ *   <li>{@value #PRIOR_KNOWLEDGE}: HTTP/2 without upgrade for http. If the instance
+ *   closes or rejects the connection before HTTP/2 settings are exchanged, and answers
+ *   HTTP/1.1, it is served by HTTP/1.1 until it leaves the routing table.</li>
+ * </ul>
+ * HTTP/2 requests to an instance are multiplexed on a few connections, so the HTTP/2
+ * clients have a pool of their own.
+ *
+ * <p>Connections are pooled per instance, so each instance is a bulkhead with at most
+ * {@value ConfNames#HTTP_MAX_SIZE_PROXY} connections and
+ * {@value ConfNames#HTTP_MAX_WAIT_QUEUE_PROXY} requests waiting for one. Requests
+ * beyond that fail at once, as do requests to an instance with an open
+ * {@link CircuitBreakers circuit breaker}.
+ */
+public class UpstreamClients {
+
+  public static final String OFF = "off";
+  public static final String UPGRADE = "upgrade";
+  public static final String PRIOR_KNOWLEDGE = "prior-knowledge";
+
+  private static final Logger logger = OkapiLogger.get();
+  private static final Messages messages = Messages.getInstance();
+  private static final String CONNECTION_CLOSED = "Connection was closed";
+
+  private final FuturisedHttpClient http1Client;
+  private final FuturisedHttpClient upgradeClient;
+  private final FuturisedHttpClient priorKnowledgeClient;
+  private final String defaultMode;
+  private final Set<String> http1Only = ConcurrentHashMap.newKeySet();
+  private final CircuitBreakers circuitBreakers;
+
+  /**
+   * Create clients for proxy requests without circuit breakers.
+   * @param vertx Vert.x handle
+   * @param config Okapi configuration
+   * @throws IllegalArgumentException if {@value ConfNames#HTTP2_PROXY} is unknown
+   */
+  public UpstreamClients(Vertx vertx, JsonObject config) {
+    this(vertx, config, null);
+  }
+
+  /**
+   * Create clients for proxy requests.
+   * @param vertx Vert.x handle
+   * @param config Okapi configuration
+   * @param circuitBreakers breakers that requests are checked against; null for none
+   * @throws IllegalArgumentException if {@value ConfNames#HTTP2_PROXY} is unknown
+   */
+  public UpstreamClients(Vertx vertx, JsonObject config, CircuitBreakers circuitBreakers) {
+    this.circuitBreakers = circuitBreakers;
+    defaultMode = Config.getSysConf(ConfNames.HTTP2_PROXY, OFF, config);
+    if (!isMode(defaultMode)) {
+      throw new IllegalArgumentException(messages.getMessage("10811", defaultMode));
+    }
+    int http1Size = Config.getSysConfInteger(ConfNames.HTTP_MAX_SIZE_PROXY,
+        ConfNames.HTTP_MAX_SIZE_PROXY_DEFAULT, config);
+    int http2Size = Config.getSysConfInteger(ConfNames.HTTP2_MAX_SIZE_PROXY,
+        ConfNames.HTTP2_MAX_SIZE_PROXY_DEFAULT, config);
+    int maxStreams = Config.getSysConfInteger(ConfNames.HTTP2_MAX_STREAMS,
+        ConfNames.HTTP2_MAX_STREAMS_DEFAULT, config);
+    int keepAlive = Config.getSysConfInteger(ConfNames.HTTP2_KEEP_ALIVE_TIMEOUT,
+        ConfNames.HTTP2_KEEP_ALIVE_TIMEOUT_DEFAULT, config);
+    int waitQueue = Config.getSysConfInteger(ConfNames.HTTP_MAX_WAIT_QUEUE_PROXY,
+        ConfNames.HTTP_MAX_WAIT_QUEUE_PROXY_DEFAULT, config);
+
+    PoolOptions poolOptions = new PoolOptions()
+        .setHttp1MaxSize(http1Size)
+        .setHttp2MaxSize(http2Size)
+        .setMaxWaitQueueSize(waitQueue);
+    http1Client = create(vertx, OFF, new HttpClientOptions(),
+        new PoolOptions().setHttp1MaxSize(http1Size).setMaxWaitQueueSize(waitQueue));
+    upgradeClient = create(vertx, UPGRADE, http2Options(maxStreams, keepAlive)
+        .setHttp2ClearTextUpgrade(true), poolOptions);
+    priorKnowledgeClient = create(vertx, PRIOR_KNOWLEDGE, http2Options(maxStreams, keepAlive)
+        .setHttp2ClearTextUpgrade(false), poolOptions);
+  }
+
+  private static HttpClientOptions http2Options(int maxStreams, int keepAlive) {
+    return new HttpClientOptions()
+        .setProtocolVersion(HttpVersion.HTTP_2)
+        .setUseAlpn(true)
+        .setHttp2MultiplexingLimit(maxStreams)
+        .setHttp2KeepAliveTimeout(keepAlive);
+  }
+
+  private static FuturisedHttpClient create(Vertx vertx, String mode,
+      HttpClientOptions options, PoolOptions poolOptions) {
+    HttpClient client = vertx.httpClientBuilder()
+        .with(options)
+        .with(poolOptions)
+        .withConnectHandler(conn -> {
+          SocketAddress upstream = conn.remoteAddress();
+          MetricsHelper.recordUpstreamConnectionOpened(upstream, mode);
+          conn.closeHandler(x -> MetricsHelper.recordUpstreamConnectionClosed(upstream, mode));
+        })
+        .build();
+    return new FuturisedHttpClient(client);
+  }
+
+  /**
+   * Check HTTP/2 mode.
+   * @param mode mode name
+   * @return true if mode is one of {@value #OFF}, {@value #UPGRADE}, {@value #PRIOR_KNOWLEDGE}
+   */
+  public static boolean isMode(String mode) {
+    return OFF.equals(mode) || UPGRADE.equals(mode) || PRIOR_KNOWLEDGE.equals(mode);
+  }
+
+  public String getDefaultMode() {
+    return defaultMode;
+  }
+
+  /**
+   * Check whether requests in a mode may use HTTP/2.
+   * @param mode HTTP/2 mode of the module; null for the global one
+   * @return true for {@value #UPGRADE} and {@value #PRIOR_KNOWLEDGE}
+   */
+  public boolean isHttp2(String mode) {
+    String m = mode == null ? defaultMode : mode;
+    return UPGRADE.equals(m) || PRIOR_KNOWLEDGE.equals(m);
+  }
+
+  /**
+   * Forget what is known about an instance; called when it leaves the routing table,
+   * as a new instance may get the same URL.
+   * @param url URL of module instance
+   */
+  public void remove(String url) {
+    http1Only.remove(url);
+  }
+
+  FuturisedHttpClient getClient(String mode, String url) {
+    if (mode == null) {
+      mode = defaultMode;
+    }
+    switch (mode) {
+      case UPGRADE:
+        return upgradeClient;
+      case PRIOR_KNOWLEDGE:
+        return url != null && http1Only.contains(url) ? http1Client : priorKnowledgeClient;
+      default:
+        return http1Client;
+    }
+  }
+
+  /**
+   * Create request to a module instance.
+   * @param mode HTTP/2 mode of the module; null for the global one
+   * @param url URL of module instance, as used for falling back to HTTP/1.1
+   * @param options request options
+   * @return request; failed future if no connection could be made, with
+   *     {@link CircuitBreakers.OpenException} if the circuit breaker of the instance is open
+   */
+  public Future<HttpClientRequest> request(String mode, String url, RequestOptions options) {
+    if (circuitBreakers != null && circuitBreakers.isEnabled()) {
+      if (!circuitBreakers.allow(url)) {
+        return Future.failedFuture(new CircuitBreakers.OpenException(url));
+      }
+      long start = System.nanoTime();
+      return request2(mode, url, options)
+          .onFailure(e -> {
+            // a full wait queue is the bulkhead at work, not a failing instance
+            if (!(e instanceof ConnectionPoolTooBusyException)) {
+              circuitBreakers.failure(url);
+            }
+          })
+          .onSuccess(req -> req.response()
+              .onFailure(e -> circuitBreakers.failure(url))
+              .onSuccess(res -> circuitBreakers.success(url, System.nanoTime() - start)));
+    }
+    return request2(mode, url, options);
+  }
+
+  private Future<HttpClientRequest> request2(String mode, String url,
+      RequestOptions options) {
+    FuturisedHttpClient client = getClient(mode, url);
+    Future<HttpClientRequest> future = client.request(options);
+    if (client == priorKnowledgeClient && url != null) {
+      // only fall back if the instance is there and speaks HTTP/1.1 but not HTTP/2;
+      // busy pools, timeouts and refused connections fail as they are
+      future = future.recover(e -> {
+        if (!isNegotiationFailure(e)) {
+          return Future.failedFuture(e);
+        }
+        return http1Client.request(options).onSuccess(x -> {
+          logger.warn("HTTP/2 with prior knowledge failed for {}, using HTTP/1.1: {}",
+              url, e.getMessage());
+          http1Only.add(url);
+        });
+      });
+    }
+    return future.onSuccess(req -> MetricsHelper.recordUpstreamStream(
+        req.connection().remoteAddress(), req.version()));
+  }
+
+  /**
+   * Whether a failure to get an HTTP/2 stream means that the instance does not speak
+   * HTTP/2: the connection was closed, or the first frame was not SETTINGS.
+   * @param e failure of request
+   * @return true for protocol negotiation failures
+   */
+  static boolean isNegotiationFailure(Throwable e) {
+    for (Throwable t = e; t != null; t = t.getCause()) {
+      if (t instanceof ConnectionPoolTooBusyException) {
+        return false;
+      }
+      if (t instanceof Http2Exception || t instanceof HttpClosedException
+          || t instanceof VertxException && CONNECTION_CLOSED.equals(t.getMessage())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
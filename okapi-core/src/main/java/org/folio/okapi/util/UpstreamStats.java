@@ -0,0 +1,104 @@
+package org.folio.okapi.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-flight requests and exponentially weighted moving average of response time
+ * per upstream instance (URL). Used by {@link LoadBalancer} strategies.
+ */
+public class UpstreamStats {
+
+  /** Weight of most recent response time in the moving average. */
+  static final double EWMA_ALPHA = 0.3;
+
+  /**
+   * Counters for one instance.
+   */
+  public static final class Instance {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double ewma = -1.0; // milliseconds; negative when no response yet
+
+    public int getInFlight() {
+      return inFlight.get();
+    }
+
+    /**
+     * Moving average of response time.
+     * @return milliseconds; negative if no response has been recorded
+     */
+    public double getEwma() {
+      return ewma;
+    }
+
+    void record(double ms) {
+      synchronized (this) {
+        double old = ewma;
+        ewma = old < 0.0 ? ms : EWMA_ALPHA * ms + (1.0 - EWMA_ALPHA) * old;
+      }
+    }
+  }
+
+  /**
+   * One request to an instance; ended when the response (or failure) arrives.
+   */
+  public static final class Call {
+    private final Instance instance;
+    private final long start = System.nanoTime();
+    private boolean ended;
+
+    Call(Instance instance) {
+      this.instance = instance;
+    }
+
+    /**
+     * End the call. Further calls are ignored.
+     */
+    public void end() {
+      if (ended) {
+        return;
+      }
+      ended = true;
+      instance.inFlight.decrementAndGet();
+      instance.record((System.nanoTime() - start) / 1e6);
+    }
+  }
+
+  private final Map<String, Instance> instances = new ConcurrentHashMap<>();
+
+  /**
+   * Get counters for an instance.
+   * @param url instance URL
+   * @return counters; all zero for unknown instance
+   */
+  public Instance get(String url) {
+    return instances.computeIfAbsent(url == null ? "" : url, x -> new Instance());
+  }
+
+  /**
+   * Forget counters for an instance that is no longer routed to. Counters of an
+   * instance with requests in flight are kept, so that those requests end on the
+   * same counters as new requests.
+   * @param url instance URL
+   */
+  public void remove(String url) {
+    instances.computeIfPresent(url, (k, instance) -> instance.getInFlight() == 0
+        ? null : instance);
+  }
+
+  int size() {
+    return instances.size();
+  }
+
+  /**
+   * Start a request to an instance.
+   * @param url instance URL
+   * @return call that must be ended
+   */
+  public Call start(String url) {
+    Instance instance = get(url);
+    instance.inFlight.incrementAndGet();
+    return new Call(instance);
+  }
+}
@@ -24,9 +24,11 @@ import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.logging.log4j.Logger;
 import org.folio.okapi.common.HttpResponse;
 import org.folio.okapi.common.OkapiLogger;
+import org.folio.okapi.common.XOkapiHeaders;
 import org.folio.okapi.service.ModuleHandle;
 import org.folio.okapi.testutil.ModuleTenantInitAsync;
 import org.junit.After;
@@ -45,6 +47,7 @@ public class InstallTest {
   private final int portOkapi = 9230;
   private final int portModule = 9235;
   private final int portModule2 = 9236;
+  private final int portAuth = 9237;
   private HttpServer httpServerV1 = null;
   private Async asyncV1 = null;  // used to wake up the v1 server's init.
   private int v1TenantInitStatus = 200;
@@ -57,8 +60,12 @@ public class InstallTest {
   }
 
   Future<Void> startOkapi() {
+    return startOkapi(new JsonObject());
+  }
+
+  Future<Void> startOkapi(JsonObject config) {
     DeploymentOptions opt = new DeploymentOptions()
-        .setConfig(new JsonObject()
+        .setConfig(config.copy()
             .put("port", Integer.toString(portOkapi)));
     return vertx.deployVerticle(MainVerticle.class.getName(), opt).mapEmpty();
   }
@@ -1213,6 +1220,111 @@ public class InstallTest {
     tModule2.stop().onComplete(context.asyncAssertSuccess());
   }
 
+  @Test
+  public void installTenantInitVersion2Callback(TestContext context) {
+    final String okapiTenant = "roskilde";
+    final String module = "v2-module-1.0.0";
+
+    // restart Okapi with callback enabled
+    Async async = context.async();
+    vertx.close().onComplete(context.asyncAssertSuccess(x -> async.complete()));
+    async.await();
+    vertx = Vertx.vertx();
+    Async async2 = context.async();
+    startOkapi(new JsonObject()
+        .put("tenant_init_callback", true)
+        .put("tenant_init_poll_max_ms", 600000))
+        .onComplete(context.asyncAssertSuccess(x -> async2.complete()));
+    async2.await();
+
+    createTenant(context, okapiTenant);
+    postAsyncInitModule(context, module);
+    ModuleTenantInitAsync tModule = new ModuleTenantInitAsync(vertx, portModule);
+    tModule.setCallbackDelay(1500);
+    startModule(tModule, context);
+    deployAsyncInitModule(context, module, portModule);
+
+    JsonObject job = installAndWait(context, okapiTenant, module);
+    context.assertEquals(new JsonObject()
+        .put("complete", true)
+        .put("modules", new JsonArray()
+            .add(new JsonObject()
+                .put("id", module)
+                .put("action", "enable")
+                .put("stage", "done")
+            )
+        ), job);
+    assertThat(tModule.getOperations().get(0).getString("callback_url"),
+        startsWith("http://localhost:" + portOkapi + "/_/tenantinit/"));
+    assertThat(tModule.getCallbackStatus(), is(204));
+
+    // unknown callback ID is accepted, but does nothing
+    RestAssured.given().post("/_/tenantinit/12121").then().statusCode(204);
+
+    tModule.stop().onComplete(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void installTenantInitVersion2SystemToken(TestContext context) {
+    final String okapiTenant = "roskilde";
+    final String module1 = "v2-module-1.0.0";
+    final String module2 = "v2-module-1.0.1";
+
+    AtomicInteger authCalls = new AtomicInteger();
+    Async async = context.async();
+    vertx.createHttpServer()
+        .requestHandler(req -> {
+          authCalls.incrementAndGet();
+          req.response()
+              .putHeader(XOkapiHeaders.TOKEN, "system-token")
+              .putHeader(XOkapiHeaders.MODULE_TOKENS, "{}")
+              .end();
+        })
+        .listen(portAuth)
+        .onComplete(context.asyncAssertSuccess(x -> async.complete()));
+    async.await();
+
+    createTenant(context, okapiTenant);
+    for (String auth : new String[] {"auth-1.0.0", "auth-1.0.1"}) {
+      JsonObject md = new JsonObject()
+          .put("id", auth)
+          .put("filters", new JsonArray()
+              .add(new JsonObject()
+                  .put("methods", new JsonArray().add("*"))
+                  .put("pathPattern", "/*")
+                  .put("phase", "auth")
+                  .put("type", "headers")));
+      api.createRestAssured3().given()
+          .header("Content-Type", "application/json")
+          .body(md.encode()).post("/_/proxy/modules").then().statusCode(201);
+      deployAsyncInitModule(context, auth, portAuth);
+    }
+    installAndWait(context, okapiTenant, "auth-1.0.0");
+    context.assertEquals(0, authCalls.get());
+
+    postAsyncInitModule(context, module1);
+    ModuleTenantInitAsync tModule = new ModuleTenantInitAsync(vertx, portModule);
+    startModule(tModule, context);
+    deployAsyncInitModule(context, module1, portModule);
+    JsonObject job = installAndWait(context, okapiTenant, module1);
+    context.assertEquals("done", job.getJsonArray("modules").getJsonObject(0).getString("stage"));
+    // POST, two GET polls and DELETE of the tenant job share one token
+    context.assertEquals(1, authCalls.get());
+
+    // auth module upgrade drops the cached tokens
+    installAndWait(context, okapiTenant, "auth-1.0.1");
+    postAsyncInitModule(context, module2);
+    ModuleTenantInitAsync tModule2 = new ModuleTenantInitAsync(vertx, portModule2);
+    startModule(tModule2, context);
+    deployAsyncInitModule(context, module2, portModule2);
+    job = installAndWait(context, okapiTenant, module2);
+    context.assertEquals("done", job.getJsonArray("modules").getJsonObject(0).getString("stage"));
+    context.assertEquals(2, authCalls.get());
+
+    tModule.stop().onComplete(context.asyncAssertSuccess());
+    tModule2.stop().onComplete(context.asyncAssertSuccess());
+  }
+
   @Test
   public void installTenantInitVersion2EnableWithPurge(TestContext context) {
     final String okapiTenant = "roskilde";
@@ -1862,4 +1974,161 @@ public class InstallTest {
     tModule.stop().onComplete(context.asyncAssertSuccess());
   }
 
+  @Test
+  public void installSeveralTenants(TestContext context) {
+    RestAssuredClient c;
+
+    createTenant(context, "roskilde");
+    createTenant(context, "odense");
+
+    JsonObject provider = new JsonObject()
+        .put("id", "bulk-provider-1.0.0")
+        .put("provides", new JsonArray()
+            .add(new JsonObject()
+                .put("id", "bulk")
+                .put("version", "1.0")
+                .put("handlers", new JsonArray())));
+    JsonObject user = new JsonObject()
+        .put("id", "bulk-user-1.0.0")
+        .put("requires", new JsonArray()
+            .add(new JsonObject()
+                .put("id", "bulk")
+                .put("version", "1.0")));
+    for (JsonObject md : new JsonObject[] {provider, user}) {
+      c = api.createRestAssured3();
+      c.given()
+          .header("Content-Type", "application/json")
+          .body(md.encode()).post("/_/proxy/modules").then().statusCode(201);
+      Assert.assertTrue(
+          "raml: " + c.getLastReport().toString(),
+          c.getLastReport().isEmpty());
+    }
+
+    JsonObject bulkBody = new JsonObject()
+        .put("tenants", new JsonArray())
+        .put("modules", new JsonArray()
+            .add(new JsonObject()
+                .put("id", "bulk-user-1.0.0")
+                .put("action", "enable")));
+
+    c = api.createRestAssured3();
+    c.given()
+        .header("Content-Type", "application/json")
+        .body(bulkBody.encode()).post("/_/proxy/install")
+        .then().statusCode(400).body(equalTo("No tenants given for install"));
+    Assert.assertTrue(
+        "raml: " + c.getLastReport().toString(),
+        c.getLastReport().isEmpty());
+
+    bulkBody.put("tenants", new JsonArray().add("roskilde"));
+    c = api.createRestAssured3();
+    c.given()
+        .header("Content-Type", "application/json")
+        .body(bulkBody.encode()).post("/_/proxy/install?tenantParallel=0")
+        .then().statusCode(400)
+        .body(equalTo("tenantParallel and moduleParallel must be 1 or higher"));
+    Assert.assertTrue(
+        "raml: " + c.getLastReport().toString(),
+        c.getLastReport().isEmpty());
+
+    bulkBody.put("tenants", new JsonArray().add("roskilde").add("nosuchtenant"));
+    c = api.createRestAssured3();
+    c.given()
+        .header("Content-Type", "application/json")
+        .body(bulkBody.encode()).post("/_/proxy/install")
+        .then().statusCode(404).body(equalTo("nosuchtenant"));
+    Assert.assertTrue(
+        "raml: " + c.getLastReport().toString(),
+        c.getLastReport().isEmpty());
+
+    bulkBody.put("tenants", new JsonArray().add("roskilde").add("odense"));
+    c = api.createRestAssured3();
+    JsonObject job = new JsonObject(c.given()
+        .header("Content-Type", "application/json")
+        .body(bulkBody.encode()).post("/_/proxy/install?simulate=true")
+        .then().statusCode(200)
+        .extract().body().asString());
+    Assert.assertTrue(
+        "raml: " + c.getLastReport().toString(),
+        c.getLastReport().isEmpty());
+    context.assertTrue(job.getBoolean("complete"));
+    JsonArray tenantJobs = job.getJsonArray("tenants");
+    context.assertEquals(2, tenantJobs.size());
+    for (int i = 0; i < tenantJobs.size(); i++) {
+      context.assertEquals(new JsonArray()
+          .add(new JsonObject().put("id", "bulk-provider-1.0.0").put("action", "enable"))
+          .add(new JsonObject().put("id", "bulk-user-1.0.0").put("action", "enable")),
+          tenantJobs.getJsonObject(i).getJsonArray("modules"));
+    }
+
+    c = api.createRestAssured3();
+    String location = c.given()
+        .header("Content-Type", "application/json")
+        .body(bulkBody.encode()).post("/_/proxy/install?tenantParallel=1&moduleParallel=1")
+        .then().statusCode(201)
+        .extract().header("Location");
+    Assert.assertTrue(
+        "raml: " + c.getLastReport().toString(),
+        c.getLastReport().isEmpty());
+    String path = location.substring(location.indexOf("/_/"));
+
+    job = pollComplete(context, path);
+    tenantJobs = job.getJsonArray("tenants");
+    context.assertEquals(2, tenantJobs.size());
+    for (int i = 0; i < tenantJobs.size(); i++) {
+      JsonObject tenantJob = tenantJobs.getJsonObject(i);
+      context.assertTrue(tenantJob.getBoolean("complete"));
+      context.assertNull(tenantJob.getString("message"));
+      JsonObject installJob = pollCompleteStrip(context, "/_/proxy/tenants/"
+          + tenantJob.getString("id") + "/install/" + tenantJob.getString("installId"));
+      context.assertEquals(new JsonObject()
+          .put("complete", true)
+          .put("modules", new JsonArray()
+              .add(new JsonObject().put("id", "bulk-provider-1.0.0")
+                  .put("action", "enable").put("stage", "done"))
+              .add(new JsonObject().put("id", "bulk-user-1.0.0")
+                  .put("action", "enable").put("stage", "done"))), installJob);
+    }
+
+    c = api.createRestAssured3();
+    c.given().get("/_/proxy/install").then().statusCode(200)
+        .body("id", hasItem(job.getString("id")));
+    Assert.assertTrue(
+        "raml: " + c.getLastReport().toString(),
+        c.getLastReport().isEmpty());
+
+    c = api.createRestAssured3();
+    c.given().get("/_/proxy/install/12121").then().statusCode(404).body(equalTo("12121"));
+    Assert.assertTrue(
+        "raml: " + c.getLastReport().toString(),
+        c.getLastReport().isEmpty());
+
+    c = api.createRestAssured3();
+    c.given().delete("/_/proxy/install/12121").then().statusCode(404).body(equalTo("12121"));
+    Assert.assertTrue(
+        "raml: " + c.getLastReport().toString(),
+        c.getLastReport().isEmpty());
+
+    c = api.createRestAssured3();
+    c.given().delete(path).then().statusCode(204);
+    Assert.assertTrue(
+        "raml: " + c.getLastReport().toString(),
+        c.getLastReport().isEmpty());
+
+    c = api.createRestAssured3();
+    c.given().get(path).then().statusCode(404);
+    Assert.assertTrue(
+        "raml: " + c.getLastReport().toString(),
+        c.getLastReport().isEmpty());
+
+    // install jobs of each tenant are kept
+    JsonObject tenantJob = tenantJobs.getJsonObject(0);
+    c = api.createRestAssured3();
+    c.given().get("/_/proxy/tenants/" + tenantJob.getString("id") + "/install/"
+        + tenantJob.getString("installId")).then().statusCode(200);
+    Assert.assertTrue(
+        "raml: " + c.getLastReport().toString(),
+        c.getLastReport().isEmpty());
+  }
+
 }
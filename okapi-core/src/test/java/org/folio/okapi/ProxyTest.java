@@ -4253,4 +4253,69 @@ public class ProxyTest {
         .body(equalTo("Okapi"));
   }
 
+  @Test
+  public void testHttp2HopByHopHeaders(TestContext context) {
+    final String tenant = "h2ctenant";
+    final String moduleId = "h2c-module-1.0.0";
+    final int portH2c = 9240;
+    // h2c only module that reports HTTP version and any hop-by-hop headers it gets
+    Async async = context.async();
+    vertx.createHttpServer(new HttpServerOptions().setHttp2ClearTextEnabled(true))
+        .requestHandler(req -> {
+          List<String> hopByHop = new LinkedList<>();
+          for (String name : List.of("Connection", "Keep-Alive", "X-Hop", "Upgrade")) {
+            if (req.headers().contains(name)) {
+              hopByHop.add(name);
+            }
+          }
+          req.response().end(req.version().alpnName() + " " + hopByHop);
+        })
+        .listen(portH2c)
+        .onComplete(context.asyncAssertSuccess(x -> async.complete()));
+    async.await();
+
+    setupBasicTenant(tenant);
+    JsonObject md = new JsonObject()
+        .put("id", moduleId)
+        .put("provides", new JsonArray()
+            .add(new JsonObject()
+                .put("id", "h2c")
+                .put("version", "1.0")
+                .put("handlers", new JsonArray()
+                    .add(new JsonObject()
+                        .put("methods", new JsonArray().add("GET"))
+                        .put("pathPattern", "/h2c")
+                        .put("permissionsRequired", new JsonArray())))));
+    api.createRestAssured3().given()
+        .header("Content-Type", "application/json")
+        .body(md.encode()).post("/_/proxy/modules")
+        .then().statusCode(201);
+    JsonObject dd = new JsonObject()
+        .put("instId", "h2c-inst")
+        .put("srvcId", moduleId)
+        .put("url", "http://localhost:" + portH2c)
+        .put("http2", "prior-knowledge");
+    api.createRestAssured3().given()
+        .header("Content-Type", "application/json")
+        .body(dd.encode()).post("/_/discovery/modules")
+        .then().statusCode(201);
+    api.createRestAssured3().given()
+        .header("Content-Type", "application/json")
+        .body(new JsonArray().add(new JsonObject().put("id", moduleId).put("action", "enable"))
+            .encode())
+        .post("/_/proxy/tenants/" + tenant + "/install")
+        .then().statusCode(200);
+
+    given()
+        .header("X-Okapi-Tenant", tenant)
+        .header("Connection", "keep-alive, X-Hop")
+        .header("Keep-Alive", "timeout=5")
+        .header("X-Hop", "1")
+        .get("/h2c")
+        .then().statusCode(200).log().ifValidationFails()
+        .body(equalTo("h2 []"));
+
+    given().delete("/_/proxy/tenants/" + tenant).then().statusCode(204);
+  }
+
 }
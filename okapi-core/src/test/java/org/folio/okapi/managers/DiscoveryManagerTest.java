@@ -6,6 +6,7 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import org.folio.okapi.bean.DeploymentDescriptor;
@@ -13,7 +14,9 @@ import org.folio.okapi.bean.ModuleDescriptor;
 import org.folio.okapi.service.DeploymentStore;
 import org.folio.okapi.service.ModuleStore;
 import org.folio.okapi.service.impl.DeploymentStoreNull;
+import org.folio.okapi.util.LoadBalancers;
 import org.folio.okapi.util.TestBase;
+import org.folio.okapi.util.UpstreamClients;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -145,4 +148,119 @@ public class DiscoveryManagerTest extends TestBase {
             discoveryManager.addAndDeployIgnoreError(new DeploymentDescriptor())
                 .onComplete(context.asyncAssertSuccess())));
   }
+
+  static DeploymentDescriptor deployment(String srvcId, String instId, String nodeId) {
+    DeploymentDescriptor dd = new DeploymentDescriptor();
+    dd.setSrvcId(srvcId);
+    dd.setInstId(instId);
+    dd.setNodeId(nodeId);
+    dd.setUrl("http://localhost:9231/" + instId);
+    return dd;
+  }
+
+  @Test
+  public void routingTable(TestContext context) {
+    // share maps and event bus like two nodes in a cluster
+    DiscoveryManager dm1 = new DiscoveryManager(null, new JsonObject());
+    DiscoveryManager dm2 = new DiscoveryManager(null, new JsonObject());
+    List<String> evictedUrls = new ArrayList<>();
+    dm1.setEvictedUrlHandler(evictedUrls::add);
+    {
+      Async async = context.async();
+      dm1.init(vertx)
+          .compose(x -> dm2.init(vertx))
+          .compose(x -> dm1.add(deployment("module-1.0.0", "i1", null)))
+          .compose(x -> dm1.add(deployment("module-1.0.0", "i2", "gone")))
+          .compose(x -> {
+            context.assertNull(dm2.lookupRoutes("module-1.0.0"));
+            return dm2.getRoutes("module-1.0.0");
+          })
+          .onComplete(context.asyncAssertSuccess(list -> {
+            // instance on unknown node is not alive
+            context.assertEquals(1, list.size());
+            context.assertEquals("i1", list.get(0).getInstId());
+            context.assertEquals(list, dm2.lookupRoutes("module-1.0.0"));
+            context.assertNull(dm2.lookupRoutes("other-1.0.0"));
+            async.complete();
+          }));
+      async.await();
+    }
+    {
+      Async async = context.async();
+      dm1.add(deployment("module-1.0.0", "i3", null))
+          .onComplete(context.asyncAssertSuccess(x -> async.complete()));
+      async.await();
+    }
+    {
+      Async async = context.async();
+      vertx.setTimer(100, y -> {
+        context.assertNull(dm2.lookupRoutes("module-1.0.0"));
+        dm2.getRoutes("module-1.0.0").onComplete(context.asyncAssertSuccess(list -> {
+          context.assertEquals(2, list.size());
+          async.complete();
+        }));
+      });
+      async.await();
+    }
+    String url1 = deployment("module-1.0.0", "i1", null).getUrl();
+    String url3 = deployment("module-1.0.0", "i3", null).getUrl();
+    {
+      Async async = context.async();
+      dm1.getRoutes("module-1.0.0").onComplete(context.asyncAssertSuccess(list -> {
+        dm1.getUpstreamStats().start(url1).end();
+        dm1.getUpstreamStats().start(url3).end();
+        async.complete();
+      }));
+      async.await();
+    }
+    {
+      Async async = context.async();
+      dm1.remove("module-1.0.0", "i1")
+          .compose(x -> {
+            // instances left the routing table, so their counters are gone
+            context.assertTrue(dm1.getUpstreamStats().get(url1).getEwma() < 0.0);
+            context.assertTrue(dm1.getUpstreamStats().get(url3).getEwma() < 0.0);
+            context.assertTrue(evictedUrls.containsAll(List.of(url1, url3)));
+            return dm1.getRoutes("module-1.0.0");
+          })
+          .onComplete(context.asyncAssertSuccess(list -> {
+            context.assertEquals(1, list.size());
+            context.assertEquals("i3", list.get(0).getInstId());
+            async.complete();
+          }));
+      async.await();
+    }
+    dm1.nodeLeft("gone");
+    context.assertNull(dm1.lookupRoutes("module-1.0.0"));
+  }
+
+  @Test
+  public void unknownLoadBalancing(TestContext context) {
+    DiscoveryManager discoveryManager = new DiscoveryManager(null, new JsonObject());
+    DeploymentDescriptor dd1 = deployment("module-1.0.0", "i1", null);
+    dd1.setLoadBalancing("round-robin");
+    DeploymentDescriptor dd2 = deployment("module-1.0.0", "i2", null);
+    dd2.setLoadBalancing(LoadBalancers.EWMA);
+    discoveryManager.init(vertx)
+        .compose(x -> discoveryManager.addAndDeploy(dd1))
+        .onComplete(context.asyncAssertFailure(cause -> {
+          context.assertEquals("Unknown load balancing strategy round-robin", cause.getMessage());
+          discoveryManager.add(dd2).onComplete(context.asyncAssertSuccess());
+        }));
+  }
+
+  @Test
+  public void unknownHttp2(TestContext context) {
+    DiscoveryManager discoveryManager = new DiscoveryManager(null, new JsonObject());
+    DeploymentDescriptor dd1 = deployment("module-1.0.0", "i1", null);
+    dd1.setHttp2("h2");
+    DeploymentDescriptor dd2 = deployment("module-1.0.0", "i2", null);
+    dd2.setHttp2(UpstreamClients.PRIOR_KNOWLEDGE);
+    discoveryManager.init(vertx)
+        .compose(x -> discoveryManager.add(dd1))
+        .onComplete(context.asyncAssertFailure(cause -> {
+          context.assertEquals("Unknown HTTP/2 mode h2", cause.getMessage());
+          discoveryManager.add(dd2).onComplete(context.asyncAssertSuccess());
+        }));
+  }
 }
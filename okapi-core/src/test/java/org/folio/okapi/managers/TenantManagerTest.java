@@ -112,6 +112,76 @@ public class TenantManagerTest extends TestBase {
     }
   }
 
+  @Test
+  public void testTenantCache(TestContext context) {
+    TenantManager tm1 = new TenantManager(null, new TenantStoreNull(), true);
+    TenantManager tm2 = new TenantManager(null, new TenantStoreNull(), true);
+    TenantDescriptor td = new TenantDescriptor();
+    td.setId("tenant");
+    td.setName("first name");
+    {
+      Async async = context.async();
+      tm1.init(vertx)
+          .compose(x -> tm2.init(vertx))
+          .compose(x -> tm2.getCached("tenant"))
+          .onComplete(context.asyncAssertFailure(cause -> {
+            context.assertEquals(ErrorType.NOT_FOUND, OkapiError.getType(cause));
+            async.complete();
+          }));
+      async.await();
+    }
+    {
+      Async async = context.async();
+      tm1.insert(new Tenant(td))
+          .compose(x -> tm2.getCached("tenant"))
+          .compose(t1 -> tm2.getCached("tenant").map(t2 -> {
+            assertThat(t2).isSameAs(t1);
+            assertThat(t2.getName()).isEqualTo("first name");
+            return null;
+          }))
+          .onComplete(context.asyncAssertSuccess(x -> async.complete()));
+      async.await();
+    }
+    {
+      Async async = context.async();
+      td.setName("second name");
+      tm1.updateDescriptor(td).onComplete(context.asyncAssertSuccess(x -> async.complete()));
+      async.await();
+    }
+    {
+      // invalidation is delivered to tm2 via event bus
+      Async async = context.async();
+      vertx.setTimer(100, x -> tm2.getCached("tenant")
+          .onComplete(context.asyncAssertSuccess(t -> {
+            assertThat(t.getName()).isEqualTo("second name");
+            async.complete();
+          })));
+      async.await();
+    }
+    {
+      Async async = context.async();
+      tm1.delete("tenant")
+          .compose(x -> tm1.getCached("tenant"))
+          .onComplete(context.asyncAssertFailure(cause -> {
+            context.assertEquals(ErrorType.NOT_FOUND, OkapiError.getType(cause));
+            async.complete();
+          }));
+      async.await();
+    }
+    tm2.setTenantCacheTtl(0);
+    {
+      Async async = context.async();
+      tm1.insert(new Tenant(td))
+          .compose(x -> tm2.getCached("tenant"))
+          .compose(t1 -> tm2.getCached("tenant").map(t2 -> {
+            assertThat(t2).isNotSameAs(t1);
+            return null;
+          }))
+          .onComplete(context.asyncAssertSuccess(x -> async.complete()));
+      async.await();
+    }
+  }
+
   @Test
   public void testTenantStoreFaulty(TestContext context) {
     final String fakeMsg = "fmsg";
@@ -86,6 +86,24 @@ class PostgresHandleTest extends PgTestBase implements WithAssertions {
     assertThat(postgresHandle.getOptions().getPort()).isEqualTo(5432);
   }
 
+  @Test
+  void poolAndStatementOptions(Vertx vertx) {
+    PostgresHandle postgresHandle = new PostgresHandle(vertx, new JsonObject());
+    assertThat(postgresHandle.getPoolOptions().getMaxSize()).isEqualTo(5);
+    assertThat(postgresHandle.getPoolOptions().getMaxWaitQueueSize()).isEqualTo(-1);
+    assertThat(postgresHandle.getOptions().getCachePreparedStatements()).isTrue();
+
+    postgresHandle = new PostgresHandle(vertx, new JsonObject()
+        .put("postgres_pool_size", 20)
+        .put("postgres_max_wait_queue", 1000)
+        .put("postgres_pipelining_limit", 16)
+        .put("postgres_cache_prepared_statements", false));
+    assertThat(postgresHandle.getPoolOptions().getMaxSize()).isEqualTo(20);
+    assertThat(postgresHandle.getPoolOptions().getMaxWaitQueueSize()).isEqualTo(1000);
+    assertThat(postgresHandle.getOptions().getPipeliningLimit()).isEqualTo(16);
+    assertThat(postgresHandle.getOptions().getCachePreparedStatements()).isFalse();
+  }
+
   private static JsonObject config() {
     return new JsonObject()
         .put("postgres_host", POSTGRESQL_CONTAINER.getHost())
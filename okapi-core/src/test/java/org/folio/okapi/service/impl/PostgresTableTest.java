@@ -0,0 +1,73 @@
+package org.folio.okapi.service.impl;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.List;
+import org.assertj.core.api.WithAssertions;
+import org.folio.okapi.bean.EnvEntry;
+import org.folio.okapi.util.PgTestBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@Timeout(5000)
+@ExtendWith(VertxExtension.class)
+class PostgresTableTest extends PgTestBase implements WithAssertions {
+
+  private static final String JSON_COLUMN = "json";
+
+  static PostgresTable<EnvEntry> table(Vertx vertx) {
+    JsonObject config = new JsonObject()
+        .put("postgres_host", POSTGRESQL_CONTAINER.getHost())
+        .put("postgres_port", POSTGRESQL_CONTAINER.getFirstMappedPort() + "")
+        .put("postgres_database", POSTGRESQL_CONTAINER.getDatabaseName())
+        .put("postgres_username", POSTGRESQL_CONTAINER.getUsername())
+        .put("postgres_password", POSTGRESQL_CONTAINER.getPassword());
+    return new PostgresTable<>(new PostgresHandle(vertx, config), "table_test", JSON_COLUMN,
+        JSON_COLUMN + "->'name'", JSON_COLUMN + "->>'name' = $1", "table_test_name");
+  }
+
+  static EnvEntry env(String name, String value) {
+    EnvEntry env = new EnvEntry();
+    env.setName(name);
+    env.setValue(value);
+    return env;
+  }
+
+  @Test
+  void batches(Vertx vertx, VertxTestContext vtc) {
+    PostgresTable<EnvEntry> table = table(vertx);
+    table.init(true)
+        .compose(x -> table.insertBatch(List.of(env("a", "1"), env("b", "1"), env("c", "1"))))
+        .compose(x -> table.updateBatch(List.of(env("b", "2"), env("d", "2"))))
+        .compose(x -> table.update(env("c", "3")))
+        .compose(x -> table.deleteBatch(List.of("a", "d", "x")))
+        .compose(count -> {
+          assertThat(count).isEqualTo(2);
+          return table.delete("x");
+        })
+        .compose(deleted -> {
+          assertThat(deleted).isFalse();
+          return table.getAll(EnvEntry.class);
+        })
+        .onComplete(vtc.succeeding(list -> {
+          assertThat(list).extracting(EnvEntry::getName, EnvEntry::getValue)
+              .containsExactlyInAnyOrder(tuple("b", "2"), tuple("c", "3"));
+          vtc.completeNow();
+        }));
+  }
+
+  @Test
+  void insertDuplicate(Vertx vertx, VertxTestContext vtc) {
+    PostgresTable<EnvEntry> table = table(vertx);
+    table.init(true)
+        .compose(x -> table.insert(env("a", "1")))
+        .compose(x -> table.insertBatch(List.of(env("b", "1"), env("a", "2"))))
+        .onComplete(vtc.failing(e -> {
+          assertThat(e.getMessage()).contains("duplicate key");
+          vtc.completeNow();
+        }));
+  }
+}
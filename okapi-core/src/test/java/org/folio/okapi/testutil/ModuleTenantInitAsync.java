@@ -2,7 +2,10 @@ package org.folio.okapi.testutil;
 
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.RequestOptions;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
@@ -32,6 +35,8 @@ public class ModuleTenantInitAsync implements ModuleHandle {
   private boolean purgeFail = false;
   private String errorMessage;
   private JsonArray additionalMessages;
+  private long callbackDelay = -1;
+  private int callbackStatus;
   private Map<String,JsonObject> jobs = new HashMap<>();
   private List<JsonObject> operations = new LinkedList<>();
   private Map<String, Instant> startTime = new HashMap<>();
@@ -79,6 +84,18 @@ public class ModuleTenantInitAsync implements ModuleHandle {
     this.additionalMessages = additionalMessages;
   }
 
+  /**
+   * Complete tenant jobs only by callback, if Okapi gives a callback URL.
+   * @param callbackDelay time in ms until the job is complete and Okapi is called
+   */
+  public void setCallbackDelay(long callbackDelay) {
+    this.callbackDelay = callbackDelay;
+  }
+
+  public int getCallbackStatus() {
+    return callbackStatus;
+  }
+
   void permissionsPost(RoutingContext ctx) {
     ctx.response().setStatusCode(200).end();
   }
@@ -111,6 +128,18 @@ public class ModuleTenantInitAsync implements ModuleHandle {
         obj.put("id", id);
       }
       jobs.put(id, obj);
+      String callbackUrl = obj.getString("callback_url");
+      if (callbackDelay >= 0 && callbackUrl != null) {
+        obj.put("count", Integer.MAX_VALUE);
+        vertx.setTimer(callbackDelay, x -> {
+          obj.put("count", 0);
+          vertx.createHttpClient()
+              .request(new RequestOptions().setMethod(HttpMethod.POST)
+                  .setAbsoluteURI(callbackUrl))
+              .compose(HttpClientRequest::send)
+              .onSuccess(res -> callbackStatus = res.statusCode());
+        });
+      }
       ctx.response().setStatusCode(201);
       ctx.response().putHeader("Content-Type", "application/json");
       if (!omitLocationInResponse) {
@@ -0,0 +1,93 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import org.assertj.core.api.WithAssertions;
+import org.folio.okapi.ConfNames;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.folio.okapi.bean.ModuleInstance;
+import org.folio.okapi.bean.RoutingEntry;
+import org.junit.jupiter.api.Test;
+
+class AccessLogTest implements WithAssertions {
+
+  @Test
+  void parseSampleRates() {
+    assertThat(AccessLog.parseSampleRates("1")).isEqualTo(Map.of("*", 1));
+    assertThat(AccessLog.parseSampleRates("100, diku = 1,test=0"))
+        .isEqualTo(Map.of("*", 100, "diku", 1, "test", 0));
+    assertThatThrownBy(() -> AccessLog.parseSampleRates("diku=x"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Bad access_log_sample diku=x");
+    assertThatThrownBy(() -> AccessLog.parseSampleRates("=1"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> AccessLog.parseSampleRates("-2"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> AccessLog.create(
+        new JsonObject().put(ConfNames.ACCESS_LOG_SAMPLE, "a")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void sample() {
+    AccessLog accessLog = new AccessLog(false, 0, AccessLog.parseSampleRates("3,diku=1,test=0"));
+    for (int i = 0; i < 6; i++) {
+      assertThat(accessLog.sample("diku")).isTrue();
+      assertThat(accessLog.sample("test")).isFalse();
+      assertThat(accessLog.sample("other")).isEqualTo(i % 3 == 0);
+    }
+    assertThat(AccessLog.DEFAULT.sample("any")).isTrue();
+  }
+
+  @Test
+  void format() {
+    ModuleDescriptor md = new ModuleDescriptor("mod-a-1.0.0");
+    ModuleInstance mi = new ModuleInstance(md, new RoutingEntry(), "/a", HttpMethod.GET, true);
+    SocketAddress remote = SocketAddress.inetSocketAddress(1234, "127.0.0.1");
+    assertThat(AccessLog.formatRequest("1/a", remote, "diku", HttpMethod.GET, "/a",
+        AccessLog.joinMods(List.of(mi, mi))))
+        .isEqualTo("1/a REQ " + remote + " diku GET /a mod-a-1.0.0 mod-a-1.0.0");
+    assertThat(AccessLog.joinMods(null)).isEmpty();
+    assertThat(AccessLog.formatResponse("1/a", 200, 12, "mod-a-1.0.0", "http://h/a"))
+        .isEqualTo("1/a RES 200 12us mod-a-1.0.0 http://h/a");
+    assertThat(AccessLog.formatResponse("1/a", 500, -1, "okapi", "msg"))
+        .isEqualTo("1/a RES 500 - okapi msg");
+  }
+
+  @Test
+  void ringBuffer() {
+    AccessLog accessLog = new AccessLog(true, 3, Map.of());
+    assertThat(accessLog.poll(0)).isFalse();
+    for (int i = 0; i < 5; i++) {
+      accessLog.response("1/a", "diku", null, "mod-a", "http://h/a", 200, i);
+    }
+    // capacity is 4, the fifth entry is dropped
+    for (int i = 0; i < 4; i++) {
+      assertThat(accessLog.poll(i)).isTrue();
+    }
+    assertThat(accessLog.poll(4)).isFalse();
+    accessLog.request("2/a", "diku", null, SocketAddress.inetSocketAddress(1, "localhost"),
+        HttpMethod.POST, "/a", null);
+    assertThat(accessLog.poll(4)).isTrue();
+  }
+
+  @Test
+  void close() {
+    AccessLog accessLog = AccessLog.create(
+        new JsonObject().put(ConfNames.ACCESS_LOG_ASYNC, true));
+    assertThat(writerThreads()).isOne();
+    accessLog.close();
+    accessLog.close();
+    assertThat(writerThreads()).isZero();
+    AccessLog.DEFAULT.close();
+  }
+
+  private static long writerThreads() {
+    return Thread.getAllStackTraces().keySet().stream()
+        .filter(t -> t.isAlive() && "okapi-access-log".equals(t.getName()))
+        .count();
+  }
+}
@@ -0,0 +1,99 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class BodyHolderTest implements WithAssertions {
+
+  static final Buffer BODY = Buffer.buffer();
+
+  static {
+    for (int i = 0; i < 10000; i++) {
+      BODY.appendString(i + "\n");
+    }
+  }
+
+  /**
+   * Open file with BODY as stream of small chunks.
+   */
+  private static Future<AsyncFile> source(Vertx vertx) {
+    FileSystem fs = vertx.fileSystem();
+    return fs.createTempFile("body", ".in")
+        .compose(path -> fs.writeFile(path, BODY).map(path))
+        .compose(path -> fs.open(path, new OpenOptions().setRead(true)))
+        .map(file -> {
+          file.setReadBufferSize(1024);
+          file.pause();
+          return file;
+        });
+  }
+
+  /**
+   * Send body to a new file and return the content of that.
+   */
+  private static Future<Buffer> send(Vertx vertx, BodyHolder body) {
+    FileSystem fs = vertx.fileSystem();
+    return fs.createTempFile("body", ".out")
+        .compose(path -> fs.open(path, new OpenOptions().setWrite(true))
+            .compose(body::end)
+            .compose(x -> fs.readFile(path)));
+  }
+
+  @Test
+  void inMemory(Vertx vertx, VertxTestContext vtc) {
+    source(vertx)
+        .compose(file -> BodyHolder.load(vertx, file, -1))
+        .compose(body -> {
+          assertThat(body.inMemory()).isTrue();
+          assertThat(body.length()).isEqualTo(BODY.length());
+          return body.toBuffer()
+              .map(buf -> assertThat(buf).isEqualTo(BODY))
+              .compose(x -> send(vertx, body))
+              .map(buf -> assertThat(buf).isEqualTo(BODY));
+        })
+        .onComplete(vtc.succeedingThenComplete());
+  }
+
+  @Test
+  void spilled(Vertx vertx, VertxTestContext vtc) {
+    source(vertx)
+        .compose(file -> BodyHolder.load(vertx, file, 5000))
+        .compose(body -> {
+          assertThat(body.inMemory()).isFalse();
+          assertThat(body.length()).isEqualTo(BODY.length());
+          assertThat(body.toString()).endsWith(".tmp>");
+          return body.toBuffer()
+              .map(buf -> assertThat(buf).isEqualTo(BODY))
+              // can be sent more than once
+              .compose(x -> send(vertx, body))
+              .map(buf -> assertThat(buf).isEqualTo(BODY))
+              .compose(x -> send(vertx, body))
+              .map(buf -> assertThat(buf).isEqualTo(BODY))
+              .map(x -> {
+                body.close();
+                return body;
+              });
+        })
+        .compose(body -> vertx.timer(100).compose(x -> body.toBuffer()))
+        .onComplete(vtc.failingThenComplete());
+  }
+
+  @Test
+  void empty(Vertx vertx, VertxTestContext vtc) {
+    BodyHolder body = BodyHolder.of(Buffer.buffer());
+    assertThat(body.length()).isZero();
+    send(vertx, body)
+        .map(buf -> assertThat(buf.length()).isZero())
+        .onComplete(vtc.succeedingThenComplete());
+  }
+}
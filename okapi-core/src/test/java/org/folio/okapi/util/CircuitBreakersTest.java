@@ -0,0 +1,155 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.WithAssertions;
+import org.folio.okapi.ConfNames;
+import org.folio.okapi.util.CircuitBreakers.State;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakersTest implements WithAssertions {
+
+  static final String URL = "http://localhost:9231";
+
+  long now = 0;
+  List<Promise<Boolean>> probes = new ArrayList<>();
+
+  private CircuitBreakers breakers(int failures, long latencyMs) {
+    return new CircuitBreakers(failures, latencyMs, 1000, url -> {
+      Promise<Boolean> promise = Promise.promise();
+      probes.add(promise);
+      return promise.future();
+    }, () -> now);
+  }
+
+  private void advance(long ms) {
+    now += TimeUnit.MILLISECONDS.toNanos(ms);
+  }
+
+  @Test
+  void disabled() {
+    CircuitBreakers breakers = new CircuitBreakers(new JsonObject(),
+        url -> Future.succeededFuture(true));
+    assertThat(breakers.isEnabled()).isFalse();
+    for (int i = 0; i < 10; i++) {
+      breakers.failure(URL);
+    }
+    assertThat(breakers.allow(URL)).isTrue();
+    assertThat(breakers.anyOpen()).isFalse();
+    assertThat(new CircuitBreakers(new JsonObject().put(ConfNames.CIRCUIT_BREAKER_FAILURES, "3"),
+        url -> Future.succeededFuture(true)).isEnabled()).isTrue();
+  }
+
+  @Test
+  void consecutiveFailures() {
+    CircuitBreakers breakers = breakers(3, 0);
+    breakers.failure(URL);
+    breakers.failure(URL);
+    breakers.success(URL, 1);
+    breakers.failure(URL);
+    breakers.failure(URL);
+    assertThat(breakers.allow(URL)).isTrue();
+    breakers.failure(URL);
+    assertThat(breakers.getState(URL)).isEqualTo(State.OPEN);
+    assertThat(breakers.anyOpen()).isTrue();
+    assertThat(breakers.allow(URL)).isFalse();
+    assertThat(breakers.allow("http://localhost:9232")).isTrue();
+    assertThat(breakers.allow(null)).isTrue();
+  }
+
+  @Test
+  void latency() {
+    CircuitBreakers breakers = breakers(2, 100);
+    breakers.success(URL, TimeUnit.MILLISECONDS.toNanos(99));
+    breakers.success(URL, TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(breakers.getState(URL)).isEqualTo(State.CLOSED);
+    breakers.success(URL, TimeUnit.MILLISECONDS.toNanos(500));
+    assertThat(breakers.getState(URL)).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  void halfOpen() {
+    CircuitBreakers breakers = breakers(2, 0);
+    breakers.failure(URL);
+    breakers.failure(URL);
+    advance(999);
+    assertThat(breakers.allow(URL)).isFalse();
+    assertThat(probes).isEmpty();
+
+    advance(1);
+    assertThat(breakers.allow(URL)).isFalse();
+    assertThat(breakers.getState(URL)).isEqualTo(State.HALF_OPEN);
+    assertThat(breakers.allow(URL)).isFalse();
+    assertThat(probes).hasSize(1);
+
+    // probe fails: open for another period
+    probes.get(0).fail("down");
+    assertThat(breakers.getState(URL)).isEqualTo(State.OPEN);
+    advance(999);
+    assertThat(breakers.allow(URL)).isFalse();
+    assertThat(probes).hasSize(1);
+
+    advance(1);
+    assertThat(breakers.allow(URL)).isFalse();
+    assertThat(probes).hasSize(2);
+    probes.get(1).complete(true);
+    assertThat(breakers.getState(URL)).isEqualTo(State.CLOSED);
+    assertThat(breakers.anyOpen()).isFalse();
+    assertThat(breakers.allow(URL)).isTrue();
+
+    // failures are counted from zero again
+    breakers.failure(URL);
+    assertThat(breakers.getState(URL)).isEqualTo(State.CLOSED);
+    breakers.failure(URL);
+    assertThat(breakers.getState(URL)).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  void unhealthyProbe() {
+    CircuitBreakers breakers = breakers(1, 0);
+    breakers.failure(URL);
+    advance(1000);
+    breakers.allow(URL);
+    probes.get(0).complete(false);
+    assertThat(breakers.getState(URL)).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  void probeThrows() {
+    CircuitBreakers breakers = new CircuitBreakers(1, 0, 0, url -> {
+      throw new IllegalStateException();
+    }, () -> now);
+    breakers.failure(URL);
+    assertThat(breakers.allow(URL)).isFalse();
+    assertThat(breakers.getState(URL)).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  void remove() {
+    CircuitBreakers breakers = breakers(1, 0);
+    breakers.remove(URL);
+    breakers.failure(URL);
+    breakers.failure("http://localhost:9232");
+    advance(1000);
+    assertThat(breakers.allow(URL)).isFalse();
+    assertThat(breakers.getState(URL)).isEqualTo(State.HALF_OPEN);
+
+    // a new instance on the same URL starts closed
+    breakers.remove(URL);
+    assertThat(breakers.getState(URL)).isEqualTo(State.CLOSED);
+    assertThat(breakers.allow(URL)).isTrue();
+    assertThat(breakers.anyOpen()).isTrue();
+    breakers.remove("http://localhost:9232");
+    assertThat(breakers.anyOpen()).isFalse();
+
+    // probe of removed breaker does not count
+    probes.get(0).complete(true);
+    assertThat(breakers.anyOpen()).isFalse();
+    breakers.failure(URL);
+    assertThat(breakers.anyOpen()).isTrue();
+  }
+}
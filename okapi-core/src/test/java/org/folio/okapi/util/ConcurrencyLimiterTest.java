@@ -0,0 +1,54 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest implements WithAssertions {
+
+  @Test
+  void limitPerKey() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+    List<Promise<String>> promises = new ArrayList<>();
+    List<Future<String>> futures = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      futures.add(limiter.run("a", () -> {
+        Promise<String> promise = Promise.promise();
+        promises.add(promise);
+        return promise.future();
+      }));
+    }
+    Future<String> other = limiter.run("b", () -> Future.succeededFuture("b"));
+    assertThat(other.result()).isEqualTo("b");
+    assertThat(limiter.getRunning("b")).isZero();
+    assertThat(promises).hasSize(2);
+    assertThat(limiter.getRunning("a")).isEqualTo(2);
+
+    promises.get(1).complete("a1");
+    assertThat(futures.get(1).result()).isEqualTo("a1");
+    assertThat(promises).hasSize(3);
+    assertThat(limiter.getRunning("a")).isEqualTo(2);
+
+    promises.get(0).fail("a0");
+    assertThat(futures.get(0).cause()).hasMessage("a0");
+    assertThat(limiter.getRunning("a")).isEqualTo(1);
+    promises.get(2).complete("a2");
+    assertThat(futures.get(2).result()).isEqualTo("a2");
+    assertThat(limiter.getRunning("a")).isZero();
+  }
+
+  @Test
+  void operationThrows() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+    Future<Void> future = limiter.run(() -> {
+      throw new IllegalStateException("thrown");
+    });
+    assertThat(future.cause()).hasMessage("thrown");
+    assertThat(limiter.run(() -> Future.succeededFuture("ok")).result()).isEqualTo("ok");
+    assertThatThrownBy(() -> new ConcurrencyLimiter(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,106 @@
+package org.folio.okapi.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.assertj.core.api.WithAssertions;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.folio.okapi.bean.RoutingEntry;
+import org.folio.okapi.bean.TenantModuleDescriptor;
+import org.folio.okapi.bean.TenantModuleDescriptor.Action;
+import org.junit.jupiter.api.Test;
+
+class InstallSchedulerTest implements WithAssertions {
+
+  final Map<String, ModuleDescriptor> modsAvailable = new HashMap<>();
+
+  ModuleDescriptor module(String id, String provides, String requires) {
+    ModuleDescriptor md = new ModuleDescriptor(id);
+    if (provides != null) {
+      md.setProvidedHandler(provides, "1.0", new RoutingEntry());
+    }
+    if (requires != null) {
+      md.setRequires(requires, "1.0");
+    }
+    modsAvailable.put(id, md);
+    return md;
+  }
+
+  static TenantModuleDescriptor tm(String id, Action action) {
+    TenantModuleDescriptor tm = new TenantModuleDescriptor();
+    tm.setId(id);
+    tm.setAction(action);
+    return tm;
+  }
+
+  static long duration(ModuleDescriptor md) {
+    return md.getId().startsWith("d-") ? 100 : 10;
+  }
+
+  @Test
+  void longestPathFirst() {
+    module("a-1.0.0", "a", null);
+    module("b-1.0.0", "b", "a");
+    module("c-1.0.0", null, "b");
+    module("d-1.0.0", "d", null);
+    TenantModuleDescriptor c = tm("c-1.0.0", Action.enable);
+    TenantModuleDescriptor d = tm("d-1.0.0", Action.enable);
+    TenantModuleDescriptor b = tm("b-1.0.0", Action.enable);
+    TenantModuleDescriptor a = tm("a-1.0.0", Action.enable);
+    InstallScheduler scheduler = new InstallScheduler(List.of(c, d, b, a), modsAvailable, true,
+        InstallSchedulerTest::duration);
+    assertThat(scheduler.getRank(a)).isEqualTo(30);
+    assertThat(scheduler.getRank(b)).isEqualTo(20);
+    assertThat(scheduler.getRank(c)).isEqualTo(10);
+    assertThat(scheduler.ready()).containsExactly(d, a);
+
+    scheduler.started(a);
+    assertThat(scheduler.ready()).containsExactly(d);
+    scheduler.completed(a);
+    assertThat(scheduler.ready()).containsExactly(d, b);
+    scheduler.started(b);
+    scheduler.completed(b);
+    scheduler.completed(b);
+    assertThat(scheduler.ready()).containsExactly(d, c);
+    assertThat(scheduler.releaseBlocked()).isFalse();
+  }
+
+  @Test
+  void disableUsersFirst() {
+    module("x-1.0.0", "x", null);
+    module("y-1.0.0", "y", "x");
+    TenantModuleDescriptor x = tm("x-1.0.0", Action.disable);
+    TenantModuleDescriptor y = tm("y-1.0.0", Action.disable);
+    InstallScheduler scheduler = new InstallScheduler(List.of(x, y), modsAvailable, true,
+        InstallSchedulerTest::duration);
+    assertThat(scheduler.ready()).containsExactly(y);
+    scheduler.started(y);
+    scheduler.completed(y);
+    assertThat(scheduler.ready()).containsExactly(x);
+  }
+
+  @Test
+  void cycleReleased() {
+    module("e-1.0.0", "e", "f");
+    module("f-1.0.0", "f", "e");
+    TenantModuleDescriptor e = tm("e-1.0.0", Action.enable);
+    TenantModuleDescriptor f = tm("f-1.0.0", Action.enable);
+    InstallScheduler scheduler = new InstallScheduler(List.of(e, f), modsAvailable, true,
+        InstallSchedulerTest::duration);
+    assertThat(scheduler.ready()).isEmpty();
+    assertThat(scheduler.releaseBlocked()).isTrue();
+    assertThat(scheduler.ready()).containsExactlyInAnyOrder(e, f);
+    assertThat(scheduler.releaseBlocked()).isFalse();
+  }
+
+  @Test
+  void noDepCheckKeepsOrder() {
+    module("a-1.0.0", "a", null);
+    module("b-1.0.0", "b", "a");
+    TenantModuleDescriptor b = tm("b-1.0.0", Action.enable);
+    TenantModuleDescriptor a = tm("a-1.0.0", Action.enable);
+    InstallScheduler scheduler = new InstallScheduler(List.of(b, a), modsAvailable, false,
+        InstallSchedulerTest::duration);
+    assertThat(scheduler.ready()).containsExactly(b, a);
+  }
+}
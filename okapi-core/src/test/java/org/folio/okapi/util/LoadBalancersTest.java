@@ -0,0 +1,133 @@
+package org.folio.okapi.util;
+
+import java.util.List;
+import org.folio.okapi.bean.DeploymentDescriptor;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LoadBalancersTest {
+
+  static DeploymentDescriptor dd(String url) {
+    DeploymentDescriptor dd = new DeploymentDescriptor();
+    dd.setUrl(url);
+    return dd;
+  }
+
+  static final DeploymentDescriptor A = dd("http://a");
+  static final DeploymentDescriptor B = dd("http://b");
+  static final DeploymentDescriptor C = dd("http://c");
+  static final List<DeploymentDescriptor> ALL = List.of(A, B, C);
+
+  @Test
+  void testGet() {
+    for (String name : List.of(LoadBalancers.RANDOM, LoadBalancers.LEAST_OUTSTANDING,
+        LoadBalancers.POWER_OF_TWO, LoadBalancers.EWMA)) {
+      assertThat(LoadBalancers.get(name).name()).isEqualTo(name);
+    }
+    assertThat(LoadBalancers.get(null)).isNull();
+    assertThat(LoadBalancers.get("round-robin")).isNull();
+  }
+
+  @Test
+  void testUpstreamStats() {
+    UpstreamStats stats = new UpstreamStats();
+    assertThat(stats.get("http://a").getInFlight()).isZero();
+    assertThat(stats.get("http://a").getEwma()).isNegative();
+    UpstreamStats.Call call1 = stats.start("http://a");
+    UpstreamStats.Call call2 = stats.start("http://a");
+    assertThat(stats.get("http://a").getInFlight()).isEqualTo(2);
+    call1.end();
+    call1.end();
+    assertThat(stats.get("http://a").getInFlight()).isEqualTo(1);
+    assertThat(stats.get("http://a").getEwma()).isNotNegative();
+    call2.end();
+    assertThat(stats.get("http://a").getInFlight()).isZero();
+    assertThat(stats.get(null).getInFlight()).isZero();
+  }
+
+  @Test
+  void testUpstreamStatsRemove() {
+    UpstreamStats stats = new UpstreamStats();
+    UpstreamStats.Call call = stats.start("http://a");
+    stats.start("http://b").end();
+    assertThat(stats.size()).isEqualTo(2);
+    stats.remove("http://a");
+    stats.remove("http://b");
+    stats.remove("http://c");
+    assertThat(stats.size()).isEqualTo(1);
+    call.end();
+    stats.remove("http://a");
+    assertThat(stats.size()).isZero();
+  }
+
+  @Test
+  void testEwmaAverage() {
+    UpstreamStats.Instance instance = new UpstreamStats.Instance();
+    instance.record(10.0);
+    assertThat(instance.getEwma()).isEqualTo(10.0);
+    instance.record(20.0);
+    assertThat(instance.getEwma()).isCloseTo(13.0, within(1e-9));
+  }
+
+  @Test
+  void testRandom() {
+    UpstreamStats stats = new UpstreamStats();
+    LoadBalancer balancer = LoadBalancers.get(LoadBalancers.RANDOM);
+    for (int i = 0; i < 20; i++) {
+      assertThat(balancer.pick(ALL, stats)).isIn(A, B, C);
+    }
+  }
+
+  @Test
+  void testLeastOutstanding() {
+    UpstreamStats stats = new UpstreamStats();
+    stats.start(A.getUrl());
+    stats.start(A.getUrl());
+    stats.start(B.getUrl());
+    stats.start(C.getUrl());
+    LoadBalancer balancer = LoadBalancers.get(LoadBalancers.LEAST_OUTSTANDING);
+    for (int i = 0; i < 20; i++) {
+      assertThat(balancer.pick(ALL, stats)).isIn(B, C);
+    }
+    stats.start(B.getUrl());
+    for (int i = 0; i < 20; i++) {
+      assertThat(balancer.pick(ALL, stats)).isSameAs(C);
+    }
+  }
+
+  @Test
+  void testPowerOfTwo() {
+    UpstreamStats stats = new UpstreamStats();
+    stats.start(A.getUrl());
+    LoadBalancer balancer = LoadBalancers.get(LoadBalancers.POWER_OF_TWO);
+    // with two instances both are always compared
+    for (int i = 0; i < 20; i++) {
+      assertThat(balancer.pick(List.of(A, B), stats)).isSameAs(B);
+    }
+    // the busiest instance is never picked out of three
+    stats.start(A.getUrl());
+    stats.start(B.getUrl());
+    for (int i = 0; i < 20; i++) {
+      assertThat(balancer.pick(ALL, stats)).isIn(B, C);
+    }
+    assertThat(balancer.pick(List.of(A), stats)).isSameAs(A);
+  }
+
+  @Test
+  void testEwma() {
+    UpstreamStats stats = new UpstreamStats();
+    LoadBalancer balancer = LoadBalancers.get(LoadBalancers.EWMA);
+    stats.get(A.getUrl()).record(5.0);
+    stats.get(B.getUrl()).record(10.0);
+    // instance without response time is tried first
+    assertThat(balancer.pick(ALL, stats)).isSameAs(C);
+    stats.get(C.getUrl()).record(50.0);
+    assertThat(balancer.pick(ALL, stats)).isSameAs(A);
+    // 5 ms with two in flight is worse than 10 ms idle
+    stats.start(A.getUrl());
+    stats.start(A.getUrl());
+    assertThat(balancer.pick(ALL, stats)).isSameAs(B);
+  }
+}
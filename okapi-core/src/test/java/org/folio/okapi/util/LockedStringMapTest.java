@@ -13,6 +13,7 @@ import org.junit.Test;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -351,4 +352,120 @@ public class LockedStringMapTest {
         })
         .onComplete(context.asyncAssertSuccess());
   }
+
+  @Test
+  public void testFlat(TestContext context) {
+    map.init(vertx, "FooMap", true, true)
+        .compose(x -> map.addOrReplace(false, "k1", "k2", "FOOBAR"))
+        .compose(x -> map.addOrReplace(false, "k1", "k2.2", "SecondFoo"))
+        .compose(x -> map.addOrReplace(false, "k1.1", "x", "SecondKey"))
+        .compose(x -> map.addOrReplace(false, "k1", "k2", "FOOBAR"))
+        .otherwise(e -> {
+          context.assertEquals("Duplicate instance k2", e.getMessage());
+          return null;
+        })
+        .compose(x -> map.addOrReplace(true, "k1", "k2", "Replaced"))
+        .compose(x -> map.getString("k1", "k2"))
+        .compose(res -> {
+          context.assertEquals("Replaced", res);
+          return map.getPrefix("k1");
+        })
+        .compose(res -> {
+          context.assertEquals("[Replaced, SecondFoo]", res.toString());
+          return map.getPrefix("k2");
+        })
+        .compose(res -> {
+          context.assertNull(res);
+          return map.getKeys();
+        })
+        .compose(res -> {
+          context.assertEquals("[k1, k1.1]", res.toString());
+          return map.size();
+        })
+        .compose(res -> {
+          context.assertEquals(2, res);
+          return map.remove("k1", "k2");
+        })
+        .compose(res -> {
+          context.assertTrue(res);
+          return map.remove("k1", "k2");
+        })
+        .compose(res -> {
+          context.assertFalse(res);
+          return map.remove("k1", "k2.2");
+        })
+        .compose(res -> map.remove("k1.1"))
+        .compose(res -> {
+          context.assertTrue(res);
+          return map.getString("k1.1", "x");
+        })
+        .compose(res -> {
+          context.assertNull(res);
+          return map.getKeys();
+        })
+        .onComplete(context.asyncAssertSuccess(res ->
+            context.assertEquals("[]", res.toString())));
+  }
+
+  @Test
+  public void testConcurrentFlat(TestContext context) {
+    map.init(vertx, "FooMap", true, true)
+        .compose(x -> {
+          List<Future<Void>> futures = new LinkedList<>();
+          for (int i = 0; i < 10; i++) {
+            futures.add(map.addOrReplace(true, "k", Integer.toString(i), Integer.toString(i)));
+          }
+          return Future.all(futures);
+        })
+        .compose(x -> map.getPrefix("k"))
+        .compose(res -> {
+          context.assertEquals(10, res.size());
+          List<Future<Boolean>> futures = new LinkedList<>();
+          for (int i = 0; i < 10; i++) {
+            futures.add(map.remove("k", Integer.toString(i)));
+          }
+          return Future.all(futures);
+        })
+        .compose(x -> map.getPrefix("k"))
+        .onComplete(context.asyncAssertSuccess(
+            (Collection<String> res) -> context.assertNull(res)));
+  }
+
+  @Test
+  public void testConcurrentAddRemoveFlat(TestContext context) {
+    int n = 50;
+    map.init(vertx, "FooMap", true, true)
+        .compose(x -> {
+          List<Future<?>> futures = new LinkedList<>();
+          for (int i = 0; i < n; i++) {
+            futures.add(map.addOrReplace(true, "k" + i, "x", Integer.toString(i)));
+            futures.add(map.remove("k" + i, "x"));
+          }
+          return Future.all(futures);
+        })
+        .compose(x -> map.getKeys())
+        .compose(keys -> {
+          List<Future<String>> futures = new LinkedList<>();
+          for (int i = 0; i < n; i++) {
+            String k = "k" + i;
+            futures.add(map.getString(k, "x").map(value -> {
+              // value and primary key are either both present or both removed
+              context.assertEquals(value != null, keys.contains(k), k);
+              return value;
+            }));
+          }
+          return Future.all(futures);
+        })
+        .onComplete(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testBackoff(TestContext context) {
+    for (int attempt = 0; attempt < 40; attempt++) {
+      long delay = LockedStringMap.backoff(attempt);
+      context.assertTrue(delay >= 1, "attempt " + attempt);
+      context.assertTrue(delay <= Math.min(1000, 10L << Math.min(attempt, 16)),
+          "attempt " + attempt);
+    }
+  }
 }
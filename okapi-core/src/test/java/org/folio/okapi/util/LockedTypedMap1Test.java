@@ -0,0 +1,111 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.WithAssertions;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class LockedTypedMap1Test implements WithAssertions {
+
+  @Test
+  void getAllBatches(Vertx vertx, VertxTestContext vtc) {
+    LockedTypedMap1<ModuleDescriptor> map = new LockedTypedMap1<>(ModuleDescriptor.class);
+    int n = 2 * LockedTypedMap1.DECODE_BATCH + 1;
+    map.init(vertx, "getAllBatches", true)
+        .compose(x -> {
+          List<Future<Void>> futures = new ArrayList<>();
+          for (int i = n - 1; i >= 0; i--) {
+            String id = String.format("mod-%04d-1.0.0", i);
+            futures.add(map.add(id, new ModuleDescriptor(id)));
+          }
+          return Future.all(futures);
+        })
+        .compose(x -> map.getAll())
+        .onComplete(vtc.succeeding(all -> {
+          assertThat(all).hasSize(n);
+          List<String> keys = new ArrayList<>(all.keySet());
+          assertThat(keys).isSorted();
+          all.forEach((k, md) -> assertThat(md.getId()).isEqualTo(k));
+          vtc.completeNow();
+        }));
+  }
+
+  @Test
+  void snapshot(Vertx vertx, VertxTestContext vtc) {
+    LockedTypedMap1<ModuleDescriptor> map = new LockedTypedMap1<>(ModuleDescriptor.class, true);
+    // another instance of the same map, as on another node
+    LockedTypedMap1<ModuleDescriptor> other =
+        new LockedTypedMap1<>(ModuleDescriptor.class, true);
+    map.init(vertx, "snapshot", true)
+        .compose(x -> other.init(vertx, "snapshot", true))
+        .compose(x -> map.add("a", new ModuleDescriptor("a-1.0.0")))
+        .compose(x -> map.getAll())
+        .compose(all -> {
+          assertThat(all.keySet()).containsExactly("a");
+          // callers get their own copy of the snapshot
+          all.remove("a");
+          return map.getAll();
+        })
+        .compose(all -> {
+          assertThat(all.keySet()).containsExactly("a");
+          return map.put("b", new ModuleDescriptor("b-1.0.0"));
+        })
+        .compose(x -> map.getAll())
+        .compose(all -> {
+          assertThat(all.keySet()).containsExactly("a", "b");
+          return other.remove("a");
+        })
+        // invalidation from the other instance is published on the event bus
+        .compose(x -> waitForInvalidate(vertx))
+        .compose(x -> map.getAll())
+        .compose(all -> {
+          assertThat(all.keySet()).containsExactly("b");
+          return map.clear();
+        })
+        .compose(x -> map.getAll())
+        .onComplete(vtc.succeeding(all -> {
+          assertThat(all).isEmpty();
+          vtc.completeNow();
+        }));
+  }
+
+  @Test
+  void snapshotTtl(Vertx vertx, VertxTestContext vtc) {
+    LockedTypedMap1<ModuleDescriptor> map = new LockedTypedMap1<>(ModuleDescriptor.class, true);
+    // updates another instance without invalidation, as an old node would do
+    LockedTypedMap1<ModuleDescriptor> old = new LockedTypedMap1<>(ModuleDescriptor.class);
+    map.setSnapshotTtl(200);
+    map.init(vertx, "snapshotTtl", true)
+        .compose(x -> old.init(vertx, "snapshotTtl", true))
+        .compose(x -> map.add("a", new ModuleDescriptor("a-1.0.0")))
+        .compose(x -> map.getAll())
+        .compose(x -> old.add("b", new ModuleDescriptor("b-1.0.0")))
+        .compose(x -> map.getAll())
+        .compose(all -> {
+          assertThat(all.keySet()).containsExactly("a");
+          return vertx.timer(300);
+        })
+        .compose(x -> map.getAll())
+        .compose(all -> {
+          assertThat(all.keySet()).containsExactly("a", "b");
+          map.setSnapshotTtl(0);
+          return old.add("c", new ModuleDescriptor("c-1.0.0"));
+        })
+        .compose(x -> map.getAll())
+        .onComplete(vtc.succeeding(all -> {
+          assertThat(all.keySet()).containsExactly("a", "b", "c");
+          vtc.completeNow();
+        }));
+  }
+
+  private static Future<Void> waitForInvalidate(Vertx vertx) {
+    return vertx.timer(100).mapEmpty();
+  }
+}
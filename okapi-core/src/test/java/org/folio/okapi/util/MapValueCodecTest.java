@@ -0,0 +1,105 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.assertj.core.api.WithAssertions;
+import org.folio.okapi.bean.InterfaceDescriptor;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.folio.okapi.bean.RoutingEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class MapValueCodecTest implements WithAssertions {
+
+  @AfterEach
+  void resetCodec() {
+    MapValueCodec.setCodec(MapValueCodec.JSON);
+  }
+
+  static ModuleDescriptor moduleDescriptor(String id) {
+    ModuleDescriptor md = new ModuleDescriptor(id);
+    RoutingEntry re = new RoutingEntry();
+    re.setPathPattern("/users/{id}");
+    re.setMethods(new String[] {"GET", "PUT"});
+    re.setPermissionsRequired(new String[] {"users.item.get"});
+    md.setProvidedHandler("users", "16.1", re);
+    md.setRequires(new InterfaceDescriptor[] {new InterfaceDescriptor("permissions", "5.6")});
+    return md;
+  }
+
+  @Test
+  void codecs() {
+    ModuleDescriptor md = moduleDescriptor("mod-users-19.2.0");
+    assertThat(MapValueCodec.getCodec()).isEqualTo(MapValueCodec.JSON);
+    Object json = MapValueCodec.encode(md);
+    assertThat(json).isInstanceOf(String.class);
+
+    MapValueCodec.setCodec(MapValueCodec.SMILE);
+    assertThat(MapValueCodec.getCodec()).isEqualTo(MapValueCodec.SMILE);
+    Object smile = MapValueCodec.encode(md);
+    assertThat(smile).isInstanceOf(Buffer.class);
+    assertThat(((Buffer) smile).length()).isLessThan(((String) json).length());
+
+    // both formats are read, whatever the codec
+    for (Object stored : new Object[] {json, smile}) {
+      ModuleDescriptor decoded = MapValueCodec.decode(stored, ModuleDescriptor.class);
+      assertThat(decoded.getId()).isEqualTo(md.getId());
+      assertThat(decoded.getRequires()[0].getId()).isEqualTo("permissions");
+      assertThat(decoded.getProvides()[0].getHandlers()[0].getPathPattern())
+          .isEqualTo("/users/{id}");
+    }
+    assertThatThrownBy(() -> MapValueCodec.decode(Buffer.buffer("{"), ModuleDescriptor.class))
+        .hasMessageStartingWith("Failed to decode Smile");
+    assertThatThrownBy(() -> MapValueCodec.setCodec("cbor"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Unknown shared map codec cbor");
+  }
+
+  @Test
+  void typedMaps(Vertx vertx, VertxTestContext vtc) {
+    LockedTypedMap1<ModuleDescriptor> map1 = new LockedTypedMap1<>(ModuleDescriptor.class);
+    LockedTypedMap2<ModuleDescriptor> nested = new LockedTypedMap2<>(ModuleDescriptor.class);
+    LockedTypedMap2<ModuleDescriptor> flat = new LockedTypedMap2<>(ModuleDescriptor.class);
+    map1.init(vertx, "codec1", true)
+        .compose(x -> nested.init(vertx, "codec2", true))
+        .compose(x -> flat.init(vertx, "codec3", true, true))
+        // written as JSON before the codec is changed
+        .compose(x -> map1.add("a", moduleDescriptor("a-1.0.0")))
+        .compose(x -> flat.add("a", "1", moduleDescriptor("a-1.0.0")))
+        .compose(x -> {
+          MapValueCodec.setCodec(MapValueCodec.SMILE);
+          return map1.add("b", moduleDescriptor("b-1.0.0"));
+        })
+        .compose(x -> nested.add("a", "1", moduleDescriptor("a-1.0.0")))
+        .compose(x -> nested.put("a", "2", moduleDescriptor("a-2.0.0")))
+        .compose(x -> flat.add("a", "2", moduleDescriptor("a-2.0.0")))
+        .compose(x -> map1.getAll())
+        .compose(all -> {
+          assertThat(all.keySet()).containsExactly("a", "b");
+          assertThat(all.get("b").getId()).isEqualTo("b-1.0.0");
+          return map1.get("a");
+        })
+        .compose(md -> {
+          assertThat(md.getId()).isEqualTo("a-1.0.0");
+          return nested.get("a");
+        })
+        .compose(list -> {
+          assertThat(list).extracting(ModuleDescriptor::getId)
+              .containsExactly("a-1.0.0", "a-2.0.0");
+          return flat.get("a");
+        })
+        .compose(list -> {
+          assertThat(list).extracting(ModuleDescriptor::getId)
+              .containsExactly("a-1.0.0", "a-2.0.0");
+          return flat.get("a", "2");
+        })
+        .onComplete(vtc.succeeding(md -> {
+          assertThat(md.getId()).isEqualTo("a-2.0.0");
+          vtc.completeNow();
+        }));
+  }
+}
@@ -2,7 +2,9 @@ package org.folio.okapi.util;
 
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import org.folio.okapi.ConfNames;
 import org.folio.okapi.bean.ModuleDescriptor;
 import org.folio.okapi.bean.ModuleInstance;
 import org.folio.okapi.bean.RoutingEntry;
@@ -16,6 +18,8 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Timer;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.net.SocketAddress;
 
 class MetricsHelperTest {
 
@@ -53,6 +57,15 @@ class MetricsHelperTest {
     assertNull(MetricsHelper.recordTokenCacheExpired("a", "b", "c", "d"));
     assertNull(MetricsHelper.recordTokenCacheHit("a", "b", "c", "d"));
     assertNull(MetricsHelper.recordTokenCacheMiss("a", "b", "c", "d"));
+    assertNull(MetricsHelper.recordRouteCacheHit());
+    assertNull(MetricsHelper.recordRouteCacheMiss());
+    assertNull(MetricsHelper.recordRouteCacheEviction());
+    assertNull(MetricsHelper.recordTenantCacheHit());
+    assertNull(MetricsHelper.recordTenantCacheMiss());
+    assertNull(MetricsHelper.recordTenantCacheInvalidation(1));
+    assertNull(MetricsHelper.recordUpstreamConnectionOpened(null, "off"));
+    assertNull(MetricsHelper.recordUpstreamConnectionClosed(null, "off"));
+    assertNull(MetricsHelper.recordUpstreamStream(null, HttpVersion.HTTP_2));
   }
 
   @Test
@@ -95,6 +108,65 @@ class MetricsHelperTest {
     assertEquals(1, timer.count());
   }
 
+  @Test
+  void testHttpTimerReused() {
+    ModuleInstance mi = createModuleInstance(false);
+    Timer timer = MetricsHelper.recordHttpClientResponse(
+        MetricsHelper.getTimerSample(), "a", 200, "GET", mi);
+    assertNotNull(mi.getRoutingEntry().getHttpMeters());
+    assertSame(timer, MetricsHelper.recordHttpClientResponse(
+        MetricsHelper.getTimerSample(), "a", 200, "GET", mi));
+    assertEquals(2, timer.count());
+    assertNotSame(timer, MetricsHelper.recordHttpClientResponse(
+        MetricsHelper.getTimerSample(), "a", 404, "GET", mi));
+    assertNotSame(timer, MetricsHelper.recordHttpClientResponse(
+        MetricsHelper.getTimerSample(), "b", 200, "GET", mi));
+    assertNotSame(timer, MetricsHelper.recordHttpServerProcessingTime(
+        MetricsHelper.getTimerSample(), "a", 200, "GET", mi));
+
+    // timers are registered again when metrics is restarted
+    HttpMeters httpMeters = mi.getRoutingEntry().getHttpMeters();
+    MetricsUtil.stop();
+    MetricsUtil.init(Vertx.builder());
+    timer = MetricsHelper.recordHttpClientResponse(
+        MetricsHelper.getTimerSample(), "a", 200, "GET", mi);
+    assertEquals(1, timer.count());
+    assertNotSame(httpMeters, mi.getRoutingEntry().getHttpMeters());
+  }
+
+  @Test
+  void testHttpMetersLimit() {
+    HttpMeters httpMeters = new HttpMeters(0);
+    Timer timer = MetricsUtil.timer("a", List.of());
+    for (int i = 0; i < HttpMeters.MAX_PER_TENANT + 10; i++) {
+      httpMeters.put("t", true, false, i, "GET", "m", timer);
+    }
+    assertSame(timer, httpMeters.get("t", true, false, 0, "GET", "m"));
+    assertSame(timer, httpMeters.get("t", true, false, HttpMeters.MAX_PER_TENANT - 1,
+        "GET", "m"));
+    assertNull(httpMeters.get("t", true, false, HttpMeters.MAX_PER_TENANT, "GET", "m"));
+    assertNull(httpMeters.get("t", false, false, 0, "GET", "m"));
+    assertNull(httpMeters.get("u", true, false, 0, "GET", "m"));
+  }
+
+  @Test
+  void testUserIdLimit() {
+    MetricsHelper.setUserIdLimit(1);
+    try {
+      Counter counter1 = MetricsHelper.recordTokenCacheHit("t", "GET", "/a", "user1");
+      Counter counter2 = MetricsHelper.recordTokenCacheHit("t", "GET", "/a", "user2");
+      Counter counter3 = MetricsHelper.recordTokenCacheHit("t", "GET", "/a", "user3");
+      assertSame(counter1, MetricsHelper.recordTokenCacheHit("t", "GET", "/a", "user1"));
+      assertEquals(2, counter1.count());
+      assertEquals("user1", counter1.getId().getTag("userId"));
+      assertSame(counter2, counter3);
+      assertEquals(MetricsHelper.TAG_USERID_OTHER, counter2.getId().getTag("userId"));
+      assertEquals(2, counter2.count());
+    } finally {
+      MetricsHelper.setUserIdLimit(ConfNames.METRICS_USER_ID_LIMIT_DEFAULT);
+    }
+  }
+
   @Test
   void testRecordTokenCacheEvent() {
     String userId = "03975dd7-8004-48cf-bd21-4d7ff2e74ca2";
@@ -137,6 +209,41 @@ class MetricsHelperTest {
     assertEquals(2, expiresCounter.count());
   }
 
+  @Test
+  void testRecordRouteCacheEvent() {
+    RoutingEntry re = new RoutingEntry();
+    re.setPathPattern("/a/{id}");
+    re.setMethods(new String[] {"GET"});
+    ModuleDescriptor md = new ModuleDescriptor();
+    md.setId("abc-1.0");
+    md.setProvidedHandler("a", "1.0", re);
+    ModuleCache moduleCache = new ModuleCache(List.of(md), 1);
+
+    Counter hitCounter = MetricsHelper.recordRouteCacheHit();
+    Counter missCounter = MetricsHelper.recordRouteCacheMiss();
+    Counter evictionCounter = MetricsHelper.recordRouteCacheEviction();
+    moduleCache.lookupPipeline("/a/1", HttpMethod.GET, null);
+    assertEquals(2, missCounter.count());
+    moduleCache.lookupPipeline("/a/2", HttpMethod.GET, null);
+    assertEquals(2, hitCounter.count());
+    moduleCache.lookupPipeline("/b", HttpMethod.GET, null);
+    assertEquals(3, missCounter.count());
+    assertEquals(2, evictionCounter.count());
+  }
+
+  @Test
+  void testRecordTenantCacheEvent() {
+    assertEquals(1, MetricsHelper.recordTenantCacheHit().count());
+    assertEquals(1, MetricsHelper.recordTenantCacheMiss().count());
+    Timer timer = MetricsHelper.recordTenantCacheInvalidation(5);
+    assertEquals(1, timer.count());
+    assertEquals(5, timer.totalTime(TimeUnit.MILLISECONDS), 0.1);
+    // clock skew between nodes must not give negative lag
+    timer = MetricsHelper.recordTenantCacheInvalidation(-3);
+    assertEquals(2, timer.count());
+    assertEquals(5, timer.totalTime(TimeUnit.MILLISECONDS), 0.1);
+  }
+
   @Test
   void testRecordHttpClientError() {
     Counter counter = MetricsHelper.recordHttpClientError("a", "GET", "/a");
@@ -146,6 +253,23 @@ class MetricsHelperTest {
     assertEquals(2, counter.count());
   }
 
+  @Test
+  void testRecordUpstreamEvent() {
+    SocketAddress upstream = SocketAddress.inetSocketAddress(9231, "localhost");
+    Counter opened = MetricsHelper.recordUpstreamConnectionOpened(upstream, "upgrade");
+    assertEquals(1, opened.count());
+    assertSame(opened, MetricsHelper.recordUpstreamConnectionOpened(upstream, "upgrade"));
+    assertEquals(2, opened.count());
+    Counter closed = MetricsHelper.recordUpstreamConnectionClosed(upstream, "upgrade");
+    assertNotSame(opened, closed);
+    assertEquals(1, closed.count());
+    Counter h2 = MetricsHelper.recordUpstreamStream(upstream, HttpVersion.HTTP_2);
+    Counter h1 = MetricsHelper.recordUpstreamStream(upstream, HttpVersion.HTTP_1_1);
+    assertNotSame(h1, h2);
+    assertEquals("h2", h2.getId().getTag("protocol"));
+    assertEquals("localhost:9231", h2.getId().getTag("upstream"));
+  }
+
   @Test
   void testRecordCodeExecutionTime() {
     Timer.Sample sample = MetricsHelper.getTimerSample();
@@ -1,10 +1,8 @@
 package org.folio.okapi.util;
 
 import io.vertx.core.http.HttpMethod;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.function.Function;
 import org.folio.okapi.bean.InterfaceDescriptor;
 import org.folio.okapi.bean.ModuleDescriptor;
@@ -46,93 +44,6 @@ class ModuleCacheTest {
     assertThat(ModuleCache.getPatternPrefix(routingEntry)).isEqualTo("/");
   }
 
-  @Test
-  void testLookupEmpty() {
-    Map<String, List<ModuleCache.ModuleCacheEntry>> map = new HashMap<>();
-
-    assertThat(ModuleCache.lookup("", HttpMethod.GET, map, true, null)).isEmpty();
-    assertThat(ModuleCache.lookup("/", HttpMethod.GET, map, true, null)).isEmpty();
-    assertThat(ModuleCache.lookup("/a", HttpMethod.GET, map, true, null)).isEmpty();
-    assertThat(ModuleCache.lookup("/a/b", HttpMethod.GET, map, true, null)).isEmpty();
-  }
-
-  @Test
-  void testLookupRoutingEntries() {
-    ModuleDescriptor md = new ModuleDescriptor();
-    md.setId("module-1.0.0");
-    List<RoutingEntry> routingEntries = new LinkedList<>();
-    RoutingEntry routingEntry1 = new RoutingEntry();
-    routingEntry1.setPathPattern("/a/b");
-    routingEntry1.setMethods(new String[] {"GET"});
-    routingEntries.add(routingEntry1);
-    RoutingEntry routingEntry2 = new RoutingEntry();
-    routingEntry2.setPathPattern("/a/b");
-    routingEntry2.setMethods(new String[] {"POST"});
-    routingEntries.add(routingEntry2);
-    RoutingEntry routingEntry3 = new RoutingEntry();
-    routingEntry3.setPathPattern("/a/b/{id}/c");
-    routingEntry3.setMethods(new String[] {"GET"});
-    routingEntries.add(routingEntry3);
-    RoutingEntry routingEntry4 = new RoutingEntry();
-    routingEntry4.setPathPattern("/p/*/y");
-    routingEntry4.setMethods(new String[] {"GET"});
-    routingEntries.add(routingEntry4);
-    RoutingEntry routingEntry5 = new RoutingEntry();
-    routingEntry5.setPathPattern("/perms/users*");
-    routingEntry5.setMethods(new String[] {"GET"});
-    routingEntries.add(routingEntry5);
-    RoutingEntry routingEntry6 = new RoutingEntry();
-    routingEntry6.setPath("/old/type");
-    routingEntry6.setMethods(new String[] {"GET"});
-    routingEntries.add(routingEntry6);
-
-    Map<String, List<ModuleCache.ModuleCacheEntry>> map = new HashMap<>();
-    ModuleCache.add(md, map, routingEntries);
-
-    assertThat(ModuleCache.lookup("", HttpMethod.GET, map, true, null)).isEmpty();
-    assertThat(ModuleCache.lookup("/", HttpMethod.GET, map, true, null)).isEmpty();
-    assertThat(ModuleCache.lookup("/a", HttpMethod.GET, map, true, null)).isEmpty();
-    List<ModuleInstance> instances = ModuleCache.lookup("/a/b", HttpMethod.GET, map, true, null);
-
-    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry1);
-
-    instances = ModuleCache.lookup("/a/b", HttpMethod.GET, map, true, "module-1.0.0");
-    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry1);
-
-    assertThat(ModuleCache.lookup("/a", HttpMethod.GET, map, true, "other-1.0.0")).isEmpty();
-
-    instances = ModuleCache.lookup("/a/b", HttpMethod.POST, map, true, null);
-    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry2);
-
-    assertThat(ModuleCache.lookup("/a", HttpMethod.PUT, map, true, null)).isEmpty();
-    assertThat(ModuleCache.lookup("/a/b/", HttpMethod.GET, map, true, null)).isEmpty();
-
-    instances = ModuleCache.lookup("/a/b/id/c", HttpMethod.GET, map, true, null);
-    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry3);
-
-    instances = ModuleCache.lookup("/p/id/y", HttpMethod.GET, map, true, null);
-    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry4);
-
-    assertThat(ModuleCache.lookup("/p/id/z", HttpMethod.GET, map, true, null)).isEmpty();
-    assertThat(ModuleCache.lookup("/p/id", HttpMethod.GET, map, true, null)).isEmpty();
-    assertThat(ModuleCache.lookup("/p/id/y/z", HttpMethod.GET, map, true, null)).isEmpty();
-
-    instances = ModuleCache.lookup("/perms/users", HttpMethod.GET, map, true, null);
-    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry5);
-
-    instances = ModuleCache.lookup("/perms/users/y", HttpMethod.GET, map, true, null);
-    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry5);
-
-    instances = ModuleCache.lookup("/perms/users1", HttpMethod.GET, map, true, null);
-    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry5);
-
-    assertThat(ModuleCache.lookup("/perms/user", HttpMethod.GET, map, true, null)).isEmpty();
-
-    assertThat(ModuleCache.lookup("/old/foo", HttpMethod.GET, map, true, null)).isEmpty();
-    instances = ModuleCache.lookup("/old/type", HttpMethod.GET, map, true, null);
-    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry6);
-  }
-
   @Test
   void testModuleRegular() {
     RoutingEntry[] routingEntries = new RoutingEntry[3];
@@ -323,5 +234,117 @@ class ModuleCacheTest {
     assertThat(instances).extracting(routingEntry).containsExactly(routingEntry3, routingEntry2, routingEntry1);
   }
 
+  @Test
+  void testLookupPipeline() {
+    RoutingEntry postFilter = new RoutingEntry();
+    postFilter.setPathPattern("/*");
+    postFilter.setMethods(new String[] {"*"});
+    postFilter.setPhase("post");
+
+    RoutingEntry authFilter = new RoutingEntry();
+    authFilter.setPathPattern("/*");
+    authFilter.setMethods(new String[] {"*"});
+    authFilter.setPhase("auth");
+
+    RoutingEntry redirect = new RoutingEntry();
+    redirect.setPathPattern("/old/{id}");
+    redirect.setRedirectPath("/real");
+    redirect.setType("redirect");
+    redirect.setMethods(new String[] {"GET"});
+
+    ModuleDescriptor filterModule = new ModuleDescriptor();
+    filterModule.setId("filter-1.0.0");
+    filterModule.setFilters(new RoutingEntry[] {postFilter, authFilter, redirect});
+
+    RoutingEntry handler = new RoutingEntry();
+    handler.setPathPattern("/real");
+    handler.setMethods(new String[] {"GET"});
+    handler.setRewritePath("/base");
 
+    RoutingEntry handler2 = new RoutingEntry();
+    handler2.setPathPattern("/a/{id}");
+    handler2.setMethods(new String[] {"GET"});
+
+    ModuleDescriptor regularModule = new ModuleDescriptor();
+    regularModule.setId("regular-1.0.0");
+    regularModule.setProvidedHandler("int", "1.0", handler, handler2);
+
+    List<ModuleDescriptor> modules = new LinkedList<>();
+    modules.add(filterModule);
+    modules.add(regularModule);
+    ModuleCache moduleCache = new ModuleCache(modules, 1);
+
+    List<ModuleInstance> instances = moduleCache.lookup("/old/1?q=x", HttpMethod.GET, null);
+    assertThat(instances).extracting(routingEntry)
+        .containsExactly(redirect, postFilter, authFilter, handler);
+
+    for (int i = 0; i < 2; i++) {
+      List<ModuleInstance> pipeline = moduleCache.lookupPipeline("/old/" + i + "?q=x",
+          HttpMethod.GET, null);
+      assertThat(pipeline).extracting(routingEntry)
+          .containsExactly(authFilter, redirect, handler, postFilter);
+      assertThat(pipeline).extracting(ModuleInstance::getPath)
+          .containsExactly("/old/" + i + "?q=x", "/old/" + i + "?q=x", "/base/real?q=x",
+              "/old/" + i + "?q=x");
+      assertThat(pipeline).extracting(ModuleInstance::isHandler)
+          .containsExactly(false, false, true, false);
+    }
+    assertThat(moduleCache.pipelines).hasSize(1);
+
+    List<ModuleInstance> pipeline1 = moduleCache.lookupPipeline("/a/1", HttpMethod.GET, null);
+    assertThat(pipeline1).extracting(routingEntry)
+        .containsExactly(authFilter, handler2, postFilter);
+    List<ModuleInstance> pipeline2 = moduleCache.lookupPipeline("/a/2", HttpMethod.GET, null);
+    assertThat(pipeline2).extracting(ModuleInstance::getPath)
+        .containsExactly("/a/2", "/a/2", "/a/2");
+    assertThat(pipeline2.get(0)).isNotSameAs(pipeline1.get(0));
+    assertThat(moduleCache.pipelines).hasSize(1);
+
+    assertThat(moduleCache.lookupPipeline("/b", HttpMethod.GET, null)).extracting(routingEntry)
+        .containsExactly(authFilter, postFilter);
+    assertThat(moduleCache.lookupPipeline("/a/1", HttpMethod.GET, "other-1.0.0"))
+        .extracting(routingEntry).containsExactly(authFilter, postFilter);
+  }
+
+  @Test
+  void testAuthModuleAndSystemTokens() {
+    ModuleDescriptor regularModule = new ModuleDescriptor("regular-1.0.0");
+    RoutingEntry authFilter = new RoutingEntry();
+    authFilter.setPathPattern("/*");
+    authFilter.setPhase("auth");
+    ModuleDescriptor authModule = new ModuleDescriptor("auth-1.0.0");
+    authModule.setFilters(new RoutingEntry[] {authFilter});
+
+    ModuleCache empty = new ModuleCache(List.of(regularModule));
+    assertThat(empty.getAuthModule()).isNull();
+    assertThat(empty.getAuthRoutingEntry()).isNull();
+
+    ModuleCache moduleCache = new ModuleCache(List.of(regularModule, authModule));
+    assertThat(moduleCache.getAuthModule()).isSameAs(authModule);
+    assertThat(moduleCache.getAuthRoutingEntry()).isSameAs(authFilter);
+
+    ModuleCache.SystemToken systemToken = new ModuleCache.SystemToken("t", null, 1000);
+    moduleCache.putSystemToken("auth-1.0.0", "regular-1.0.0", "{}", null, systemToken);
+    assertThat(moduleCache.getSystemToken("auth-1.0.0", "regular-1.0.0", "{}", null, 999))
+        .isSameAs(systemToken);
+    assertThat(moduleCache.getSystemToken("auth-1.0.0", "regular-1.0.0", "{\"a\":[]}", null,
+        999)).isNull();
+    assertThat(moduleCache.getSystemToken("auth-1.0.0", "other-1.0.0", "{}", null, 999))
+        .isNull();
+    // token of one caller is not given to another
+    assertThat(moduleCache.getSystemToken("auth-1.0.0", "regular-1.0.0", "{}", "u1", 999))
+        .isNull();
+    ModuleCache.SystemToken userToken = new ModuleCache.SystemToken("u", null, 1000);
+    moduleCache.putSystemToken("auth-1.0.0", "regular-1.0.0", "{}", "u1", userToken);
+    assertThat(moduleCache.getSystemToken("auth-1.0.0", "regular-1.0.0", "{}", "u1", 999))
+        .isSameAs(userToken);
+    assertThat(moduleCache.getSystemToken("auth-1.0.0", "regular-1.0.0", "{}", "u2", 999))
+        .isNull();
+    // expired
+    assertThat(moduleCache.getSystemToken("auth-1.0.0", "regular-1.0.0", "{}", null, 1000))
+        .isNull();
+    assertThat(moduleCache.getSystemToken("auth-1.0.0", "regular-1.0.0", "{}", "u1", 1000))
+        .isNull();
+    assertThat(moduleCache.systemTokens).isEmpty();
+  }
 }
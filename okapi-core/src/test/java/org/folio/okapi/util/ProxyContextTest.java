@@ -0,0 +1,38 @@
+package org.folio.okapi.util;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.RoutingContext;
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.Test;
+
+class ProxyContextTest implements WithAssertions {
+
+  @Test
+  void isAccessLoggedWithoutTenant() {
+    HttpServerRequest request = mock(HttpServerRequest.class);
+    when(request.path()).thenReturn("/a");
+    when(request.headers()).thenReturn(MultiMap.caseInsensitiveMultiMap());
+    RoutingContext ctx = mock(RoutingContext.class);
+    when(ctx.request()).thenReturn(request);
+    AccessLog accessLog = mock(AccessLog.class);
+    when(accessLog.isEnabled()).thenReturn(true);
+    when(accessLog.sample("-")).thenReturn(true, false);
+    when(accessLog.sample("diku")).thenReturn(true, false);
+
+    ProxyContext pc = new ProxyContext(ctx, 0, accessLog);
+    // not decided for good while the tenant is unknown
+    assertThat(pc.isAccessLogged()).isTrue();
+    assertThat(pc.isAccessLogged()).isFalse();
+    pc.setTenant("diku");
+    assertThat(pc.isAccessLogged()).isTrue();
+    assertThat(pc.isAccessLogged()).isTrue();
+    verify(accessLog, times(2)).sample("-");
+    verify(accessLog, times(1)).sample("diku");
+  }
+}
@@ -0,0 +1,105 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class RequestIdsTest implements WithAssertions {
+
+  private static String next(RequestIds ids) {
+    StringBuilder sb = new StringBuilder();
+    ids.append(sb);
+    return sb.toString();
+  }
+
+  @Test
+  void format() {
+    RequestIds ids = new RequestIds(7);
+    assertThat(next(ids)).isEqualTo("007000000");
+    assertThat(next(ids)).isEqualTo("007000001");
+    assertThat(next(RequestIds.node())).matches("[0-9]{9}");
+  }
+
+  @Test
+  void appendPadded() {
+    StringBuilder sb = new StringBuilder("a");
+    RequestIds.appendPadded(sb, 0, 3);
+    RequestIds.appendPadded(sb, 42, 3);
+    RequestIds.appendPadded(sb, 123456, 6);
+    assertThat(sb).hasToString("a000042123456");
+  }
+
+  @Test
+  void wraps() {
+    RequestIds ids = new RequestIds(999);
+    for (int i = 0; i < 1000000; i++) {
+      ids.append(new StringBuilder());
+    }
+    assertThat(next(ids)).isEqualTo("999000000");
+  }
+
+  @Test
+  void uniqueAcrossNodesAndThreads() throws InterruptedException {
+    int nodes = 3;
+    int threads = 4;
+    int perThread = 10000;
+    Set<String> seen = ConcurrentHashMap.newKeySet();
+    List<Thread> list = new ArrayList<>();
+    for (int node = 0; node < nodes; node++) {
+      RequestIds ids = new RequestIds(node * 100 + 1);
+      for (int t = 0; t < threads; t++) {
+        Thread thread = new Thread(() -> {
+          for (int i = 0; i < perThread; i++) {
+            seen.add(next(ids));
+          }
+        });
+        list.add(thread);
+        thread.start();
+      }
+    }
+    for (Thread thread : list) {
+      thread.join();
+    }
+    assertThat(seen).hasSize(nodes * threads * perThread);
+    Set<String> prefixes = new HashSet<>();
+    seen.forEach(id -> prefixes.add(id.substring(0, RequestIds.NODE_DIGITS)));
+    assertThat(prefixes).containsExactlyInAnyOrder("001", "101", "201");
+  }
+
+  @Test
+  void initFromCounter(Vertx vertx, VertxTestContext vtc) {
+    // each node that starts gets the next prefix of the cluster-wide counter
+    RequestIds.init(vertx, null)
+        .compose(first -> RequestIds.init(vertx, null).map(second -> {
+          assertThat(second).isEqualTo((first + 1) % RequestIds.NODE_MODULUS);
+          String prefix = next(RequestIds.node()).substring(0, RequestIds.NODE_DIGITS);
+          assertThat(Integer.parseInt(prefix)).isEqualTo(second);
+          return null;
+        }))
+        .onComplete(vtc.succeedingThenComplete());
+  }
+
+  @Test
+  void initConfigured(Vertx vertx, VertxTestContext vtc) {
+    assertThatThrownBy(() -> RequestIds.init(vertx, 1000))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Bad request_id_node 1000; must be 0 to 999");
+    assertThatThrownBy(() -> RequestIds.init(vertx, -1))
+        .isInstanceOf(IllegalArgumentException.class);
+    RequestIds.init(vertx, 42)
+        .onComplete(vtc.succeeding(prefix -> {
+          assertThat(prefix).isEqualTo(42);
+          assertThat(next(RequestIds.node())).startsWith("042");
+          vtc.completeNow();
+        }));
+  }
+}
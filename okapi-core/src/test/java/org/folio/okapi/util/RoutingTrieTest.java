@@ -0,0 +1,153 @@
+package org.folio.okapi.util;
+
+import io.vertx.core.http.HttpMethod;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Function;
+import org.folio.okapi.bean.ModuleDescriptor;
+import org.folio.okapi.bean.ModuleInstance;
+import org.folio.okapi.bean.RoutingEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoutingTrieTest {
+  Function<ModuleInstance, RoutingEntry> routingEntry = ModuleInstance::getRoutingEntry;
+
+  @Test
+  void testLookupEmpty() {
+    RoutingTrie trie = new RoutingTrie();
+
+    assertThat(trie.lookup("", HttpMethod.GET, true, null)).isEmpty();
+    assertThat(trie.lookup("/", HttpMethod.GET, true, null)).isEmpty();
+    assertThat(trie.lookup("/a", HttpMethod.GET, true, null)).isEmpty();
+    assertThat(trie.lookup("/a/b", HttpMethod.GET, true, null)).isEmpty();
+  }
+
+  @Test
+  void testLookupRoutingEntries() {
+    ModuleDescriptor md = new ModuleDescriptor();
+    md.setId("module-1.0.0");
+    List<RoutingEntry> routingEntries = new LinkedList<>();
+    RoutingEntry routingEntry1 = new RoutingEntry();
+    routingEntry1.setPathPattern("/a/b");
+    routingEntry1.setMethods(new String[] {"GET"});
+    routingEntries.add(routingEntry1);
+    RoutingEntry routingEntry2 = new RoutingEntry();
+    routingEntry2.setPathPattern("/a/b");
+    routingEntry2.setMethods(new String[] {"POST"});
+    routingEntries.add(routingEntry2);
+    RoutingEntry routingEntry3 = new RoutingEntry();
+    routingEntry3.setPathPattern("/a/b/{id}/c");
+    routingEntry3.setMethods(new String[] {"GET"});
+    routingEntries.add(routingEntry3);
+    RoutingEntry routingEntry4 = new RoutingEntry();
+    routingEntry4.setPathPattern("/p/*/y");
+    routingEntry4.setMethods(new String[] {"GET"});
+    routingEntries.add(routingEntry4);
+    RoutingEntry routingEntry5 = new RoutingEntry();
+    routingEntry5.setPathPattern("/perms/users*");
+    routingEntry5.setMethods(new String[] {"GET"});
+    routingEntries.add(routingEntry5);
+    RoutingEntry routingEntry6 = new RoutingEntry();
+    routingEntry6.setPath("/old/type");
+    routingEntry6.setMethods(new String[] {"GET"});
+    routingEntries.add(routingEntry6);
+
+    RoutingTrie trie = new RoutingTrie();
+    trie.add(md, routingEntries);
+
+    assertThat(trie.lookup("", HttpMethod.GET, true, null)).isEmpty();
+    assertThat(trie.lookup("/", HttpMethod.GET, true, null)).isEmpty();
+    assertThat(trie.lookup("/a", HttpMethod.GET, true, null)).isEmpty();
+    List<ModuleInstance> instances = trie.lookup("/a/b", HttpMethod.GET, true, null);
+
+    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry1);
+
+    instances = trie.lookup("/a/b", HttpMethod.GET, true, "module-1.0.0");
+    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry1);
+
+    assertThat(trie.lookup("/a", HttpMethod.GET, true, "other-1.0.0")).isEmpty();
+
+    instances = trie.lookup("/a/b", HttpMethod.POST, true, null);
+    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry2);
+
+    assertThat(trie.lookup("/a", HttpMethod.PUT, true, null)).isEmpty();
+    assertThat(trie.lookup("/a/b/", HttpMethod.GET, true, null)).isEmpty();
+
+    instances = trie.lookup("/a/b/id/c", HttpMethod.GET, true, null);
+    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry3);
+
+    instances = trie.lookup("/p/id/y", HttpMethod.GET, true, null);
+    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry4);
+
+    assertThat(trie.lookup("/p/id/z", HttpMethod.GET, true, null)).isEmpty();
+    assertThat(trie.lookup("/p/id", HttpMethod.GET, true, null)).isEmpty();
+    assertThat(trie.lookup("/p/id/y/z", HttpMethod.GET, true, null)).isEmpty();
+
+    instances = trie.lookup("/perms/users", HttpMethod.GET, true, null);
+    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry5);
+
+    instances = trie.lookup("/perms/users/y", HttpMethod.GET, true, null);
+    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry5);
+
+    instances = trie.lookup("/perms/users1", HttpMethod.GET, true, null);
+    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry5);
+
+    assertThat(trie.lookup("/perms/user", HttpMethod.GET, true, null)).isEmpty();
+
+    assertThat(trie.lookup("/old/foo", HttpMethod.GET, true, null)).isEmpty();
+    instances = trie.lookup("/old/type", HttpMethod.GET, true, null);
+    assertThat(instances).extracting(routingEntry).containsExactly(routingEntry6);
+  }
+
+  @Test
+  void testLookupOrder() {
+    ModuleDescriptor md = new ModuleDescriptor();
+    md.setId("module-1.0.0");
+    List<RoutingEntry> list = new LinkedList<>();
+    RoutingEntry routingEntry1 = new RoutingEntry();
+    routingEntry1.setPathPattern("/*");
+    routingEntry1.setMethods(new String[] {"*"});
+    list.add(routingEntry1);
+    RoutingEntry routingEntry2 = new RoutingEntry();
+    routingEntry2.setPathPattern("/a/{id}");
+    routingEntry2.setMethods(new String[] {"GET"});
+    list.add(routingEntry2);
+    RoutingEntry routingEntry3 = new RoutingEntry();
+    routingEntry3.setPathPattern("/a/b");
+    routingEntry3.setMethods(new String[] {"GET"});
+    list.add(routingEntry3);
+    RoutingEntry routingEntry4 = new RoutingEntry();
+    routingEntry4.setPathPattern("/a/*");
+    routingEntry4.setMethods(new String[] {"GET"});
+    list.add(routingEntry4);
+
+    RoutingTrie trie = new RoutingTrie();
+    trie.add(md, list);
+    assertThat(trie.lookup("/a/b", HttpMethod.GET, false, null)).extracting(routingEntry)
+        .containsExactly(routingEntry3, routingEntry2, routingEntry4, routingEntry1);
+    assertThat(trie.lookup("/a/b", HttpMethod.GET, true, null)).extracting(routingEntry)
+        .containsExactly(routingEntry3);
+    assertThat(trie.lookup("/a/c", HttpMethod.GET, true, null)).extracting(routingEntry)
+        .containsExactly(routingEntry2);
+    assertThat(trie.lookup("/a/c", HttpMethod.POST, false, null)).extracting(routingEntry)
+        .containsExactly(routingEntry1);
+    assertThat(trie.lookup("/b", HttpMethod.GET, true, "other-1.0.0")).isEmpty();
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+      "a, /x/a/y, 3, 4, 0",
+      "a, /x/b/y, 3, 4, -1",
+      "b, /x/a/y, 3, 4, 1",
+      "ab, /x/a/y, 3, 4, 1",
+      "'', /x/a/y, 3, 3, 0",
+      "a, /x/ab/y, 3, 5, -1",
+  })
+  void testCompare(String key, String uri, int start, int end, int expect) {
+    assertThat(Integer.signum(RoutingTrie.compare(key, uri, start, end))).isEqualTo(expect);
+  }
+}
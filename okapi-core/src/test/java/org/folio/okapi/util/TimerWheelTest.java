@@ -0,0 +1,100 @@
+package org.folio.okapi.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTest {
+
+  static final class TestNode extends TimerWheel.Node<TestNode> {
+    final long expires;
+
+    TestNode(long expires) {
+      this.expires = expires;
+    }
+
+    @Override
+    long expires() {
+      return expires;
+    }
+  }
+
+  static final long START = 1_700_000_000_000L;
+
+  @Test
+  void testExpiry() {
+    List<TestNode> expired = new ArrayList<>();
+    TimerWheel<TestNode> wheel = new TimerWheel<>(START, expired::add);
+    long[] ttls = {0, 5, 20, 100, 1_500, 70_000, 5_000_000, 500_000_000L, 900_000_000L};
+    List<TestNode> nodes = new ArrayList<>();
+    for (long ttl : ttls) {
+      TestNode node = new TestNode(START + ttl);
+      nodes.add(node);
+      wheel.schedule(node);
+    }
+    assertThat(wheel.size()).isEqualTo(ttls.length);
+    // advance in irregular steps and check that each node expires no later than one tick late
+    long now = START;
+    while (now < START + 1_000_000_000L) {
+      now += now < START + 100_000 ? 7 : 3_333_333;
+      wheel.advance(now);
+      for (TestNode node : nodes) {
+        if (node.expires < now - (1 << TimerWheel.TICK_SHIFT) - 3_333_333) {
+          assertThat(expired).contains(node);
+        }
+        if (node.expires >= now) {
+          assertThat(expired).doesNotContain(node);
+        }
+      }
+    }
+    assertThat(expired).containsExactlyInAnyOrderElementsOf(nodes);
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  void testPrecision() {
+    List<TestNode> expired = new ArrayList<>();
+    TimerWheel<TestNode> wheel = new TimerWheel<>(START, expired::add);
+    TestNode node = new TestNode(START + 10_000);
+    wheel.schedule(node);
+    for (long now = START; now <= START + 10_000; now += 5) {
+      wheel.advance(now);
+    }
+    assertThat(expired).isEmpty();
+    wheel.advance(START + 10_000 + (2 << TimerWheel.TICK_SHIFT));
+    assertThat(expired).containsExactly(node);
+  }
+
+  @Test
+  void testCancel() {
+    List<TestNode> expired = new ArrayList<>();
+    TimerWheel<TestNode> wheel = new TimerWheel<>(START, expired::add);
+    TestNode a = new TestNode(START + 100);
+    TestNode b = new TestNode(START + 100);
+    TestNode c = new TestNode(START + 100);
+    wheel.schedule(a);
+    wheel.schedule(b);
+    wheel.schedule(c);
+    wheel.cancel(c); // head of bucket
+    wheel.cancel(a); // tail of bucket
+    wheel.cancel(a); // not in wheel
+    assertThat(wheel.size()).isEqualTo(1);
+    wheel.advance(START + 1000);
+    assertThat(expired).containsExactly(b);
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  void testOverdue() {
+    List<TestNode> expired = new ArrayList<>();
+    TimerWheel<TestNode> wheel = new TimerWheel<>(START, expired::add);
+    TestNode node = new TestNode(START - 1000);
+    wheel.schedule(node);
+    wheel.advance(START);
+    assertThat(expired).isEmpty(); // same tick: nothing happens
+    wheel.advance(START + (1 << TimerWheel.TICK_SHIFT));
+    assertThat(expired).containsExactly(node);
+  }
+}
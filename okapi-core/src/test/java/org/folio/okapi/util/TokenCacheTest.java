@@ -1,10 +1,12 @@
 package org.folio.okapi.util;
 
 import org.folio.okapi.util.TokenCache.CacheEntry;
-import org.folio.okapi.util.TokenCache.LruCache;
 import org.junit.Test;
 import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class TokenCacheTest {
@@ -50,21 +52,59 @@ public class TokenCacheTest {
   }
 
   @Test
-  public void testLruCacheEqualsHashCode() {
-    LruCache cacheA = new LruCache(10);
-    LruCache cacheB = new LruCache(10);
-    assertEquals(cacheA, cacheB);
-    assertEquals(cacheA.hashCode(), cacheB.hashCode());
-
-    // different entries
-    cacheA.put("key", new CacheEntry("token", "userId", "permissions", (System.currentTimeMillis() + 1000)));
-    assertNotEquals(cacheA, cacheB);
-    assertNotEquals(cacheA.hashCode(), cacheB.hashCode());
-
-    // different maxEntries
-    LruCache cacheC = new LruCache(11);
-    assertNotEquals(cacheB, cacheC);
-    assertNotEquals(cacheB.hashCode(), cacheC.hashCode());
+  public void testSegments() {
+    assertEquals(1, TokenCache.builder().withMaxSize(2).build().segmentCount());
+    assertEquals(1, TokenCache.builder().withMaxSize(127).build().segmentCount());
+    assertEquals(2, TokenCache.builder().withMaxSize(128).build().segmentCount());
+    assertEquals(16, TokenCache.builder().build().segmentCount());
+  }
+
+  @Test
+  public void testMaxSizeSegmented() {
+    int cap = 1000;
+    TokenCache cache = TokenCache.builder()
+        .withMaxSize(cap)
+        .build();
+    for (int i = 0; i < 3 * cap; i++) {
+      cache.put("tenant", "method", "path", "userId", "xokapiPerms", "foo" + i, "fooTok" + i);
+      assertTrue(cache.size() <= cap);
+    }
+    assertEquals(cap, cache.size());
+    // most recently added are kept
+    assertEquals("fooTok2999", cache.get("tenant", "method", "path", "userId", "foo2999").token);
+  }
+
+  @Test
+  public void testConcurrent() throws InterruptedException {
+    int cap = 500;
+    TokenCache cache = TokenCache.builder()
+        .withMaxSize(cap)
+        .build();
+    List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final int no = t;
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 5000; i++) {
+          String tok = "foo" + (i % 1000);
+          CacheEntry entry = cache.get("tenant", "method", "path", "userId", tok);
+          if (entry != null && !entry.token.equals(tok + "Tok")) {
+            errors.add(new AssertionError(entry.token));
+          }
+          if (entry == null || i % 7 == no) {
+            cache.put("tenant", "method", "path", "userId", "xokapiPerms", tok, tok + "Tok");
+          }
+        }
+      });
+      thread.setUncaughtExceptionHandler((th, e) -> errors.add(e));
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(List.of(), errors);
+    assertTrue(cache.size() <= cap);
   }
 
   @Test
@@ -90,9 +130,9 @@ public class TokenCacheTest {
       .pollInterval(10, TimeUnit.MILLISECONDS)
       .until(() -> System.currentTimeMillis() > (start + ttl));
 
-    // cache one more entry, which should result in pruning two expired entries
+    // cache one more entry, which should result in pruning all expired entries
     cache.put("tenant", "method", "path", "userId", "xokapiPerms", "bar", "barTok");
-    assertEquals(cap - 2, cache.size());
+    assertEquals(1, cache.size());
   }
 
   @Test
@@ -114,4 +154,24 @@ public class TokenCacheTest {
     assertEquals("fooTok", cache.get("tenantB", "method", "path", "userId", "foo").token);
     assertEquals(2, cache.size());
   }
+
+  @Test
+  public void testTokenDigest() {
+    TokenCache cache = TokenCache.builder().build();
+    cache.put("tenant", "method", "path", "userId", "xokapiPerms", "a.b\n.c", "tok");
+    // line breaks and tabs in token are ignored
+    assertEquals("tok", cache.get("tenant", "method", "path", "userId", "a.b.c").token);
+    assertEquals("tok", cache.get("tenant", "method", "path", "userId",
+        TokenDigest.of("a\t.b.\r\nc")).token);
+    assertNull(cache.get("tenant", "method", "path", "userId", "a.b.d"));
+    assertNull(cache.get("tenant", "method", "path", "userId", (String) null));
+
+    assertNull(TokenDigest.of(null));
+    assertEquals(TokenDigest.of("x\u00e6y"), TokenDigest.of("x\u00e6\ny"));
+    assertNotEquals(TokenDigest.of("x\u00e6y"), TokenDigest.of("x\u00e7y"));
+    assertEquals(TokenDigest.of("abc").hashCode(), TokenDigest.of("abc").hashCode());
+    assertEquals(32, TokenDigest.of("abc").toString().length());
+    // first half of SHA-256 of "abc"
+    assertEquals("ba7816bf8f01cfea414140de5dae2223", TokenDigest.of("abc").toString());
+  }
 }
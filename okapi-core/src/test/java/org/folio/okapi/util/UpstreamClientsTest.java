@@ -0,0 +1,139 @@
+package org.folio.okapi.util;
+
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.http.ConnectionPoolTooBusyException;
+import io.vertx.core.http.HttpClosedException;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.net.ConnectException;
+import java.util.concurrent.TimeoutException;
+import org.assertj.core.api.WithAssertions;
+import org.folio.okapi.ConfNames;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class UpstreamClientsTest implements WithAssertions {
+
+  /**
+   * Start server that replies with the HTTP version of the request.
+   */
+  private static Future<HttpServer> server(Vertx vertx, boolean http2) {
+    return vertx.createHttpServer(new HttpServerOptions().setHttp2ClearTextEnabled(http2))
+        .requestHandler(req -> req.response().end(req.version().alpnName()))
+        .listen(0);
+  }
+
+  private static Future<String> get(UpstreamClients clients, String mode, String url) {
+    return clients.request(mode, url, new RequestOptions().setAbsoluteURI(url + "/"))
+        .compose(req -> req.send())
+        .compose(res -> res.body())
+        .map(body -> body.toString());
+  }
+
+  @Test
+  void unknownMode(Vertx vertx) {
+    JsonObject config = new JsonObject().put(ConfNames.HTTP2_PROXY, "h2");
+    assertThatThrownBy(() -> new UpstreamClients(vertx, config))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Unknown HTTP/2 mode h2");
+    assertThat(UpstreamClients.isMode(null)).isFalse();
+    assertThat(UpstreamClients.isMode(UpstreamClients.UPGRADE)).isTrue();
+  }
+
+  @Test
+  void defaultMode(Vertx vertx) {
+    assertThat(new UpstreamClients(vertx, new JsonObject()).getDefaultMode())
+        .isEqualTo(UpstreamClients.OFF);
+    JsonObject config = new JsonObject()
+        .put(ConfNames.HTTP2_PROXY, UpstreamClients.PRIOR_KNOWLEDGE);
+    UpstreamClients clients = new UpstreamClients(vertx, config);
+    assertThat(clients.getDefaultMode()).isEqualTo(UpstreamClients.PRIOR_KNOWLEDGE);
+    assertThat(clients.getClient(null, "http://localhost:1"))
+        .isSameAs(clients.getClient(UpstreamClients.PRIOR_KNOWLEDGE, "http://localhost:1"))
+        .isNotSameAs(clients.getClient(UpstreamClients.OFF, "http://localhost:1"));
+    assertThat(clients.isHttp2(null)).isTrue();
+    assertThat(clients.isHttp2(UpstreamClients.UPGRADE)).isTrue();
+    assertThat(clients.isHttp2(UpstreamClients.OFF)).isFalse();
+    assertThat(new UpstreamClients(vertx, new JsonObject()).isHttp2(null)).isFalse();
+  }
+
+  @Test
+  void http2(Vertx vertx, VertxTestContext vtc) {
+    UpstreamClients clients = new UpstreamClients(vertx, new JsonObject());
+    server(vertx, true)
+        .compose(server -> {
+          String url = "http://localhost:" + server.actualPort();
+          return get(clients, null, url)
+              .map(version -> assertThat(version).isEqualTo("http/1.1"))
+              .compose(x -> get(clients, UpstreamClients.PRIOR_KNOWLEDGE, url))
+              .map(version -> assertThat(version).isEqualTo("h2"))
+              .compose(x -> get(clients, UpstreamClients.UPGRADE, url))
+              .map(version -> assertThat(version).isEqualTo("h2"));
+        })
+        .onComplete(vtc.succeedingThenComplete());
+  }
+
+  @Test
+  void fallbackToHttp1(Vertx vertx, VertxTestContext vtc) {
+    UpstreamClients clients = new UpstreamClients(vertx, new JsonObject());
+    server(vertx, false)
+        .compose(server -> {
+          String url = "http://localhost:" + server.actualPort();
+          return get(clients, UpstreamClients.UPGRADE, url)
+              .map(version -> assertThat(version).isEqualTo("http/1.1"))
+              .compose(x -> get(clients, UpstreamClients.PRIOR_KNOWLEDGE, url))
+              .map(version -> {
+                assertThat(version).isEqualTo("http/1.1");
+                assertThat(clients.getClient(UpstreamClients.PRIOR_KNOWLEDGE, url))
+                    .isSameAs(clients.getClient(UpstreamClients.OFF, url));
+                // a new instance may get the URL
+                clients.remove(url);
+                return assertThat(clients.getClient(UpstreamClients.PRIOR_KNOWLEDGE, url))
+                    .isNotSameAs(clients.getClient(UpstreamClients.OFF, url));
+              });
+        })
+        .onComplete(vtc.succeedingThenComplete());
+  }
+
+  @Test
+  void noFallbackIfInstanceIsDown(Vertx vertx, VertxTestContext vtc) {
+    UpstreamClients clients = new UpstreamClients(vertx, new JsonObject());
+    server(vertx, true)
+        .compose(server -> server.close().map("http://localhost:" + server.actualPort()))
+        .compose(url -> get(clients, UpstreamClients.PRIOR_KNOWLEDGE, url)
+            .onComplete(vtc.failing(e -> {
+              assertThat(clients.getClient(UpstreamClients.PRIOR_KNOWLEDGE, url))
+                  .isNotSameAs(clients.getClient(UpstreamClients.OFF, url));
+              vtc.completeNow();
+            })));
+  }
+
+  @Test
+  void isNegotiationFailure() {
+    assertThat(UpstreamClients.isNegotiationFailure(
+        Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR, "not SETTINGS"))).isTrue();
+    assertThat(UpstreamClients.isNegotiationFailure(new HttpClosedException("closed")))
+        .isTrue();
+    assertThat(UpstreamClients.isNegotiationFailure(
+        new VertxException("Connection was closed", true))).isTrue();
+    assertThat(UpstreamClients.isNegotiationFailure(
+        new VertxException("x", new HttpClosedException("closed")))).isTrue();
+    assertThat(UpstreamClients.isNegotiationFailure(new ConnectionPoolTooBusyException("busy")))
+        .isFalse();
+    assertThat(UpstreamClients.isNegotiationFailure(new TimeoutException("timeout")))
+        .isFalse();
+    assertThat(UpstreamClients.isNegotiationFailure(new ConnectException("refused")))
+        .isFalse();
+    assertThat(UpstreamClients.isNegotiationFailure(new VertxException("other", true)))
+        .isFalse();
+  }
+}